@@ -0,0 +1,122 @@
+package com.bookingchatbot.benchmark.ai;
+
+import com.bookingchatbot.ai.BookingFastPath;
+import com.bookingchatbot.repository.BookingRepository;
+import com.bookingchatbot.service.BookingService;
+import com.bookingchatbot.service.ChatMailbox;
+import dev.langchain4j.memory.chat.ChatMemoryProvider;
+import dev.langchain4j.memory.chat.TokenWindowChatMemory;
+import dev.langchain4j.model.openai.OpenAiTokenizer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Share of turns answered by {@link BookingFastPath} and its per-turn latency, replaying the
+ * labelled conversations in {@code fast-path-turns.tsv} against the demo bookings.
+ * <p>
+ * Each trial prints how many turns the fast path served and how many of them were labelled
+ * "fast" (precision) against how many labelled turns it caught (recall). The timed loop replays
+ * the opening turn of every conversation in a new chat, either only the turns labelled "fast"
+ * (the whole cost of those turns) or only the others (the overhead added in front of the model).
+ * Chat memory is a 1000-token window, as configured in the application.
+ * <pre>
+ * java -jar target/benchmarks.jar BookingFastPathBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class BookingFastPathBenchmark {
+
+    @Param({"fast", "llm"})
+    String turns;
+
+    private BookingFastPath fastPath;
+    private List<String> messages;
+    private int next;
+    private long chats;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        List<List<LabelledTurn>> conversations = readConversations();
+        OpenAiTokenizer tokenizer = new OpenAiTokenizer();
+        ChatMemoryProvider chatMemoryProvider = chatId -> TokenWindowChatMemory.builder()
+                .id(chatId)
+                .maxTokens(1000, tokenizer)
+                .build();
+        fastPath = new BookingFastPath(new BookingService(new BookingRepository(), event -> {
+        }, new SimpleMeterRegistry()), chatMemoryProvider, new ChatMailbox(3), Jackson2ObjectMapperBuilder.json().build());
+
+        int total = 0, labelledFast = 0, served = 0, servedCorrectly = 0;
+        for (int i = 0; i < conversations.size(); i++) {
+            for (LabelledTurn turn : conversations.get(i)) {
+                boolean answered = fastPath.answer("labelled-" + i, turn.message()).isPresent();
+                total++;
+                labelledFast += turn.fast() ? 1 : 0;
+                served += answered ? 1 : 0;
+                servedCorrectly += answered && turn.fast() ? 1 : 0;
+            }
+        }
+        System.out.printf("%n%d turns in %d conversations, %d labelled fast: served %d (%.0f%% of traffic), "
+                        + "precision %.2f, recall %.2f%n",
+                total, conversations.size(), labelledFast, served, 100.0 * served / total,
+                served == 0 ? 0 : (double) servedCorrectly / served, (double) servedCorrectly / labelledFast);
+
+        messages = conversations.stream()
+                .map(conversation -> conversation.get(0))
+                .filter(turn -> turn.fast() == "fast".equals(turns))
+                .map(LabelledTurn::message)
+                .toList();
+    }
+
+    @Benchmark
+    public Optional<String> answer() {
+        String message = messages.get(next);
+        next = (next + 1) % messages.size();
+        return fastPath.answer("bench-" + chats++, message);
+    }
+
+    private List<List<LabelledTurn>> readConversations() throws IOException {
+        List<List<LabelledTurn>> conversations = new ArrayList<>();
+        List<LabelledTurn> conversation = new ArrayList<>();
+        try (InputStream inputStream = getClass().getResourceAsStream("/fast-path-turns.tsv");
+             BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("#")) {
+                    continue;
+                }
+                if (line.isBlank()) {
+                    if (!conversation.isEmpty()) {
+                        conversations.add(conversation);
+                        conversation = new ArrayList<>();
+                    }
+                    continue;
+                }
+                String[] columns = line.split("\t", 2);
+                conversation.add(new LabelledTurn("fast".equals(columns[0]), columns[1]));
+            }
+        }
+        if (!conversation.isEmpty()) {
+            conversations.add(conversation);
+        }
+        return conversations;
+    }
+
+    private record LabelledTurn(boolean fast, String message) {
+    }
+}
@@ -0,0 +1,65 @@
+package com.bookingchatbot.benchmark.ai;
+
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.agent.tool.ToolSpecification;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.StreamingResponseHandler;
+import dev.langchain4j.model.chat.StreamingChatLanguageModel;
+import dev.langchain4j.model.output.Response;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming chat model that answers every user message with the same set of tool calls and,
+ * once their results are in, with a short text. Runs in-process and returns immediately, so
+ * only tool execution is measured.
+ */
+class FakeToolCallingModel implements StreamingChatLanguageModel {
+
+    private final List<ToolExecutionRequest> toolCalls;
+
+    FakeToolCallingModel(List<ToolExecutionRequest> toolCalls) {
+        this.toolCalls = toolCalls;
+    }
+
+    /**
+     * {@code getBookingDetails} calls for the first {@code count} demo bookings.
+     */
+    static FakeToolCallingModel lookingUpDemoBookings(int count) {
+        List<String> firstNames = List.of("John", "Jane", "Michael", "Sarah", "Robert");
+        List<String> lastNames = List.of("Doe", "Smith", "Johnson", "Williams", "Taylor");
+        List<ToolExecutionRequest> toolCalls = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            toolCalls.add(ToolExecutionRequest.builder()
+                    .id("call_" + i)
+                    .name("getBookingDetails")
+                    .arguments("{\"bookingNumber\": \"BK10%d\", \"firstName\": \"%s\", \"lastName\": \"%s\"}"
+                            .formatted(i + 1, firstNames.get(i), lastNames.get(i)))
+                    .build());
+        }
+        return new FakeToolCallingModel(toolCalls);
+    }
+
+    @Override
+    public void generate(List<ChatMessage> messages, StreamingResponseHandler<AiMessage> handler) {
+        handler.onNext("Here ");
+        handler.onNext("are ");
+        handler.onNext("your ");
+        handler.onNext("bookings.");
+        handler.onComplete(Response.from(AiMessage.from("Here are your bookings.")));
+    }
+
+    @Override
+    public void generate(List<ChatMessage> messages,
+                         List<ToolSpecification> toolSpecifications,
+                         StreamingResponseHandler<AiMessage> handler) {
+        if (messages.get(messages.size() - 1) instanceof UserMessage) {
+            handler.onComplete(Response.from(AiMessage.from(toolCalls)));
+        } else {
+            generate(messages, handler);
+        }
+    }
+}
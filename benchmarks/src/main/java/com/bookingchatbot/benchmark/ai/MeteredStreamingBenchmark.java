@@ -0,0 +1,81 @@
+package com.bookingchatbot.benchmark.ai;
+
+import com.bookingchatbot.ai.MeteredStreamingChatModel;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.StreamingResponseHandler;
+import dev.langchain4j.model.chat.StreamingChatLanguageModel;
+import dev.langchain4j.model.output.Response;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of metering on the per-token path: a token passed to the handler of a model request
+ * directly ({@code metered=false}) or through {@link MeteredStreamingChatModel}. Each iteration
+ * starts a new request, so the first-token timer is recorded once and every later token only
+ * counts.
+ * <p>
+ * Run with {@code -prof gc}: {@code gc.alloc.rate.norm} should be 0 B/op either way.
+ * <pre>
+ * java -jar target/benchmarks.jar MeteredStreamingBenchmark -prof gc
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MeteredStreamingBenchmark {
+
+    private static final List<ChatMessage> MESSAGES = List.of(UserMessage.from("Can I bring my dog?"));
+    private static final String[] TOKENS = {"Yes", ",", " small", " pets", " travel", " in", " the", " cabin"};
+
+    @Param({"false", "true"})
+    boolean metered;
+
+    private StreamingChatLanguageModel model;
+    private StreamingResponseHandler<AiMessage> request;
+    private long received;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        StreamingChatLanguageModel capturing = new StreamingChatLanguageModel() {
+            @Override
+            public void generate(List<ChatMessage> messages, StreamingResponseHandler<AiMessage> handler) {
+                request = handler;
+            }
+        };
+        model = metered ? new MeteredStreamingChatModel(capturing, new SimpleMeterRegistry(), "primary") : capturing;
+    }
+
+    @Setup(Level.Iteration)
+    public void startRequest() {
+        model.generate(MESSAGES, new StreamingResponseHandler<>() {
+            @Override
+            public void onNext(String token) {
+                received += token.length();
+            }
+
+            @Override
+            public void onComplete(Response<AiMessage> response) {
+            }
+
+            @Override
+            public void onError(Throwable error) {
+            }
+        });
+    }
+
+    @Benchmark
+    public long token() {
+        request.onNext(TOKENS[next]);
+        next = (next + 1) & (TOKENS.length - 1);
+        return received;
+    }
+}
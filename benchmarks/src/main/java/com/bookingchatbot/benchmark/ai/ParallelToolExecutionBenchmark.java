@@ -0,0 +1,111 @@
+package com.bookingchatbot.benchmark.ai;
+
+import com.bookingchatbot.ai.AiAssistant;
+import com.bookingchatbot.ai.AiTools;
+import com.bookingchatbot.ai.ParallelToolExecutor;
+import com.bookingchatbot.ai.ToolResultCache;
+import com.bookingchatbot.model.Booking;
+import com.bookingchatbot.repository.BookingRepository;
+import com.bookingchatbot.service.BookingService;
+import com.bookingchatbot.service.ChatMailbox;
+import com.bookingchatbot.service.IdempotencyCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.langchain4j.memory.chat.ChatMemoryProvider;
+import dev.langchain4j.memory.chat.MessageWindowChatMemory;
+import dev.langchain4j.model.openai.OpenAiTokenizer;
+import dev.langchain4j.service.AiServices;
+import dev.langchain4j.store.memory.chat.InMemoryChatMemoryStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of an assistant turn whose model response asks for several booking lookups at once,
+ * executed one after another (LangChain4j's default) or by {@link ParallelToolExecutor}.
+ * <p>
+ * The model is {@link FakeToolCallingModel}; each repository lookup waits
+ * {@code lookupLatencyMillis} to stand in for a database round trip.
+ * <pre>
+ * java -jar target/benchmarks.jar ParallelToolExecutionBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ParallelToolExecutionBenchmark {
+
+    @Param({"sequential", "parallel"})
+    String execution;
+
+    @Param({"1", "2", "4"})
+    int toolCalls;
+
+    @Param({"5"})
+    long lookupLatencyMillis;
+
+    private InMemoryChatMemoryStore chatMemoryStore;
+    private ExecutorService executor;
+    private AiAssistant assistant;
+    private long chats;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        chatMemoryStore = new InMemoryChatMemoryStore();
+        ChatMemoryProvider chatMemoryProvider = chatId -> MessageWindowChatMemory.builder()
+                .id(chatId)
+                .maxMessages(20)
+                .chatMemoryStore(chatMemoryStore)
+                .build();
+        BookingRepository repository = new BookingRepository() {
+            @Override
+            public Optional<Booking> findByBookingNumberAndCustomer(String bookingNumber, String firstName, String lastName) {
+                try {
+                    Thread.sleep(lookupLatencyMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.findByBookingNumberAndCustomer(bookingNumber, firstName, lastName);
+            }
+        };
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        AiTools aiTools = new AiTools(new BookingService(repository, event -> {
+        }, meterRegistry), new ToolResultCache(chatMemoryProvider, new OpenAiTokenizer(), objectMapper),
+                new IdempotencyCache(Duration.ofHours(24), 10_000, Clock.systemUTC()), new ChatMailbox(3), meterRegistry);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+
+        AiServices<AiAssistant> builder = AiServices.builder(AiAssistant.class)
+                .streamingChatLanguageModel(FakeToolCallingModel.lookingUpDemoBookings(toolCalls))
+                .chatMemoryProvider(chatMemoryProvider);
+        assistant = ("parallel".equals(execution)
+                ? builder.tools(new ParallelToolExecutor(List.of(aiTools), chatMemoryProvider, executor, objectMapper).tools())
+                : builder.tools(aiTools))
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.close();
+    }
+
+    @Benchmark
+    public List<String> turn() {
+        // A new chat per turn, so the tool result cache never answers
+        String chatId = "chat-" + chats++;
+        List<String> tokens = assistant.chat(chatId, "Show me our bookings").collectList().block();
+        chatMemoryStore.deleteMessages(chatId);
+        return tokens;
+    }
+}
@@ -0,0 +1,103 @@
+package com.bookingchatbot.benchmark.ai;
+
+import com.bookingchatbot.ai.CircuitBreaker;
+import com.bookingchatbot.ai.ResilientStreamingChatModel;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.StreamingResponseHandler;
+import dev.langchain4j.model.chat.StreamingChatLanguageModel;
+import dev.langchain4j.model.output.Response;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Time to first token through {@link ResilientStreamingChatModel}, with and without hedging,
+ * against an in-process fake model with injected latency: most requests answer after 20-40 ms,
+ * {@code slowShare} of them after 400 ms, like a provider with a slow tail.
+ * <p>
+ * Each trial prints how many requests the fake model received per turn, i.e. the extra load
+ * hedging costs.
+ * <pre>
+ * java -jar target/benchmarks.jar ResilientChatModelBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class ResilientChatModelBenchmark {
+
+    private static final List<ChatMessage> MESSAGES = List.of(UserMessage.from("Can I bring my dog?"));
+
+    @Param({"off", "on"})
+    String hedging;
+
+    @Param({"0.03"})
+    double slowShare;
+
+    private ScheduledExecutorService scheduler;
+    private ResilientStreamingChatModel model;
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong turns = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        scheduler = Executors.newScheduledThreadPool(2);
+        StreamingChatLanguageModel fakeModel = new StreamingChatLanguageModel() {
+            @Override
+            public void generate(List<ChatMessage> messages, StreamingResponseHandler<AiMessage> handler) {
+                requests.incrementAndGet();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long delayMillis = random.nextDouble() < slowShare ? 400 : random.nextLong(20, 40);
+                scheduler.schedule(() -> {
+                    handler.onNext("Yes");
+                    handler.onComplete(Response.from(AiMessage.from("Yes")));
+                }, delayMillis, TimeUnit.MILLISECONDS);
+            }
+        };
+        model = new ResilientStreamingChatModel(fakeModel, Duration.ofSeconds(5), "on".equals(hedging), 0.95,
+                Duration.ofSeconds(1), Duration.ofMillis(10), 20,
+                new CircuitBreaker(5, Duration.ofSeconds(30), Clock.systemUTC()), scheduler);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.out.printf("%n[hedging %s] %.3f requests per turn, hedge delay %d ms%n",
+                hedging, (double) requests.get() / turns.get(), model.hedgeDelay().toMillis());
+        scheduler.shutdownNow();
+    }
+
+    @Benchmark
+    public String firstToken() {
+        turns.incrementAndGet();
+        CompletableFuture<String> firstToken = new CompletableFuture<>();
+        model.generate(MESSAGES, new StreamingResponseHandler<>() {
+            @Override
+            public void onNext(String token) {
+                firstToken.complete(token);
+            }
+
+            @Override
+            public void onComplete(Response<AiMessage> response) {
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                firstToken.completeExceptionally(error);
+            }
+        });
+        return firstToken.join();
+    }
+}
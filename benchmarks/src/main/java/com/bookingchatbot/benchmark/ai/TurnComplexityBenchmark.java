@@ -0,0 +1,71 @@
+package com.bookingchatbot.benchmark.ai;
+
+import com.bookingchatbot.ai.TurnComplexity;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.UserMessage;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of scoring a turn for model routing, and the share of customer turns in
+ * {@code labelled-turns.tsv} that a light route with {@code maxComplexity} 1 would take,
+ * including how many of those need policy knowledge (should be none).
+ * <p>
+ * Turns are scored on their own, without the assistant's previous message, so confirmations
+ * of booking changes count as light here; in a conversation they go to the large model.
+ * <pre>
+ * java -jar target/benchmarks.jar TurnComplexityBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TurnComplexityBenchmark {
+
+    private List<List<ChatMessage>> turns;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        turns = new ArrayList<>();
+        List<Boolean> needsPolicy = new ArrayList<>();
+        try (InputStream inputStream = getClass().getResourceAsStream("/labelled-turns.tsv");
+             BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank() && !line.startsWith("#")) {
+                    String[] columns = line.split("\t", 2);
+                    turns.add(List.of(UserMessage.from(columns[1])));
+                    needsPolicy.add("rag".equals(columns[0]));
+                }
+            }
+        }
+        int light = 0, policyToLight = 0;
+        for (int i = 0; i < turns.size(); i++) {
+            if (TurnComplexity.score(turns.get(i)) <= 1) {
+                light++;
+                policyToLight += needsPolicy.get(i) ? 1 : 0;
+            }
+        }
+        System.out.printf("%n%d turns: %d (%.0f%%) to the light model, %d of them labelled as needing policy knowledge%n",
+                turns.size(), light, 100.0 * light / turns.size(), policyToLight);
+    }
+
+    @Benchmark
+    public int score() {
+        List<ChatMessage> turn = turns.get(next);
+        next = (next + 1) % turns.size();
+        return TurnComplexity.score(turn);
+    }
+}
@@ -0,0 +1,98 @@
+package com.bookingchatbot.benchmark.config;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.memory.ChatMemory;
+import dev.langchain4j.memory.chat.TokenWindowChatMemory;
+import dev.langchain4j.model.Tokenizer;
+import dev.langchain4j.model.openai.OpenAiTokenizer;
+import dev.langchain4j.store.memory.chat.InMemoryChatMemoryStore;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token counting in the chat memory of a conversation, built like the application's: a
+ * {@link TokenWindowChatMemory} of {@code maxTokens} tokens over the shared in-memory store,
+ * counted with the OpenAI tokenizer.
+ * <p>
+ * The window is full of alternating customer and assistant messages of 25 to 45 tokens.
+ * {@code add} adds a message, which recounts the window and evicts the oldest messages,
+ * {@code messages} reads the window, which also counts it, as the assistant does before every
+ * model request, and {@code countTokens} only counts the messages of the window.
+ * <pre>
+ * java -jar target/benchmarks.jar ChatMemoryBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChatMemoryBenchmark {
+
+    private static final String[] MESSAGES = {
+            "Hi, I would like to change my booking BK103 for Michael Johnson to a flight from JFK to LHR on the 20th.",
+            "Of course! Your booking BK103 is currently confirmed for a flight from LAX to SFO. Changes are free up to 24 hours before departure.",
+            "Great, what would the fee be if I moved it to a business class seat on the same day instead?",
+            "Moving to business class costs 120 EUR on top of your fare. Would you like me to go ahead with the change to the 20th from JFK to LHR?",
+            "Yes, please go ahead and change it. Could you also confirm the new departure time for me?",
+            "Done! Your booking BK103 now departs from JFK to LHR on the 20th. Is there anything else I can help you with today?"
+    };
+
+    @Param({"1000", "4000", "16000"})
+    int maxTokens;
+
+    private Tokenizer tokenizer;
+    private ChatMemory memory;
+    private ChatMessage[] messages;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        tokenizer = new OpenAiTokenizer();
+        memory = TokenWindowChatMemory.builder()
+                .id("chat")
+                .maxTokens(maxTokens, tokenizer)
+                .chatMemoryStore(new InMemoryChatMemoryStore())
+                .build();
+        messages = new ChatMessage[MESSAGES.length];
+        for (int i = 0; i < MESSAGES.length; i++) {
+            messages[i] = i % 2 == 0 ? UserMessage.from(MESSAGES[i]) : AiMessage.from(MESSAGES[i]);
+        }
+        int tokens = 0;
+        while (tokens < 2 * maxTokens) {
+            ChatMessage message = nextMessage();
+            memory.add(message);
+            tokens += tokenizer.estimateTokenCountInMessage(message);
+        }
+        List<ChatMessage> window = memory.messages();
+        System.out.printf("%n[%d tokens] %d messages, %d tokens in the window%n",
+                maxTokens, window.size(), tokenizer.estimateTokenCountInMessages(window));
+    }
+
+    @Benchmark
+    public ChatMemory add() {
+        memory.add(nextMessage());
+        return memory;
+    }
+
+    @Benchmark
+    public List<ChatMessage> messages() {
+        return memory.messages();
+    }
+
+    @Benchmark
+    public int countTokens() {
+        return tokenizer.estimateTokenCountInMessages(memory.messages());
+    }
+
+    private ChatMessage nextMessage() {
+        ChatMessage message = messages[next];
+        next = (next + 1) % messages.length;
+        return message;
+    }
+}
@@ -0,0 +1,400 @@
+package com.bookingchatbot.benchmark.config;
+
+import com.bookingchatbot.ai.AiAssistant;
+import com.bookingchatbot.ai.AiTools;
+import com.bookingchatbot.ai.BookingFastPath;
+import com.bookingchatbot.ai.ModelRouter;
+import com.bookingchatbot.ai.ParallelToolExecutor;
+import com.bookingchatbot.ai.SemanticAnswerCache;
+import com.bookingchatbot.ai.ToolResultCache;
+import com.bookingchatbot.config.StreamProperties;
+import com.bookingchatbot.config.WebSocketConfig;
+import com.bookingchatbot.controller.ChatController;
+import com.bookingchatbot.controller.ChatWebSocketHandler;
+import com.bookingchatbot.controller.TokenCoalescer;
+import com.bookingchatbot.controller.TurnReplayBuffer;
+import com.bookingchatbot.model.Booking;
+import com.bookingchatbot.repository.BookingRepository;
+import com.bookingchatbot.service.BookingService;
+import com.bookingchatbot.service.IdempotencyCache;
+import com.bookingchatbot.service.ChatMailbox;
+import com.bookingchatbot.service.ChatService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.agent.tool.ToolSpecification;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.memory.chat.ChatMemoryProvider;
+import dev.langchain4j.memory.chat.MessageWindowChatMemory;
+import dev.langchain4j.model.StreamingResponseHandler;
+import dev.langchain4j.model.chat.StreamingChatLanguageModel;
+import dev.langchain4j.model.openai.OpenAiTokenizer;
+import dev.langchain4j.model.output.Response;
+import dev.langchain4j.service.AiServices;
+import dev.langchain4j.store.memory.chat.InMemoryChatMemoryStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.autoconfigure.context.PropertyPlaceholderAutoConfiguration;
+import org.springframework.boot.autoconfigure.http.HttpMessageConvertersAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.embedded.EmbeddedWebServerFactoryCustomizerAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.DispatcherServletAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.ServletWebServerFactoryAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcAutoConfiguration;
+import org.springframework.boot.autoconfigure.websocket.servlet.WebSocketServletAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * {@code sessions} chat sessions at once against the running web server, with request handling,
+ * tool calls and model responses on platform threads or on virtual threads
+ * ({@code spring.threads.virtual.enabled}).
+ * <p>
+ * Every session sends {@code turnsPerSession} messages one after another. The assistant is the
+ * real one over a local fake model: after {@code firstTokenMillis} the model asks for a booking
+ * lookup, which blocks for {@code lookupLatencyMillis} like a database round trip, and then
+ * streams {@code tokensPerAnswer} tokens every {@code tokenIntervalMillis}. Like the OpenAI
+ * client, the fake model calls back on a small pool of I/O threads. The sessions share
+ * WebSocket connections, {@code sessionsPerConnection} to each, as one connection per session
+ * would need more file descriptors than a single process usually gets. Each iteration prints
+ * the time from sending a message to the end of its answer, process CPU time per turn and the
+ * most platform threads alive at once.
+ * <pre>
+ * java -jar target/benchmarks.jar VirtualThreadsBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class VirtualThreadsBenchmark {
+
+    @Param({"platform", "virtual"})
+    String threads;
+
+    @Param({"10000"})
+    int sessions;
+
+    @Param({"50"})
+    int sessionsPerConnection;
+
+    @Param({"2"})
+    int turnsPerSession;
+
+    @Param({"100"})
+    long firstTokenMillis;
+
+    @Param({"5"})
+    long lookupLatencyMillis;
+
+    @Param({"40"})
+    int tokensPerAnswer;
+
+    @Param({"10"})
+    long tokenIntervalMillis;
+
+    private ServletWebServerApplicationContext context;
+    private URI socketUri;
+    private long[] latencyNanos;
+    private final AtomicInteger failedTurns = new AtomicInteger();
+    private long cpuNanos;
+    private int peakThreads;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = (ServletWebServerApplicationContext) new SpringApplicationBuilder(Server.class)
+                // As arguments, which take precedence over the application.properties of the application
+                .run("--server.port=0",
+                        "--spring.main.banner-mode=off",
+                        "--logging.level.root=warn",
+                        "--spring.threads.virtual.enabled=" + "virtual".equals(threads),
+                        "--chatbot.stream.replay.max-turns=0",
+                        "--chatbot.stream.socket.max-turns=" + sessionsPerConnection,
+                        "--benchmark.first-token-millis=" + firstTokenMillis,
+                        "--benchmark.lookup-latency-millis=" + lookupLatencyMillis,
+                        "--benchmark.tokens-per-answer=" + tokensPerAnswer,
+                        "--benchmark.token-interval-millis=" + tokenIntervalMillis);
+        socketUri = URI.create("ws://127.0.0.1:" + context.getWebServer().getPort() + "/api/chat/ws");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Setup(Level.Iteration)
+    public void resetIteration() {
+        latencyNanos = new long[sessions * turnsPerSession];
+        failedTurns.set(0);
+        ManagementFactory.getThreadMXBean().resetPeakThreadCount();
+    }
+
+    @TearDown(Level.Iteration)
+    public void report() {
+        long[] sorted = latencyNanos.clone();
+        Arrays.sort(sorted);
+        long modelMillis = 2 * firstTokenMillis + lookupLatencyMillis + tokensPerAnswer * tokenIntervalMillis;
+        System.out.printf("%n[%s threads] turn latency p50 %.1f ms, p99 %.1f ms (model and lookup %d ms), "
+                        + "%.0f us CPU/turn, %d platform threads at most, %d turns failed%n",
+                threads, sorted[sorted.length / 2] / 1e6, sorted[(int) (sorted.length * 0.99)] / 1e6, modelMillis,
+                cpuNanos / 1e3 / latencyNanos.length, peakThreads, failedTurns.get());
+    }
+
+    @Benchmark
+    public long chat() throws InterruptedException {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        CountDownLatch finished = new CountDownLatch(sessions);
+        long cpuBefore = processCpuNanos();
+        try (HttpClient client = HttpClient.newHttpClient()) {
+            List<Connection> connections = new ArrayList<>();
+            for (int i = 0; i < sessions; i += sessionsPerConnection) {
+                connections.add(new Connection(client, socketUri));
+            }
+            for (int i = 0; i < sessions; i++) {
+                int session = i;
+                Connection connection = connections.get(session / sessionsPerConnection);
+                Thread.ofVirtual().start(() -> {
+                    try {
+                        for (int turn = 0; turn < turnsPerSession; turn++) {
+                            long start = System.nanoTime();
+                            connection.turn(session + "-" + turn, "chat-" + session, "Show me our bookings").join();
+                            latencyNanos[session * turnsPerSession + turn] = System.nanoTime() - start;
+                        }
+                    } catch (CompletionException e) {
+                        if (failedTurns.getAndIncrement() == 0) {
+                            System.out.println("Turn failed: " + e.getCause().getMessage());
+                        }
+                    } finally {
+                        finished.countDown();
+                    }
+                });
+            }
+            finished.await();
+            connections.forEach(Connection::close);
+        }
+        cpuNanos = processCpuNanos() - cpuBefore;
+        peakThreads = threadBean.getPeakThreadCount();
+        return peakThreads;
+    }
+
+    private static long processCpuNanos() {
+        return ((com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean()).getProcessCpuTime();
+    }
+
+    /**
+     * One WebSocket carrying the turns of several sessions.
+     */
+    private static class Connection implements WebSocket.Listener {
+
+        private final WebSocket socket;
+        private final ReentrantLock sending = new ReentrantLock();
+        private final Map<String, CompletableFuture<Void>> turns = new ConcurrentHashMap<>();
+        private final StringBuilder message = new StringBuilder();
+
+        Connection(HttpClient client, URI uri) {
+            this.socket = client.newWebSocketBuilder().buildAsync(uri, this).join();
+        }
+
+        CompletableFuture<Void> turn(String id, String chatId, String text) {
+            CompletableFuture<Void> end = new CompletableFuture<>();
+            turns.put(id, end);
+            String request = "{\"id\":\"%s\",\"chatId\":\"%s\",\"message\":\"%s\"}".formatted(id, chatId, text);
+            // The JDK client allows one outstanding send per connection
+            sending.lock();
+            try {
+                socket.sendText(request, true).join();
+            } finally {
+                sending.unlock();
+            }
+            return end;
+        }
+
+        void close() {
+            socket.sendClose(WebSocket.NORMAL_CLOSURE, "").join();
+        }
+
+        @Override
+        public CompletionStage<?> onText(WebSocket socket, CharSequence data, boolean last) {
+            message.append(data);
+            if (last) {
+                String frame = message.toString();
+                message.setLength(0);
+                if (frame.contains("\"end\":true")) {
+                    int start = frame.indexOf("\"id\":\"") + 6;
+                    CompletableFuture<Void> end = turns.remove(frame.substring(start, frame.indexOf('"', start)));
+                    if (frame.contains("\"error\"")) {
+                        end.completeExceptionally(new IllegalStateException(frame));
+                    } else {
+                        end.complete(null);
+                    }
+                }
+            }
+            socket.request(1);
+            return null;
+        }
+    }
+
+    /**
+     * The web server with the chat endpoints, the real assistant and a fake model.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @EnableConfigurationProperties(StreamProperties.class)
+    @Import({PropertyPlaceholderAutoConfiguration.class, ServletWebServerFactoryAutoConfiguration.class,
+            EmbeddedWebServerFactoryCustomizerAutoConfiguration.class, DispatcherServletAutoConfiguration.class,
+            WebMvcAutoConfiguration.class, HttpMessageConvertersAutoConfiguration.class, JacksonAutoConfiguration.class,
+            TaskExecutionAutoConfiguration.class, WebSocketServletAutoConfiguration.class,
+            ChatController.class, ChatWebSocketHandler.class, WebSocketConfig.class,
+            TokenCoalescer.class, TurnReplayBuffer.class})
+    static class Server {
+
+        /**
+         * As in the application configuration.
+         */
+        @Bean(destroyMethod = "close")
+        ExecutorService toolCallExecutor(@Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+            return virtualThreads
+                    ? Executors.newVirtualThreadPerTaskExecutor()
+                    : Executors.newCachedThreadPool(Thread.ofPlatform().name("tool-call-", 0).daemon().factory());
+        }
+
+        @Bean(destroyMethod = "shutdownNow")
+        ScheduledExecutorService modelIoThreads() {
+            return Executors.newScheduledThreadPool(4, Thread.ofPlatform().name("model-io-", 0).daemon().factory());
+        }
+
+        @Bean
+        ChatService chatService(ExecutorService toolCallExecutor,
+                                ScheduledExecutorService modelIoThreads,
+                                ObjectMapper objectMapper,
+                                @Value("${benchmark.first-token-millis}") long firstTokenMillis,
+                                @Value("${benchmark.lookup-latency-millis}") long lookupLatencyMillis,
+                                @Value("${benchmark.tokens-per-answer}") int tokensPerAnswer,
+                                @Value("${benchmark.token-interval-millis}") long tokenIntervalMillis) {
+            InMemoryChatMemoryStore chatMemoryStore = new InMemoryChatMemoryStore();
+            ChatMemoryProvider chatMemoryProvider = chatId -> MessageWindowChatMemory.builder()
+                    .id(chatId)
+                    .maxMessages(20)
+                    .chatMemoryStore(chatMemoryStore)
+                    .build();
+            BookingRepository repository = new BookingRepository() {
+                @Override
+                public Optional<Booking> findByBookingNumberAndCustomer(String bookingNumber, String firstName, String lastName) {
+                    try {
+                        Thread.sleep(lookupLatencyMillis);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return super.findByBookingNumberAndCustomer(bookingNumber, firstName, lastName);
+                }
+            };
+            MeterRegistry meterRegistry = new SimpleMeterRegistry();
+            BookingService bookingService = new BookingService(repository, event -> {
+            }, meterRegistry);
+            ChatMailbox chatMailbox = new ChatMailbox(3);
+            AiTools aiTools = new AiTools(bookingService, new ToolResultCache(chatMemoryProvider, new OpenAiTokenizer(), objectMapper),
+                    new IdempotencyCache(Duration.ofHours(24), 10_000, Clock.systemUTC()), chatMailbox, meterRegistry);
+            FakeModel model = new FakeModel(modelIoThreads, firstTokenMillis, tokensPerAnswer, tokenIntervalMillis);
+            AiAssistant assistant = AiServices.builder(AiAssistant.class)
+                    .streamingChatLanguageModel(new ModelRouter(List.of(new ModelRouter.Route("primary", Integer.MAX_VALUE, model)),
+                            toolCallExecutor))
+                    .chatMemoryProvider(chatMemoryProvider)
+                    .tools(new ParallelToolExecutor(List.of(aiTools), chatMemoryProvider, toolCallExecutor, objectMapper).tools())
+                    .build();
+            return new ChatService(assistant, new BookingFastPath(bookingService, chatMemoryProvider, chatMailbox, objectMapper), chatMemoryProvider,
+                    new StaticListableBeanFactory().getBeanProvider(SemanticAnswerCache.class), chatMailbox);
+        }
+    }
+
+    /**
+     * Asks for a booking lookup on every user message and answers its result with streamed
+     * tokens, calling back on {@code io} threads.
+     */
+    static class FakeModel implements StreamingChatLanguageModel {
+
+        private static final String[] WORDS = {"Your ", "book", "ing ", "BK1", "01 ", "from ", "LAX ", "to ", "JFK ",
+                "is ", "confirmed. "};
+
+        private final ScheduledExecutorService io;
+        private final long firstTokenMillis;
+        private final int tokensPerAnswer;
+        private final long tokenIntervalMillis;
+
+        FakeModel(ScheduledExecutorService io, long firstTokenMillis, int tokensPerAnswer, long tokenIntervalMillis) {
+            this.io = io;
+            this.firstTokenMillis = firstTokenMillis;
+            this.tokensPerAnswer = tokensPerAnswer;
+            this.tokenIntervalMillis = tokenIntervalMillis;
+        }
+
+        @Override
+        public void generate(List<ChatMessage> messages, StreamingResponseHandler<AiMessage> handler) {
+            AtomicInteger sent = new AtomicInteger();
+            StringBuilder answer = new StringBuilder();
+            CompletableFuture<ScheduledFuture<?>> stream = new CompletableFuture<>();
+            stream.complete(io.scheduleAtFixedRate(() -> {
+                int n = sent.getAndIncrement();
+                if (n < tokensPerAnswer) {
+                    String token = WORDS[n % WORDS.length];
+                    answer.append(token);
+                    handler.onNext(token);
+                } else if (n == tokensPerAnswer) {
+                    stream.join().cancel(false);
+                    handler.onComplete(Response.from(AiMessage.from(answer.toString())));
+                }
+            }, firstTokenMillis, tokenIntervalMillis, TimeUnit.MILLISECONDS));
+        }
+
+        @Override
+        public void generate(List<ChatMessage> messages,
+                             List<ToolSpecification> toolSpecifications,
+                             StreamingResponseHandler<AiMessage> handler) {
+            if (messages.get(messages.size() - 1) instanceof UserMessage) {
+                ToolExecutionRequest lookup = ToolExecutionRequest.builder()
+                        .id("call_1")
+                        .name("getBookingDetails")
+                        .arguments("{\"bookingNumber\": \"BK101\", \"firstName\": \"John\", \"lastName\": \"Doe\"}")
+                        .build();
+                io.schedule(() -> handler.onComplete(Response.from(AiMessage.from(List.of(lookup)))),
+                        firstTokenMillis, TimeUnit.MILLISECONDS);
+            } else {
+                generate(messages, handler);
+            }
+        }
+    }
+}
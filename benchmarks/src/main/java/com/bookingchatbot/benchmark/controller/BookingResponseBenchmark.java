@@ -0,0 +1,73 @@
+package com.bookingchatbot.benchmark.controller;
+
+import com.bookingchatbot.benchmark.repository.SyntheticBookings;
+import com.bookingchatbot.dto.BookingDto;
+import com.bookingchatbot.model.Booking;
+import com.bookingchatbot.repository.BookingRepository;
+import com.bookingchatbot.service.BookingService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The responses of the bookings API with {@code bookings} bookings besides the demo data:
+ * mapping the bookings to {@link BookingDto}s, and writing them as JSON with an
+ * {@link ObjectMapper} configured like Spring Boot's.
+ * <p>
+ * {@code list} maps all bookings as {@code GET /api/bookings} does and {@code listAsJson}
+ * also writes them; {@code oneAsJson} writes a single booking, as returned by the other
+ * endpoints and the booking tools.
+ * <pre>
+ * java -jar target/benchmarks.jar BookingResponseBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookingResponseBenchmark {
+
+    @Param({"10", "100", "1000"})
+    int bookings;
+
+    private BookingService bookingService;
+    private ObjectMapper objectMapper;
+    private BookingDto booking;
+
+    @Setup(Level.Trial)
+    public void setUp() throws JsonProcessingException {
+        BookingRepository repository = new BookingRepository();
+        Booking saved = SyntheticBookings.addTo(repository, bookings).getFirst();
+        bookingService = new BookingService(repository, event -> {
+        }, new SimpleMeterRegistry());
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        booking = bookingService.getBookingDetails(saved.getBookingNumber(),
+                saved.getCustomer().getFirstName(), saved.getCustomer().getLastName());
+        System.out.printf("%n[%d bookings] %d bytes of JSON%n", bookings, listAsJson().length);
+    }
+
+    @Benchmark
+    public List<BookingDto> list() {
+        return bookingService.getAllBookings();
+    }
+
+    @Benchmark
+    public byte[] listAsJson() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(bookingService.getAllBookings());
+    }
+
+    @Benchmark
+    public byte[] oneAsJson() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(booking);
+    }
+}
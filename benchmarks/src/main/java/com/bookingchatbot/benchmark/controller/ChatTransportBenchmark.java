@@ -0,0 +1,301 @@
+package com.bookingchatbot.benchmark.controller;
+
+import com.bookingchatbot.ai.SemanticAnswerCache;
+import com.bookingchatbot.config.StreamProperties;
+import com.bookingchatbot.config.WebSocketConfig;
+import com.bookingchatbot.controller.ChatController;
+import com.bookingchatbot.controller.ChatWebSocketHandler;
+import com.bookingchatbot.controller.TokenCoalescer;
+import com.bookingchatbot.controller.TurnReplayBuffer;
+import com.bookingchatbot.service.ChatService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.autoconfigure.context.PropertyPlaceholderAutoConfiguration;
+import org.springframework.boot.autoconfigure.http.HttpMessageConvertersAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.DispatcherServletAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.ServletWebServerFactoryAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcAutoConfiguration;
+import org.springframework.boot.autoconfigure.websocket.servlet.WebSocketServletAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import reactor.core.publisher.Flux;
+
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.WebSocket;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code clients} clients chatting with the running web server at once, over the SSE endpoint
+ * or over one WebSocket each, with the chat service answering from a local fake model.
+ * <p>
+ * Every client sends {@code turnsPerClient} messages one after another; the fake model answers
+ * each after {@code firstTokenMillis} with {@code tokensPerAnswer} tokens every
+ * {@code tokenIntervalMillis}. Each iteration prints the time from sending a message to the end
+ * of its answer and the heap in use per client while all clients are streaming their first
+ * answer. The heap is measured after a full GC, against the heap before the clients connected,
+ * and includes the JDK HTTP client's side of each connection in this JVM. The first turn of each
+ * client is left out of the latency, as it is paused by those GCs.
+ * <pre>
+ * java -jar target/benchmarks.jar ChatTransportBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ChatTransportBenchmark {
+
+    private static final String[] WORDS = {"Your ", "book", "ing ", "BK1", "01 ", "from ", "LAX ", "to ", "JFK ",
+            "has ", "been ", "chan", "ged ", "to ", "July ", "1st", ". "};
+
+    @Param({"sse", "websocket"})
+    String transport;
+
+    @Param({"500"})
+    int clients;
+
+    @Param({"4"})
+    int turnsPerClient;
+
+    @Param({"120"})
+    int tokensPerAnswer;
+
+    @Param({"50"})
+    long firstTokenMillis;
+
+    @Param({"10"})
+    long tokenIntervalMillis;
+
+    private ServletWebServerApplicationContext context;
+    private URI baseUri;
+    private HttpClient httpClient;
+    private long[] latencyNanos;
+    private long heapBefore;
+    private long heapPerClient;
+    private long cpuNanos;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = (ServletWebServerApplicationContext) new SpringApplicationBuilder(Server.class)
+                // Without the application.properties of the application, so every setting is the one given here
+                .run("--spring.config.name=chat-transport-benchmark",
+                        "--server.port=0",
+                        "--spring.main.banner-mode=off",
+                        "--spring.threads.virtual.enabled=true",
+                        "--logging.level.root=warn",
+                        // Only the turns that are streaming are kept, so the heap is comparable between iterations
+                        "--chatbot.stream.replay.max-turns=0",
+                        "--chatbot.stream.socket.max-turns=" + turnsPerClient,
+                        "--benchmark.first-token-millis=" + firstTokenMillis,
+                        "--benchmark.tokens-per-answer=" + tokensPerAnswer,
+                        "--benchmark.token-interval-millis=" + tokenIntervalMillis);
+        baseUri = URI.create("http://127.0.0.1:" + context.getWebServer().getPort());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Setup(Level.Iteration)
+    public void connect() {
+        httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        latencyNanos = new long[clients * (turnsPerClient - 1)];
+        heapBefore = heapAfterGc();
+    }
+
+    @TearDown(Level.Iteration)
+    public void report() {
+        httpClient.close();
+        long[] sorted = latencyNanos.clone();
+        Arrays.sort(sorted);
+        long answerMillis = firstTokenMillis + (tokensPerAnswer - 1) * tokenIntervalMillis;
+        System.out.printf("%n[%s] turn latency p50 %.1f ms, p99 %.1f ms (model %d ms), %.1f KB heap/client, "
+                        + "%.0f us CPU/turn%n",
+                transport, sorted[sorted.length / 2] / 1e6, sorted[(int) (sorted.length * 0.99)] / 1e6, answerMillis,
+                heapPerClient / 1024.0, cpuNanos / 1e3 / ((long) clients * turnsPerClient));
+    }
+
+    @Benchmark
+    public long chat() throws InterruptedException {
+        CountDownLatch streaming = new CountDownLatch(clients);
+        CountDownLatch finished = new CountDownLatch(clients);
+        long cpuBefore = processCpuNanos();
+        for (int i = 0; i < clients; i++) {
+            int client = i;
+            Thread.ofVirtual().start(() -> {
+                try {
+                    if ("sse".equals(transport)) {
+                        chatOverSse(client, streaming);
+                    } else {
+                        chatOverWebSocket(client, streaming);
+                    }
+                } catch (Exception e) {
+                    e.printStackTrace();
+                } finally {
+                    finished.countDown();
+                }
+            });
+        }
+        streaming.await();
+        heapPerClient = (heapAfterGc() - heapBefore) / clients;
+        finished.await();
+        cpuNanos = processCpuNanos() - cpuBefore;
+        return heapPerClient;
+    }
+
+    private void chatOverSse(int client, CountDownLatch streaming) throws Exception {
+        for (int turn = 0; turn < turnsPerClient; turn++) {
+            HttpRequest request = HttpRequest.newBuilder(baseUri.resolve("/api/chat"))
+                    .header("Content-Type", "application/json")
+                    .header("Accept", "text/event-stream")
+                    .POST(HttpRequest.BodyPublishers.ofString(message(client, turn)))
+                    .build();
+            long start = System.nanoTime();
+            boolean first = turn == 0;
+            try (var lines = httpClient.send(request, HttpResponse.BodyHandlers.ofLines()).body()) {
+                for (var iterator = lines.iterator(); iterator.hasNext(); ) {
+                    String line = iterator.next();
+                    if (first && line.startsWith("data:")) {
+                        first = false;
+                        streaming.countDown();
+                    }
+                }
+            }
+            record(client, turn, System.nanoTime() - start);
+        }
+    }
+
+    private void chatOverWebSocket(int client, CountDownLatch streaming) {
+        Frames frames = new Frames();
+        WebSocket socket = httpClient.newWebSocketBuilder()
+                .buildAsync(URI.create("ws" + baseUri.toString().substring(4) + "/api/chat/ws"), frames)
+                .join();
+        for (int turn = 0; turn < turnsPerClient; turn++) {
+            CompletableFuture<Void> end = new CompletableFuture<>();
+            frames.next(end, turn == 0 ? streaming::countDown : null);
+            long start = System.nanoTime();
+            socket.sendText(message(client, turn).replace("{", "{\"id\":\"" + turn + "\","), true).join();
+            end.join();
+            record(client, turn, System.nanoTime() - start);
+        }
+        socket.sendClose(WebSocket.NORMAL_CLOSURE, "").join();
+    }
+
+    private void record(int client, int turn, long nanos) {
+        if (turn > 0) {
+            latencyNanos[client * (turnsPerClient - 1) + turn - 1] = nanos;
+        }
+    }
+
+    private static String message(int client, int turn) {
+        return "{\"chatId\":\"chat-" + client + "\",\"message\":\"Change booking " + turn + "\"}";
+    }
+
+    private static long heapAfterGc() {
+        System.gc();
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static long processCpuNanos() {
+        return ((com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean()).getProcessCpuTime();
+    }
+
+    /**
+     * Completes the current turn on its {@code end} frame; one turn runs at a time per client.
+     */
+    private static class Frames implements WebSocket.Listener {
+
+        private final StringBuilder message = new StringBuilder();
+        private volatile CompletableFuture<Void> end;
+        private volatile Runnable onFirstFrame;
+
+        void next(CompletableFuture<Void> end, Runnable onFirstFrame) {
+            this.onFirstFrame = onFirstFrame;
+            this.end = end;
+        }
+
+        @Override
+        public CompletionStage<?> onText(WebSocket socket, CharSequence data, boolean last) {
+            message.append(data);
+            if (last) {
+                String frame = message.toString();
+                message.setLength(0);
+                Runnable first = onFirstFrame;
+                if (first != null) {
+                    onFirstFrame = null;
+                    first.run();
+                }
+                if (frame.contains("\"end\":true")) {
+                    end.complete(null);
+                }
+            }
+            socket.request(1);
+            return null;
+        }
+    }
+
+    /**
+     * The web server with both chat transports and nothing else of the application.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @EnableConfigurationProperties(StreamProperties.class)
+    @Import({PropertyPlaceholderAutoConfiguration.class, ServletWebServerFactoryAutoConfiguration.class,
+            DispatcherServletAutoConfiguration.class, WebMvcAutoConfiguration.class,
+            HttpMessageConvertersAutoConfiguration.class, JacksonAutoConfiguration.class,
+            TaskExecutionAutoConfiguration.class, WebSocketServletAutoConfiguration.class,
+            ChatController.class, ChatWebSocketHandler.class, WebSocketConfig.class,
+            TokenCoalescer.class, TurnReplayBuffer.class})
+    static class Server {
+
+        @Bean
+        ChatService chatService(@Value("${benchmark.first-token-millis}") long firstTokenMillis,
+                                @Value("${benchmark.tokens-per-answer}") int tokensPerAnswer,
+                                @Value("${benchmark.token-interval-millis}") long tokenIntervalMillis) {
+            return new FakeModelChatService(firstTokenMillis, tokensPerAnswer, tokenIntervalMillis);
+        }
+    }
+
+    /**
+     * Answers every message from a fake model instead of the assistant.
+     */
+    static class FakeModelChatService extends ChatService {
+
+        private final long firstTokenMillis;
+        private final int tokensPerAnswer;
+        private final long tokenIntervalMillis;
+
+        FakeModelChatService(long firstTokenMillis, int tokensPerAnswer, long tokenIntervalMillis) {
+            super(null, null, null, new StaticListableBeanFactory().getBeanProvider(SemanticAnswerCache.class), null);
+            this.firstTokenMillis = firstTokenMillis;
+            this.tokensPerAnswer = tokensPerAnswer;
+            this.tokenIntervalMillis = tokenIntervalMillis;
+        }
+
+        @Override
+        public Flux<String> chat(String chatId, String message) {
+            return Flux.interval(Duration.ofMillis(firstTokenMillis), Duration.ofMillis(tokenIntervalMillis))
+                    .take(tokensPerAnswer)
+                    .map(n -> WORDS[(int) (n % WORDS.length)]);
+        }
+    }
+}
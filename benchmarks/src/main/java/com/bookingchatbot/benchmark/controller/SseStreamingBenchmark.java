@@ -0,0 +1,204 @@
+package com.bookingchatbot.benchmark.controller;
+
+import com.bookingchatbot.config.StreamProperties;
+import com.bookingchatbot.controller.TokenCoalescer;
+import org.openjdk.jmh.annotations.*;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.SignalType;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@code concurrentStreams} chat answers streamed at once from a local fake model, written to
+ * clients token by token or through {@link TokenCoalescer} with its default settings.
+ * <p>
+ * The fake model answers after {@code firstTokenMillis} and then sends {@code tokensPerAnswer}
+ * tokens of about four characters every {@code tokenIntervalMillis}. Each client formats every
+ * frame as a server-sent event and writes it to a loopback TCP connection, one write syscall
+ * per frame like the flush after every event of a servlet response. Each iteration prints
+ * writes and bytes per stream, process CPU time per stream (including reading the other end of
+ * the connections) and the time to first token.
+ * <pre>
+ * java -jar target/benchmarks.jar SseStreamingBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SseStreamingBenchmark {
+
+    /**
+     * Loopback connections the streams write to; the other ends are read and discarded.
+     */
+    private static final int CONNECTIONS = 64;
+
+    private static final String[] WORDS = {"Your ", "book", "ing ", "BK1", "01 ", "from ", "LAX ", "to ", "JFK ",
+            "has ", "been ", "chan", "ged ", "to ", "July ", "1st", ". "};
+
+    @Param({"off", "on"})
+    String coalescing;
+
+    @Param({"5000"})
+    int concurrentStreams;
+
+    @Param({"120"})
+    int tokensPerAnswer;
+
+    @Param({"50"})
+    long firstTokenMillis;
+
+    @Param({"5"})
+    long tokenIntervalMillis;
+
+    private TokenCoalescer tokenCoalescer;
+    private ServerSocketChannel server;
+    private SocketChannel[] connections;
+    private long[] firstTokenNanos;
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+    private long cpuNanos;
+    private long streams;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        tokenCoalescer = new TokenCoalescer(new StreamProperties(64, Duration.ofMillis(20), 16384,
+                new StreamProperties.Replay(Duration.ofMinutes(5), 10_000, 4_000_000),
+                new StreamProperties.Socket(8, 65536, Duration.ofSeconds(10))));
+        server = ServerSocketChannel.open().bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        connections = new SocketChannel[CONNECTIONS];
+        for (int i = 0; i < CONNECTIONS; i++) {
+            connections[i] = SocketChannel.open(server.getLocalAddress());
+            connections[i].setOption(StandardSocketOptions.TCP_NODELAY, true);
+            SocketChannel browser = server.accept();
+            Thread.ofVirtual().start(() -> discard(browser));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        for (SocketChannel connection : connections) {
+            connection.close();
+        }
+        server.close();
+    }
+
+    @Setup(Level.Iteration)
+    public void resetIteration() {
+        firstTokenNanos = new long[concurrentStreams];
+        writes.set(0);
+        bytes.set(0);
+        cpuNanos = 0;
+        streams = 0;
+    }
+
+    @TearDown(Level.Iteration)
+    public void report() {
+        long[] sorted = firstTokenNanos.clone();
+        Arrays.sort(sorted);
+        System.out.printf("%n[coalescing %s] %.1f writes/stream, %.0f bytes/stream, %.0f us CPU/stream, "
+                        + "first token p50 %.1f ms, p99 %.1f ms%n",
+                coalescing, (double) writes.get() / streams, (double) bytes.get() / streams,
+                cpuNanos / 1e3 / streams, sorted[sorted.length / 2] / 1e6, sorted[(int) (sorted.length * 0.99)] / 1e6);
+    }
+
+    @Benchmark
+    public long streamAnswers() throws InterruptedException {
+        CountDownLatch finished = new CountDownLatch(concurrentStreams);
+        long cpuBefore = processCpuNanos();
+        for (int i = 0; i < concurrentStreams; i++) {
+            int stream = i;
+            long start = System.nanoTime();
+            Flux<String> tokens = Flux.interval(Duration.ofMillis(firstTokenMillis), Duration.ofMillis(tokenIntervalMillis))
+                    .take(tokensPerAnswer)
+                    .map(n -> WORDS[(int) (n % WORDS.length)]);
+            Flux<String> frames = "on".equals(coalescing) ? tokenCoalescer.coalesce(tokens) : tokens;
+            frames.subscribe(new SseClient(connections[stream % CONNECTIONS],
+                    () -> firstTokenNanos[stream] = System.nanoTime() - start, finished));
+        }
+        finished.await();
+        cpuNanos += processCpuNanos() - cpuBefore;
+        streams += concurrentStreams;
+        return writes.get();
+    }
+
+    private static void discard(SocketChannel browser) {
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        try (browser) {
+            while (browser.read(buffer.clear()) >= 0) {
+                // Nothing to do
+            }
+        } catch (IOException e) {
+            // Closed at the end of the trial
+        }
+    }
+
+    private static long processCpuNanos() {
+        return ((com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean()).getProcessCpuTime();
+    }
+
+    /**
+     * Reads one frame at a time, like the servlet writer behind an SSE response.
+     */
+    private class SseClient extends BaseSubscriber<String> {
+
+        private final SocketChannel connection;
+        private final Runnable onFirstFrame;
+        private final CountDownLatch finished;
+        private boolean first = true;
+
+        SseClient(SocketChannel connection, Runnable onFirstFrame, CountDownLatch finished) {
+            this.connection = connection;
+            this.onFirstFrame = onFirstFrame;
+            this.finished = finished;
+        }
+
+        @Override
+        protected void hookOnSubscribe(Subscription subscription) {
+            request(1);
+        }
+
+        @Override
+        protected void hookOnNext(String frame) {
+            if (first) {
+                first = false;
+                onFirstFrame.run();
+            }
+            byte[] event = ("data:" + frame + "\n\n").getBytes(StandardCharsets.UTF_8);
+            try {
+                ByteBuffer buffer = ByteBuffer.wrap(event);
+                while (buffer.hasRemaining()) {
+                    connection.write(buffer);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            writes.incrementAndGet();
+            bytes.addAndGet(event.length);
+            request(1);
+        }
+
+        @Override
+        protected void hookFinally(SignalType type) {
+            finished.countDown();
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.bookingchatbot.benchmark.load;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Multi-turn booking conversations, shared by the {@link LoadDriver}, which sends their user
+ * messages, and the {@link FakeOpenAiServer}, which answers each message that names a tool call
+ * with that call.
+ * <p>
+ * One user message per line, optionally followed by {@code => <tool> <arguments>}; a blank line
+ * ends a conversation and lines starting with {@code #} are comments. {@code {date+N}} stands for
+ * the date {@code N} days from today, so a script keeps working against the demo bookings:
+ * <pre>
+ * Hi, I would like to check my booking.
+ * It is BK101 for John Doe. => getBookingDetails {"bookingNumber":"BK101","firstName":"John","lastName":"Doe"}
+ * </pre>
+ */
+public record ConversationScript(List<List<Turn>> conversations) {
+
+    /**
+     * The conversations bundled with the benchmarks.
+     */
+    public static final String BUNDLED = "/load/booking-conversations.txt";
+
+    private static final Pattern DATE = Pattern.compile("\\{date\\+(\\d+)}");
+
+    public ConversationScript {
+        if (conversations.isEmpty()) {
+            throw new IllegalArgumentException("The script has no conversations");
+        }
+    }
+
+    /**
+     * The script in the file at {@code path}, or the bundled script if {@code path} is null.
+     */
+    public static ConversationScript load(String path) {
+        try {
+            if (path != null) {
+                return parse(Files.readAllLines(Path.of(path)));
+            }
+            try (InputStream in = ConversationScript.class.getResourceAsStream(BUNDLED)) {
+                return parse(new String(in.readAllBytes(), StandardCharsets.UTF_8).lines().toList());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read conversation script " + path, e);
+        }
+    }
+
+    static ConversationScript parse(List<String> lines) {
+        List<List<Turn>> conversations = new ArrayList<>();
+        List<Turn> conversation = new ArrayList<>();
+        for (String line : lines) {
+            String trimmed = line.strip();
+            if (trimmed.startsWith("#")) {
+                continue;
+            }
+            if (trimmed.isEmpty()) {
+                if (!conversation.isEmpty()) {
+                    conversations.add(List.copyOf(conversation));
+                    conversation.clear();
+                }
+                continue;
+            }
+            conversation.add(Turn.parse(expandDates(trimmed)));
+        }
+        if (!conversation.isEmpty()) {
+            conversations.add(List.copyOf(conversation));
+        }
+        return new ConversationScript(List.copyOf(conversations));
+    }
+
+    /**
+     * The tool call scripted for the turn whose message {@code userMessage} starts with. The
+     * longest such message wins, as the assistant may append retrieved content to a message.
+     */
+    public Optional<ToolCall> toolCallFor(String userMessage) {
+        Turn match = null;
+        for (List<Turn> conversation : conversations) {
+            for (Turn turn : conversation) {
+                if (turn.toolCall() != null && userMessage.startsWith(turn.message())
+                        && (match == null || turn.message().length() > match.message().length())) {
+                    match = turn;
+                }
+            }
+        }
+        return Optional.ofNullable(match).map(Turn::toolCall);
+    }
+
+    private static String expandDates(String line) {
+        Matcher matcher = DATE.matcher(line);
+        return matcher.replaceAll(result -> LocalDate.now().plusDays(Long.parseLong(result.group(1))).toString());
+    }
+
+    /**
+     * A user message and the tool call the fake model answers it with, if any.
+     */
+    public record Turn(String message, ToolCall toolCall) {
+
+        static Turn parse(String line) {
+            int arrow = line.indexOf("=>");
+            if (arrow < 0) {
+                return new Turn(line, null);
+            }
+            String call = line.substring(arrow + 2).strip();
+            int space = call.indexOf(' ');
+            if (space < 0) {
+                throw new IllegalArgumentException("Expected '=> <tool> <arguments>' in: " + line);
+            }
+            return new Turn(line.substring(0, arrow).strip(),
+                    new ToolCall(call.substring(0, space), call.substring(space + 1).strip()));
+        }
+    }
+
+    /**
+     * A tool call with its arguments as JSON.
+     */
+    public record ToolCall(String name, String arguments) {
+    }
+}
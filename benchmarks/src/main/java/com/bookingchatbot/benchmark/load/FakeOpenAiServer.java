@@ -0,0 +1,366 @@
+package com.bookingchatbot.benchmark.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local stand-in for the OpenAI chat completions and embeddings API, so the application can be
+ * load-tested without network access or credits.
+ * <p>
+ * Chat completions are streamed like the real API: after {@code timeToFirstToken} the answer
+ * follows at {@code tokensPerSecond}, then the token usage. A user message scripted in the
+ * {@link ConversationScript} is answered with its tool call, streamed in argument fragments;
+ * every other message, and every tool result, with {@code answerTokens} tokens of text. Faults
+ * are injected at random: {@code errorRate} of the requests fail with {@code errorStatus},
+ * {@code stallRate} wait {@code stall} for their first token and {@code brokenStreamRate} end
+ * with a malformed chunk halfway through. Every request is handled on its own virtual thread.
+ * <pre>
+ * java -cp target/benchmarks.jar com.bookingchatbot.benchmark.load.FakeOpenAiServer --port=8089 \
+ *     --time-to-first-token=400ms --tokens-per-second=50 --error-rate=0.01
+ * </pre>
+ */
+public final class FakeOpenAiServer implements AutoCloseable {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private static final String[] WORDS = {"Your ", "book", "ing ", "is ", "confirmed ", "for ", "the ", "flight ",
+            "from ", "LAX ", "to ", "JFK", ". ", "Is ", "there ", "anything ", "else ", "I ", "can ", "help ",
+            "with", "? "};
+
+    /**
+     * Characters of tool call arguments per streamed fragment, about one token.
+     */
+    private static final int ARGUMENT_FRAGMENT = 4;
+
+    private final HttpServer server;
+    private final ExecutorService handlers = Executors.newVirtualThreadPerTaskExecutor();
+    private final Options options;
+    private final ConversationScript script;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong toolCalls = new AtomicLong();
+    private final AtomicLong injectedFaults = new AtomicLong();
+    private final AtomicLong disconnected = new AtomicLong();
+    private final AtomicLong embeddings = new AtomicLong();
+
+    public FakeOpenAiServer(int port, Options options, ConversationScript script) throws IOException {
+        this.options = options;
+        this.script = script;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 1024);
+        this.server.createContext("/v1/chat/completions", this::chatCompletions);
+        this.server.createContext("/v1/embeddings", this::embeddings);
+        this.server.setExecutor(handlers);
+        this.server.start();
+    }
+
+    public static void main(String[] args) throws IOException {
+        Arguments arguments = new Arguments(args);
+        Options options = new Options(
+                arguments.duration("time-to-first-token", Duration.ofMillis(400)),
+                arguments.decimal("tokens-per-second", 50),
+                arguments.integer("answer-tokens", 60),
+                arguments.decimal("error-rate", 0),
+                arguments.integer("error-status", 500),
+                arguments.decimal("stall-rate", 0),
+                arguments.duration("stall", Duration.ofSeconds(30)),
+                arguments.decimal("broken-stream-rate", 0),
+                arguments.duration("embedding-latency", Duration.ofMillis(50)),
+                arguments.integer("embedding-dimension", 1536));
+        FakeOpenAiServer server = new FakeOpenAiServer(arguments.integer("port", 8089), options,
+                ConversationScript.load(arguments.string("script", null)));
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.close();
+            System.out.println(server.summary());
+        }));
+        System.out.printf("Fake OpenAI API at %s with %s%n", server.baseUrl(), options);
+    }
+
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/v1/";
+    }
+
+    /**
+     * Requests served so far, with the faults injected and the streams the client left.
+     */
+    public String summary() {
+        return "%d chat completions (%d tool calls, %d faults injected, %d disconnected), %d embedding requests"
+                .formatted(requests.get(), toolCalls.get(), injectedFaults.get(), disconnected.get(), embeddings.get());
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        handlers.shutdownNow();
+    }
+
+    private void chatCompletions(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            JsonNode request = JSON.readTree(exchange.getRequestBody());
+            requests.incrementAndGet();
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            if (random.nextDouble() < options.errorRate()) {
+                injectedFaults.incrementAndGet();
+                sendError(exchange, options.errorStatus());
+                return;
+            }
+
+            JsonNode messages = request.path("messages");
+            JsonNode last = messages.path(messages.size() - 1);
+            ConversationScript.ToolCall toolCall = "user".equals(last.path("role").asText()) && request.has("tools")
+                    ? script.toolCallFor(text(last.path("content"))).orElse(null)
+                    : null;
+            List<String> tokens = toolCall != null ? fragments(toolCall.arguments()) : answer();
+            if (toolCall != null) {
+                toolCalls.incrementAndGet();
+            }
+            Completion completion = new Completion("chatcmpl-" + UUID.randomUUID(), request.path("model").asText(),
+                    toolCall, tokens, promptTokens(messages));
+
+            Duration firstToken = options.timeToFirstToken();
+            if (random.nextDouble() < options.stallRate()) {
+                injectedFaults.incrementAndGet();
+                firstToken = options.stall();
+            }
+            boolean broken = random.nextDouble() < options.brokenStreamRate();
+            if (broken) {
+                injectedFaults.incrementAndGet();
+            }
+            if (request.path("stream").asBoolean()) {
+                stream(exchange, completion, firstToken, broken);
+            } else {
+                sleep(firstToken.plusNanos(intervalNanos() * (tokens.size() - 1)));
+                send(exchange, 200, completion.toResponse());
+            }
+        } catch (IOException e) {
+            // The client went away, e.g. a hedged request that lost or a turn that timed out
+            disconnected.incrementAndGet();
+        }
+    }
+
+    private void stream(HttpExchange exchange, Completion completion, Duration firstToken, boolean broken) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(200, 0);
+        OutputStream out = exchange.getResponseBody();
+        long start = System.nanoTime() + firstToken.toNanos();
+        List<String> tokens = completion.tokens();
+        for (int i = 0; i < tokens.size(); i++) {
+            sleep(Duration.ofNanos(start + intervalNanos() * i - System.nanoTime()));
+            if (broken && i == tokens.size() / 2) {
+                write(out, "{\"choices\":[");
+                return;
+            }
+            write(out, JSON.writeValueAsString(completion.chunk(i)));
+        }
+        write(out, JSON.writeValueAsString(completion.finalChunk()));
+        write(out, JSON.writeValueAsString(completion.usageChunk()));
+        write(out, "[DONE]");
+    }
+
+    private static void write(OutputStream out, String data) throws IOException {
+        out.write(("data: " + data + "\n\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private void embeddings(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            JsonNode request = JSON.readTree(exchange.getRequestBody());
+            embeddings.incrementAndGet();
+            sleep(options.embeddingLatency());
+
+            ObjectNode response = JSON.createObjectNode().put("object", "list").put("model", request.path("model").asText());
+            ArrayNode data = response.putArray("data");
+            JsonNode inputs = request.path("input").isArray() ? request.path("input") : JSON.createArrayNode().add(request.path("input"));
+            int index = 0;
+            for (JsonNode input : inputs) {
+                ObjectNode item = data.addObject().put("object", "embedding").put("index", index++);
+                ArrayNode vector = item.putArray("embedding");
+                Random random = new Random(input.asText().hashCode());
+                for (int d = 0; d < options.embeddingDimension(); d++) {
+                    vector.add(random.nextFloat() - 0.5f);
+                }
+            }
+            response.putObject("usage").put("prompt_tokens", index).put("total_tokens", index);
+            send(exchange, 200, response);
+        }
+    }
+
+    private static void sendError(HttpExchange exchange, int status) throws IOException {
+        ObjectNode response = JSON.createObjectNode();
+        response.putObject("error")
+                .put("message", "Injected error")
+                .put("type", status == 429 ? "rate_limit_exceeded" : "server_error");
+        send(exchange, status, response);
+    }
+
+    private static void send(HttpExchange exchange, int status, JsonNode response) throws IOException {
+        byte[] body = JSON.writeValueAsBytes(response);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    private List<String> answer() {
+        List<String> tokens = new ArrayList<>(options.answerTokens());
+        for (int i = 0; i < options.answerTokens(); i++) {
+            tokens.add(WORDS[i % WORDS.length]);
+        }
+        return tokens;
+    }
+
+    private static List<String> fragments(String arguments) {
+        List<String> fragments = new ArrayList<>();
+        for (int i = 0; i < arguments.length(); i += ARGUMENT_FRAGMENT) {
+            fragments.add(arguments.substring(i, Math.min(arguments.length(), i + ARGUMENT_FRAGMENT)));
+        }
+        return fragments;
+    }
+
+    /**
+     * About four characters per token, like the real tokenizer on English text.
+     */
+    private static int promptTokens(JsonNode messages) {
+        int characters = 0;
+        for (JsonNode message : messages) {
+            characters += text(message.path("content")).length();
+        }
+        return characters / 4 + 1;
+    }
+
+    /**
+     * The text of a message, whose content is a string or an array of parts.
+     */
+    private static String text(JsonNode content) {
+        if (!content.isArray()) {
+            return content.asText();
+        }
+        StringBuilder text = new StringBuilder();
+        for (JsonNode part : content) {
+            text.append(part.path("text").asText());
+        }
+        return text.toString();
+    }
+
+    private long intervalNanos() {
+        return (long) (1e9 / options.tokensPerSecond());
+    }
+
+    private static void sleep(Duration duration) {
+        if (duration.isNegative() || duration.isZero()) {
+            return;
+        }
+        try {
+            Thread.sleep(duration);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * How the fake model answers; rates are fractions of the chat completion requests.
+     */
+    public record Options(Duration timeToFirstToken,
+                          double tokensPerSecond,
+                          int answerTokens,
+                          double errorRate,
+                          int errorStatus,
+                          double stallRate,
+                          Duration stall,
+                          double brokenStreamRate,
+                          Duration embeddingLatency,
+                          int embeddingDimension) {
+    }
+
+    /**
+     * One answer, as streamed chunks or as a whole response.
+     */
+    private record Completion(String id, String model, ConversationScript.ToolCall toolCall, List<String> tokens,
+                              int promptTokens) {
+
+        ObjectNode chunk(int index) {
+            ObjectNode chunk = envelope("chat.completion.chunk");
+            ObjectNode delta = chunk.putArray("choices").addObject().put("index", 0).putNull("finish_reason")
+                    .putObject("delta");
+            if (index == 0) {
+                delta.put("role", "assistant");
+            }
+            if (toolCall == null) {
+                delta.put("content", tokens.get(index));
+                return chunk;
+            }
+            ObjectNode call = delta.putArray("tool_calls").addObject().put("index", 0);
+            if (index == 0) {
+                call.put("id", "call_" + id.substring(id.length() - 12)).put("type", "function");
+                call.putObject("function").put("name", toolCall.name()).put("arguments", tokens.get(index));
+            } else {
+                call.putObject("function").put("arguments", tokens.get(index));
+            }
+            return chunk;
+        }
+
+        ObjectNode finalChunk() {
+            ObjectNode chunk = envelope("chat.completion.chunk");
+            chunk.putArray("choices").addObject().put("index", 0).put("finish_reason", finishReason())
+                    .putObject("delta");
+            return chunk;
+        }
+
+        ObjectNode usageChunk() {
+            ObjectNode chunk = envelope("chat.completion.chunk");
+            chunk.putArray("choices");
+            usage(chunk);
+            return chunk;
+        }
+
+        ObjectNode toResponse() {
+            ObjectNode response = envelope("chat.completion");
+            ObjectNode message = response.putArray("choices").addObject().put("index", 0)
+                    .put("finish_reason", finishReason())
+                    .putObject("message").put("role", "assistant");
+            String text = String.join("", tokens);
+            if (toolCall == null) {
+                message.put("content", text);
+            } else {
+                message.putNull("content");
+                message.putArray("tool_calls").addObject()
+                        .put("id", "call_" + id.substring(id.length() - 12)).put("type", "function")
+                        .putObject("function").put("name", toolCall.name()).put("arguments", text);
+            }
+            usage(response);
+            return response;
+        }
+
+        private ObjectNode envelope(String object) {
+            return JSON.createObjectNode().put("id", id).put("object", object)
+                    .put("created", System.currentTimeMillis() / 1000).put("model", model);
+        }
+
+        private void usage(ObjectNode response) {
+            response.putObject("usage")
+                    .put("prompt_tokens", promptTokens)
+                    .put("completion_tokens", tokens.size())
+                    .put("total_tokens", promptTokens + tokens.size());
+        }
+
+        private String finishReason() {
+            return toolCall == null ? "stop" : "tool_calls";
+        }
+    }
+}
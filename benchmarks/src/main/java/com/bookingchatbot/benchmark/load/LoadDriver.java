@@ -0,0 +1,312 @@
+package com.bookingchatbot.benchmark.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Replays the conversations of a {@link ConversationScript} against {@code POST /api/chat} of a
+ * running application at a fixed rate of turns, and reports the time to first token, the time to
+ * the end of each answer and the throughput.
+ * <p>
+ * The load is open: a turn starts every {@code 1/rps} seconds whether or not earlier turns have
+ * finished, so a slow server builds up a backlog instead of slowing the load down. Each turn is
+ * the next message of a conversation whose previous turn has finished, or the first message of a
+ * new conversation with its own chat ID; the conversations of the script are started in turn. A
+ * conversation ends after a failed turn. Turns started during {@code warmup} are not reported.
+ * <pre>
+ * java -cp target/benchmarks.jar com.bookingchatbot.benchmark.load.LoadDriver --url=http://localhost:8080 \
+ *     --rps=20 --duration=60s --warmup=10s
+ * </pre>
+ */
+public final class LoadDriver {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    /**
+     * Upper bounds of the histogram buckets, in milliseconds.
+     */
+    private static final long[] BUCKETS = {50, 100, 200, 500, 1_000, 2_000, 5_000, 10_000, 20_000, 60_000, Long.MAX_VALUE};
+
+    private final URI chatUri;
+    private final ConversationScript script;
+    private final double rps;
+    private final Duration duration;
+    private final Duration warmup;
+    private final Duration timeout;
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+
+    private final Queue<Conversation> ready = new ConcurrentLinkedQueue<>();
+    private final AtomicLong conversations = new AtomicLong();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+    private final Latencies timeToFirstToken = new Latencies();
+    private final Latencies turnLatency = new Latencies();
+    private final AtomicLong started = new AtomicLong();
+    private final ReentrantLock failuresLock = new ReentrantLock();
+    // Guarded by failuresLock
+    private final Map<String, Integer> failures = new TreeMap<>();
+    private final AtomicLong lastCompletion = new AtomicLong();
+    private volatile long measureFrom;
+
+    LoadDriver(URI baseUri, ConversationScript script, double rps, Duration duration, Duration warmup, Duration timeout) {
+        this.chatUri = baseUri.resolve("/api/chat");
+        this.script = script;
+        this.rps = rps;
+        this.duration = duration;
+        this.warmup = warmup;
+        this.timeout = timeout;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        Arguments arguments = new Arguments(args);
+        LoadDriver driver = new LoadDriver(
+                URI.create(arguments.string("url", "http://localhost:8080")),
+                ConversationScript.load(arguments.string("script", null)),
+                arguments.decimal("rps", 10),
+                arguments.duration("duration", Duration.ofSeconds(60)),
+                arguments.duration("warmup", Duration.ofSeconds(10)),
+                arguments.duration("timeout", Duration.ofSeconds(60)));
+        driver.run();
+        System.exit(0);
+    }
+
+    void run() throws InterruptedException {
+        System.out.printf("Offering %.1f turns/s to %s for %d s after %d s of warm-up%n",
+                rps, chatUri, duration.toSeconds(), warmup.toSeconds());
+        long start = System.nanoTime();
+        measureFrom = start + warmup.toNanos();
+        ScheduledExecutorService ticks = Executors.newSingleThreadScheduledExecutor();
+        ticks.scheduleAtFixedRate(this::startTurn, 0, (long) (1e9 / rps), TimeUnit.NANOSECONDS);
+        TimeUnit.NANOSECONDS.sleep(warmup.plus(duration).toNanos());
+        ticks.shutdownNow();
+        double seconds = (System.nanoTime() - measureFrom) / 1e9;
+
+        // Turns still running get their full timeout
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (inFlight.get() > 0 && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(100);
+        }
+        report(seconds);
+    }
+
+    private void startTurn() {
+        Conversation conversation = ready.poll();
+        if (conversation == null) {
+            long n = conversations.getAndIncrement();
+            conversation = new Conversation("load-" + n, script.conversations().get((int) (n % script.conversations().size())));
+        }
+        boolean measured = System.nanoTime() >= measureFrom;
+        if (measured) {
+            started.incrementAndGet();
+        }
+        peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        Conversation current = conversation;
+        Thread.ofVirtual().start(() -> {
+            try {
+                if (send(current, measured) && ++current.turn < current.turns.size()) {
+                    ready.add(current);
+                }
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        });
+    }
+
+    /**
+     * Sends the next message of {@code conversation} and reads the answer to its end.
+     *
+     * @return whether the turn succeeded
+     */
+    private boolean send(Conversation conversation, boolean measured) {
+        String message = conversation.turns.get(conversation.turn).message();
+        HttpRequest request = HttpRequest.newBuilder(chatUri)
+                .header("Content-Type", "application/json")
+                .header("Accept", "text/event-stream")
+                .timeout(timeout)
+                .POST(HttpRequest.BodyPublishers.ofString(json(Map.of("chatId", conversation.chatId, "message", message))))
+                .build();
+        long start = System.nanoTime();
+        long firstToken = -1;
+        try {
+            HttpResponse<Stream<String>> response = httpClient.send(request, HttpResponse.BodyHandlers.ofLines());
+            try (Stream<String> lines = response.body()) {
+                if (response.statusCode() != 200) {
+                    return failed("HTTP " + response.statusCode(), measured);
+                }
+                for (var iterator = lines.iterator(); iterator.hasNext(); ) {
+                    if (iterator.next().startsWith("data:") && firstToken < 0) {
+                        firstToken = System.nanoTime() - start;
+                    }
+                }
+            }
+        } catch (HttpTimeoutException e) {
+            return failed("timeout", measured);
+        } catch (UncheckedIOException e) {
+            // Reading the answer failed, e.g. as the server gave up on the turn after the first token
+            return failed("broken off", measured);
+        } catch (IOException e) {
+            return failed(e.getClass().getSimpleName(), measured);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        if (firstToken < 0) {
+            return failed("empty answer", measured);
+        }
+        if (measured) {
+            long end = System.nanoTime();
+            timeToFirstToken.record(firstToken);
+            turnLatency.record(end - start);
+            lastCompletion.accumulateAndGet(end, Math::max);
+        }
+        return true;
+    }
+
+    private boolean failed(String reason, boolean measured) {
+        if (measured) {
+            failuresLock.lock();
+            try {
+                failures.merge(reason, 1, Integer::sum);
+            } finally {
+                failuresLock.unlock();
+            }
+        }
+        return false;
+    }
+
+    private Map<String, Integer> failures() {
+        failuresLock.lock();
+        try {
+            return new TreeMap<>(failures);
+        } finally {
+            failuresLock.unlock();
+        }
+    }
+
+    private void report(double seconds) {
+        long[] ttft = timeToFirstToken.sorted();
+        long[] turns = turnLatency.sorted();
+        Map<String, Integer> failures = failures();
+        int failed = failures.values().stream().mapToInt(Integer::intValue).sum();
+        System.out.printf("%nStarted %d turns (%.1f/s) in %d conversations, at most %d at once%n",
+                started.get(), started.get() / seconds, conversations.get(), peakInFlight.get());
+        // Over the time until the last answer, which includes the backlog left at the end
+        double completedSeconds = Math.max(seconds, (lastCompletion.get() - measureFrom) / 1e9);
+        System.out.printf("Completed %d turns (%.1f/s), failed %d%s, unfinished %d%n",
+                turns.length, turns.length / completedSeconds, failed, failed == 0 ? "" : " " + failures,
+                started.get() - turns.length - failed);
+        print("Time to first token", ttft);
+        print("Turn latency", turns);
+    }
+
+    private static void print(String title, long[] sorted) {
+        if (sorted.length == 0) {
+            System.out.printf("%n%s: no turns completed%n", title);
+            return;
+        }
+        System.out.printf("%n%s (ms): p50 %.0f, p90 %.0f, p99 %.0f, p99.9 %.0f, max %.0f%n", title,
+                percentile(sorted, 0.5), percentile(sorted, 0.9), percentile(sorted, 0.99),
+                percentile(sorted, 0.999), sorted[sorted.length - 1] / 1e6);
+        int[] counts = new int[BUCKETS.length];
+        int bucket = 0;
+        for (long nanos : sorted) {
+            while (nanos > BUCKETS[bucket] * 1_000_000) {
+                bucket++;
+            }
+            counts[bucket]++;
+        }
+        int first = 0;
+        while (counts[first] == 0) {
+            first++;
+        }
+        for (int i = first; i <= bucket; i++) {
+            System.out.printf("  %8s  %-50s %d%n", BUCKETS[i] == Long.MAX_VALUE ? "more" : "<= " + BUCKETS[i],
+                    "#".repeat((int) Math.ceil(50.0 * counts[i] / sorted.length)), counts[i]);
+        }
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * quantile))] / 1e6;
+    }
+
+    private static String json(Map<String, String> fields) {
+        try {
+            return JSON.writeValueAsString(fields);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * A replayed conversation; only the thread running its current turn touches it.
+     */
+    private static final class Conversation {
+
+        private final String chatId;
+        private final List<ConversationScript.Turn> turns;
+        private int turn;
+
+        Conversation(String chatId, List<ConversationScript.Turn> turns) {
+            this.chatId = chatId;
+            this.turns = turns;
+        }
+    }
+
+    /**
+     * Latencies in nanoseconds, recorded from any thread.
+     */
+    private static final class Latencies {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        // Guarded by lock
+        private long[] values = new long[1024];
+        private int size;
+
+        void record(long nanos) {
+            lock.lock();
+            try {
+                if (size == values.length) {
+                    values = Arrays.copyOf(values, size * 2);
+                }
+                values[size++] = nanos;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        long[] sorted() {
+            lock.lock();
+            try {
+                long[] sorted = Arrays.copyOf(values, size);
+                Arrays.sort(sorted);
+                return sorted;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.bookingchatbot.benchmark.rag;
+
+import com.bookingchatbot.rag.Bm25Index;
+import dev.langchain4j.data.segment.TextSegment;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BM25 search latency on synthetic corpora much larger than the bundled policies.
+ * <p>
+ * Segments are 40 words drawn from a Zipf-like distribution over a 20,000-word vocabulary, close
+ * to the term statistics of natural text once the most frequent words (stop words, which the
+ * index drops) are left out. Queries are three words drawn the same way. Each trial prints the
+ * size of the postings lists.
+ * <pre>
+ * java -jar target/benchmarks.jar Bm25IndexBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class Bm25IndexBenchmark {
+
+    private static final int VOCABULARY = 20_000;
+    private static final int STOP_WORD_RANKS = 50;
+    private static final int WORDS_PER_SEGMENT = 40;
+    private static final int QUERIES = 1024;
+
+    @Param({"1000", "10000", "100000"})
+    int segments;
+
+    private Bm25Index index;
+    private String[] queries;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        index = new Bm25Index();
+        long postings = 0;
+        for (int i = 0; i < segments; i++) {
+            String text = words(random, WORDS_PER_SEGMENT);
+            index.add("segment-" + i, TextSegment.from(text));
+            postings += text.chars().filter(c -> c == ' ').count() + 1;
+        }
+        queries = new String[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            queries[i] = words(random, 3);
+        }
+        System.out.printf("%n[%d segments] postings: %d KiB, %.2f bytes per word occurrence%n",
+                segments, index.postingsBytes() / 1024, (double) index.postingsBytes() / postings);
+    }
+
+    @Benchmark
+    public List<Bm25Index.Match> search() {
+        String query = queries[next];
+        next = (next + 1) & (QUERIES - 1);
+        return index.search(query, 10, null);
+    }
+
+    private static String words(Random random, int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                text.append(' ');
+            }
+            // Log-uniform ranks give P(rank) roughly proportional to 1 / rank
+            int rank = (int) (STOP_WORD_RANKS * Math.pow((double) VOCABULARY / STOP_WORD_RANKS, random.nextDouble()));
+            text.append("w").append(Integer.toString(rank, 36));
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,129 @@
+package com.bookingchatbot.benchmark.rag;
+
+import com.bookingchatbot.rag.KnowledgeBaseIngestor;
+import dev.langchain4j.data.document.Document;
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.document.splitter.DocumentSplitters;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+import dev.langchain4j.rag.content.Content;
+import dev.langchain4j.rag.content.retriever.ContentRetriever;
+import dev.langchain4j.rag.content.retriever.EmbeddingStoreContentRetriever;
+import dev.langchain4j.rag.query.Query;
+import dev.langchain4j.store.embedding.inmemory.InMemoryEmbeddingStore;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Search latency of the content retriever as the application builds it by default: an
+ * {@link EmbeddingStoreContentRetriever} over the in-memory store, 2 results, {@code minScore}
+ * 0.6 and the ingestor's filter for the active version of each document.
+ * <p>
+ * The knowledge base is {@code segments} synthetic segments in documents of 100 segments,
+ * ingested through {@link KnowledgeBaseIngestor} with {@link SyntheticEmbeddings} of the local
+ * model's 384 dimensions. Query embeddings are computed up front, so only the search is measured,
+ * not the embedding model.
+ * <pre>
+ * java -jar target/benchmarks.jar ContentRetrieverBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ContentRetrieverBenchmark {
+
+    private static final int DIMENSION = 384;
+    private static final int SEGMENTS_PER_DOCUMENT = 100;
+    private static final int QUERIES = 1024;
+
+    @Param({"1000", "10000", "100000"})
+    int segments;
+
+    private KnowledgeBaseIngestor ingestor;
+    private ContentRetriever contentRetriever;
+    private Query[] queries;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SyntheticEmbeddings embeddings = new SyntheticEmbeddings(DIMENSION, 64, 42);
+        EmbeddingModel documentModel = new FixedEmbeddingModel(Map.of(), embeddings);
+        InMemoryEmbeddingStore<TextSegment> store = new InMemoryEmbeddingStore<>();
+        // One worker, as the synthetic embeddings are not thread-safe
+        ingestor = new KnowledgeBaseIngestor(documentModel, store, DocumentSplitters.recursive(200, 0), 1, 256, 2);
+        List<KnowledgeBaseIngestor.Source> sources = new ArrayList<>();
+        for (int d = 0; d < segments / SEGMENTS_PER_DOCUMENT; d++) {
+            StringBuilder text = new StringBuilder();
+            for (int s = 0; s < SEGMENTS_PER_DOCUMENT; s++) {
+                // About 130 characters, one segment each
+                text.append("Section ").append(s).append(" of policy ").append(d)
+                        .append(": changes are free up to 24 hours before departure, ")
+                        .append("after which a fee applies depending on the booking class.\n\n");
+            }
+            sources.add(KnowledgeBaseIngestor.Source.of(
+                    Document.from(text.toString(), Metadata.from(Document.FILE_NAME, "policy-" + d + ".txt"))));
+        }
+        KnowledgeBaseIngestor.Result result = ingestor.ingest(sources);
+
+        Map<String, Embedding> queryEmbeddings = new HashMap<>();
+        queries = new Query[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            queries[i] = Query.from("query " + i);
+            queryEmbeddings.put(queries[i].text(), embeddings.nextEmbedding());
+        }
+        contentRetriever = EmbeddingStoreContentRetriever.builder()
+                .embeddingStore(store)
+                .embeddingModel(new FixedEmbeddingModel(queryEmbeddings, null))
+                .filter(ingestor.activeSegments())
+                .maxResults(2)
+                .minScore(0.6)
+                .build();
+        System.out.printf("%n[%d segments] ingested %s%n", segments, result);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        ingestor.close();
+    }
+
+    @Benchmark
+    public List<Content> retrieve() {
+        Query query = queries[next];
+        next = (next + 1) & (QUERIES - 1);
+        return contentRetriever.retrieve(query);
+    }
+
+    /**
+     * Returns the given embedding of each known text, and the next synthetic embedding for any
+     * other text.
+     */
+    private record FixedEmbeddingModel(Map<String, Embedding> known, SyntheticEmbeddings synthetic)
+            implements EmbeddingModel {
+
+        @Override
+        public Response<List<Embedding>> embedAll(List<TextSegment> textSegments) {
+            List<Embedding> embeddings = new ArrayList<>(textSegments.size());
+            for (TextSegment segment : textSegments) {
+                Embedding embedding = known.get(segment.text());
+                embeddings.add(embedding != null ? embedding : synthetic.nextEmbedding());
+            }
+            return Response.from(embeddings);
+        }
+
+        @Override
+        public int dimension() {
+            return DIMENSION;
+        }
+    }
+}
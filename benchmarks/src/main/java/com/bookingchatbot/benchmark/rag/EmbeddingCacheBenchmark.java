@@ -0,0 +1,127 @@
+package com.bookingchatbot.benchmark.rag;
+
+import com.bookingchatbot.rag.CachingEmbeddingModel;
+import com.bookingchatbot.rag.DiskEmbeddingCache;
+import dev.langchain4j.data.document.Document;
+import dev.langchain4j.data.document.DocumentSplitter;
+import dev.langchain4j.data.document.splitter.DocumentSplitters;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.openai.OpenAiTokenizer;
+import dev.langchain4j.model.output.Response;
+import dev.langchain4j.store.embedding.EmbeddingStoreIngestor;
+import dev.langchain4j.store.embedding.inmemory.InMemoryEmbeddingStore;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Startup ingestion of the terms of service with an empty (cold) versus a populated (warm)
+ * embedding cache.
+ * <p>
+ * The remote embedding model is simulated with a fixed latency per request, so the cold numbers
+ * are dominated by {@code remoteLatencyMillis} and the warm numbers show the cost of splitting,
+ * hashing and reading the memory-mapped cache.
+ * <pre>
+ * java -jar target/benchmarks.jar EmbeddingCacheBenchmark -p remoteLatencyMillis=800
+ * </pre>
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+@Fork(1)
+public class EmbeddingCacheBenchmark {
+
+    @Param({"cold", "warm"})
+    String cache;
+
+    @Param("300")
+    int remoteLatencyMillis;
+
+    private Document termsOfService;
+    private DocumentSplitter splitter;
+    private EmbeddingModel remoteModel;
+    private Path cacheFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        try (InputStream inputStream = getClass().getResourceAsStream("/terms-of-service.txt")) {
+            termsOfService = Document.from(new String(inputStream.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        splitter = DocumentSplitters.recursive(50, 0, new OpenAiTokenizer());
+        remoteModel = new SimulatedRemoteModel(remoteLatencyMillis);
+        cacheFile = Files.createTempFile("embedding-cache", ".bin");
+    }
+
+    @Setup(Level.Iteration)
+    public void resetCache() throws IOException {
+        Files.deleteIfExists(cacheFile);
+        if ("warm".equals(cache)) {
+            ingest();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(cacheFile);
+    }
+
+    @Benchmark
+    public InMemoryEmbeddingStore<TextSegment> ingest() {
+        InMemoryEmbeddingStore<TextSegment> store = new InMemoryEmbeddingStore<>();
+        try (DiskEmbeddingCache diskCache = DiskEmbeddingCache.open(cacheFile)) {
+            EmbeddingStoreIngestor.builder()
+                    .documentSplitter(splitter)
+                    .embeddingModel(new CachingEmbeddingModel(remoteModel, diskCache, "simulated"))
+                    .embeddingStore(store)
+                    .build()
+                    .ingest(termsOfService);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return store;
+    }
+
+    /**
+     * Returns random 1536-dimensional vectors after sleeping for one round trip.
+     */
+    private static class SimulatedRemoteModel implements EmbeddingModel {
+
+        private final int latencyMillis;
+        private final Random random = new Random(42);
+
+        SimulatedRemoteModel(int latencyMillis) {
+            this.latencyMillis = latencyMillis;
+        }
+
+        @Override
+        public Response<List<Embedding>> embedAll(List<TextSegment> textSegments) {
+            try {
+                Thread.sleep(latencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            List<Embedding> embeddings = new ArrayList<>(textSegments.size());
+            for (int i = 0; i < textSegments.size(); i++) {
+                float[] vector = new float[1536];
+                for (int d = 0; d < vector.length; d++) {
+                    vector[d] = random.nextFloat();
+                }
+                embeddings.add(Embedding.from(vector));
+            }
+            return Response.from(embeddings);
+        }
+    }
+}
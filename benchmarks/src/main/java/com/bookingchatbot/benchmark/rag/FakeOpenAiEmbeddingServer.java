@@ -0,0 +1,79 @@
+package com.bookingchatbot.benchmark.rag;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Random;
+import java.util.concurrent.Executors;
+
+/**
+ * Local stand-in for the OpenAI {@code /v1/embeddings} endpoint, so the real HTTP client can be
+ * benchmarked without network access. Every request waits {@code latencyMillis} (the provider's
+ * round trip) and returns deterministic pseudo-random vectors per input text.
+ */
+public final class FakeOpenAiEmbeddingServer implements AutoCloseable {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final HttpServer server;
+    private final int latencyMillis;
+    private final int dimension;
+
+    public FakeOpenAiEmbeddingServer(int latencyMillis, int dimension) throws IOException {
+        this.latencyMillis = latencyMillis;
+        this.dimension = dimension;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        this.server.createContext("/v1/embeddings", this::embeddings);
+        this.server.setExecutor(Executors.newCachedThreadPool());
+        this.server.start();
+    }
+
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/v1/";
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void embeddings(HttpExchange exchange) throws IOException {
+        JsonNode request = JSON.readTree(exchange.getRequestBody());
+        sleep();
+
+        ObjectNode response = JSON.createObjectNode().put("object", "list").put("model", request.path("model").asText());
+        ArrayNode data = response.putArray("data");
+        int index = 0;
+        for (JsonNode input : request.path("input")) {
+            ObjectNode item = data.addObject().put("object", "embedding").put("index", index++);
+            ArrayNode vector = item.putArray("embedding");
+            Random random = new Random(input.asText().hashCode());
+            for (int d = 0; d < dimension; d++) {
+                vector.add(random.nextFloat() - 0.5f);
+            }
+        }
+        response.putObject("usage").put("prompt_tokens", index).put("total_tokens", index);
+
+        byte[] body = JSON.writeValueAsBytes(response);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private void sleep() {
+        try {
+            Thread.sleep(latencyMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.bookingchatbot.benchmark.rag;
+
+import com.bookingchatbot.rag.HnswEmbeddingStore;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
+import dev.langchain4j.store.embedding.EmbeddingSearchResult;
+import dev.langchain4j.store.embedding.EmbeddingStore;
+import dev.langchain4j.store.embedding.inmemory.InMemoryEmbeddingStore;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Search latency of the HNSW store against LangChain4j's brute-force InMemoryEmbeddingStore.
+ * <p>
+ * Recall@k of the HNSW store against exact search is printed once per trial, together with the
+ * build time (the HNSW graph is built with parallel inserts).
+ * <pre>
+ * java -jar target/benchmarks.jar HnswEmbeddingStoreBenchmark -p segments=100000
+ * </pre>
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms8g", "-Xmx8g"})
+public class HnswEmbeddingStoreBenchmark {
+
+    private static final int QUERY_COUNT = 1024;
+    private static final int RECALL_QUERIES = 200;
+
+    @Param({"100000", "1000000"})
+    int segments;
+
+    @Param({"brute-force", "hnsw"})
+    String store;
+
+    @Param("384")
+    int dimension;
+
+    @Param("10")
+    int maxResults;
+
+    @Param("16")
+    int m;
+
+    @Param("200")
+    int efConstruction;
+
+    @Param("64")
+    int efSearch;
+
+    private EmbeddingStore<TextSegment> embeddingStore;
+    private EmbeddingSearchRequest[] requests;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SyntheticEmbeddings generator = new SyntheticEmbeddings(dimension, 256, 42);
+        float[][] vectors = generator.vectors(segments);
+        String[] ids = new String[segments];
+
+        long start = System.nanoTime();
+        if ("hnsw".equals(store)) {
+            HnswEmbeddingStore<TextSegment> hnsw = new HnswEmbeddingStore<>(m, efConstruction, efSearch);
+            IntStream.range(0, segments).parallel().forEach(i -> {
+                ids[i] = "segment-" + i;
+                hnsw.add(ids[i], Embedding.from(vectors[i]));
+            });
+            embeddingStore = hnsw;
+        } else {
+            InMemoryEmbeddingStore<TextSegment> inMemory = new InMemoryEmbeddingStore<>();
+            for (int i = 0; i < segments; i++) {
+                ids[i] = "segment-" + i;
+                inMemory.add(ids[i], Embedding.from(vectors[i]));
+            }
+            embeddingStore = inMemory;
+        }
+        long buildMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        requests = new EmbeddingSearchRequest[QUERY_COUNT];
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            requests[i] = EmbeddingSearchRequest.builder()
+                    .queryEmbedding(generator.nextEmbedding())
+                    .maxResults(maxResults)
+                    .build();
+        }
+
+        double recall = recall(vectors, ids);
+        System.out.printf("%n[%s, %d segments] build: %d ms, recall@%d: %.4f%n",
+                store, segments, buildMillis, maxResults, recall);
+    }
+
+    @Benchmark
+    public EmbeddingSearchResult<TextSegment> search() {
+        return embeddingStore.search(requests[next++ & (QUERY_COUNT - 1)]);
+    }
+
+    private double recall(float[][] vectors, String[] ids) {
+        int found = 0;
+        for (int q = 0; q < RECALL_QUERIES; q++) {
+            EmbeddingSearchRequest request = requests[q];
+            Set<String> truth = new HashSet<>();
+            for (int index : SyntheticEmbeddings.exactTopK(vectors, request.queryEmbedding().vector(), maxResults)) {
+                truth.add(ids[index]);
+            }
+            List<EmbeddingMatch<TextSegment>> matches = embeddingStore.search(request).matches();
+            for (EmbeddingMatch<TextSegment> match : matches) {
+                if (truth.contains(match.embeddingId())) {
+                    found++;
+                }
+            }
+        }
+        return (double) found / (RECALL_QUERIES * maxResults);
+    }
+}
@@ -0,0 +1,125 @@
+package com.bookingchatbot.benchmark.rag;
+
+import com.bookingchatbot.rag.Bm25Index;
+import com.bookingchatbot.rag.Bm25IndexingEmbeddingStore;
+import com.bookingchatbot.rag.HybridContentRetriever;
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.embedding.onnx.allminilml6v2.AllMiniLmL6V2EmbeddingModel;
+import dev.langchain4j.rag.content.Content;
+import dev.langchain4j.rag.content.retriever.ContentRetriever;
+import dev.langchain4j.rag.content.retriever.EmbeddingStoreContentRetriever;
+import dev.langchain4j.rag.query.Query;
+import dev.langchain4j.store.embedding.inmemory.InMemoryEmbeddingStore;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Relevance and latency of vector-only, BM25-only and hybrid (reciprocal rank fusion) retrieval
+ * over the policy paragraphs in {@code policy-corpus.txt}, replaying {@code labelled-queries.tsv}.
+ * <p>
+ * Vector and hybrid retrieval use the local embedding model and the same settings as the
+ * application (2 results, vector {@code minScore} 0.6). Each trial prints hit@1, hit@2 and
+ * MRR@2 against the labels.
+ * <pre>
+ * java -jar target/benchmarks.jar HybridRetrievalBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class HybridRetrievalBenchmark {
+
+    private static final String POLICY_ID = "policy_id";
+
+    @Param({"vector", "bm25", "hybrid"})
+    String retriever;
+
+    private List<LabelledQuery> queries;
+    private ContentRetriever contentRetriever;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        queries = new ArrayList<>();
+        for (String[] columns : readTsv("/labelled-queries.tsv")) {
+            queries.add(new LabelledQuery(columns[0], Query.from(columns[1])));
+        }
+        List<TextSegment> segments = new ArrayList<>();
+        for (String[] columns : readTsv("/policy-corpus.txt")) {
+            segments.add(TextSegment.from(columns[1], Metadata.from(POLICY_ID, columns[0])));
+        }
+
+        EmbeddingModel embeddingModel = new AllMiniLmL6V2EmbeddingModel();
+        Bm25Index index = new Bm25Index();
+        Bm25IndexingEmbeddingStore store = new Bm25IndexingEmbeddingStore(new InMemoryEmbeddingStore<>(), index);
+        store.addAll(embeddingModel.embedAll(segments).content(), segments);
+
+        contentRetriever = switch (retriever) {
+            case "vector" -> EmbeddingStoreContentRetriever.builder()
+                    .embeddingStore(store)
+                    .embeddingModel(embeddingModel)
+                    .maxResults(2)
+                    .minScore(0.6)
+                    .build();
+            case "bm25" -> query -> index.search(query.text(), 2, null).stream()
+                    .map(match -> Content.from(match.segment()))
+                    .toList();
+            case "hybrid" -> new HybridContentRetriever(store, embeddingModel, index, null, 2, 0.6, 10, 60);
+            default -> throw new IllegalArgumentException(retriever);
+        };
+
+        int hitsAt1 = 0, hitsAt2 = 0;
+        double reciprocalRanks = 0;
+        for (LabelledQuery query : queries) {
+            List<Content> contents = contentRetriever.retrieve(query.query());
+            for (int rank = 0; rank < contents.size(); rank++) {
+                if (query.expectedId().equals(contents.get(rank).textSegment().metadata().getString(POLICY_ID))) {
+                    hitsAt1 += rank == 0 ? 1 : 0;
+                    hitsAt2++;
+                    reciprocalRanks += 1.0 / (rank + 1);
+                    break;
+                }
+            }
+        }
+        System.out.printf("%n[%s] %d queries over %d segments: hit@1=%.2f hit@2=%.2f MRR@2=%.3f%n",
+                retriever, queries.size(), segments.size(), (double) hitsAt1 / queries.size(),
+                (double) hitsAt2 / queries.size(), reciprocalRanks / queries.size());
+    }
+
+    @Benchmark
+    public List<Content> retrieve() {
+        LabelledQuery query = queries.get(next);
+        next = (next + 1) % queries.size();
+        return contentRetriever.retrieve(query.query());
+    }
+
+    private List<String[]> readTsv(String resource) throws IOException {
+        List<String[]> rows = new ArrayList<>();
+        try (InputStream inputStream = getClass().getResourceAsStream(resource);
+             BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank() && !line.startsWith("#")) {
+                    rows.add(line.split("\t", 2));
+                }
+            }
+        }
+        return rows;
+    }
+
+    private record LabelledQuery(String expectedId, Query query) {
+    }
+}
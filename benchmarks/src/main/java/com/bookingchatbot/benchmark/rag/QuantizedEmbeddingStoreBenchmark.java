@@ -0,0 +1,121 @@
+package com.bookingchatbot.benchmark.rag;
+
+import com.bookingchatbot.rag.QuantizedEmbeddingStore;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
+import dev.langchain4j.store.embedding.EmbeddingSearchResult;
+import dev.langchain4j.store.embedding.EmbeddingStore;
+import dev.langchain4j.store.embedding.inmemory.InMemoryEmbeddingStore;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Queries per second of the int8 QuantizedEmbeddingStore against InMemoryEmbeddingStore.
+ * <p>
+ * Each trial prints the retained heap per segment (measured around the store build) and
+ * recall@k against exact float search.
+ * <ul>
+ *     <li>{@code quantized}: SIMD scan + full-precision re-rank (rerank factor 4)</li>
+ *     <li>{@code quantized-scalar}: same, scanned with the scalar dot product</li>
+ *     <li>{@code quantized-codes-only}: SIMD scan, no float copies kept (rerank factor 0)</li>
+ * </ul>
+ * <pre>
+ * java -jar target/benchmarks.jar QuantizedEmbeddingStoreBenchmark -p segments=100000
+ * </pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules=jdk.incubator.vector", "-Xms4g", "-Xmx4g"})
+public class QuantizedEmbeddingStoreBenchmark {
+
+    private static final int QUERY_COUNT = 1024;
+    private static final int RECALL_QUERIES = 200;
+    private static final long SEED = 42;
+
+    @Param({"10000", "100000"})
+    int segments;
+
+    @Param({"in-memory", "quantized", "quantized-scalar", "quantized-codes-only"})
+    String store;
+
+    @Param("384")
+    int dimension;
+
+    @Param("10")
+    int maxResults;
+
+    private EmbeddingStore<TextSegment> embeddingStore;
+    private EmbeddingSearchRequest[] requests;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        long before = usedHeap();
+        embeddingStore = createStore();
+        SyntheticEmbeddings generator = new SyntheticEmbeddings(dimension, 256, SEED);
+        for (int i = 0; i < segments; i++) {
+            embeddingStore.add("segment-" + i, generator.nextEmbedding());
+        }
+        long bytesPerSegment = (usedHeap() - before) / segments;
+
+        requests = new EmbeddingSearchRequest[QUERY_COUNT];
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            requests[i] = EmbeddingSearchRequest.builder()
+                    .queryEmbedding(generator.nextEmbedding())
+                    .maxResults(maxResults)
+                    .build();
+        }
+
+        // Same seed, same vectors: regenerate them for exact ground truth
+        float[][] vectors = new SyntheticEmbeddings(dimension, 256, SEED).vectors(segments);
+        System.out.printf("%n[%s, %d segments] heap per segment: %d bytes, recall@%d: %.4f%n",
+                store, segments, bytesPerSegment, maxResults, recall(vectors));
+    }
+
+    @Benchmark
+    public EmbeddingSearchResult<TextSegment> search() {
+        return embeddingStore.search(requests[next++ & (QUERY_COUNT - 1)]);
+    }
+
+    private EmbeddingStore<TextSegment> createStore() {
+        return switch (store) {
+            case "in-memory" -> new InMemoryEmbeddingStore<>();
+            case "quantized" -> new QuantizedEmbeddingStore<>(4);
+            case "quantized-scalar" -> QuantizedEmbeddingStore.withScalarScoring(4);
+            case "quantized-codes-only" -> new QuantizedEmbeddingStore<>(0);
+            default -> throw new IllegalArgumentException("Unknown store: " + store);
+        };
+    }
+
+    private double recall(float[][] vectors) {
+        int found = 0;
+        for (int q = 0; q < RECALL_QUERIES; q++) {
+            EmbeddingSearchRequest request = requests[q];
+            Set<String> truth = new HashSet<>();
+            for (int index : SyntheticEmbeddings.exactTopK(vectors, request.queryEmbedding().vector(), maxResults)) {
+                truth.add("segment-" + index);
+            }
+            for (EmbeddingMatch<TextSegment> match : embeddingStore.search(request).matches()) {
+                if (truth.contains(match.embeddingId())) {
+                    found++;
+                }
+            }
+        }
+        return (double) found / (RECALL_QUERIES * maxResults);
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,152 @@
+package com.bookingchatbot.benchmark.rag;
+
+import com.bookingchatbot.rag.LruEmbeddingModel;
+import com.bookingchatbot.rag.MicroBatchingEmbeddingModel;
+import dev.langchain4j.data.document.Document;
+import dev.langchain4j.data.document.splitter.DocumentSplitters;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.embedding.onnx.allminilml6v2.AllMiniLmL6V2EmbeddingModel;
+import dev.langchain4j.model.openai.OpenAiEmbeddingModel;
+import dev.langchain4j.model.openai.OpenAiTokenizer;
+import dev.langchain4j.rag.content.Content;
+import dev.langchain4j.rag.content.retriever.ContentRetriever;
+import dev.langchain4j.rag.content.retriever.EmbeddingStoreContentRetriever;
+import dev.langchain4j.rag.query.Query;
+import dev.langchain4j.store.embedding.EmbeddingStoreIngestor;
+import dev.langchain4j.store.embedding.inmemory.InMemoryEmbeddingStore;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Retrieval latency (embed the user message, then search the terms of service) with the remote
+ * OpenAI embedding model versus the bundled all-MiniLM-L6-v2 model.
+ * <p>
+ * The remote model is the real OpenAI client talking to {@link FakeOpenAiEmbeddingServer}, which
+ * adds {@code remoteLatencyMillis} per request. Four threads issue queries concurrently, so
+ * micro-batching ({@code queryBatchSize}) has something to batch. With {@code queryCacheSize > 0}
+ * repeated questions are served from the LRU query cache; the question pool is small, so that
+ * variant shows the fully warmed-up cache. Read p50/p99 from the SampleTime percentiles.
+ * <pre>
+ * java -jar target/benchmarks.jar QueryEmbeddingBenchmark -p remoteLatencyMillis=150
+ * </pre>
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(4)
+@Fork(1)
+public class QueryEmbeddingBenchmark {
+
+    private static final List<String> QUESTIONS = List.of(
+            "Can I cancel my booking within 48 hours?",
+            "What is the fee for changing my flight date?",
+            "How late can I change a booking before departure?",
+            "Do I get a refund if I cancel?",
+            "Is there a cancellation fee for economy class?",
+            "Can I change the destination of my booking?",
+            "What happens if I miss my flight?",
+            "How many days before the flight can I cancel?",
+            "Are business class tickets refundable?",
+            "Can I upgrade from economy to business?",
+            "Who can change a booking on my behalf?",
+            "What are the terms of service for cancellations?",
+            "Can I get my money back after check-in?",
+            "Is changing the booking class possible?",
+            "How do I cancel a premium economy ticket?",
+            "What is your policy on late changes?"
+    );
+
+    @Param({"remote", "local"})
+    String embeddings;
+
+    @Param({"1", "16"})
+    int queryBatchSize;
+
+    @Param({"0", "1024"})
+    int queryCacheSize;
+
+    @Param("50")
+    int remoteLatencyMillis;
+
+    private FakeOpenAiEmbeddingServer server;
+    private MicroBatchingEmbeddingModel batchingModel;
+    private ContentRetriever retriever;
+
+    @State(Scope.Thread)
+    public static class Questions {
+
+        private int next = (int) (Thread.currentThread().getId() * 7);
+
+        Query next() {
+            return Query.from(QUESTIONS.get(next++ % QUESTIONS.size()));
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        EmbeddingModel embeddingModel;
+        if ("remote".equals(embeddings)) {
+            server = new FakeOpenAiEmbeddingServer(remoteLatencyMillis, 1536);
+            embeddingModel = OpenAiEmbeddingModel.builder()
+                    .baseUrl(server.baseUrl())
+                    .apiKey("benchmark")
+                    .modelName("text-embedding-ada-002")
+                    .build();
+        } else {
+            embeddingModel = new AllMiniLmL6V2EmbeddingModel();
+        }
+
+        InMemoryEmbeddingStore<TextSegment> store = new InMemoryEmbeddingStore<>();
+        EmbeddingStoreIngestor.builder()
+                .documentSplitter(DocumentSplitters.recursive(50, 0, new OpenAiTokenizer()))
+                .embeddingModel(embeddingModel)
+                .embeddingStore(store)
+                .build()
+                .ingest(termsOfService());
+
+        // Same decoration as AiConfig.queryEmbeddingModel
+        EmbeddingModel queryModel = embeddingModel;
+        if (queryBatchSize > 1) {
+            batchingModel = new MicroBatchingEmbeddingModel(queryModel, queryBatchSize);
+            queryModel = batchingModel;
+        }
+        if (queryCacheSize > 0) {
+            queryModel = new LruEmbeddingModel(queryModel, queryCacheSize);
+        }
+        retriever = EmbeddingStoreContentRetriever.builder()
+                .embeddingStore(store)
+                .embeddingModel(queryModel)
+                .maxResults(2)
+                .minScore(0.6)
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (batchingModel != null) {
+            batchingModel.close();
+        }
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    @Benchmark
+    public List<Content> retrieve(Questions questions) {
+        return retriever.retrieve(questions.next());
+    }
+
+    private Document termsOfService() throws IOException {
+        try (InputStream inputStream = getClass().getResourceAsStream("/terms-of-service.txt")) {
+            return Document.from(new String(inputStream.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.bookingchatbot.benchmark.rag;
+
+import com.bookingchatbot.rag.RetrievalGate;
+import dev.langchain4j.data.document.Document;
+import dev.langchain4j.data.document.splitter.DocumentSplitters;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.embedding.onnx.allminilml6v2.AllMiniLmL6V2EmbeddingModel;
+import dev.langchain4j.model.openai.OpenAiTokenizer;
+import dev.langchain4j.rag.AugmentationRequest;
+import dev.langchain4j.rag.AugmentationResult;
+import dev.langchain4j.rag.DefaultRetrievalAugmentor;
+import dev.langchain4j.rag.RetrievalAugmentor;
+import dev.langchain4j.rag.content.retriever.ContentRetriever;
+import dev.langchain4j.rag.content.retriever.EmbeddingStoreContentRetriever;
+import dev.langchain4j.rag.query.Metadata;
+import dev.langchain4j.rag.query.router.DefaultQueryRouter;
+import dev.langchain4j.store.embedding.EmbeddingStoreIngestor;
+import dev.langchain4j.store.embedding.inmemory.InMemoryEmbeddingStore;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-turn retrieval latency and prompt tokens with and without {@link RetrievalGate}, replaying
+ * the labelled conversations in {@code labelled-turns.tsv}.
+ * <p>
+ * Retrieval uses the local embedding model, as configured by default. Each trial prints the
+ * gate's confusion matrix against the labels and the prompt tokens the augmentor added over the
+ * whole set (counted with the OpenAI tokenizer), so the two variants can be compared directly.
+ * <pre>
+ * java -jar target/benchmarks.jar RetrievalGateBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class RetrievalGateBenchmark {
+
+    @Param({"off", "on"})
+    String gating;
+
+    private List<LabelledTurn> turns;
+    private RetrievalAugmentor augmentor;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        turns = readTurns();
+        EmbeddingModel embeddingModel = new AllMiniLmL6V2EmbeddingModel();
+        OpenAiTokenizer tokenizer = new OpenAiTokenizer();
+
+        InMemoryEmbeddingStore<TextSegment> store = new InMemoryEmbeddingStore<>();
+        EmbeddingStoreIngestor.builder()
+                .documentSplitter(DocumentSplitters.recursive(50, 0, tokenizer))
+                .embeddingModel(embeddingModel)
+                .embeddingStore(store)
+                .build()
+                .ingest(termsOfService());
+        ContentRetriever retriever = EmbeddingStoreContentRetriever.builder()
+                .embeddingStore(store)
+                .embeddingModel(embeddingModel)
+                .maxResults(2)
+                .minScore(0.6)
+                .build();
+        augmentor = DefaultRetrievalAugmentor.builder()
+                .queryRouter("on".equals(gating) ? new RetrievalGate(retriever) : new DefaultQueryRouter(retriever))
+                .build();
+
+        int truePositives = 0, falsePositives = 0, falseNegatives = 0, trueNegatives = 0;
+        long addedTokens = 0;
+        for (LabelledTurn turn : turns) {
+            boolean gated = RetrievalGate.needsRetrieval(turn.message());
+            if (gated && turn.needsRetrieval()) truePositives++;
+            if (gated && !turn.needsRetrieval()) falsePositives++;
+            if (!gated && turn.needsRetrieval()) falseNegatives++;
+            if (!gated && !turn.needsRetrieval()) trueNegatives++;
+
+            UserMessage augmented = (UserMessage) augment(turn).chatMessage();
+            addedTokens += tokenizer.estimateTokenCountInText(augmented.singleText())
+                    - tokenizer.estimateTokenCountInText(turn.message());
+        }
+        System.out.printf("%n[gating %s] %d turns, gate vs labels: TP=%d FP=%d FN=%d TN=%d, "
+                        + "prompt tokens added by retrieval: %d (%.1f per turn)%n",
+                gating, turns.size(), truePositives, falsePositives, falseNegatives, trueNegatives,
+                addedTokens, (double) addedTokens / turns.size());
+    }
+
+    @Benchmark
+    public AugmentationResult augment() {
+        LabelledTurn turn = turns.get(next);
+        next = (next + 1) % turns.size();
+        return augment(turn);
+    }
+
+    private AugmentationResult augment(LabelledTurn turn) {
+        UserMessage userMessage = UserMessage.from(turn.message());
+        return augmentor.augment(new AugmentationRequest(userMessage, Metadata.from(userMessage, "benchmark", List.of())));
+    }
+
+    private List<LabelledTurn> readTurns() throws IOException {
+        List<LabelledTurn> labelled = new ArrayList<>();
+        try (InputStream inputStream = getClass().getResourceAsStream("/labelled-turns.tsv");
+             BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] columns = line.split("\t", 2);
+                labelled.add(new LabelledTurn("rag".equals(columns[0]), columns[1]));
+            }
+        }
+        return labelled;
+    }
+
+    private Document termsOfService() throws IOException {
+        try (InputStream inputStream = getClass().getResourceAsStream("/terms-of-service.txt")) {
+            return Document.from(new String(inputStream.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    private record LabelledTurn(boolean needsRetrieval, String message) {
+    }
+}
@@ -0,0 +1,95 @@
+package com.bookingchatbot.benchmark.rag;
+
+import dev.langchain4j.data.embedding.Embedding;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Deterministic, clustered unit vectors that resemble real sentence embeddings
+ * closely enough for index benchmarks (uniform random vectors are unrealistically hard).
+ */
+public final class SyntheticEmbeddings {
+
+    private final float[][] centroids;
+    private final Random random;
+    private final int dimension;
+
+    public SyntheticEmbeddings(int dimension, int clusters, long seed) {
+        this.dimension = dimension;
+        this.random = new Random(seed);
+        this.centroids = new float[clusters][];
+        for (int i = 0; i < clusters; i++) {
+            centroids[i] = gaussian(1.0f);
+        }
+    }
+
+    public float[][] vectors(int count) {
+        float[][] vectors = new float[count][];
+        for (int i = 0; i < count; i++) {
+            vectors[i] = next();
+        }
+        return vectors;
+    }
+
+    public float[] next() {
+        float[] centroid = centroids[random.nextInt(centroids.length)];
+        float[] noise = gaussian(0.35f);
+        float[] vector = new float[dimension];
+        for (int i = 0; i < dimension; i++) {
+            vector[i] = centroid[i] + noise[i];
+        }
+        return normalize(vector);
+    }
+
+    public Embedding nextEmbedding() {
+        return Embedding.from(next());
+    }
+
+    /**
+     * Exact top-k by dot product, used as ground truth for recall.
+     */
+    public static int[] exactTopK(float[][] vectors, float[] query, int k) {
+        int[] best = new int[k];
+        float[] bestScores = new float[k];
+        Arrays.fill(bestScores, Float.NEGATIVE_INFINITY);
+        for (int i = 0; i < vectors.length; i++) {
+            float score = 0f;
+            float[] vector = vectors[i];
+            for (int d = 0; d < vector.length; d++) {
+                score += vector[d] * query[d];
+            }
+            if (score > bestScores[k - 1]) {
+                int j = k - 1;
+                while (j > 0 && bestScores[j - 1] < score) {
+                    bestScores[j] = bestScores[j - 1];
+                    best[j] = best[j - 1];
+                    j--;
+                }
+                bestScores[j] = score;
+                best[j] = i;
+            }
+        }
+        return best;
+    }
+
+    private float[] gaussian(float scale) {
+        float[] vector = new float[dimension];
+        for (int i = 0; i < dimension; i++) {
+            vector[i] = (float) random.nextGaussian() * scale;
+        }
+        return vector;
+    }
+
+    private static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        float inverse = (float) (1 / Math.sqrt(norm));
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] *= inverse;
+        }
+        return vector;
+    }
+}
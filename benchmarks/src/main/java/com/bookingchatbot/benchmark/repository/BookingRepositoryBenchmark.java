@@ -0,0 +1,73 @@
+package com.bookingchatbot.benchmark.repository;
+
+import com.bookingchatbot.model.Booking;
+import com.bookingchatbot.repository.BookingRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Booking lookups and saves against a repository of {@code bookings} bookings besides the demo
+ * data.
+ * <p>
+ * {@code find} looks up existing bookings in random order, {@code findMissing} a booking number
+ * that does not exist, which scans every booking, and {@code save} saves an existing booking
+ * again as a change or cancellation does.
+ * <pre>
+ * java -jar target/benchmarks.jar BookingRepositoryBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookingRepositoryBenchmark {
+
+    private static final int LOOKUPS = 1024;
+
+    @Param({"100", "1000", "10000"})
+    int bookings;
+
+    private BookingRepository repository;
+    private Booking[] lookups;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        repository = new BookingRepository();
+        List<Booking> saved = SyntheticBookings.addTo(repository, bookings);
+        Random random = new Random(7);
+        lookups = new Booking[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            lookups[i] = saved.get(random.nextInt(saved.size()));
+        }
+    }
+
+    @Benchmark
+    public Optional<Booking> find() {
+        Booking booking = next();
+        return repository.findByBookingNumberAndCustomer(booking.getBookingNumber(),
+                booking.getCustomer().getFirstName(), booking.getCustomer().getLastName());
+    }
+
+    @Benchmark
+    public Optional<Booking> findMissing() {
+        return repository.findByBookingNumberAndCustomer("BK0", "John", "Doe");
+    }
+
+    @Benchmark
+    public Booking save() {
+        return repository.save(next());
+    }
+
+    private Booking next() {
+        Booking booking = lookups[next];
+        next = (next + 1) & (LOOKUPS - 1);
+        return booking;
+    }
+}
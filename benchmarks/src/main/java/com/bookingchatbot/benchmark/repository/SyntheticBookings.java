@@ -0,0 +1,54 @@
+package com.bookingchatbot.benchmark.repository;
+
+import com.bookingchatbot.model.Booking;
+import com.bookingchatbot.model.BookingClass;
+import com.bookingchatbot.model.BookingStatus;
+import com.bookingchatbot.model.Customer;
+import com.bookingchatbot.repository.BookingRepository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic bookings like the demo data, for as many customers as a benchmark needs. Every
+ * flight is at least ten days away, so all of them can still be changed and cancelled.
+ */
+public final class SyntheticBookings {
+
+    private static final List<String> FIRST_NAMES = List.of("John", "Jane", "Michael", "Sarah", "Robert", "Emma",
+            "Lucas", "Olivia", "Noah", "Mia", "Liam", "Sofia", "Elias", "Ava", "Oskar", "Ella");
+    private static final List<String> LAST_NAMES = List.of("Doe", "Smith", "Johnson", "Williams", "Taylor", "Brown",
+            "Virtanen", "Korhonen", "Schmidt", "Müller", "Garcia", "Martin", "Rossi", "Nilsson", "Dubois", "Novak");
+    private static final List<String> AIRPORTS = List.of("LAX", "SFO", "JFK", "LHR", "CDG", "ARN", "HEL", "TXL",
+            "MUC", "FRA", "MAD", "SJC");
+
+    private SyntheticBookings() {
+    }
+
+    /**
+     * Saves {@code count} bookings numbered from {@code BK1000} on to {@code repository}.
+     *
+     * @return the saved bookings, in order
+     */
+    public static List<Booking> addTo(BookingRepository repository, int count) {
+        Random random = new Random(42);
+        List<Booking> bookings = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Customer customer = new Customer(FIRST_NAMES.get(random.nextInt(FIRST_NAMES.size())),
+                    LAST_NAMES.get(random.nextInt(LAST_NAMES.size())));
+            Booking booking = new Booking(
+                    "BK" + (1000 + i),
+                    LocalDate.now().plusDays(10 + random.nextInt(300)),
+                    customer,
+                    BookingStatus.CONFIRMED,
+                    AIRPORTS.get(random.nextInt(AIRPORTS.size())),
+                    AIRPORTS.get(random.nextInt(AIRPORTS.size())),
+                    BookingClass.values()[random.nextInt(BookingClass.values().length)]);
+            customer.getBookings().add(booking);
+            bookings.add(repository.save(booking));
+        }
+        return bookings;
+    }
+}
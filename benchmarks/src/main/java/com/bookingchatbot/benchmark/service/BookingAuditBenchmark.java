@@ -0,0 +1,128 @@
+package com.bookingchatbot.benchmark.service;
+
+import com.bookingchatbot.audit.AuditLog;
+import com.bookingchatbot.audit.BookingAuditRecord;
+import com.bookingchatbot.audit.BookingAuditor;
+import com.bookingchatbot.benchmark.repository.SyntheticBookings;
+import com.bookingchatbot.dto.BookingDto;
+import com.bookingchatbot.model.Booking;
+import com.bookingchatbot.repository.BookingRepository;
+import com.bookingchatbot.service.BookingChangedEvent;
+import com.bookingchatbot.service.BookingService;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Throughput of {@code changeBooking} against 1,000 bookings, with the change event going
+ * nowhere ({@code none}), to the audit log ({@code audit}), or to the audit log forcing every
+ * batch to disk ({@code fsync}). Files go to a temporary directory, rotated at 10 MB.
+ * <p>
+ * The difference between {@code none} and {@code audit} is what auditing costs the request
+ * thread: the snapshot is already taken, so it is one record and one ring buffer slot, and
+ * an unpark when the writer sleeps. Run with several threads, e.g. {@code -t 4}, to see the
+ * ring buffer shared by concurrent changes; when the writer cannot keep up, changes wait for
+ * it, which shows in {@code fsync}.
+ * <pre>
+ * java -jar target/benchmarks.jar BookingAuditBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookingAuditBenchmark {
+
+    private static final int TARGETS = 1024;
+
+    @Param({"none", "audit", "fsync"})
+    String audit;
+
+    private Path directory;
+    private AuditLog auditLog;
+    private BookingService bookingService;
+    private Booking[] targets;
+    private LocalDate[] newDates;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(BookingService.class))
+                .setLevel(ch.qos.logback.classic.Level.WARN);
+        BookingRepository repository = new BookingRepository();
+        List<Booking> saved = SyntheticBookings.addTo(repository, 1000);
+        if (audit.equals("none")) {
+            bookingService = new BookingService(repository, event -> {
+            }, new SimpleMeterRegistry());
+        } else {
+            directory = Files.createTempDirectory("audit-benchmark");
+            auditLog = new AuditLog(
+                    JsonMapper.builder()
+                            .findAndAddModules()
+                            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                            .build()
+                            .writerFor(BookingAuditRecord.class),
+                    directory,
+                    "bookings",
+                    10 * 1024 * 1024,
+                    2,
+                    8192,
+                    256,
+                    audit.equals("fsync"),
+                    Clock.systemUTC()
+            );
+            BookingAuditor auditor = new BookingAuditor(auditLog, Clock.systemUTC());
+            bookingService = new BookingService(repository,
+                    event -> auditor.onBookingChanged((BookingChangedEvent) event), new SimpleMeterRegistry());
+        }
+        Random random = new Random(7);
+        targets = new Booking[TARGETS];
+        for (int i = 0; i < TARGETS; i++) {
+            targets[i] = saved.get(random.nextInt(saved.size()));
+        }
+        newDates = new LocalDate[]{LocalDate.now().plusDays(30), LocalDate.now().plusDays(60)};
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (auditLog != null) {
+            auditLog.close();
+            System.out.printf("%n%d records in %d batches, %d waits for the writer, %d rotations%n",
+                    auditLog.written(), auditLog.batches(), auditLog.waits(), auditLog.rotations());
+            try (Stream<Path> files = Files.walk(directory)) {
+                for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(path);
+                }
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Benchmark
+    public BookingDto change(Cursor cursor) {
+        Booking booking = targets[cursor.next];
+        boolean even = (cursor.next & 1) == 0;
+        cursor.next = (cursor.next + 1) & (TARGETS - 1);
+        return bookingService.changeBooking(booking.getBookingNumber(),
+                booking.getCustomer().getFirstName(), booking.getCustomer().getLastName(),
+                newDates[even ? 0 : 1], even ? "JFK" : "LHR", even ? "LHR" : "JFK");
+    }
+}
@@ -0,0 +1,111 @@
+package com.bookingchatbot.benchmark.service;
+
+import com.bookingchatbot.benchmark.repository.SyntheticBookings;
+import com.bookingchatbot.dto.BookingDto;
+import com.bookingchatbot.exception.BookingPolicyViolationException;
+import com.bookingchatbot.model.Booking;
+import com.bookingchatbot.model.BookingStatus;
+import com.bookingchatbot.repository.BookingRepository;
+import com.bookingchatbot.service.BookingService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The booking operations of the tools and the bookings API against a repository of
+ * {@code bookings} bookings, with a no-op event publisher.
+ * <p>
+ * {@code change} moves random bookings between two dates and routes, {@code cancel} cancels
+ * them and sets them back to confirmed afterwards, and {@code rejectChange} tries to change a
+ * booking whose flight is today, which the 24-hour rule rejects with an exception. The log
+ * line of every successful change and cancellation is switched off, as it would go to the
+ * console of the benchmark.
+ * <pre>
+ * java -jar target/benchmarks.jar BookingServiceBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookingServiceBenchmark {
+
+    private static final int TARGETS = 1024;
+
+    @Param({"100", "1000", "10000"})
+    int bookings;
+
+    private BookingService bookingService;
+    private Booking[] targets;
+    private Booking flightToday;
+    private LocalDate[] newDates;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(BookingService.class))
+                .setLevel(ch.qos.logback.classic.Level.WARN);
+        BookingRepository repository = new BookingRepository();
+        List<Booking> saved = SyntheticBookings.addTo(repository, bookings);
+        bookingService = new BookingService(repository, event -> {
+        }, new SimpleMeterRegistry());
+        flightToday = saved.removeLast();
+        flightToday.setDate(LocalDate.now());
+        Random random = new Random(7);
+        targets = new Booking[TARGETS];
+        for (int i = 0; i < TARGETS; i++) {
+            targets[i] = saved.get(random.nextInt(saved.size()));
+        }
+        newDates = new LocalDate[]{LocalDate.now().plusDays(30), LocalDate.now().plusDays(60)};
+    }
+
+    @Benchmark
+    public BookingDto details() {
+        Booking booking = next();
+        return bookingService.getBookingDetails(booking.getBookingNumber(),
+                booking.getCustomer().getFirstName(), booking.getCustomer().getLastName());
+    }
+
+    @Benchmark
+    public BookingDto change() {
+        Booking booking = next();
+        boolean even = (next & 1) == 0;
+        return bookingService.changeBooking(booking.getBookingNumber(),
+                booking.getCustomer().getFirstName(), booking.getCustomer().getLastName(),
+                newDates[even ? 0 : 1], even ? "JFK" : "LHR", even ? "LHR" : "JFK");
+    }
+
+    @Benchmark
+    public BookingDto cancel() {
+        Booking booking = next();
+        BookingDto cancelled = bookingService.cancelBooking(booking.getBookingNumber(),
+                booking.getCustomer().getFirstName(), booking.getCustomer().getLastName());
+        booking.setStatus(BookingStatus.CONFIRMED);
+        return cancelled;
+    }
+
+    @Benchmark
+    public BookingPolicyViolationException rejectChange() {
+        try {
+            bookingService.changeBooking(flightToday.getBookingNumber(),
+                    flightToday.getCustomer().getFirstName(), flightToday.getCustomer().getLastName(),
+                    newDates[0], "JFK", "LHR");
+        } catch (BookingPolicyViolationException e) {
+            return e;
+        }
+        throw new IllegalStateException("The change of a flight today was accepted");
+    }
+
+    private Booking next() {
+        Booking booking = targets[next];
+        next = (next + 1) & (TARGETS - 1);
+        return booking;
+    }
+}
@@ -0,0 +1,100 @@
+package com.bookingchatbot.benchmark.service;
+
+import com.bookingchatbot.benchmark.repository.SyntheticBookings;
+import com.bookingchatbot.dto.BookingDto;
+import com.bookingchatbot.model.Booking;
+import com.bookingchatbot.repository.BookingRepository;
+import com.bookingchatbot.service.BookingService;
+import com.bookingchatbot.service.IdempotencyCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.LoggerFactory;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Throughput of booking changes under a retry storm: every change is sent {@code retries}
+ * times with the same idempotency key, by whichever threads come next, the way clients and
+ * the model repeat a call they did not see an answer for. Without a key ({@code none}) every
+ * attempt runs {@code changeBooking}; with one ({@code idempotent}) the first attempt runs it
+ * and the others get its result from the {@link IdempotencyCache}.
+ * <p>
+ * Run with several threads, e.g. {@code -t 4}, so retries of the same key overlap and some
+ * wait for the attempt still running.
+ * <pre>
+ * java -jar target/benchmarks.jar IdempotentRetryBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IdempotentRetryBenchmark {
+
+    private static final int TARGETS = 1024;
+
+    @Param({"none", "idempotent"})
+    String keys;
+
+    @Param({"8"})
+    int retries;
+
+    private BookingService bookingService;
+    private IdempotencyCache idempotencyCache;
+    private Booking[] targets;
+    private LocalDate[] newDates;
+    private final AtomicLong attempts = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(BookingService.class))
+                .setLevel(ch.qos.logback.classic.Level.WARN);
+        BookingRepository repository = new BookingRepository();
+        List<Booking> saved = SyntheticBookings.addTo(repository, 1000);
+        bookingService = new BookingService(repository, event -> {
+        }, new SimpleMeterRegistry());
+        idempotencyCache = new IdempotencyCache(Duration.ofHours(24), 10_000, Clock.systemUTC());
+        Random random = new Random(7);
+        targets = new Booking[TARGETS];
+        for (int i = 0; i < TARGETS; i++) {
+            targets[i] = saved.get(random.nextInt(saved.size()));
+        }
+        newDates = new LocalDate[]{LocalDate.now().plusDays(30), LocalDate.now().plusDays(60)};
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (keys.equals("idempotent")) {
+            System.out.printf("%n%d changes run, %d retries replayed, %d keys kept%n",
+                    idempotencyCache.executed(), idempotencyCache.replayed(), idempotencyCache.size());
+        }
+    }
+
+    @Benchmark
+    public BookingDto change() {
+        long change = attempts.getAndIncrement() / retries;
+        int index = (int) change & (TARGETS - 1);
+        Booking booking = targets[index];
+        boolean even = (change & 1) == 0;
+        String bookingNumber = booking.getBookingNumber();
+        String firstName = booking.getCustomer().getFirstName();
+        String lastName = booking.getCustomer().getLastName();
+        LocalDate date = newDates[even ? 0 : 1];
+        String from = even ? "JFK" : "LHR";
+        String to = even ? "LHR" : "JFK";
+        if (keys.equals("none")) {
+            return bookingService.changeBooking(bookingNumber, firstName, lastName, date, from, to);
+        }
+        return idempotencyCache.execute("change-" + change,
+                List.of(bookingNumber, firstName, lastName, date, from, to),
+                () -> bookingService.changeBooking(bookingNumber, firstName, lastName, date, from, to));
+    }
+}
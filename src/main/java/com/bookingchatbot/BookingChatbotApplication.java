@@ -2,12 +2,14 @@ package com.bookingchatbot;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 
 /**
  * Main entry point for the Booking Chatbot application.
  * This is an AI-powered customer support system for airline bookings.
  */
 @SpringBootApplication
+@ConfigurationPropertiesScan
 public class BookingChatbotApplication {
 
     public static void main(String[] args) {
@@ -3,14 +3,12 @@ package com.bookingchatbot.ai;
 import dev.langchain4j.service.MemoryId;
 import dev.langchain4j.service.SystemMessage;
 import dev.langchain4j.service.UserMessage;
-import dev.langchain4j.service.spring.AiService;
 import reactor.core.publisher.Flux;
 
 /**
  * AI-powered assistant for customer support.
- * Uses LangChain4j for integration with OpenAI.
+ * Uses LangChain4j for integration with OpenAI; built in {@code AiConfig}.
  */
-@AiService
 public interface AiAssistant {
 
     @SystemMessage("""
@@ -2,33 +2,77 @@ package com.bookingchatbot.ai;
 
 import com.bookingchatbot.dto.BookingDto;
 import com.bookingchatbot.service.BookingService;
+import com.bookingchatbot.service.ChatMailbox;
+import com.bookingchatbot.service.ChatTurn;
+import com.bookingchatbot.service.IdempotencyCache;
+import com.bookingchatbot.service.OperationTimers;
 import dev.langchain4j.agent.tool.P;
 import dev.langchain4j.agent.tool.Tool;
+import dev.langchain4j.agent.tool.ToolMemoryId;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
 
 /**
  * Tools that the AI assistant can use to interact with the booking system.
+ * <p>
+ * Calls are timed by tool and outcome as {@code chatbot.tools.calls}. LangChain4j turns a
+ * failed call into an answer for the model, so this is the only place failures can be told apart.
+ * <p>
+ * A change or cancellation the model repeats with the same arguments within one turn, e.g.
+ * after a failed or slow call, runs once; the repeat gets the original result. In a later turn
+ * the same call runs again, as the customer may have asked for it.
  */
 @Component
 public class AiTools {
 
     private final BookingService bookingService;
+    private final ToolResultCache toolResultCache;
+    private final IdempotencyCache idempotencyCache;
+    private final ChatMailbox chatMailbox;
+    private final OperationTimers detailsTimers;
+    private final OperationTimers changeTimers;
+    private final OperationTimers cancelTimers;
 
-    public AiTools(BookingService bookingService) {
+    public AiTools(BookingService bookingService,
+                   ToolResultCache toolResultCache,
+                   IdempotencyCache idempotencyCache,
+                   ChatMailbox chatMailbox,
+                   MeterRegistry meterRegistry) {
         this.bookingService = bookingService;
+        this.toolResultCache = toolResultCache;
+        this.idempotencyCache = idempotencyCache;
+        this.chatMailbox = chatMailbox;
+        this.detailsTimers = toolTimers(meterRegistry, "getBookingDetails");
+        this.changeTimers = toolTimers(meterRegistry, "changeBooking");
+        this.cancelTimers = toolTimers(meterRegistry, "cancelBooking");
     }
 
     @Tool("""
             Retrieves information about an existing booking,
             such as the flight date, booking status, departure and arrival airports, and booking class.
             """)
-    public BookingDto getBookingDetails(
+    @ReadOnlyTool
+    public String getBookingDetails(
+            @ToolMemoryId String chatId,
             @P("Booking number") String bookingNumber,
             @P("Customer first name") String firstName,
             @P("Customer last name") String lastName) {
-        return bookingService.getBookingDetails(bookingNumber, firstName, lastName);
+        long start = System.nanoTime();
+        try {
+            String details = toolResultCache.get(chatId, "getBookingDetails", bookingNumber, List.of(firstName, lastName),
+                    () -> bookingService.getBookingDetails(bookingNumber, firstName, lastName));
+            detailsTimers.record(start, null);
+            return details;
+        } catch (RuntimeException e) {
+            detailsTimers.record(start, e);
+            throw e;
+        }
     }
 
     @Tool("""
@@ -37,16 +81,28 @@ public class AiTools {
             Changes are only allowed up to 24 hours before the flight.
             """)
     public BookingDto changeBooking(
+            @ToolMemoryId String chatId,
             @P("Booking number") String bookingNumber,
             @P("Customer first name") String firstName,
             @P("Customer last name") String lastName,
             @P("New flight date") LocalDate newFlightDate,
             @P("3-letter code for new departure airport") String newDepartureAirport,
             @P("3-letter code for new arrival airport") String newArrivalAirport) {
-        return bookingService.changeBooking(
-                bookingNumber, firstName, lastName,
-                newFlightDate, newDepartureAirport, newArrivalAirport
-        );
+        long start = System.nanoTime();
+        ChatTurn turn = new ChatTurn(chatId, chatMailbox.runningTurn(chatId));
+        try {
+            BookingDto changed = idempotent(turn, Arrays.asList("changeBooking", bookingNumber, firstName, lastName,
+                            newFlightDate, newDepartureAirport, newArrivalAirport),
+                    () -> bookingService.changeBooking(
+                            bookingNumber, firstName, lastName,
+                            newFlightDate, newDepartureAirport, newArrivalAirport, turn
+                    ));
+            changeTimers.record(start, null);
+            return changed;
+        } catch (RuntimeException e) {
+            changeTimers.record(start, e);
+            throw e;
+        }
     }
 
     @Tool("""
@@ -54,10 +110,37 @@ public class AiTools {
             Cancellation is only allowed up to 48 hours before the flight.
             """)
     public BookingDto cancelBooking(
+            @ToolMemoryId String chatId,
             @P("Booking number") String bookingNumber,
             @P("Customer first name") String firstName,
             @P("Customer last name") String lastName) {
-        return bookingService.cancelBooking(bookingNumber, firstName, lastName);
+        long start = System.nanoTime();
+        ChatTurn turn = new ChatTurn(chatId, chatMailbox.runningTurn(chatId));
+        try {
+            BookingDto cancelled = idempotent(turn, Arrays.asList("cancelBooking", bookingNumber, firstName, lastName),
+                    () -> bookingService.cancelBooking(bookingNumber, firstName, lastName, turn));
+            cancelTimers.record(start, null);
+            return cancelled;
+        } catch (RuntimeException e) {
+            cancelTimers.record(start, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Runs {@code operation} once per {@code turn} and {@code call}, the tool and its arguments;
+     * when the turn did not run in the {@link ChatMailbox}, every time.
+     */
+    private BookingDto idempotent(ChatTurn turn, List<Object> call, Supplier<BookingDto> operation) {
+        if (turn.turnId() == 0) {
+            return operation.get();
+        }
+        return idempotencyCache.execute("tool:" + turn.chatId() + ":" + turn.turnId() + ":" + call, call, operation);
+    }
+
+    private static OperationTimers toolTimers(MeterRegistry meterRegistry, String tool) {
+        return OperationTimers.register(meterRegistry, "chatbot.tools.calls",
+                "Tool calls of the assistant", Tags.of("tool", tool));
     }
 }
 
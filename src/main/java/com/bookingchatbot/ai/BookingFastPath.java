@@ -0,0 +1,273 @@
+package com.bookingchatbot.ai;
+
+import com.bookingchatbot.ai.BookingIntentParser.Action;
+import com.bookingchatbot.ai.BookingIntentParser.Intent;
+import com.bookingchatbot.dto.BookingDto;
+import com.bookingchatbot.exception.BookingNotFoundException;
+import com.bookingchatbot.exception.BookingPolicyViolationException;
+import com.bookingchatbot.model.BookingClass;
+import com.bookingchatbot.model.BookingStatus;
+import com.bookingchatbot.service.BookingService;
+import com.bookingchatbot.service.ChatMailbox;
+import com.bookingchatbot.service.ChatTurn;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.memory.ChatMemory;
+import dev.langchain4j.memory.chat.ChatMemoryProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.UncheckedIOException;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Answers unambiguous booking requests without the language model.
+ * <p>
+ * Requests recognized by {@link BookingIntentParser} are executed against
+ * {@link BookingService} and answered from templates. Cancellations and changes that carry a
+ * fee are confirmed first, as the assistant is instructed to do; the next message of the chat
+ * is then read as the answer, and anything other than a clear yes or no drops the pending
+ * request and goes to the assistant. Every step is written to the chat memory as the tool calls
+ * and answers the assistant would have produced, so a conversation can continue with the model
+ * at any point.
+ */
+@Component
+public class BookingFastPath {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookingFastPath.class);
+
+    static final int MAX_PENDING = 10_000;
+
+    private final BookingService bookingService;
+    private final ChatMemoryProvider chatMemoryProvider;
+    private final ChatMailbox chatMailbox;
+    private final ObjectMapper objectMapper;
+    private final Clock clock;
+
+    // Guarded by itself
+    private final Map<String, Intent> pendingConfirmations = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Intent> eldest) {
+            return size() > MAX_PENDING;
+        }
+    };
+
+    private final AtomicLong served = new AtomicLong();
+    private final AtomicLong passed = new AtomicLong();
+
+    @Autowired
+    public BookingFastPath(BookingService bookingService, ChatMemoryProvider chatMemoryProvider, ChatMailbox chatMailbox,
+                           ObjectMapper objectMapper) {
+        this(bookingService, chatMemoryProvider, chatMailbox, objectMapper, Clock.systemDefaultZone());
+    }
+
+    BookingFastPath(BookingService bookingService, ChatMemoryProvider chatMemoryProvider, ChatMailbox chatMailbox,
+                    ObjectMapper objectMapper, Clock clock) {
+        this.bookingService = bookingService;
+        this.chatMemoryProvider = chatMemoryProvider;
+        this.chatMailbox = chatMailbox;
+        this.objectMapper = objectMapper;
+        this.clock = clock;
+    }
+
+    /**
+     * The reply to {@code message}, or empty if the assistant has to answer it.
+     */
+    public Optional<String> answer(String chatId, String message) {
+        Intent pending;
+        synchronized (pendingConfirmations) {
+            pending = pendingConfirmations.remove(chatId);
+        }
+        Optional<String> reply = pending != null
+                ? BookingIntentParser.parseConfirmation(message).map(confirmed -> confirm(chatId, message, pending, confirmed))
+                : BookingIntentParser.parse(message, LocalDate.now(clock)).map(intent -> handle(chatId, message, intent));
+        if (reply.isPresent()) {
+            served.incrementAndGet();
+        } else {
+            passed.incrementAndGet();
+        }
+        return reply;
+    }
+
+    /**
+     * Messages answered here.
+     */
+    public long served() {
+        return served.get();
+    }
+
+    /**
+     * Messages left to the assistant.
+     */
+    public long passed() {
+        return passed.get();
+    }
+
+    private String handle(String chatId, String message, Intent intent) {
+        ChatMemory chatMemory = chatMemoryProvider.get(chatId);
+        chatMemory.add(UserMessage.from(message));
+        Outcome lookup = call(chatMemory, "getBookingDetails", Map.of(
+                "bookingNumber", intent.bookingNumber(),
+                "firstName", intent.firstName(),
+                "lastName", intent.lastName()
+        ), () -> bookingService.getBookingDetails(intent.bookingNumber(), intent.firstName(), intent.lastName()));
+
+        String reply;
+        if (lookup.error() != null) {
+            reply = lookup.error();
+        } else if (intent.action() == Action.LOOKUP) {
+            reply = "Here are the details of booking %s for %s %s: %s.".formatted(
+                    lookup.booking().bookingNumber(), lookup.booking().firstName(), lookup.booking().lastName(),
+                    describe(lookup.booking()));
+        } else if (lookup.booking().bookingStatus() == BookingStatus.CANCELLED) {
+            reply = "Booking %s has already been cancelled.".formatted(lookup.booking().bookingNumber());
+        } else {
+            Intent complete = withCurrentAirports(intent, lookup.booking());
+            BookingClass bookingClass = BookingClass.valueOf(lookup.booking().bookingClass());
+            int fee = complete.action() == Action.CANCEL ? bookingClass.getCancellationFee() : bookingClass.getChangeFee();
+            if (fee == 0) {
+                return execute(chatId, chatMemory, complete);
+            }
+            synchronized (pendingConfirmations) {
+                pendingConfirmations.put(chatId, complete);
+            }
+            reply = complete.action() == Action.CANCEL
+                    ? "Booking %s is %s. Cancelling it has a $%d cancellation fee for %s. Shall I cancel it? (yes/no)"
+                    .formatted(complete.bookingNumber(), describe(lookup.booking()), fee, className(bookingClass))
+                    : "Booking %s is %s. Changing it to %s, %s to %s, has a $%d change fee for %s. Shall I make the change? (yes/no)"
+                    .formatted(complete.bookingNumber(), describe(lookup.booking()), complete.newDate(),
+                            complete.newDepartureAirport(), complete.newArrivalAirport(), fee, className(bookingClass));
+        }
+        chatMemory.add(AiMessage.from(reply));
+        logger.debug("Answered {} for {} in chat {} without the model", intent.action(), intent.bookingNumber(), chatId);
+        return reply;
+    }
+
+    private String confirm(String chatId, String message, Intent intent, boolean confirmed) {
+        ChatMemory chatMemory = chatMemoryProvider.get(chatId);
+        chatMemory.add(UserMessage.from(message));
+        if (confirmed) {
+            return execute(chatId, chatMemory, intent);
+        }
+        String reply = "All right, I have left booking %s unchanged. Is there anything else I can help you with?"
+                .formatted(intent.bookingNumber());
+        chatMemory.add(AiMessage.from(reply));
+        return reply;
+    }
+
+    private String execute(String chatId, ChatMemory chatMemory, Intent intent) {
+        ChatTurn turn = new ChatTurn(chatId, chatMailbox.runningTurn(chatId));
+        Outcome outcome;
+        if (intent.action() == Action.CANCEL) {
+            outcome = call(chatMemory, "cancelBooking", Map.of(
+                    "bookingNumber", intent.bookingNumber(),
+                    "firstName", intent.firstName(),
+                    "lastName", intent.lastName()
+            ), () -> bookingService.cancelBooking(intent.bookingNumber(), intent.firstName(), intent.lastName(), turn));
+        } else {
+            outcome = call(chatMemory, "changeBooking", Map.of(
+                    "bookingNumber", intent.bookingNumber(),
+                    "firstName", intent.firstName(),
+                    "lastName", intent.lastName(),
+                    "newFlightDate", intent.newDate().toString(),
+                    "newDepartureAirport", intent.newDepartureAirport(),
+                    "newArrivalAirport", intent.newArrivalAirport()
+            ), () -> bookingService.changeBooking(intent.bookingNumber(), intent.firstName(), intent.lastName(),
+                    intent.newDate(), intent.newDepartureAirport(), intent.newArrivalAirport(), turn));
+        }
+        String reply;
+        if (outcome.error() != null) {
+            reply = outcome.error();
+        } else if (intent.action() == Action.CANCEL) {
+            reply = "Booking %s has been cancelled. Your refund will be processed within 7 business days."
+                    .formatted(outcome.booking().bookingNumber());
+        } else {
+            reply = "Booking %s has been changed and is now %s.".formatted(
+                    outcome.booking().bookingNumber(), describe(outcome.booking()));
+        }
+        chatMemory.add(AiMessage.from(reply));
+        return reply;
+    }
+
+    /**
+     * Runs a booking operation and records it in the chat memory as a tool call with its result.
+     */
+    private Outcome call(ChatMemory chatMemory, String tool, Map<String, String> arguments, Supplier<BookingDto> operation) {
+        ToolExecutionRequest request = ToolExecutionRequest.builder()
+                .id("call_" + UUID.randomUUID().toString().replace("-", ""))
+                .name(tool)
+                .arguments(toJson(arguments))
+                .build();
+        chatMemory.add(AiMessage.from(request));
+        Outcome outcome;
+        String result;
+        try {
+            BookingDto booking = operation.get();
+            outcome = new Outcome(booking, null);
+            result = toJson(booking);
+        } catch (BookingNotFoundException e) {
+            outcome = new Outcome(null, "I couldn't find booking %s for %s. Please check the booking number and name."
+                    .formatted(arguments.get("bookingNumber"), arguments.get("firstName") + " " + arguments.get("lastName")));
+            result = e.getMessage();
+        } catch (BookingPolicyViolationException e) {
+            outcome = new Outcome(null, "I'm sorry, I can't do that: " + e.getMessage());
+            result = e.getMessage();
+        } catch (RuntimeException e) {
+            // The tool call is already in the memory and must be followed by a result
+            logger.error("{} failed for booking {}", tool, arguments.get("bookingNumber"), e);
+            outcome = new Outcome(null, "I'm sorry, something went wrong with booking %s. Please try again in a moment."
+                    .formatted(arguments.get("bookingNumber")));
+            result = "Error: " + e.getMessage();
+        }
+        chatMemory.add(ToolExecutionResultMessage.from(request, result));
+        return outcome;
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException("Failed to serialize " + value, e);
+        }
+    }
+
+    private static Intent withCurrentAirports(Intent intent, BookingDto booking) {
+        if (intent.action() != Action.CHANGE) {
+            return intent;
+        }
+        return new Intent(intent.action(), intent.bookingNumber(), intent.firstName(), intent.lastName(), intent.newDate(),
+                intent.newDepartureAirport() != null ? intent.newDepartureAirport() : booking.from(),
+                intent.newArrivalAirport() != null ? intent.newArrivalAirport() : booking.to());
+    }
+
+    private static String describe(BookingDto booking) {
+        return "%s to %s on %s, %s, %s".formatted(booking.from(), booking.to(), booking.date(),
+                className(BookingClass.valueOf(booking.bookingClass())),
+                booking.bookingStatus().name().toLowerCase(Locale.ROOT));
+    }
+
+    private static String className(BookingClass bookingClass) {
+        return switch (bookingClass) {
+            case ECONOMY -> "Economy";
+            case PREMIUM_ECONOMY -> "Premium Economy";
+            case BUSINESS -> "Business Class";
+        };
+    }
+
+    private record Outcome(BookingDto booking, String error) {
+    }
+}
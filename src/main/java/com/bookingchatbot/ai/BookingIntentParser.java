@@ -0,0 +1,264 @@
+package com.bookingchatbot.ai;
+
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.MonthDay;
+import java.time.format.DateTimeParseException;
+import java.time.format.TextStyle;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Rule-based extraction of unambiguous booking requests such as "show booking BK103 for Sarah
+ * Williams", "cancel BK102, Jane Smith" or "move BK101 John Doe to 2025-07-01 from LAX to JFK".
+ * <p>
+ * Precision matters more than recall: a message is only recognized when it names exactly one
+ * booking, exactly one customer and exactly one action, and it does not ask about policy,
+ * negate or hedge. Everything else is left to the assistant.
+ */
+public final class BookingIntentParser {
+
+    private static final Pattern BOOKING_NUMBER = Pattern.compile("(?i)\\bBK\\d{3,}\\b");
+    private static final Pattern NAME = Pattern.compile("\\b(\\p{Lu}[\\p{Ll}'-]+)\\s+(\\p{Lu}[\\p{Ll}'-]+)\\b");
+    private static final Pattern WORD = Pattern.compile("[\\p{L}\\p{N}']+");
+    private static final Pattern ISO_DATE = Pattern.compile("\\b(\\d{4}-\\d{2}-\\d{2})\\b");
+    private static final Pattern MONTH_DAY = Pattern.compile(
+            "(?i)\\b(january|february|march|april|may|june|july|august|september|october|november|december)"
+                    + "\\s+(\\d{1,2})(?:st|nd|rd|th)?(?:,?\\s+(\\d{4}))?\\b");
+    private static final Pattern FROM_AIRPORT = Pattern.compile("\\bfrom\\s+([A-Z]{3})\\b");
+    private static final Pattern TO_AIRPORT = Pattern.compile("\\bto\\s+([A-Z]{3})\\b");
+    private static final Pattern TARGET = Pattern.compile("(?i)\\b(?:from|to)\\s+([\\p{L}\\p{N}-]+)");
+
+    private static final Set<String> LOOKUP_WORDS = Set.of(
+            "show", "details", "detail", "status", "lookup", "look", "check", "view", "find", "display", "info"
+    );
+    private static final Set<String> CANCEL_WORDS = Set.of("cancel");
+    private static final Set<String> CHANGE_WORDS = Set.of("change", "move", "reschedule", "rebook");
+
+    /**
+     * Words that turn a request into a question about policy or negate it.
+     */
+    private static final Set<String> POLICY_OR_NEGATION_WORDS = Set.of(
+            "fee", "fees", "cost", "costs", "charge", "refund", "policy", "allowed", "possible",
+            "not", "don't", "dont", "never", "no", "without", "instead", "or"
+    );
+
+    /**
+     * Words that turn a cancellation or change into a question or a conditional. A polite
+     * "could you show..." is still a lookup.
+     */
+    private static final Set<String> QUESTION_WORDS = Set.of(
+            "if", "whether", "would", "could", "should", "might", "can", "how", "what", "why", "when"
+    );
+
+    /**
+     * Capitalised words that are never part of a customer name.
+     */
+    private static final Set<String> NOT_NAMES = Set.of(
+            "please", "hi", "hello", "hey", "show", "cancel", "change", "move", "reschedule", "rebook",
+            "check", "view", "find", "display", "look", "booking", "my", "the", "for", "economy", "premium",
+            "business", "class", "thanks", "i", "i'm", "it's", "name", "is"
+    );
+
+    private static final Set<String> YES = Set.of("yes", "y", "yep", "yeah", "sure", "ok", "okay", "confirm", "proceed", "go");
+    private static final Set<String> NO = Set.of("no", "n", "nope", "don't", "dont", "stop", "abort", "keep");
+    private static final Set<String> CONFIRMATION_FILLER = Set.of(
+            "ahead", "please", "do", "it", "that's", "fine", "correct", "confirmed", "thanks", "thank", "you"
+    );
+
+    private static final Map<String, Month> MONTHS = new HashMap<>();
+
+    static {
+        for (Month month : Month.values()) {
+            MONTHS.put(month.getDisplayName(TextStyle.FULL, Locale.ENGLISH).toLowerCase(Locale.ROOT), month);
+        }
+    }
+
+    private BookingIntentParser() {
+    }
+
+    public enum Action {
+        LOOKUP,
+        CANCEL,
+        CHANGE
+    }
+
+    /**
+     * @param newDate             new flight date, only for {@link Action#CHANGE}
+     * @param newDepartureAirport new departure airport, or {@code null} to keep the current one
+     * @param newArrivalAirport   new arrival airport, or {@code null} to keep the current one
+     */
+    public record Intent(Action action,
+                         String bookingNumber,
+                         String firstName,
+                         String lastName,
+                         LocalDate newDate,
+                         String newDepartureAirport,
+                         String newArrivalAirport) {
+    }
+
+    /**
+     * The booking request in {@code message}, if it is unambiguous.
+     *
+     * @param today reference for dates given without a year
+     */
+    public static Optional<Intent> parse(String message, LocalDate today) {
+        Matcher bookingNumbers = BOOKING_NUMBER.matcher(message);
+        if (!bookingNumbers.find()) {
+            return Optional.empty();
+        }
+        String bookingNumber = bookingNumbers.group().toUpperCase(Locale.ROOT);
+        if (bookingNumbers.find()) {
+            return Optional.empty();
+        }
+
+        List<String> words = words(message);
+        if (words.size() > 25 || words.stream().anyMatch(POLICY_OR_NEGATION_WORDS::contains)) {
+            return Optional.empty();
+        }
+        List<Action> actions = new ArrayList<>(1);
+        if (words.stream().anyMatch(LOOKUP_WORDS::contains)) {
+            actions.add(Action.LOOKUP);
+        }
+        if (words.stream().anyMatch(CANCEL_WORDS::contains)) {
+            actions.add(Action.CANCEL);
+        }
+        if (words.stream().anyMatch(CHANGE_WORDS::contains)) {
+            actions.add(Action.CHANGE);
+        }
+        if (actions.size() != 1) {
+            return Optional.empty();
+        }
+        Action action = actions.get(0);
+        if (action != Action.LOOKUP && (message.contains("?") || words.stream().anyMatch(QUESTION_WORDS::contains))) {
+            return Optional.empty();
+        }
+
+        String[] name = null;
+        Matcher names = NAME.matcher(message);
+        int start = 0;
+        while (names.find(start)) {
+            if (NOT_NAMES.contains(names.group(1).toLowerCase(Locale.ROOT))) {
+                // Retry from the second word, e.g. "Cancel Jane Smith"
+                start = names.start(2);
+                continue;
+            }
+            if (NOT_NAMES.contains(names.group(2).toLowerCase(Locale.ROOT)) || isMonth(names.group(1))) {
+                start = names.end();
+                continue;
+            }
+            if (name != null) {
+                return Optional.empty();
+            }
+            name = new String[]{names.group(1), names.group(2)};
+            start = names.end();
+        }
+        if (name == null) {
+            return Optional.empty();
+        }
+
+        if (action != Action.CHANGE) {
+            return Optional.of(new Intent(action, bookingNumber, name[0], name[1], null, null, null));
+        }
+        Optional<LocalDate> newDate = date(message, today);
+        if (newDate.isEmpty() || !onlyDatesAndAirportsAsTargets(message)) {
+            return Optional.empty();
+        }
+        return Optional.of(new Intent(action, bookingNumber, name[0], name[1], newDate.get(),
+                airport(FROM_AIRPORT, message), airport(TO_AIRPORT, message)));
+    }
+
+    /**
+     * The answer to a yes/no confirmation question: empty unless the message is clearly one of
+     * the two.
+     */
+    public static Optional<Boolean> parseConfirmation(String message) {
+        List<String> words = words(message);
+        if (words.isEmpty() || words.size() > 6) {
+            return Optional.empty();
+        }
+        boolean yes = false;
+        boolean no = false;
+        for (String word : words) {
+            if (YES.contains(word)) {
+                yes = true;
+            } else if (NO.contains(word)) {
+                no = true;
+            } else if (!CONFIRMATION_FILLER.contains(word)) {
+                return Optional.empty();
+            }
+        }
+        return yes == no ? Optional.empty() : Optional.of(yes);
+    }
+
+    private static List<String> words(String message) {
+        List<String> words = new ArrayList<>();
+        Matcher matcher = WORD.matcher(message.toLowerCase(Locale.ROOT));
+        while (matcher.find()) {
+            words.add(matcher.group());
+        }
+        return words;
+    }
+
+    private static Optional<LocalDate> date(String message, LocalDate today) {
+        List<LocalDate> dates = new ArrayList<>();
+        Matcher iso = ISO_DATE.matcher(message);
+        while (iso.find()) {
+            try {
+                dates.add(LocalDate.parse(iso.group(1)));
+            } catch (DateTimeParseException e) {
+                return Optional.empty();
+            }
+        }
+        Matcher monthDay = MONTH_DAY.matcher(message);
+        while (monthDay.find()) {
+            Month month = MONTHS.get(monthDay.group(1).toLowerCase(Locale.ROOT));
+            int day = Integer.parseInt(monthDay.group(2));
+            if (day > month.maxLength()) {
+                return Optional.empty();
+            }
+            if (monthDay.group(3) != null) {
+                int year = Integer.parseInt(monthDay.group(3));
+                if (!MonthDay.of(month, day).isValidYear(year)) {
+                    return Optional.empty();
+                }
+                dates.add(LocalDate.of(year, month, day));
+            } else {
+                LocalDate date = MonthDay.of(month, day).atYear(today.getYear());
+                dates.add(date.isBefore(today) ? MonthDay.of(month, day).atYear(today.getYear() + 1) : date);
+            }
+        }
+        return dates.size() == 1 ? Optional.of(dates.get(0)) : Optional.empty();
+    }
+
+    /**
+     * Whether every "from X" / "to X" names an airport code or a date, so a route given in
+     * words ("to London") is never silently ignored.
+     */
+    private static boolean onlyDatesAndAirportsAsTargets(String message) {
+        Matcher targets = TARGET.matcher(message);
+        while (targets.find()) {
+            String target = targets.group(1);
+            if (!target.matches("[A-Z]{3}") && !isMonth(target) && !ISO_DATE.matcher(target).matches()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String airport(Pattern pattern, String message) {
+        Matcher matcher = pattern.matcher(message);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    private static boolean isMonth(String word) {
+        return MONTHS.containsKey(word.toLowerCase(Locale.ROOT));
+    }
+}
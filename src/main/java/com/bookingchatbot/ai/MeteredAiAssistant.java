@@ -0,0 +1,96 @@
+package com.bookingchatbot.ai;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Records the turns answered by the assistant, from the customer's point of view:
+ * <ul>
+ *     <li>{@code chatbot.turn.first.token}: time to the first token, including retrieval and
+ *     any tool calls before it</li>
+ *     <li>{@code chatbot.turn.duration}: time to the end of the answer, by {@code outcome}
+ *     ({@code success}, {@code error} or {@code cancelled} when the client went away)</li>
+ *     <li>{@code chatbot.turn.tokens}: streamed tokens per answer</li>
+ * </ul>
+ * A token only increments a counter of its turn and, for the first one, records a timer, so
+ * the per-token path allocates nothing.
+ */
+public class MeteredAiAssistant implements AiAssistant {
+
+    private final AiAssistant delegate;
+    private final Timer firstToken;
+    private final Timer succeeded;
+    private final Timer failed;
+    private final Timer cancelled;
+    private final DistributionSummary tokens;
+
+    public MeteredAiAssistant(AiAssistant delegate, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.firstToken = Timer.builder("chatbot.turn.first.token")
+                .description("Time from message to first token of the answer")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(10))
+                .maximumExpectedValue(Duration.ofSeconds(60))
+                .register(meterRegistry);
+        this.succeeded = duration(meterRegistry, "success");
+        this.failed = duration(meterRegistry, "error");
+        this.cancelled = duration(meterRegistry, "cancelled");
+        this.tokens = DistributionSummary.builder("chatbot.turn.tokens")
+                .description("Streamed tokens per answer")
+                .baseUnit("tokens")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(1.0)
+                .maximumExpectedValue(10_000.0)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Flux<String> chat(String chatId, String userMessage) {
+        return Flux.defer(() -> {
+            Turn turn = new Turn();
+            return delegate.chat(chatId, userMessage)
+                    .doOnNext(turn)
+                    // Before the signal reaches the subscriber, so the turn is recorded once it sees the end
+                    .doOnComplete(() -> turn.finish(succeeded))
+                    .doOnError(error -> turn.finish(failed))
+                    .doOnCancel(() -> turn.finish(cancelled));
+        });
+    }
+
+    private static Timer duration(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("chatbot.turn.duration")
+                .description("Time from message to end of the answer")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(10))
+                .maximumExpectedValue(Duration.ofSeconds(120))
+                .register(meterRegistry);
+    }
+
+    /**
+     * Tokens of a turn arrive one after another, as Reactor signals are serialized.
+     */
+    private class Turn implements Consumer<String> {
+
+        private final long start = System.nanoTime();
+        private int count;
+
+        @Override
+        public void accept(String token) {
+            if (count++ == 0) {
+                firstToken.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        private void finish(Timer duration) {
+            duration.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            tokens.record(count);
+        }
+    }
+}
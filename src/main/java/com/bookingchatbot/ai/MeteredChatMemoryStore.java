@@ -0,0 +1,70 @@
+package com.bookingchatbot.ai;
+
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.store.memory.chat.ChatMemoryStore;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records the size of the chat memories in a store:
+ * <ul>
+ *     <li>{@code chatbot.memory.chats} and {@code chatbot.memory.messages}: chats and messages
+ *     held</li>
+ *     <li>{@code chatbot.memory.chat.messages}: messages of a chat each time its memory is
+ *     updated, which is after every message</li>
+ * </ul>
+ * Sizes are counted in messages rather than tokens, since counting tokens means tokenizing
+ * the whole memory.
+ */
+public class MeteredChatMemoryStore implements ChatMemoryStore {
+
+    private final ChatMemoryStore delegate;
+    private final Map<Object, AtomicInteger> sizes = new ConcurrentHashMap<>();
+    private final AtomicLong messages = new AtomicLong();
+    private final DistributionSummary chatMessages;
+
+    public MeteredChatMemoryStore(ChatMemoryStore delegate, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        Gauge.builder("chatbot.memory.chats", sizes, Map::size)
+                .register(meterRegistry);
+        Gauge.builder("chatbot.memory.messages", messages, AtomicLong::get)
+                .register(meterRegistry);
+        this.chatMessages = DistributionSummary.builder("chatbot.memory.chat.messages")
+                .description("Messages in the memory of a chat")
+                .baseUnit("messages")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(1.0)
+                .maximumExpectedValue(1000.0)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public List<ChatMessage> getMessages(Object memoryId) {
+        return delegate.getMessages(memoryId);
+    }
+
+    @Override
+    public void updateMessages(Object memoryId, List<ChatMessage> messages) {
+        delegate.updateMessages(memoryId, messages);
+        int size = messages.size();
+        int previous = sizes.computeIfAbsent(memoryId, id -> new AtomicInteger()).getAndSet(size);
+        this.messages.addAndGet(size - previous);
+        chatMessages.record(size);
+    }
+
+    @Override
+    public void deleteMessages(Object memoryId) {
+        delegate.deleteMessages(memoryId);
+        AtomicInteger size = sizes.remove(memoryId);
+        if (size != null) {
+            messages.addAndGet(-size.get());
+        }
+    }
+}
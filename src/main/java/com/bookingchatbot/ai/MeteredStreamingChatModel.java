@@ -0,0 +1,144 @@
+package com.bookingchatbot.ai;
+
+import dev.langchain4j.agent.tool.ToolSpecification;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.model.StreamingResponseHandler;
+import dev.langchain4j.model.chat.StreamingChatLanguageModel;
+import dev.langchain4j.model.output.Response;
+import dev.langchain4j.model.output.TokenUsage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the requests of one model, tagged with {@code model}:
+ * <ul>
+ *     <li>{@code chatbot.model.first.token}: time to the first token of text answers; answers
+ *     that only call tools have none</li>
+ *     <li>{@code chatbot.model.stream.rate}: tokens per second after the first one</li>
+ *     <li>{@code chatbot.model.response.tokens}: prompt ({@code type=input}) and completion
+ *     ({@code type=output}) tokens of each response</li>
+ *     <li>{@code chatbot.model.errors}: requests that failed</li>
+ * </ul>
+ * Used below {@link ResilientStreamingChatModel}, so hedged requests are recorded as well: their
+ * tokens are paid for, and their latencies are what the hedge delay is based on.
+ * <p>
+ * A token only increments a counter of its request and, for the first one, records a timer,
+ * so the per-token path allocates nothing.
+ */
+public class MeteredStreamingChatModel implements StreamingChatLanguageModel {
+
+    private final StreamingChatLanguageModel delegate;
+    private final Timer firstToken;
+    private final DistributionSummary streamRate;
+    private final DistributionSummary inputTokens;
+    private final DistributionSummary outputTokens;
+    private final Counter errors;
+
+    public MeteredStreamingChatModel(StreamingChatLanguageModel delegate, MeterRegistry meterRegistry, String model) {
+        this.delegate = delegate;
+        this.firstToken = Timer.builder("chatbot.model.first.token")
+                .description("Time from request to first token")
+                .tag("model", model)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(10))
+                .maximumExpectedValue(Duration.ofSeconds(60))
+                .register(meterRegistry);
+        this.streamRate = DistributionSummary.builder("chatbot.model.stream.rate")
+                .description("Streamed tokens per second after the first token")
+                .tag("model", model)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(1.0)
+                .maximumExpectedValue(1000.0)
+                .register(meterRegistry);
+        this.inputTokens = tokens(meterRegistry, model, "input");
+        this.outputTokens = tokens(meterRegistry, model, "output");
+        this.errors = Counter.builder("chatbot.model.errors")
+                .tag("model", model)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void generate(List<ChatMessage> messages, StreamingResponseHandler<AiMessage> handler) {
+        delegate.generate(messages, new Request(handler));
+    }
+
+    @Override
+    public void generate(List<ChatMessage> messages,
+                         List<ToolSpecification> toolSpecifications,
+                         StreamingResponseHandler<AiMessage> handler) {
+        delegate.generate(messages, toolSpecifications, new Request(handler));
+    }
+
+    @Override
+    public void generate(List<ChatMessage> messages,
+                         ToolSpecification toolSpecification,
+                         StreamingResponseHandler<AiMessage> handler) {
+        delegate.generate(messages, toolSpecification, new Request(handler));
+    }
+
+    private static DistributionSummary tokens(MeterRegistry meterRegistry, String model, String type) {
+        return DistributionSummary.builder("chatbot.model.response.tokens")
+                .description("Tokens per model response")
+                .baseUnit("tokens")
+                .tags("model", model, "type", type)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(1.0)
+                .maximumExpectedValue(100_000.0)
+                .register(meterRegistry);
+    }
+
+    /**
+     * The model client delivers the tokens of a request one after another on one thread.
+     */
+    private class Request implements StreamingResponseHandler<AiMessage> {
+
+        private final StreamingResponseHandler<AiMessage> handler;
+        private final long start = System.nanoTime();
+        private long firstTokenAt;
+        private int tokens;
+
+        private Request(StreamingResponseHandler<AiMessage> handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public void onNext(String token) {
+            if (tokens++ == 0) {
+                firstTokenAt = System.nanoTime();
+                firstToken.record(firstTokenAt - start, TimeUnit.NANOSECONDS);
+            }
+            handler.onNext(token);
+        }
+
+        @Override
+        public void onComplete(Response<AiMessage> response) {
+            long streaming = System.nanoTime() - firstTokenAt;
+            if (tokens > 1 && streaming > 0) {
+                streamRate.record((tokens - 1) * 1e9 / streaming);
+            }
+            TokenUsage tokenUsage = response.tokenUsage();
+            if (tokenUsage != null) {
+                if (tokenUsage.inputTokenCount() != null) {
+                    inputTokens.record(tokenUsage.inputTokenCount());
+                }
+                if (tokenUsage.outputTokenCount() != null) {
+                    outputTokens.record(tokenUsage.outputTokenCount());
+                }
+            }
+            handler.onComplete(response);
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            errors.increment();
+            handler.onError(error);
+        }
+    }
+}
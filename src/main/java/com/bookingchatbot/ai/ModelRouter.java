@@ -0,0 +1,185 @@
+package com.bookingchatbot.ai;
+
+import dev.langchain4j.agent.tool.ToolSpecification;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.model.StreamingResponseHandler;
+import dev.langchain4j.model.chat.StreamingChatLanguageModel;
+import dev.langchain4j.model.output.Response;
+import dev.langchain4j.model.output.TokenUsage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends each model request to the first route whose {@code maxComplexity} covers the
+ * {@link TurnComplexity} of its turn, e.g. greetings and names to a small, fast model and policy
+ * questions and booking changes to a large one. The last route takes everything else.
+ * <p>
+ * Requests, latency until the response is complete and token usage are counted per route.
+ * <p>
+ * Complete responses and errors are passed on through {@code callbacks}. That is where
+ * LangChain4j runs the tools a response asks for and sends the next request, both of which
+ * block, so they should not hold the model client's I/O thread that delivers the response.
+ * Tokens are passed on right away.
+ */
+public class ModelRouter implements StreamingChatLanguageModel {
+
+    private static final Logger logger = LoggerFactory.getLogger(ModelRouter.class);
+
+    private final List<Route> routes;
+    private final Executor callbacks;
+
+    /**
+     * @param routes in order of increasing {@code maxComplexity}
+     */
+    public ModelRouter(List<Route> routes) {
+        this(routes, Runnable::run);
+    }
+
+    /**
+     * @param routes    in order of increasing {@code maxComplexity}
+     * @param callbacks runs the handling of complete responses and errors
+     */
+    public ModelRouter(List<Route> routes, Executor callbacks) {
+        if (routes.isEmpty()) {
+            throw new IllegalArgumentException("At least one route is required");
+        }
+        this.routes = List.copyOf(routes);
+        this.callbacks = callbacks;
+    }
+
+    @Override
+    public void generate(List<ChatMessage> messages, StreamingResponseHandler<AiMessage> handler) {
+        Route route = route(messages);
+        route.model().generate(messages, route.track(handler, callbacks));
+    }
+
+    @Override
+    public void generate(List<ChatMessage> messages,
+                         List<ToolSpecification> toolSpecifications,
+                         StreamingResponseHandler<AiMessage> handler) {
+        Route route = route(messages);
+        route.model().generate(messages, toolSpecifications, route.track(handler, callbacks));
+    }
+
+    @Override
+    public void generate(List<ChatMessage> messages,
+                         ToolSpecification toolSpecification,
+                         StreamingResponseHandler<AiMessage> handler) {
+        Route route = route(messages);
+        route.model().generate(messages, toolSpecification, route.track(handler, callbacks));
+    }
+
+    public List<Route> routes() {
+        return routes;
+    }
+
+    Route route(List<ChatMessage> messages) {
+        int complexity = TurnComplexity.score(messages);
+        Route selected = routes.get(routes.size() - 1);
+        for (Route route : routes) {
+            if (complexity <= route.maxComplexity()) {
+                selected = route;
+                break;
+            }
+        }
+        logger.debug("Routing turn of complexity {} to {}", complexity, selected.name());
+        return selected;
+    }
+
+    /**
+     * A model and the requests it served.
+     */
+    public static final class Route {
+
+        private final String name;
+        private final int maxComplexity;
+        private final StreamingChatLanguageModel model;
+
+        private final AtomicLong requests = new AtomicLong();
+        private final AtomicLong completed = new AtomicLong();
+        private final AtomicLong latencyNanos = new AtomicLong();
+        private final AtomicLong inputTokens = new AtomicLong();
+        private final AtomicLong outputTokens = new AtomicLong();
+
+        /**
+         * @param maxComplexity highest {@link TurnComplexity} score this route takes
+         */
+        public Route(String name, int maxComplexity, StreamingChatLanguageModel model) {
+            this.name = name;
+            this.maxComplexity = maxComplexity;
+            this.model = model;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public int maxComplexity() {
+            return maxComplexity;
+        }
+
+        public StreamingChatLanguageModel model() {
+            return model;
+        }
+
+        public long requests() {
+            return requests.get();
+        }
+
+        /**
+         * Requests that completed, counted in {@link #latency()}.
+         */
+        public long completed() {
+            return completed.get();
+        }
+
+        /**
+         * Total time from request to complete response.
+         */
+        public Duration latency() {
+            return Duration.ofNanos(latencyNanos.get());
+        }
+
+        public long inputTokens() {
+            return inputTokens.get();
+        }
+
+        public long outputTokens() {
+            return outputTokens.get();
+        }
+
+        private StreamingResponseHandler<AiMessage> track(StreamingResponseHandler<AiMessage> handler, Executor callbacks) {
+            requests.incrementAndGet();
+            long start = System.nanoTime();
+            return new StreamingResponseHandler<>() {
+                @Override
+                public void onNext(String token) {
+                    handler.onNext(token);
+                }
+
+                @Override
+                public void onComplete(Response<AiMessage> response) {
+                    completed.incrementAndGet();
+                    latencyNanos.addAndGet(System.nanoTime() - start);
+                    TokenUsage tokenUsage = response.tokenUsage();
+                    if (tokenUsage != null) {
+                        inputTokens.addAndGet(tokenUsage.inputTokenCount() != null ? tokenUsage.inputTokenCount() : 0);
+                        outputTokens.addAndGet(tokenUsage.outputTokenCount() != null ? tokenUsage.outputTokenCount() : 0);
+                    }
+                    callbacks.execute(() -> handler.onComplete(response));
+                }
+
+                @Override
+                public void onError(Throwable error) {
+                    callbacks.execute(() -> handler.onError(error));
+                }
+            };
+        }
+    }
+}
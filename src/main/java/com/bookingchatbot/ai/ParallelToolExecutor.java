@@ -0,0 +1,178 @@
+package com.bookingchatbot.ai;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.langchain4j.agent.tool.Tool;
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.agent.tool.ToolSpecification;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.memory.chat.ChatMemoryProvider;
+import dev.langchain4j.service.tool.DefaultToolExecutor;
+import dev.langchain4j.service.tool.ToolExecutor;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+import static dev.langchain4j.agent.tool.ToolSpecifications.toolSpecificationFrom;
+
+/**
+ * Runs the tool calls of one model response concurrently.
+ * <p>
+ * LangChain4j adds a model response to the chat memory and then executes its tool calls one
+ * after another. On the first call of a response with several calls, the executors returned by
+ * {@link #tools()} find the response in the chat memory and start all of its calls on
+ * {@code executor}; each following call then only waits for its own result, so results are
+ * still returned in the original order. Calls to {@link ReadOnlyTool read-only tools} run
+ * independently, except that all calls involving a booking the response also modifies run one
+ * after another, in their original order.
+ */
+public class ParallelToolExecutor {
+
+    private static final String BOOKING_NUMBER = "bookingNumber";
+
+    private final ChatMemoryProvider chatMemoryProvider;
+    private final Executor executor;
+    private final ObjectMapper objectMapper;
+    private final Map<ToolSpecification, ToolExecutor> tools = new LinkedHashMap<>();
+    private final Map<String, DefaultToolExecutor> delegates = new HashMap<>();
+    private final Set<String> readOnlyTools = new HashSet<>();
+
+    // Calls started ahead of LangChain4j's loop, by tool execution request id
+    private final Map<String, Started> started = new ConcurrentHashMap<>();
+
+    /**
+     * @param objectsWithTools objects whose {@link Tool} methods the model may call
+     */
+    public ParallelToolExecutor(List<Object> objectsWithTools, ChatMemoryProvider chatMemoryProvider, Executor executor,
+                                ObjectMapper objectMapper) {
+        this.chatMemoryProvider = chatMemoryProvider;
+        this.executor = executor;
+        this.objectMapper = objectMapper;
+        for (Object objectWithTools : objectsWithTools) {
+            for (Method method : objectWithTools.getClass().getDeclaredMethods()) {
+                if (method.isAnnotationPresent(Tool.class)) {
+                    ToolSpecification specification = toolSpecificationFrom(method);
+                    delegates.put(specification.name(), new DefaultToolExecutor(objectWithTools, method));
+                    if (method.isAnnotationPresent(ReadOnlyTool.class)) {
+                        readOnlyTools.add(specification.name());
+                    }
+                    tools.put(specification, this::execute);
+                }
+            }
+        }
+    }
+
+    /**
+     * Tool specifications and executors for {@code AiServices.tools(Map)}.
+     */
+    public Map<ToolSpecification, ToolExecutor> tools() {
+        return tools;
+    }
+
+    private String execute(ToolExecutionRequest request, Object memoryId) {
+        Started call = request.id() != null ? started.remove(request.id()) : null;
+        if (call == null) {
+            List<ToolExecutionRequest> batch = batch(request, memoryId);
+            if (batch.size() < 2) {
+                return delegates.get(request.name()).execute(request, memoryId);
+            }
+            call = start(batch, request, memoryId);
+        }
+        try {
+            return call.result().join();
+        } catch (CompletionException e) {
+            // LangChain4j gives up on the remaining calls
+            call.batchIds().forEach(started::remove);
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    /**
+     * The tool calls of the model response that contains {@code request}.
+     */
+    private List<ToolExecutionRequest> batch(ToolExecutionRequest request, Object memoryId) {
+        if (request.id() == null) {
+            return List.of(request);
+        }
+        List<ChatMessage> messages = chatMemoryProvider.get(memoryId).messages();
+        for (int i = messages.size() - 1; i >= 0; i--) {
+            if (messages.get(i) instanceof AiMessage aiMessage && aiMessage.hasToolExecutionRequests()) {
+                List<ToolExecutionRequest> requests = aiMessage.toolExecutionRequests();
+                boolean containsRequest = requests.stream().anyMatch(candidate -> request.id().equals(candidate.id()));
+                boolean knownTools = requests.stream().allMatch(candidate -> candidate.id() != null
+                        && delegates.containsKey(candidate.name()));
+                return containsRequest && knownTools ? requests : List.of(request);
+            }
+        }
+        return List.of(request);
+    }
+
+    /**
+     * Starts all calls of {@code batch} and returns {@code current}; the others are left for
+     * LangChain4j's loop to pick up.
+     */
+    private Started start(List<ToolExecutionRequest> batch, ToolExecutionRequest current, Object memoryId) {
+        Set<String> modifiedBookings = new HashSet<>();
+        for (ToolExecutionRequest request : batch) {
+            if (!readOnlyTools.contains(request.name())) {
+                modifiedBookings.add(bookingNumber(request));
+            }
+        }
+        List<String> batchIds = batch.stream().map(ToolExecutionRequest::id).toList();
+        Map<String, CompletableFuture<String>> lastByBooking = new HashMap<>();
+        Started currentCall = null;
+        for (ToolExecutionRequest request : batch) {
+            String bookingNumber = bookingNumber(request);
+            DefaultToolExecutor delegate = delegates.get(request.name());
+            CompletableFuture<String> result;
+            if (modifiedBookings.contains(bookingNumber)) {
+                CompletableFuture<String> previous = lastByBooking.get(bookingNumber);
+                result = previous == null
+                        ? CompletableFuture.supplyAsync(() -> delegate.execute(request, memoryId), executor)
+                        : previous.handleAsync((ignored, error) -> delegate.execute(request, memoryId), executor);
+                lastByBooking.put(bookingNumber, result);
+            } else {
+                result = CompletableFuture.supplyAsync(() -> delegate.execute(request, memoryId), executor);
+            }
+            Started call = new Started(result, batchIds);
+            if (request.id().equals(current.id())) {
+                currentCall = call;
+            } else {
+                started.put(request.id(), call);
+            }
+        }
+        return currentCall;
+    }
+
+    /**
+     * The booking a call refers to, or an empty string for calls without one.
+     */
+    private String bookingNumber(ToolExecutionRequest request) {
+        if (request.arguments() == null) {
+            return "";
+        }
+        try {
+            JsonNode bookingNumber = objectMapper.readTree(request.arguments()).get(BOOKING_NUMBER);
+            return bookingNumber != null && !bookingNumber.isNull()
+                    ? bookingNumber.asText().trim().toUpperCase(Locale.ROOT)
+                    : "";
+        } catch (JsonProcessingException e) {
+            return "";
+        }
+    }
+
+    private record Started(CompletableFuture<String> result, List<String> batchIds) {
+    }
+}
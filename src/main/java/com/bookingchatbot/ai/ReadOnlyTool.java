@@ -0,0 +1,19 @@
+package com.bookingchatbot.ai;
+
+import dev.langchain4j.agent.tool.Tool;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a {@link Tool} method that changes nothing, so {@link ParallelToolExecutor} may run it
+ * concurrently with the other tool calls of the same model response.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface ReadOnlyTool {
+}
@@ -0,0 +1,343 @@
+package com.bookingchatbot.ai;
+
+import dev.langchain4j.agent.tool.ToolSpecification;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.model.StreamingResponseHandler;
+import dev.langchain4j.model.chat.StreamingChatLanguageModel;
+import dev.langchain4j.model.output.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Streaming chat model with a first-token deadline, hedged requests and a circuit breaker.
+ * <p>
+ * When a request has not produced its first token (or tool call) after the hedge delay, a
+ * second, identical request is sent; the first stream to answer wins and the other one is
+ * ignored from then on. A request that fails before answering is retried the same way right
+ * away. The hedge delay follows a percentile of recent first-token latencies, so only the slow
+ * tail is hedged. If nothing has answered by the deadline, or both requests failed, the turn
+ * gets the {@link #DEGRADED_RESPONSE} and counts as a failure for the circuit breaker; while the
+ * circuit is open, every turn gets it without calling the model. Failures after the first token
+ * are passed on, since the answer can't be restarted.
+ */
+public class ResilientStreamingChatModel implements StreamingChatLanguageModel {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResilientStreamingChatModel.class);
+
+    static final String DEGRADED_RESPONSE = "I'm sorry, I can't reach our booking assistant right now. "
+            + "Please try again in a few minutes.";
+
+    private static final int LATENCY_WINDOW = 256;
+
+    private final StreamingChatLanguageModel delegate;
+    private final Duration firstTokenTimeout;
+    private final boolean hedging;
+    private final double hedgePercentile;
+    private final Duration initialHedgeDelay;
+    private final Duration minHedgeDelay;
+    private final int minSamples;
+    private final CircuitBreaker circuitBreaker;
+    private final ScheduledExecutorService scheduler;
+
+    // Guarded by itself; recent first-token latencies in nanoseconds
+    private final long[] latencies = new long[LATENCY_WINDOW];
+    private long latencyCount;
+
+    private final AtomicLong hedges = new AtomicLong();
+    private final AtomicLong hedgeWins = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong degraded = new AtomicLong();
+
+    /**
+     * @param hedgePercentile   percentile of recent first-token latencies after which to hedge
+     * @param initialHedgeDelay hedge delay until {@code minSamples} latencies have been seen
+     * @param scheduler         runs hedge and deadline timers
+     */
+    public ResilientStreamingChatModel(StreamingChatLanguageModel delegate,
+                                       Duration firstTokenTimeout,
+                                       boolean hedging,
+                                       double hedgePercentile,
+                                       Duration initialHedgeDelay,
+                                       Duration minHedgeDelay,
+                                       int minSamples,
+                                       CircuitBreaker circuitBreaker,
+                                       ScheduledExecutorService scheduler) {
+        this.delegate = delegate;
+        this.firstTokenTimeout = firstTokenTimeout;
+        this.hedging = hedging;
+        this.hedgePercentile = hedgePercentile;
+        this.initialHedgeDelay = initialHedgeDelay;
+        this.minHedgeDelay = minHedgeDelay;
+        this.minSamples = minSamples;
+        this.circuitBreaker = circuitBreaker;
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public void generate(List<ChatMessage> messages, StreamingResponseHandler<AiMessage> handler) {
+        generate(attempt -> delegate.generate(messages, attempt), handler);
+    }
+
+    @Override
+    public void generate(List<ChatMessage> messages,
+                         List<ToolSpecification> toolSpecifications,
+                         StreamingResponseHandler<AiMessage> handler) {
+        generate(attempt -> delegate.generate(messages, toolSpecifications, attempt), handler);
+    }
+
+    @Override
+    public void generate(List<ChatMessage> messages,
+                         ToolSpecification toolSpecification,
+                         StreamingResponseHandler<AiMessage> handler) {
+        generate(attempt -> delegate.generate(messages, toolSpecification, attempt), handler);
+    }
+
+    private void generate(Consumer<StreamingResponseHandler<AiMessage>> request, StreamingResponseHandler<AiMessage> handler) {
+        if (!circuitBreaker.tryAcquire()) {
+            respondDegraded(handler);
+            return;
+        }
+        new Turn(request, handler).start();
+    }
+
+    public CircuitBreaker circuitBreaker() {
+        return circuitBreaker;
+    }
+
+    /**
+     * Backup requests sent.
+     */
+    public long hedges() {
+        return hedges.get();
+    }
+
+    /**
+     * Turns answered by the backup request.
+     */
+    public long hedgeWins() {
+        return hedgeWins.get();
+    }
+
+    /**
+     * Turns without a first token before the deadline.
+     */
+    public long timeouts() {
+        return timeouts.get();
+    }
+
+    /**
+     * Turns answered with the degraded response, including those rejected by the open circuit.
+     */
+    public long degraded() {
+        return degraded.get();
+    }
+
+    /**
+     * Current delay before a backup request is sent.
+     */
+    public Duration hedgeDelay() {
+        long[] sorted;
+        synchronized (latencies) {
+            if (latencyCount < minSamples) {
+                return initialHedgeDelay;
+            }
+            sorted = Arrays.copyOf(latencies, (int) Math.min(latencyCount, LATENCY_WINDOW));
+        }
+        Arrays.sort(sorted);
+        Duration percentile = Duration.ofNanos(sorted[(int) Math.ceil(hedgePercentile * sorted.length) - 1]);
+        if (percentile.compareTo(minHedgeDelay) < 0) {
+            return minHedgeDelay;
+        }
+        return percentile.compareTo(firstTokenTimeout) < 0 ? percentile : firstTokenTimeout;
+    }
+
+    private void recordLatency(long nanos) {
+        synchronized (latencies) {
+            latencies[(int) (latencyCount++ % LATENCY_WINDOW)] = nanos;
+        }
+    }
+
+    private void respondDegraded(StreamingResponseHandler<AiMessage> handler) {
+        degraded.incrementAndGet();
+        handler.onNext(DEGRADED_RESPONSE);
+        handler.onComplete(Response.from(AiMessage.from(DEGRADED_RESPONSE)));
+    }
+
+    /**
+     * One call of the model, made of up to two requests.
+     */
+    private class Turn {
+
+        private final Consumer<StreamingResponseHandler<AiMessage>> request;
+        private final StreamingResponseHandler<AiMessage> handler;
+        private final long start = System.nanoTime();
+
+        // Guarded by this
+        private int attempts;
+        private int failures;
+        private Attempt winner;
+        private boolean finished;
+        private ScheduledFuture<?> hedgeTimer;
+        private ScheduledFuture<?> deadlineTimer;
+
+        Turn(Consumer<StreamingResponseHandler<AiMessage>> request, StreamingResponseHandler<AiMessage> handler) {
+            this.request = request;
+            this.handler = handler;
+        }
+
+        void start() {
+            synchronized (this) {
+                deadlineTimer = scheduler.schedule(this::deadlinePassed, firstTokenTimeout.toNanos(), TimeUnit.NANOSECONDS);
+                if (hedging) {
+                    hedgeTimer = scheduler.schedule(this::hedge, hedgeDelay().toNanos(), TimeUnit.NANOSECONDS);
+                }
+            }
+            send();
+        }
+
+        private void send() {
+            Attempt attempt;
+            synchronized (this) {
+                attempt = new Attempt(this, ++attempts);
+            }
+            try {
+                request.accept(attempt);
+            } catch (RuntimeException e) {
+                attempt.onError(e);
+            }
+        }
+
+        private void hedge() {
+            synchronized (this) {
+                if (finished || winner != null || attempts > 1) {
+                    return;
+                }
+            }
+            hedges.incrementAndGet();
+            logger.debug("No answer from the chat model after {} ms, sending a backup request",
+                    Duration.ofNanos(System.nanoTime() - start).toMillis());
+            send();
+        }
+
+        private void deadlinePassed() {
+            synchronized (this) {
+                if (finished || winner != null) {
+                    return;
+                }
+                finished = true;
+                cancelTimers();
+            }
+            timeouts.incrementAndGet();
+            logger.warn("No answer from the chat model within {}", firstTokenTimeout);
+            circuitBreaker.recordFailure();
+            respondDegraded(handler);
+        }
+
+        /**
+         * Whether {@code attempt} may stream to the handler; the first attempt to ask wins.
+         */
+        private boolean claim(Attempt attempt) {
+            synchronized (this) {
+                if (winner == null && !finished) {
+                    winner = attempt;
+                    cancelTimers();
+                    recordLatency(System.nanoTime() - start);
+                    if (attempt.number > 1) {
+                        hedgeWins.incrementAndGet();
+                    }
+                }
+                return winner == attempt;
+            }
+        }
+
+        private void completed(Attempt attempt, Response<AiMessage> response) {
+            if (claim(attempt)) {
+                synchronized (this) {
+                    finished = true;
+                }
+                circuitBreaker.recordSuccess();
+                handler.onComplete(response);
+            }
+        }
+
+        private void failed(Attempt attempt, Throwable error) {
+            boolean retry = false;
+            boolean giveUp = false;
+            boolean passOn = false;
+            synchronized (this) {
+                if (winner == attempt) {
+                    finished = true;
+                    passOn = true;
+                } else if (winner == null && !finished) {
+                    failures++;
+                    if (attempts == 1) {
+                        retry = true;
+                    } else if (failures == attempts) {
+                        finished = true;
+                        cancelTimers();
+                        giveUp = true;
+                    }
+                }
+            }
+            if (passOn) {
+                circuitBreaker.recordFailure();
+                handler.onError(error);
+            } else if (retry) {
+                logger.debug("Chat model request failed, retrying", error);
+                send();
+            } else if (giveUp) {
+                logger.warn("Chat model requests failed", error);
+                circuitBreaker.recordFailure();
+                respondDegraded(handler);
+            }
+        }
+
+        private void cancelTimers() {
+            if (hedgeTimer != null) {
+                hedgeTimer.cancel(false);
+            }
+            deadlineTimer.cancel(false);
+        }
+    }
+
+    /**
+     * Handler for one request of a turn; drops everything once another request has won.
+     */
+    private static class Attempt implements StreamingResponseHandler<AiMessage> {
+
+        private final Turn turn;
+        private final int number;
+
+        Attempt(Turn turn, int number) {
+            this.turn = turn;
+            this.number = number;
+        }
+
+        @Override
+        public void onNext(String token) {
+            if (turn.claim(this)) {
+                turn.handler.onNext(token);
+            }
+        }
+
+        @Override
+        public void onComplete(Response<AiMessage> response) {
+            turn.completed(this, response);
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            turn.failed(this, error);
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.bookingchatbot.ai;
+
+import com.bookingchatbot.rag.RetrievalGate;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.store.embedding.CosineSimilarity;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Cache of assistant answers to policy questions, keyed by question embedding: a question is
+ * answered from the cache when a cached question is at least {@code minSimilarity} cosine-similar
+ * to it.
+ * <p>
+ * Only self-contained policy questions are cached (see {@link #isCacheable(String)}). Numbers
+ * and booking class words have to match exactly, because questions differing only in those
+ * ("economy" vs "premium economy", "24" vs "48 hours") embed very closely but have different
+ * answers. Entries expire after {@code ttl} and as soon as the knowledge base content version
+ * moves. Lookups scan all entries, which is cheap next to embedding the question for the few
+ * thousand entries this is meant for.
+ */
+public class SemanticAnswerCache {
+
+    private static final Pattern BOOKING_REFERENCE = Pattern.compile("(?i)\\bBK\\s*\\d+");
+    private static final Pattern WORD = Pattern.compile("[\\p{L}\\p{N}']+");
+    private static final Pattern NUMBER = Pattern.compile("\\d+");
+
+    /**
+     * Words that refer back to earlier turns, so the question means something different in
+     * every conversation.
+     */
+    private static final Set<String> CONTEXT_WORDS = Set.of(
+            "that", "this", "those", "them", "these", "same", "instead", "also", "again"
+    );
+
+    private static final Set<String> CLASS_WORDS = Set.of("economy", "premium", "business", "first");
+
+    private final EmbeddingModel embeddingModel;
+    private final double minSimilarity;
+    private final Duration ttl;
+    private final int maxEntries;
+    private final LongSupplier contentVersion;
+    private final Clock clock;
+
+    // Guarded by this; oldest first
+    private final List<Entry> entries = new ArrayList<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong savedNanos = new AtomicLong();
+
+    /**
+     * @param contentVersion knowledge base content version; entries stored under another
+     *                       version are discarded
+     */
+    public SemanticAnswerCache(EmbeddingModel embeddingModel,
+                               double minSimilarity,
+                               Duration ttl,
+                               int maxEntries,
+                               LongSupplier contentVersion,
+                               Clock clock) {
+        this.embeddingModel = embeddingModel;
+        this.minSimilarity = minSimilarity;
+        this.ttl = ttl;
+        this.maxEntries = maxEntries;
+        this.contentVersion = contentVersion;
+        this.clock = clock;
+    }
+
+    /**
+     * Whether answers to {@code question} may be cached: a policy question that mentions no
+     * booking reference or name and does not refer back to earlier turns.
+     */
+    public static boolean isCacheable(String question) {
+        if (question.isBlank() || !RetrievalGate.needsRetrieval(question)
+                || BOOKING_REFERENCE.matcher(question).find()) {
+            return false;
+        }
+        Matcher words = WORD.matcher(question);
+        boolean first = true;
+        while (words.find()) {
+            String word = words.group();
+            String lowerCase = word.toLowerCase(Locale.ROOT);
+            if (CONTEXT_WORDS.contains(lowerCase)) {
+                return false;
+            }
+            // Capitalised words other than the first, "I" and class names are likely names
+            if (!first && Character.isUpperCase(word.charAt(0)) && !word.equals("I")
+                    && !word.startsWith("I'") && !CLASS_WORDS.contains(lowerCase)) {
+                return false;
+            }
+            first = false;
+        }
+        return true;
+    }
+
+    /**
+     * The tokens of a cached answer to a question similar to {@code question}.
+     */
+    public Optional<List<String>> get(String question) {
+        Embedding embedding = embeddingModel.embed(question).content();
+        Set<String> qualifiers = qualifiers(question);
+        Entry best = null;
+        double bestSimilarity = minSimilarity;
+        synchronized (this) {
+            removeStale();
+            for (Entry entry : entries) {
+                if (entry.qualifiers.equals(qualifiers)) {
+                    double similarity = CosineSimilarity.between(embedding, entry.embedding);
+                    if (similarity >= bestSimilarity) {
+                        best = entry;
+                        bestSimilarity = similarity;
+                    }
+                }
+            }
+        }
+        if (best == null) {
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+        hits.incrementAndGet();
+        savedNanos.addAndGet(best.generationNanos);
+        return Optional.of(best.tokens);
+    }
+
+    /**
+     * Caches the streamed answer to {@code question}.
+     *
+     * @param generationTime how long the model took to stream the answer, counted as saved on
+     *                       every hit
+     */
+    public void put(String question, List<String> tokens, Duration generationTime) {
+        Embedding embedding = embeddingModel.embed(question).content();
+        Entry entry = new Entry(embedding, qualifiers(question), List.copyOf(tokens), generationTime.toNanos(),
+                clock.instant().plus(ttl), contentVersion.getAsLong());
+        synchronized (this) {
+            removeStale();
+            entries.removeIf(existing -> existing.qualifiers.equals(entry.qualifiers)
+                    && CosineSimilarity.between(embedding, existing.embedding) >= minSimilarity);
+            if (entries.size() >= maxEntries) {
+                entries.remove(0);
+            }
+            entries.add(entry);
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public long hits() {
+        return hits.get();
+    }
+
+    public long misses() {
+        return misses.get();
+    }
+
+    /**
+     * Model streaming time avoided by cache hits.
+     */
+    public Duration savedTime() {
+        return Duration.ofNanos(savedNanos.get());
+    }
+
+    private void removeStale() {
+        Instant now = clock.instant();
+        long version = contentVersion.getAsLong();
+        entries.removeIf(entry -> entry.contentVersion != version || !now.isBefore(entry.expiresAt));
+    }
+
+    private static Set<String> qualifiers(String question) {
+        Set<String> qualifiers = new TreeSet<>();
+        Matcher words = WORD.matcher(question.toLowerCase(Locale.ROOT));
+        while (words.find()) {
+            if (CLASS_WORDS.contains(words.group())) {
+                qualifiers.add(words.group());
+            }
+        }
+        Matcher numbers = NUMBER.matcher(question);
+        while (numbers.find()) {
+            qualifiers.add(numbers.group());
+        }
+        return qualifiers;
+    }
+
+    private record Entry(Embedding embedding,
+                         Set<String> qualifiers,
+                         List<String> tokens,
+                         long generationNanos,
+                         Instant expiresAt,
+                         long contentVersion) {
+    }
+}
@@ -0,0 +1,158 @@
+package com.bookingchatbot.ai;
+
+import com.bookingchatbot.service.BookingChangedEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.memory.chat.ChatMemoryProvider;
+import dev.langchain4j.model.Tokenizer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Per-chat memoization of read-only tool results.
+ * <p>
+ * Results are keyed by tool, booking number and the remaining arguments, compared
+ * case-insensitively like the repository does. All entries of a booking, in every chat, are
+ * dropped when a {@link BookingChangedEvent} for it is published. When the exact same result
+ * is still in the chat memory, the model gets a short note instead of the result again, which
+ * keeps the prompt from growing with repeated copies of the same booking.
+ */
+@Component
+public class ToolResultCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ToolResultCache.class);
+
+    static final int MAX_CHATS = 10_000;
+
+    private final ChatMemoryProvider chatMemoryProvider;
+    private final Tokenizer tokenizer;
+    private final ObjectMapper objectMapper;
+
+    // Guarded by itself; least recently used chat first
+    private final Map<String, Map<Key, String>> chats = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Map<Key, String>> eldest) {
+            return size() > MAX_CHATS;
+        }
+    };
+
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong avoidedCalls = new AtomicLong();
+    private final AtomicLong avoidedTokens = new AtomicLong();
+
+    public ToolResultCache(ChatMemoryProvider chatMemoryProvider, Tokenizer tokenizer, ObjectMapper objectMapper) {
+        this.chatMemoryProvider = chatMemoryProvider;
+        this.tokenizer = tokenizer;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * The result of a read-only tool as sent to the model: the cached or freshly loaded result
+     * serialized to JSON, or a note pointing at the identical result earlier in the chat.
+     *
+     * @param arguments remaining tool arguments, e.g. customer first and last name
+     * @param loader    invoked on a miss; exceptions propagate and nothing is cached
+     */
+    public String get(Object chatId, String tool, String bookingNumber, List<String> arguments, Supplier<Object> loader) {
+        calls.incrementAndGet();
+        Key key = new Key(tool, normalize(bookingNumber), arguments.stream().map(ToolResultCache::normalize).toList());
+        Map<Key, String> results = results(chatId);
+        String result = results.get(key);
+        if (result == null) {
+            long invalidationsBefore = invalidations.get();
+            result = toJson(loader.get());
+            results.put(key, result);
+            if (invalidations.get() != invalidationsBefore) {
+                // The booking may have changed while it was loaded
+                results.remove(key, result);
+            }
+            return result;
+        }
+        avoidedCalls.incrementAndGet();
+        if (!inChatMemory(chatId, result)) {
+            return result;
+        }
+        String note = "Booking " + bookingNumber + " has not changed since the identical " + tool
+                + " result earlier in this conversation.";
+        avoidedTokens.addAndGet(Math.max(0, tokenizer.estimateTokenCountInText(result)
+                - tokenizer.estimateTokenCountInText(note)));
+        logger.debug("Reused {} result for {} in chat {}", tool, bookingNumber, chatId);
+        return note;
+    }
+
+    @EventListener
+    public void onBookingChanged(BookingChangedEvent event) {
+        String bookingNumber = normalize(event.bookingNumber());
+        invalidations.incrementAndGet();
+        synchronized (chats) {
+            for (Map<Key, String> results : chats.values()) {
+                results.keySet().removeIf(key -> key.bookingNumber().equals(bookingNumber));
+            }
+        }
+    }
+
+    /**
+     * Tool invocations that went through this cache.
+     */
+    public long calls() {
+        return calls.get();
+    }
+
+    /**
+     * Invocations answered without calling the tool.
+     */
+    public long avoidedCalls() {
+        return avoidedCalls.get();
+    }
+
+    /**
+     * Prompt tokens saved by sending a note instead of a repeated result.
+     */
+    public long avoidedTokens() {
+        return avoidedTokens.get();
+    }
+
+    private Map<Key, String> results(Object chatId) {
+        synchronized (chats) {
+            return chats.computeIfAbsent(String.valueOf(chatId), id -> new ConcurrentHashMap<>());
+        }
+    }
+
+    private String toJson(Object result) {
+        try {
+            return objectMapper.writeValueAsString(result);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException("Failed to serialize tool result " + result, e);
+        }
+    }
+
+    private boolean inChatMemory(Object chatId, String result) {
+        for (ChatMessage message : chatMemoryProvider.get(chatId).messages()) {
+            if (message instanceof ToolExecutionResultMessage toolResult && toolResult.text().equals(result)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String normalize(String argument) {
+        return argument == null ? "" : argument.toLowerCase(Locale.ROOT);
+    }
+
+    private record Key(String tool, String bookingNumber, List<String> arguments) {
+    }
+}
@@ -0,0 +1,87 @@
+package com.bookingchatbot.ai;
+
+import com.bookingchatbot.rag.RetrievalGate;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.UserMessage;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Heuristic complexity score of the turn a model request belongs to, for {@link ModelRouter}.
+ * <p>
+ * The score adds up:
+ * <ul>
+ *     <li>2 when the user message needs policy knowledge or asks to cancel or change a booking,
+ *     i.e. when retrieval runs for it (see {@link RetrievalGate}) or retrieved content was
+ *     injected;</li>
+ *     <li>2 when the previous assistant message was about a cancellation, change or fee, so
+ *     the turn may confirm a booking change;</li>
+ *     <li>1 for a long message and 1 for several questions at once.</li>
+ * </ul>
+ * Greetings, thanks, booking numbers and names on their own score 0. Requests that follow tool
+ * results are scored by the same user message, so all model calls of a turn go to the same
+ * model.
+ */
+public final class TurnComplexity {
+
+    /**
+     * Separator the default content injector puts between the user message and retrieved content.
+     */
+    private static final String INJECTED_CONTENT = "\n\nAnswer using the following information:\n";
+
+    private static final Pattern WORD = Pattern.compile("[\\p{L}\\p{N}']+");
+    private static final Pattern BOOKING_ACTION = Pattern.compile(
+            "(?i)\\b(cancel\\w*|chang\\w*|modif\\w*|mov(e|ing)|reschedul\\w*|rebook\\w*|fees?|charge)\\b");
+
+    private static final int LONG_MESSAGE_WORDS = 30;
+
+    private TurnComplexity() {
+    }
+
+    public static int score(List<ChatMessage> messages) {
+        int lastUserMessage = -1;
+        for (int i = messages.size() - 1; i >= 0; i--) {
+            if (messages.get(i) instanceof UserMessage) {
+                lastUserMessage = i;
+                break;
+            }
+        }
+        if (lastUserMessage < 0) {
+            return 0;
+        }
+        UserMessage userMessage = (UserMessage) messages.get(lastUserMessage);
+        String text = userMessage.hasSingleText() ? userMessage.singleText() : "";
+        int injected = text.indexOf(INJECTED_CONTENT);
+        String question = injected >= 0 ? text.substring(0, injected) : text;
+
+        int score = 0;
+        if (injected >= 0 || RetrievalGate.needsRetrieval(question)) {
+            score += 2;
+        }
+        if (continuesBookingAction(messages, lastUserMessage)) {
+            score += 2;
+        }
+        if (WORD.matcher(question).results().count() > LONG_MESSAGE_WORDS) {
+            score++;
+        }
+        if (question.chars().filter(c -> c == '?').count() > 1) {
+            score++;
+        }
+        return score;
+    }
+
+    private static boolean continuesBookingAction(List<ChatMessage> messages, int userMessage) {
+        for (int i = userMessage - 1; i >= 0; i--) {
+            if (messages.get(i) instanceof AiMessage aiMessage && aiMessage.text() != null) {
+                return BOOKING_ACTION.matcher(aiMessage.text().toLowerCase(Locale.ROOT)).find();
+            }
+            if (messages.get(i) instanceof UserMessage) {
+                return false;
+            }
+        }
+        return false;
+    }
+}
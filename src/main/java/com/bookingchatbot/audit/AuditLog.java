@@ -0,0 +1,313 @@
+package com.bookingchatbot.audit;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Append-only log of audit records, one JSON document per line (NDJSON).
+ * <p>
+ * {@link #append(Object)} only puts the record into a bounded ring buffer, without locking;
+ * a single writer thread takes up to {@code batchSize} records at a time, serializes them and
+ * writes them with one flush (and, with {@code sync}, one {@code fsync}) per batch. When the
+ * ring is full, appending waits for the writer rather than dropping the record.
+ * <p>
+ * The current file is {@code <name>.ndjson} in {@code directory}. Before it would grow past
+ * {@code maxFileSize} it is renamed to {@code <name>-<UTC time>.ndjson} and a new one is
+ * started; only the {@code maxFiles} most recent of those are kept.
+ */
+public class AuditLog implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuditLog.class);
+
+    private static final DateTimeFormatter ROTATED = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS")
+            .withZone(ZoneOffset.UTC);
+    private static final long WRITER_IDLE_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long FULL_WAIT_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    private final ObjectWriter objectWriter;
+    private final Path directory;
+    private final String name;
+    private final long maxFileSize;
+    private final int maxFiles;
+    private final int batchSize;
+    private final boolean sync;
+    private final Clock clock;
+
+    // Producers claim a sequence from tail and then fill its slot; the writer empties slots and
+    // advances head, so a slot is free again once head has passed it
+    private final AtomicReferenceArray<Object> slots;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+
+    private final Thread writer;
+    private volatile boolean writerIdle;
+    private volatile boolean closed;
+
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong rotations = new AtomicLong();
+    private final AtomicLong waits = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    // Writer thread only
+    private FileOutputStream file;
+    private BufferedOutputStream out;
+    private long fileSize;
+
+    /**
+     * Opens (or creates) the current file and starts the writer thread.
+     *
+     * @param capacity records the ring buffer holds, a power of 2
+     */
+    public AuditLog(ObjectWriter objectWriter,
+                    Path directory,
+                    String name,
+                    long maxFileSize,
+                    int maxFiles,
+                    int capacity,
+                    int batchSize,
+                    boolean sync,
+                    Clock clock) {
+        if (capacity < 1 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of 2");
+        }
+        if (maxFileSize < 1 || batchSize < 1 || maxFiles < 0) {
+            throw new IllegalArgumentException("maxFileSize and batchSize must be positive, maxFiles not negative");
+        }
+        this.objectWriter = objectWriter;
+        this.directory = directory;
+        this.name = name;
+        this.maxFileSize = maxFileSize;
+        this.maxFiles = maxFiles;
+        this.batchSize = batchSize;
+        this.sync = sync;
+        this.clock = clock;
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+        try {
+            Files.createDirectories(directory);
+            openFile();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open audit log " + current(), e);
+        }
+        this.writer = Thread.ofPlatform().name("audit-writer-" + name).daemon().start(this::write);
+    }
+
+    /**
+     * Hands a record to the writer. Records are written in the order their appends claimed a
+     * place in the ring buffer.
+     *
+     * @throws IllegalStateException when the log is closed
+     */
+    public void append(Object record) {
+        long sequence;
+        while (true) {
+            if (closed) {
+                throw new IllegalStateException("Audit log " + name + " is closed");
+            }
+            sequence = tail.get();
+            if (sequence - head.get() > mask) {
+                waits.incrementAndGet();
+                LockSupport.unpark(writer);
+                LockSupport.parkNanos(this, FULL_WAIT_NANOS);
+            } else if (tail.compareAndSet(sequence, sequence + 1)) {
+                break;
+            }
+        }
+        slots.set((int) sequence & mask, record);
+        if (writerIdle) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    /**
+     * Writes the records appended so far, stops the writer and closes the file.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public Path current() {
+        return directory.resolve(name + ".ndjson");
+    }
+
+    /**
+     * Records written to a file.
+     */
+    public long written() {
+        return written.get();
+    }
+
+    public long batches() {
+        return batches.get();
+    }
+
+    public long rotations() {
+        return rotations.get();
+    }
+
+    /**
+     * Times an append found the ring buffer full and waited for the writer.
+     */
+    public long waits() {
+        return waits.get();
+    }
+
+    /**
+     * Records that could not be serialized or written, and are only logged.
+     */
+    public long failed() {
+        return failed.get();
+    }
+
+    /**
+     * Records appended but not yet taken by the writer.
+     */
+    public long pending() {
+        return tail.get() - head.get();
+    }
+
+    private void write() {
+        List<Object> batch = new ArrayList<>(batchSize);
+        while (true) {
+            boolean stopping = closed;
+            take(batch);
+            if (!batch.isEmpty()) {
+                writeBatch(batch);
+                batch.clear();
+                continue;
+            }
+            if (stopping && tail.get() == head.get()) {
+                break;
+            }
+            writerIdle = true;
+            if (slots.get((int) head.get() & mask) == null && !closed) {
+                LockSupport.parkNanos(this, WRITER_IDLE_NANOS);
+            }
+            writerIdle = false;
+        }
+        try {
+            out.close();
+        } catch (IOException e) {
+            logger.error("Failed to close audit log {}", current(), e);
+        }
+    }
+
+    /**
+     * Takes up to {@code batchSize} records in order, stopping at the first slot whose producer
+     * has claimed it but not filled it yet.
+     */
+    private void take(List<Object> batch) {
+        long sequence = head.get();
+        while (batch.size() < batchSize) {
+            int slot = (int) sequence & mask;
+            Object record = slots.get(slot);
+            if (record == null) {
+                break;
+            }
+            batch.add(record);
+            slots.lazySet(slot, null);
+            head.lazySet(++sequence);
+        }
+    }
+
+    private void writeBatch(List<Object> batch) {
+        try {
+            for (Object record : batch) {
+                byte[] line;
+                try {
+                    line = objectWriter.writeValueAsBytes(record);
+                } catch (JsonProcessingException e) {
+                    failed.incrementAndGet();
+                    logger.error("Failed to serialize audit record {}", record, e);
+                    continue;
+                }
+                if (fileSize > 0 && fileSize + line.length + 1 > maxFileSize) {
+                    rotate();
+                }
+                out.write(line);
+                out.write('\n');
+                fileSize += line.length + 1;
+                written.incrementAndGet();
+            }
+            out.flush();
+            if (sync) {
+                file.getChannel().force(false);
+            }
+            batches.incrementAndGet();
+        } catch (IOException e) {
+            failed.addAndGet(batch.size());
+            logger.error("Failed to write {} audit records to {}", batch.size(), current(), e);
+        }
+    }
+
+    private void rotate() throws IOException {
+        out.flush();
+        file.getChannel().force(false);
+        out.close();
+        // Rotations within the same millisecond get the next free one, so names still sort by age
+        Instant rotatedAt = clock.instant();
+        while (Files.exists(rotated(rotatedAt))) {
+            rotatedAt = rotatedAt.plusMillis(1);
+        }
+        Files.move(current(), rotated(rotatedAt));
+        rotations.incrementAndGet();
+        deleteOldest();
+        openFile();
+    }
+
+    private Path rotated(Instant rotatedAt) {
+        return directory.resolve(name + "-" + ROTATED.format(rotatedAt) + ".ndjson");
+    }
+
+    private void deleteOldest() throws IOException {
+        List<Path> rotated = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, name + "-*.ndjson")) {
+            files.forEach(rotated::add);
+        }
+        // The UTC time in the names sorts them oldest first
+        rotated.sort(null);
+        for (int i = 0; i < rotated.size() - maxFiles; i++) {
+            Files.deleteIfExists(rotated.get(i));
+        }
+    }
+
+    private void openFile() throws IOException {
+        file = new FileOutputStream(current().toFile(), true);
+        out = new BufferedOutputStream(file, BUFFER_BYTES);
+        fileSize = file.getChannel().size();
+    }
+}
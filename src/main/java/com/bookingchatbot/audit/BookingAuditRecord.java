@@ -0,0 +1,29 @@
+package com.bookingchatbot.audit;
+
+import com.bookingchatbot.dto.BookingDto;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.Instant;
+
+/**
+ * One line of the booking audit log.
+ *
+ * @param at            when the booking was saved
+ * @param operation     {@code change} or {@code cancel}
+ * @param bookingNumber booking number as stored, e.g. "BK101"
+ * @param chatId        chat whose turn made the operation; absent for the bookings API
+ * @param turnId        turn of that chat, as on {@code /actuator/turns} and in its tool idempotency keys
+ * @param before        the booking before the operation
+ * @param after         the booking after it
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BookingAuditRecord(
+        Instant at,
+        String operation,
+        String bookingNumber,
+        String chatId,
+        Long turnId,
+        BookingDto before,
+        BookingDto after
+) {
+}
@@ -0,0 +1,39 @@
+package com.bookingchatbot.audit;
+
+import com.bookingchatbot.service.BookingChangedEvent;
+import com.bookingchatbot.service.ChatTurn;
+import org.springframework.context.event.EventListener;
+
+import java.time.Clock;
+
+/**
+ * Appends every booking change and cancellation to the audit log, with the booking before and
+ * after it and the chat turn that made it, if any.
+ * <p>
+ * Events are published on the thread of the operation, so this only takes the time and hands the
+ * record to the log's writer thread.
+ */
+public class BookingAuditor {
+
+    private final AuditLog auditLog;
+    private final Clock clock;
+
+    public BookingAuditor(AuditLog auditLog, Clock clock) {
+        this.auditLog = auditLog;
+        this.clock = clock;
+    }
+
+    @EventListener
+    public void onBookingChanged(BookingChangedEvent event) {
+        ChatTurn turn = event.turn();
+        auditLog.append(new BookingAuditRecord(
+                clock.instant(),
+                event.operation(),
+                event.bookingNumber(),
+                turn != null ? turn.chatId() : null,
+                turn != null && turn.turnId() != 0 ? turn.turnId() : null,
+                event.before(),
+                event.after()
+        ));
+    }
+}
@@ -1,5 +1,41 @@
 package com.bookingchatbot.config;
 
+import com.bookingchatbot.ai.AiAssistant;
+import com.bookingchatbot.ai.AiTools;
+import com.bookingchatbot.ai.BookingFastPath;
+import com.bookingchatbot.ai.CircuitBreaker;
+import com.bookingchatbot.ai.MeteredAiAssistant;
+import com.bookingchatbot.ai.MeteredChatMemoryStore;
+import com.bookingchatbot.ai.MeteredStreamingChatModel;
+import com.bookingchatbot.ai.ModelRouter;
+import com.bookingchatbot.ai.ParallelToolExecutor;
+import com.bookingchatbot.ai.ResilientStreamingChatModel;
+import com.bookingchatbot.ai.SemanticAnswerCache;
+import com.bookingchatbot.ai.ToolResultCache;
+import com.bookingchatbot.controller.ChatWebSocketHandler;
+import com.bookingchatbot.controller.TokenCoalescer;
+import com.bookingchatbot.controller.TurnReplayBuffer;
+import com.bookingchatbot.diagnostics.TracingAiAssistant;
+import com.bookingchatbot.diagnostics.TracingChatMemory;
+import com.bookingchatbot.diagnostics.TracingContentRetriever;
+import com.bookingchatbot.diagnostics.TracingEmbeddingModel;
+import com.bookingchatbot.diagnostics.TracingEmbeddingStore;
+import com.bookingchatbot.diagnostics.TracingStreamingChatModel;
+import com.bookingchatbot.diagnostics.TurnTracer;
+import com.bookingchatbot.rag.Bm25Index;
+import com.bookingchatbot.rag.Bm25IndexingEmbeddingStore;
+import com.bookingchatbot.rag.CachingEmbeddingModel;
+import com.bookingchatbot.rag.DiskEmbeddingCache;
+import com.bookingchatbot.rag.HnswEmbeddingStore;
+import com.bookingchatbot.rag.HybridContentRetriever;
+import com.bookingchatbot.rag.KnowledgeBaseIngestor;
+import com.bookingchatbot.rag.MeteredContentRetriever;
+import com.bookingchatbot.rag.QueryEmbeddingModel;
+import com.bookingchatbot.rag.RetrievalGate;
+import com.bookingchatbot.rag.QuantizedEmbeddingStore;
+import com.bookingchatbot.service.ChatMailbox;
+import com.bookingchatbot.service.IdempotencyCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import dev.langchain4j.data.document.Document;
 import dev.langchain4j.data.document.Metadata;
 import dev.langchain4j.data.document.splitter.DocumentSplitters;
@@ -7,21 +43,51 @@ import dev.langchain4j.data.segment.TextSegment;
 import dev.langchain4j.memory.chat.ChatMemoryProvider;
 import dev.langchain4j.memory.chat.TokenWindowChatMemory;
 import dev.langchain4j.model.Tokenizer;
+import dev.langchain4j.model.chat.StreamingChatLanguageModel;
+import dev.langchain4j.model.openai.OpenAiEmbeddingModel;
+import dev.langchain4j.model.openai.OpenAiStreamingChatModel;
 import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.embedding.onnx.allminilml6v2.AllMiniLmL6V2EmbeddingModel;
+import dev.langchain4j.rag.DefaultRetrievalAugmentor;
+import dev.langchain4j.rag.RetrievalAugmentor;
 import dev.langchain4j.rag.content.retriever.ContentRetriever;
 import dev.langchain4j.rag.content.retriever.EmbeddingStoreContentRetriever;
+import dev.langchain4j.rag.query.router.DefaultQueryRouter;
+import dev.langchain4j.rag.query.router.QueryRouter;
+import dev.langchain4j.service.AiServices;
 import dev.langchain4j.store.embedding.EmbeddingStore;
-import dev.langchain4j.store.embedding.EmbeddingStoreIngestor;
 import dev.langchain4j.store.embedding.inmemory.InMemoryEmbeddingStore;
+import dev.langchain4j.store.memory.chat.ChatMemoryStore;
+import dev.langchain4j.store.memory.chat.InMemoryChatMemoryStore;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
 import org.springframework.core.io.Resource;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Configuration for AI/LangChain4j components.
@@ -33,55 +99,505 @@ public class AiConfig {
     private static final Logger logger = LoggerFactory.getLogger(AiConfig.class);
 
     @Bean
-    ChatMemoryProvider chatMemoryProvider(Tokenizer tokenizer) {
-        return chatId -> TokenWindowChatMemory.withMaxTokens(1000, tokenizer);
+    ChatMemoryStore chatMemoryStore(MeterRegistry meterRegistry) {
+        return new MeteredChatMemoryStore(new InMemoryChatMemoryStore(), meterRegistry);
+    }
+
+    /**
+     * Memories are views over the shared store, so the chat service sees the same messages as
+     * the assistant.
+     */
+    @Bean
+    ChatMemoryProvider chatMemoryProvider(ChatMemoryStore chatMemoryStore, Tokenizer tokenizer) {
+        return chatId -> TokenWindowChatMemory.builder()
+                .id(chatId)
+                .maxTokens(1000, tokenizer)
+                .chatMemoryStore(chatMemoryStore)
+                .build();
+    }
+
+    /**
+     * Runs tool calls and the handling of model responses that leads to them: on virtual threads
+     * when {@code spring.threads.virtual.enabled}, otherwise on platform threads.
+     */
+    @Bean(destroyMethod = "close")
+    ExecutorService toolCallExecutor(@Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        return virtualThreads
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newCachedThreadPool(Thread.ofPlatform().name("tool-call-", 0).daemon().factory());
+    }
+
+    @Bean(destroyMethod = "shutdownNow")
+    ScheduledExecutorService chatModelTimers() {
+        return Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("chat-model-timer").daemon().factory());
+    }
+
+    /**
+     * Routes turns by complexity between the configured OpenAI chat model and the lighter models
+     * of {@code chatbot.routing.routes}, served by the same OpenAI endpoint. Every model is
+     * hedged, deadline-bounded and circuit-broken on its own, and its requests are metered
+     * underneath, hedges included.
+     */
+    @Bean
+    ModelRouter modelRouter(
+            OpenAiStreamingChatModel openAiStreamingChatModel,
+            RoutingProperties routingProperties,
+            ChatModelProperties chatModelProperties,
+            ScheduledExecutorService chatModelTimers,
+            ExecutorService toolCallExecutor,
+            MeterRegistry meterRegistry,
+            Environment environment) {
+        List<ModelRouter.Route> routes = new ArrayList<>();
+        if (routingProperties.enabled()) {
+            for (RoutingProperties.Route route : routingProperties.routes()) {
+                OpenAiStreamingChatModel model = routedModel(route.modelName(), environment);
+                routes.add(new ModelRouter.Route(route.name(), route.maxComplexity(),
+                        resilient(new MeteredStreamingChatModel(model, meterRegistry, route.name()),
+                                chatModelProperties, chatModelTimers)));
+            }
+        }
+        routes.add(new ModelRouter.Route("primary", Integer.MAX_VALUE,
+                resilient(new MeteredStreamingChatModel(openAiStreamingChatModel, meterRegistry, "primary"),
+                        chatModelProperties, chatModelTimers)));
+        return new ModelRouter(routes, toolCallExecutor);
+    }
+
+    /**
+     * A routed model: the configured OpenAI streaming chat model under another model name, with
+     * the same endpoint, credentials, temperature, timeout and logging.
+     */
+    private static OpenAiStreamingChatModel routedModel(String modelName, Environment environment) {
+        String prefix = "langchain4j.open-ai.streaming-chat-model.";
+        return OpenAiStreamingChatModel.builder()
+                .baseUrl(environment.getProperty(prefix + "base-url"))
+                .apiKey(environment.getRequiredProperty(prefix + "api-key"))
+                .organizationId(environment.getProperty(prefix + "organization-id"))
+                .modelName(modelName)
+                .temperature(environment.getProperty(prefix + "temperature", Double.class))
+                .timeout(environment.getProperty(prefix + "timeout", Duration.class))
+                .strictTools(environment.getProperty(prefix + "strict-tools", Boolean.class))
+                .logRequests(environment.getProperty(prefix + "log-requests", Boolean.class))
+                .logResponses(environment.getProperty(prefix + "log-responses", Boolean.class))
+                .build();
+    }
+
+    private static ResilientStreamingChatModel resilient(
+            StreamingChatLanguageModel model,
+            ChatModelProperties chatModelProperties,
+            ScheduledExecutorService chatModelTimers) {
+        ChatModelProperties.Hedging hedging = chatModelProperties.hedging();
+        return new ResilientStreamingChatModel(
+                model,
+                chatModelProperties.firstTokenTimeout(),
+                hedging.enabled(),
+                hedging.percentile(),
+                hedging.initialDelay(),
+                hedging.minDelay(),
+                hedging.minSamples(),
+                new CircuitBreaker(
+                        chatModelProperties.circuitBreaker().failureThreshold(),
+                        chatModelProperties.circuitBreaker().openDuration(),
+                        Clock.systemUTC()
+                ),
+                chatModelTimers
+        );
+    }
+
+    /**
+     * Keeps the latency breakdown of the {@code chatbot.diagnostics.recent-turns} most recent
+     * turns, a power of 2, for {@code /actuator/turns}.
+     */
+    @Bean
+    TurnTracer turnTracer(@Value("${chatbot.diagnostics.recent-turns:256}") int recentTurns) {
+        return new TurnTracer(recentTurns);
+    }
+
+    /**
+     * The tool calls of one model response run concurrently on the tool call executor.
+     * Every stage of a turn the assistant sees, from memory to tool calls, is traced.
+     */
+    @Bean
+    AiAssistant aiAssistant(
+            ModelRouter modelRouter,
+            ChatMemoryProvider chatMemoryProvider,
+            RetrievalAugmentor retrievalAugmentor,
+            AiTools aiTools,
+            ExecutorService toolCallExecutor,
+            TurnTracer turnTracer,
+            ChatMailbox chatMailbox,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry) {
+        ChatMemoryProvider tracedMemoryProvider = chatId -> new TracingChatMemory(chatMemoryProvider.get(chatId), turnTracer);
+        AiAssistant aiAssistant = AiServices.builder(AiAssistant.class)
+                .streamingChatLanguageModel(new TracingStreamingChatModel(modelRouter, turnTracer))
+                .chatMemoryProvider(tracedMemoryProvider)
+                .retrievalAugmentor(retrievalAugmentor)
+                .tools(turnTracer.tracing(new ParallelToolExecutor(List.of(aiTools), tracedMemoryProvider,
+                        TurnTracer.propagating(toolCallExecutor), objectMapper).tools()))
+                .build();
+        return new MeteredAiAssistant(new TracingAiAssistant(aiAssistant, turnTracer, chatMailbox), meterRegistry);
     }
 
     @Bean
-    EmbeddingStore<TextSegment> embeddingStore() {
-        return new InMemoryEmbeddingStore<>();
+    Bm25Index bm25Index() {
+        return new Bm25Index();
+    }
+
+    @Bean
+    EmbeddingStore<TextSegment> embeddingStore(RagProperties ragProperties, Bm25Index bm25Index) {
+        EmbeddingStore<TextSegment> store = switch (ragProperties.store()) {
+            case IN_MEMORY -> new InMemoryEmbeddingStore<>();
+            case HNSW -> new HnswEmbeddingStore<>(
+                    ragProperties.hnsw().m(),
+                    ragProperties.hnsw().efConstruction(),
+                    ragProperties.hnsw().efSearch()
+            );
+            case QUANTIZED -> new QuantizedEmbeddingStore<>(ragProperties.quantized().rerankFactor());
+        };
+        return ragProperties.hybrid().enabled() ? new Bm25IndexingEmbeddingStore(store, bm25Index) : store;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "chatbot.rag.embedding-cache.enabled", matchIfMissing = true)
+    DiskEmbeddingCache diskEmbeddingCache(RagProperties ragProperties) {
+        Path path = Path.of(ragProperties.embeddingCache().path());
+        try {
+            DiskEmbeddingCache cache = DiskEmbeddingCache.open(path);
+            logger.info("Opened embedding cache {} with {} entries", path.toAbsolutePath(), cache.size());
+            return cache;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open embedding cache " + path, e);
+        }
+    }
+
+    @Bean
+    KnowledgeBaseIngestor knowledgeBaseIngestor(
+            EmbeddingModel embeddingModel,
+            ObjectProvider<DiskEmbeddingCache> embeddingCache,
+            EmbeddingStore<TextSegment> embeddingStore,
+            Tokenizer tokenizer,
+            RagProperties ragProperties) {
+        DiskEmbeddingCache cache = embeddingCache.getIfAvailable();
+        RagProperties.Ingestion ingestion = ragProperties.ingestion();
+        return new KnowledgeBaseIngestor(
+                cache != null ? new CachingEmbeddingModel(embeddingModel, cache) : embeddingModel,
+                embeddingStore,
+                DocumentSplitters.recursive(50, 0, tokenizer),
+                ingestion.parallelism(),
+                ingestion.batchSize(),
+                ingestion.maxInFlightBatches()
+        );
+    }
+
+    /**
+     * Embeds documents, and underneath {@link #queryEmbeddingModel} queries: the in-process
+     * all-MiniLM-L6-v2 model or the OpenAI embedding model. Takes precedence over both the
+     * OpenAI embedding model and the query embedding model.
+     */
+    @Bean
+    @Primary
+    EmbeddingModel embeddingModel(RagProperties ragProperties, ObjectProvider<OpenAiEmbeddingModel> openAiEmbeddingModel) {
+        return ragProperties.embeddings().provider() == RagProperties.EmbeddingProvider.LOCAL
+                ? new AllMiniLmL6V2EmbeddingModel()
+                : openAiEmbeddingModel.getObject();
+    }
+
+    /**
+     * Embeds user messages for retrieval and the answer cache, so both share one batching
+     * dispatcher and one cache of recent queries.
+     */
+    @Bean(destroyMethod = "close")
+    QueryEmbeddingModel queryEmbeddingModel(EmbeddingModel embeddingModel, RagProperties ragProperties) {
+        RagProperties.Embeddings embeddings = ragProperties.embeddings();
+        return new QueryEmbeddingModel(embeddingModel, embeddings.queryBatchSize(), embeddings.queryCacheSize());
     }
 
     @Bean
     ContentRetriever contentRetriever(
             EmbeddingStore<TextSegment> embeddingStore,
-            EmbeddingModel embeddingModel) {
-        return EmbeddingStoreContentRetriever.builder()
-                .embeddingStore(embeddingStore)
-                .embeddingModel(embeddingModel)
-                .maxResults(2)
-                .minScore(0.6)
+            QueryEmbeddingModel queryEmbeddingModel,
+            Bm25Index bm25Index,
+            KnowledgeBaseIngestor knowledgeBaseIngestor,
+            RagProperties ragProperties,
+            TurnTracer turnTracer,
+            MeterRegistry meterRegistry) {
+        EmbeddingModel tracedEmbeddingModel = new TracingEmbeddingModel(queryEmbeddingModel);
+        double minScore = ragProperties.embeddings().minScore();
+        EmbeddingStore<TextSegment> searchedStore = new TracingEmbeddingStore<>(embeddingStore);
+        ContentRetriever contentRetriever;
+        if (ragProperties.hybrid().enabled()) {
+            contentRetriever = new HybridContentRetriever(
+                    searchedStore,
+                    tracedEmbeddingModel,
+                    bm25Index,
+                    knowledgeBaseIngestor.activeSegments(),
+                    2,
+                    minScore,
+                    ragProperties.hybrid().candidates(),
+                    ragProperties.hybrid().rrfK()
+            );
+        } else {
+            contentRetriever = EmbeddingStoreContentRetriever.builder()
+                    .embeddingStore(searchedStore)
+                    .embeddingModel(tracedEmbeddingModel)
+                    .filter(knowledgeBaseIngestor.activeSegments())
+                    .maxResults(2)
+                    .minScore(minScore)
+                    .build();
+        }
+        return new MeteredContentRetriever(new TracingContentRetriever(contentRetriever, turnTracer), meterRegistry);
+    }
+
+    /**
+     * Routes each turn's query to the content retriever, or nowhere when gating decides
+     * the turn does not need policy knowledge.
+     */
+    @Bean
+    RetrievalAugmentor retrievalAugmentor(ContentRetriever contentRetriever, RagProperties ragProperties,
+                                          MeterRegistry meterRegistry) {
+        QueryRouter queryRouter;
+        if (ragProperties.gating().enabled()) {
+            RetrievalGate gate = new RetrievalGate(contentRetriever);
+            FunctionCounter.builder("chatbot.rag.gating.turns", gate, RetrievalGate::retrieved)
+                    .description("Turns the retrieval gate sent to the knowledge base or kept from it")
+                    .tag("decision", "retrieved")
+                    .register(meterRegistry);
+            FunctionCounter.builder("chatbot.rag.gating.turns", gate, RetrievalGate::skipped)
+                    .tag("decision", "skipped")
+                    .register(meterRegistry);
+            queryRouter = gate;
+        } else {
+            queryRouter = new DefaultQueryRouter(contentRetriever);
+        }
+        return DefaultRetrievalAugmentor.builder()
+                .queryRouter(queryRouter)
                 .build();
     }
 
     /**
-     * Ingests the terms of service document into the embedding store.
+     * Answers repeated policy questions; cached answers expire when the knowledge base changes.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "chatbot.answer-cache.enabled", matchIfMissing = true)
+    SemanticAnswerCache semanticAnswerCache(
+            QueryEmbeddingModel queryEmbeddingModel,
+            KnowledgeBaseIngestor knowledgeBaseIngestor,
+            AnswerCacheProperties answerCacheProperties) {
+        return new SemanticAnswerCache(
+                queryEmbeddingModel,
+                answerCacheProperties.minSimilarity(),
+                answerCacheProperties.ttl(),
+                answerCacheProperties.maxEntries(),
+                knowledgeBaseIngestor::contentVersion,
+                Clock.systemUTC()
+        );
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "chatbot.answer-cache.enabled", matchIfMissing = true)
+    MeterBinder answerCacheMetrics(SemanticAnswerCache answerCache) {
+        return registry -> {
+            FunctionCounter.builder("chatbot.answer.cache.requests", answerCache, SemanticAnswerCache::hits)
+                    .tag("result", "hit")
+                    .register(registry);
+            FunctionCounter.builder("chatbot.answer.cache.requests", answerCache, SemanticAnswerCache::misses)
+                    .tag("result", "miss")
+                    .register(registry);
+            FunctionCounter.builder("chatbot.answer.cache.saved", answerCache,
+                            cache -> cache.savedTime().toNanos() / 1e9)
+                    .description("Model streaming time avoided by cache hits")
+                    .baseUnit("seconds")
+                    .register(registry);
+            Gauge.builder("chatbot.answer.cache.size", answerCache, SemanticAnswerCache::size)
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    MeterBinder toolResultCacheMetrics(ToolResultCache toolResultCache) {
+        return registry -> {
+            FunctionCounter.builder("chatbot.tools.cache.calls", toolResultCache, ToolResultCache::avoidedCalls)
+                    .tag("result", "hit")
+                    .register(registry);
+            FunctionCounter.builder("chatbot.tools.cache.calls", toolResultCache,
+                            cache -> cache.calls() - cache.avoidedCalls())
+                    .tag("result", "miss")
+                    .register(registry);
+            FunctionCounter.builder("chatbot.tools.cache.avoided.tokens", toolResultCache, ToolResultCache::avoidedTokens)
+                    .description("Prompt tokens saved by not repeating identical tool results")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    MeterBinder idempotencyMetrics(IdempotencyCache idempotencyCache) {
+        return registry -> {
+            FunctionCounter.builder("chatbot.idempotency.requests", idempotencyCache, IdempotencyCache::executed)
+                    .tag("result", "executed")
+                    .register(registry);
+            FunctionCounter.builder("chatbot.idempotency.requests", idempotencyCache, IdempotencyCache::replayed)
+                    .tag("result", "replayed")
+                    .register(registry);
+            Gauge.builder("chatbot.idempotency.keys", idempotencyCache, IdempotencyCache::size)
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    MeterBinder bookingFastPathMetrics(BookingFastPath bookingFastPath) {
+        return registry -> {
+            FunctionCounter.builder("chatbot.fastpath.messages", bookingFastPath, BookingFastPath::served)
+                    .tag("result", "served")
+                    .register(registry);
+            FunctionCounter.builder("chatbot.fastpath.messages", bookingFastPath, BookingFastPath::passed)
+                    .tag("result", "passed")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    MeterBinder chatMailboxMetrics(ChatMailbox chatMailbox) {
+        return registry -> {
+            FunctionCounter.builder("chatbot.chat.rejected", chatMailbox, ChatMailbox::rejected)
+                    .register(registry);
+            Gauge.builder("chatbot.chat.active", chatMailbox, ChatMailbox::activeChats)
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    MeterBinder chatStreamMetrics(TokenCoalescer tokenCoalescer) {
+        return registry -> {
+            FunctionCounter.builder("chatbot.stream.tokens", tokenCoalescer, TokenCoalescer::tokens)
+                    .register(registry);
+            FunctionCounter.builder("chatbot.stream.frames", tokenCoalescer, TokenCoalescer::frames)
+                    .register(registry);
+            FunctionCounter.builder("chatbot.stream.dropped", tokenCoalescer, TokenCoalescer::dropped)
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    MeterBinder turnReplayMetrics(TurnReplayBuffer turnReplayBuffer) {
+        return registry -> {
+            Gauge.builder("chatbot.stream.replay.turns", turnReplayBuffer, TurnReplayBuffer::turns)
+                    .register(registry);
+            Gauge.builder("chatbot.stream.replay.characters", turnReplayBuffer, TurnReplayBuffer::characters)
+                    .register(registry);
+            FunctionCounter.builder("chatbot.stream.coalesced", turnReplayBuffer, TurnReplayBuffer::coalesced)
+                    .register(registry);
+            FunctionCounter.builder("chatbot.stream.resumed", turnReplayBuffer, TurnReplayBuffer::resumed)
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    MeterBinder chatSocketMetrics(ChatWebSocketHandler chatWebSocketHandler) {
+        return registry -> {
+            Gauge.builder("chatbot.socket.connections", chatWebSocketHandler, ChatWebSocketHandler::connections)
+                    .register(registry);
+            FunctionCounter.builder("chatbot.socket.turns", chatWebSocketHandler, ChatWebSocketHandler::turns)
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    MeterBinder chatModelMetrics(ModelRouter modelRouter) {
+        return registry -> {
+            for (ModelRouter.Route route : modelRouter.routes()) {
+                String model = route.name();
+                FunctionCounter.builder("chatbot.model.requests", route, ModelRouter.Route::requests)
+                        .description("Model requests routed to this model")
+                        .tag("model", model)
+                        .register(registry);
+                FunctionTimer.builder("chatbot.model.latency", route, ModelRouter.Route::completed,
+                                r -> r.latency().toNanos(), TimeUnit.NANOSECONDS)
+                        .description("Time from request to complete response")
+                        .tag("model", model)
+                        .register(registry);
+                FunctionCounter.builder("chatbot.model.tokens", route, ModelRouter.Route::inputTokens)
+                        .tags("model", model, "type", "input")
+                        .register(registry);
+                FunctionCounter.builder("chatbot.model.tokens", route, ModelRouter.Route::outputTokens)
+                        .tags("model", model, "type", "output")
+                        .register(registry);
+                if (route.model() instanceof ResilientStreamingChatModel resilient) {
+                    bindResilienceMetrics(registry, model, resilient);
+                }
+            }
+        };
+    }
+
+    private static void bindResilienceMetrics(MeterRegistry registry, String model, ResilientStreamingChatModel resilient) {
+        FunctionCounter.builder("chatbot.model.hedges", resilient, ResilientStreamingChatModel::hedges)
+                .description("Backup requests sent because the first token was late")
+                .tag("model", model)
+                .register(registry);
+        FunctionCounter.builder("chatbot.model.hedge.wins", resilient, ResilientStreamingChatModel::hedgeWins)
+                .tag("model", model)
+                .register(registry);
+        FunctionCounter.builder("chatbot.model.timeouts", resilient, ResilientStreamingChatModel::timeouts)
+                .tag("model", model)
+                .register(registry);
+        FunctionCounter.builder("chatbot.model.degraded", resilient, ResilientStreamingChatModel::degraded)
+                .description("Turns answered with the degraded response")
+                .tag("model", model)
+                .register(registry);
+        Gauge.builder("chatbot.model.hedge.delay", resilient, r -> r.hedgeDelay().toNanos() / 1e9)
+                .baseUnit("seconds")
+                .tag("model", model)
+                .register(registry);
+        Gauge.builder("chatbot.model.circuit.open", resilient,
+                        r -> r.circuitBreaker().state() == CircuitBreaker.State.CLOSED ? 0 : 1)
+                .tag("model", model)
+                .register(registry);
+        FunctionCounter.builder("chatbot.model.circuit.rejected", resilient, r -> r.circuitBreaker().rejected())
+                .description("Model requests turned away while the circuit was open")
+                .tag("model", model)
+                .register(registry);
+    }
+
+    /**
+     * Ingests the policy documents into the embedding store.
      * This enables the AI to answer questions about policies using RAG.
+     * Without a configured knowledge-base directory, the bundled terms of service are ingested.
      */
     @Bean
     CommandLineRunner ingestDocuments(
-            EmbeddingModel embeddingModel,
-            EmbeddingStore<TextSegment> embeddingStore,
-            Tokenizer tokenizer,
+            KnowledgeBaseIngestor knowledgeBaseIngestor,
+            RagProperties ragProperties,
             @Value("classpath:terms-of-service.txt") Resource termsOfService) {
         return args -> {
-            try (var inputStream = termsOfService.getInputStream()) {
-                String text = new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
-                Metadata metadata = new Metadata()
-                        .put(Document.FILE_NAME, termsOfService.getFilename());
-                var doc = new Document(text, metadata);
-                var ingestor = EmbeddingStoreIngestor.builder()
-                        .documentSplitter(DocumentSplitters.recursive(50, 0, tokenizer))
-                        .embeddingModel(embeddingModel)
-                        .embeddingStore(embeddingStore)
-                        .build();
-                ingestor.ingest(doc);
-                logger.info("Successfully ingested terms of service document");
+            RagProperties.Ingestion ingestion = ragProperties.ingestion();
+            KnowledgeBaseIngestor.Result result;
+            try {
+                if (ingestion.directory().isBlank()) {
+                    result = knowledgeBaseIngestor.ingest(List.of(new KnowledgeBaseIngestor.Source(
+                            termsOfService.getFilename(), () -> load(termsOfService))));
+                } else {
+                    result = knowledgeBaseIngestor.ingestDirectory(Path.of(ingestion.directory()));
+                }
             } catch (Exception e) {
-                logger.error("Failed to ingest terms of service", e);
-                throw new IllegalStateException("Terms of service ingestion failed", e);
+                logger.error("Failed to ingest knowledge base", e);
+                throw new IllegalStateException("Knowledge base ingestion failed", e);
+            }
+            if (!result.failed().isEmpty()) {
+                throw new IllegalStateException("Knowledge base ingestion failed for " + result.failed());
+            }
+            logger.info("Successfully ingested knowledge base: {}", result);
+
+            if (!ingestion.directory().isBlank() && ingestion.watch()) {
+                knowledgeBaseIngestor.watch(Path.of(ingestion.directory()), ingestion.debounce());
             }
         };
     }
-}
 
+    private static Document load(Resource resource) throws IOException {
+        try (var inputStream = resource.getInputStream()) {
+            String text = new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+            Metadata metadata = new Metadata()
+                    .put(Document.FILE_NAME, resource.getFilename());
+            return new Document(text, metadata);
+        }
+    }
+}
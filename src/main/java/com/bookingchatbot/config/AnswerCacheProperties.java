@@ -0,0 +1,23 @@
+package com.bookingchatbot.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties for the semantic answer cache in front of the assistant.
+ *
+ * @param enabled       answer repeated policy questions from the cache instead of the model
+ * @param minSimilarity minimum cosine similarity between question embeddings for a hit
+ * @param ttl           how long an answer is served before the model is asked again
+ * @param maxEntries    maximum cached answers; the oldest is dropped first
+ */
+@ConfigurationProperties("chatbot.answer-cache")
+public record AnswerCacheProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("0.93") double minSimilarity,
+        @DefaultValue("24h") Duration ttl,
+        @DefaultValue("1000") int maxEntries
+) {
+}
@@ -0,0 +1,61 @@
+package com.bookingchatbot.config;
+
+import com.bookingchatbot.audit.AuditLog;
+import com.bookingchatbot.audit.BookingAuditRecord;
+import com.bookingchatbot.audit.BookingAuditor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+import java.time.Clock;
+
+/**
+ * Configuration for the booking audit log, written to
+ * {@code <chatbot.audit.directory>/bookings.ndjson}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "chatbot.audit.enabled", matchIfMissing = true)
+public class AuditConfig {
+
+    @Bean(destroyMethod = "close")
+    AuditLog bookingAuditLog(AuditProperties auditProperties, ObjectMapper objectMapper) {
+        return new AuditLog(
+                objectMapper.writerFor(BookingAuditRecord.class),
+                Path.of(auditProperties.directory()),
+                "bookings",
+                auditProperties.maxFileSize().toBytes(),
+                auditProperties.maxFiles(),
+                auditProperties.capacity(),
+                auditProperties.batchSize(),
+                auditProperties.sync(),
+                Clock.systemUTC()
+        );
+    }
+
+    @Bean
+    BookingAuditor bookingAuditor(AuditLog bookingAuditLog) {
+        return new BookingAuditor(bookingAuditLog, Clock.systemUTC());
+    }
+
+    @Bean
+    MeterBinder auditLogMetrics(AuditLog bookingAuditLog) {
+        return registry -> {
+            FunctionCounter.builder("chatbot.audit.records", bookingAuditLog, AuditLog::written)
+                    .register(registry);
+            FunctionCounter.builder("chatbot.audit.batches", bookingAuditLog, AuditLog::batches)
+                    .register(registry);
+            FunctionCounter.builder("chatbot.audit.waits", bookingAuditLog, AuditLog::waits)
+                    .description("Booking changes that waited for the audit writer because its buffer was full")
+                    .register(registry);
+            FunctionCounter.builder("chatbot.audit.failed", bookingAuditLog, AuditLog::failed)
+                    .register(registry);
+            Gauge.builder("chatbot.audit.pending", bookingAuditLog, AuditLog::pending)
+                    .register(registry);
+        };
+    }
+}
@@ -0,0 +1,28 @@
+package com.bookingchatbot.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Configuration properties for the booking audit log.
+ *
+ * @param enabled     whether booking changes and cancellations are audited
+ * @param directory   directory of the current and the rotated log files
+ * @param maxFileSize size after which the current file is rotated
+ * @param maxFiles    rotated files kept
+ * @param capacity    records waiting for the writer at most, a power of 2; further changes wait
+ * @param batchSize   records written per flush at most
+ * @param sync        whether every batch is also forced to disk
+ */
+@ConfigurationProperties("chatbot.audit")
+public record AuditProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("data/audit") String directory,
+        @DefaultValue("10MB") DataSize maxFileSize,
+        @DefaultValue("10") int maxFiles,
+        @DefaultValue("8192") int capacity,
+        @DefaultValue("256") int batchSize,
+        @DefaultValue("false") boolean sync
+) {
+}
@@ -0,0 +1,50 @@
+package com.bookingchatbot.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties for the resilience layer around the streaming chat model.
+ *
+ * @param firstTokenTimeout how long a turn may wait for the first token (or tool call) before
+ *                          the degraded response is sent
+ * @param hedging           backup requests for slow first tokens
+ * @param circuitBreaker    stops calling a failing model for a while
+ */
+@ConfigurationProperties("chatbot.chat-model")
+public record ChatModelProperties(
+        @DefaultValue("20s") Duration firstTokenTimeout,
+        @DefaultValue Hedging hedging,
+        @DefaultValue CircuitBreaker circuitBreaker
+) {
+
+    /**
+     * @param enabled      send a second request when the first token is late; the first stream
+     *                     to answer wins
+     * @param percentile   percentile of recent first-token latencies after which to hedge
+     * @param initialDelay hedge delay until {@code minSamples} latencies have been seen
+     * @param minDelay     lower bound for the hedge delay
+     * @param minSamples   first-token latencies needed before the percentile is used
+     */
+    public record Hedging(
+            @DefaultValue("true") boolean enabled,
+            @DefaultValue("0.95") double percentile,
+            @DefaultValue("4s") Duration initialDelay,
+            @DefaultValue("500ms") Duration minDelay,
+            @DefaultValue("20") int minSamples
+    ) {
+    }
+
+    /**
+     * @param failureThreshold consecutive failed turns that open the circuit
+     * @param openDuration     how long turns get the degraded response before the model is
+     *                         tried again
+     */
+    public record CircuitBreaker(
+            @DefaultValue("5") int failureThreshold,
+            @DefaultValue("30s") Duration openDuration
+    ) {
+    }
+}
@@ -0,0 +1,20 @@
+package com.bookingchatbot.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties for idempotent booking changes and cancellations.
+ *
+ * @param ttl        how long the result of a change or cancellation answers retries with the
+ *                   same idempotency key
+ * @param maxEntries idempotency keys kept at most; the oldest are dropped first
+ */
+@ConfigurationProperties("chatbot.idempotency")
+public record IdempotencyProperties(
+        @DefaultValue("24h") Duration ttl,
+        @DefaultValue("10000") int maxEntries
+) {
+}
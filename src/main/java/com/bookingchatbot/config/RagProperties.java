@@ -0,0 +1,129 @@
+package com.bookingchatbot.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties for retrieval (RAG) components.
+ *
+ * @param store          which embedding store implementation backs retrieval
+ * @param hnsw           tuning parameters for the HNSW store
+ * @param quantized      tuning parameters for the int8 quantized store
+ * @param embeddingCache on-disk cache of document segment embeddings used during ingestion
+ * @param ingestion      knowledge-base ingestion pipeline settings
+ * @param embeddings     which embedding model is used and how query embeddings are computed
+ * @param gating         per-turn decision whether retrieval runs at all
+ * @param hybrid         keyword (BM25) retrieval fused with vector retrieval
+ */
+@ConfigurationProperties("chatbot.rag")
+public record RagProperties(
+        @DefaultValue("in-memory") StoreType store,
+        @DefaultValue Hnsw hnsw,
+        @DefaultValue Quantized quantized,
+        @DefaultValue EmbeddingCache embeddingCache,
+        @DefaultValue Ingestion ingestion,
+        @DefaultValue Embeddings embeddings,
+        @DefaultValue Gating gating,
+        @DefaultValue Hybrid hybrid
+) {
+
+    public enum StoreType {
+        IN_MEMORY,
+        HNSW,
+        QUANTIZED
+    }
+
+    public enum EmbeddingProvider {
+        OPEN_AI,
+        LOCAL
+    }
+
+    /**
+     * @param m              maximum number of links per node on the upper layers (layer 0 uses 2 * m)
+     * @param efConstruction size of the candidate list while inserting
+     * @param efSearch       size of the candidate list while searching
+     */
+    public record Hnsw(
+            @DefaultValue("16") int m,
+            @DefaultValue("200") int efConstruction,
+            @DefaultValue("64") int efSearch
+    ) {
+    }
+
+    /**
+     * @param rerankFactor how many int8 candidates per requested result are re-scored at full
+     *                     precision; 0 drops the float copies and scores from int8 codes only
+     */
+    public record Quantized(
+            @DefaultValue("4") int rerankFactor
+    ) {
+    }
+
+    /**
+     * @param enabled whether ingestion reuses embeddings of unchanged segments across restarts
+     * @param path    cache file, created on first use
+     */
+    public record EmbeddingCache(
+            @DefaultValue("true") boolean enabled,
+            @DefaultValue("data/embedding-cache.bin") String path
+    ) {
+    }
+
+    /**
+     * @param directory          directory of .txt/.md policy documents; when blank, the bundled
+     *                           terms of service are ingested instead
+     * @param parallelism        worker threads that load, split and embed documents
+     * @param batchSize          maximum segments per embedding call
+     * @param maxInFlightBatches maximum embedding calls running at the same time
+     * @param watch              re-ingest documents in the directory when they change
+     * @param debounce           quiet period after a change before re-ingesting
+     */
+    public record Ingestion(
+            @DefaultValue("") String directory,
+            @DefaultValue("4") int parallelism,
+            @DefaultValue("64") int batchSize,
+            @DefaultValue("2") int maxInFlightBatches,
+            @DefaultValue("true") boolean watch,
+            @DefaultValue("500ms") Duration debounce
+    ) {
+    }
+
+    /**
+     * @param provider       open-ai (remote API) or local (bundled all-MiniLM-L6-v2 ONNX model)
+     *                       for both ingestion and queries
+     * @param queryCacheSize number of recent query embeddings kept in memory; 0 disables the cache
+     * @param queryBatchSize maximum concurrent queries embedded in one call; 1 disables batching
+     * @param minScore       minimum relevance score, (cosine similarity + 1) / 2, of a retrieved
+     *                       segment; scores depend on the model, so set it with the provider
+     */
+    public record Embeddings(
+            @DefaultValue("open-ai") EmbeddingProvider provider,
+            @DefaultValue("1024") int queryCacheSize,
+            @DefaultValue("16") int queryBatchSize,
+            @DefaultValue("0.6") double minScore
+    ) {
+    }
+
+    /**
+     * @param enabled skip retrieval for turns that do not need policy knowledge (booking
+     *                references, names, confirmations, small talk)
+     */
+    public record Gating(
+            @DefaultValue("true") boolean enabled
+    ) {
+    }
+
+    /**
+     * @param enabled    fuse BM25 keyword results with vector results instead of vector search alone
+     * @param candidates results taken from each retriever before fusion
+     * @param rrfK       rank constant of reciprocal rank fusion; larger values flatten the ranks
+     */
+    public record Hybrid(
+            @DefaultValue("false") boolean enabled,
+            @DefaultValue("10") int candidates,
+            @DefaultValue("60") int rrfK
+    ) {
+    }
+}
@@ -0,0 +1,33 @@
+package com.bookingchatbot.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.util.List;
+
+/**
+ * Configuration properties for routing turns between chat models by complexity.
+ *
+ * @param enabled send simple turns to the models in {@code routes}; otherwise every turn goes to
+ *                the configured OpenAI streaming chat model
+ * @param routes  additional OpenAI models, in order of increasing {@code maxComplexity}; turns
+ *                above all of them go to the configured streaming chat model
+ */
+@ConfigurationProperties("chatbot.routing")
+public record RoutingProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue List<Route> routes
+) {
+
+    /**
+     * @param name          name used in logs and metrics
+     * @param modelName     OpenAI model name
+     * @param maxComplexity highest turn complexity score sent to this model
+     */
+    public record Route(
+            String name,
+            String modelName,
+            @DefaultValue("1") int maxComplexity
+    ) {
+    }
+}
@@ -0,0 +1,50 @@
+package com.bookingchatbot.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties for framing the streamed chat answer into server-sent events.
+ *
+ * @param frameSize   characters after which buffered tokens are sent as one event
+ * @param frameDelay  longest time a token waits for more tokens before it is sent
+ * @param maxBuffered characters a client may fall behind before its stream is dropped
+ * @param replay      answers kept for clients that reconnect with {@code Last-Event-ID}
+ * @param socket      limits of the chat WebSocket
+ */
+@ConfigurationProperties("chatbot.stream")
+public record StreamProperties(
+        @DefaultValue("64") int frameSize,
+        @DefaultValue("20ms") Duration frameDelay,
+        @DefaultValue("16384") int maxBuffered,
+        @DefaultValue Replay replay,
+        @DefaultValue Socket socket
+) {
+
+    /**
+     * @param ttl           how long a finished answer can still be resumed
+     * @param maxTurns      finished answers kept at most
+     * @param maxCharacters characters kept at most over all answers; the oldest finished answers
+     *                      are dropped first
+     */
+    public record Replay(
+            @DefaultValue("5m") Duration ttl,
+            @DefaultValue("10000") int maxTurns,
+            @DefaultValue("4000000") long maxCharacters
+    ) {
+    }
+
+    /**
+     * @param maxTurns       turns streaming at once on one connection
+     * @param sendBufferSize bytes waiting to be sent before a connection is closed as too slow
+     * @param sendTimeLimit  longest time one send may take before the connection is closed
+     */
+    public record Socket(
+            @DefaultValue("8") int maxTurns,
+            @DefaultValue("65536") int sendBufferSize,
+            @DefaultValue("10s") Duration sendTimeLimit
+    ) {
+    }
+}
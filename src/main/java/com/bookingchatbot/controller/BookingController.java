@@ -3,26 +3,36 @@ package com.bookingchatbot.controller;
 import com.bookingchatbot.dto.BookingChangeRequestDto;
 import com.bookingchatbot.dto.BookingDto;
 import com.bookingchatbot.service.BookingService;
+import com.bookingchatbot.service.IdempotencyCache;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.function.Supplier;
 
 /**
  * REST controller for booking operations.
+ * <p>
+ * Changes and cancellations sent with an {@code Idempotency-Key} header run once per key;
+ * retries with the same key get the original response, or wait for it while it is running.
  */
 @RestController
 @RequestMapping("/api/bookings")
 @Validated
 public class BookingController {
 
+    static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
     private final BookingService bookingService;
+    private final IdempotencyCache idempotencyCache;
 
-    public BookingController(BookingService bookingService) {
+    public BookingController(BookingService bookingService, IdempotencyCache idempotencyCache) {
         this.bookingService = bookingService;
+        this.idempotencyCache = idempotencyCache;
     }
 
     @GetMapping
@@ -43,25 +53,37 @@ public class BookingController {
     @PutMapping("/{bookingNumber}")
     public ResponseEntity<BookingDto> updateBooking(
             @NotBlank @PathVariable String bookingNumber,
-            @Valid @RequestBody BookingChangeRequestDto request) {
-        return ResponseEntity.ok(bookingService.changeBooking(
-                bookingNumber,
-                request.firstName(),
-                request.lastName(),
-                request.newFlightDate(),
-                request.newDepartureAirport(),
-                request.newArrivalAirport()
-        ));
+            @Valid @RequestBody BookingChangeRequestDto request,
+            @Size(max = 255) @RequestHeader(name = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        return ResponseEntity.ok(idempotent(idempotencyKey, List.of("change", bookingNumber, request),
+                () -> bookingService.changeBooking(
+                        bookingNumber,
+                        request.firstName(),
+                        request.lastName(),
+                        request.newFlightDate(),
+                        request.newDepartureAirport(),
+                        request.newArrivalAirport()
+                )));
     }
 
     @DeleteMapping("/{bookingNumber}")
     public ResponseEntity<BookingDto> cancelBooking(
             @NotBlank @PathVariable String bookingNumber,
             @NotBlank @RequestParam String firstName,
-            @NotBlank @RequestParam String lastName) {
-        return ResponseEntity.ok(
-                bookingService.cancelBooking(bookingNumber, firstName, lastName)
-        );
+            @NotBlank @RequestParam String lastName,
+            @Size(max = 255) @RequestHeader(name = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        return ResponseEntity.ok(idempotent(idempotencyKey, List.of("cancel", bookingNumber, firstName, lastName),
+                () -> bookingService.cancelBooking(bookingNumber, firstName, lastName)));
+    }
+
+    /**
+     * Runs {@code operation} once per idempotency key, or on every request without one.
+     */
+    private BookingDto idempotent(String idempotencyKey, List<Object> request, Supplier<BookingDto> operation) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return operation.get();
+        }
+        return idempotencyCache.execute("api:" + idempotencyKey, request, operation);
     }
 }
 
@@ -1,28 +1,91 @@
 package com.bookingchatbot.controller;
 
-import com.bookingchatbot.ai.AiAssistant;
 import com.bookingchatbot.dto.ChatMessageDto;
+import com.bookingchatbot.dto.ChatSocketFrameDto;
+import com.bookingchatbot.exception.ChatBusyException;
+import com.bookingchatbot.service.ChatService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * REST controller for AI chat operations.
  * Provides streaming chat responses.
+ * <p>
+ * Every event carries an ID of the form {@code <turn>:<offset>}. A client whose connection
+ * dropped sends the same request again with the last ID it received as {@code Last-Event-ID} and
+ * gets the rest of the answer from the {@link TurnReplayBuffer} without a new call to the
+ * assistant. Identical requests (same chat and message) that arrive while one is still
+ * streaming, e.g. client retries or double submits, share its answer the same way. Each
+ * connection gets the answer in frames of several tokens from the {@link TokenCoalescer}.
+ * A message to a chat whose mailbox is full is rejected with 429 before any event is sent. An
+ * answer that fails once streaming, e.g. because the client fell too far behind, ends with an
+ * {@code error} event whose data holds the {@code status} and {@code error} of a failed
+ * WebSocket turn.
  */
 @RestController
 @RequestMapping("/api/chat")
 public class ChatController {
 
-    private final AiAssistant aiAssistant;
+    private static final Logger logger = LoggerFactory.getLogger(ChatController.class);
+
+    private final ChatService chatService;
+    private final TokenCoalescer tokenCoalescer;
+    private final TurnReplayBuffer turnReplayBuffer;
+    private final ObjectMapper objectMapper;
 
-    public ChatController(AiAssistant aiAssistant) {
-        this.aiAssistant = aiAssistant;
+    public ChatController(ChatService chatService, TokenCoalescer tokenCoalescer, TurnReplayBuffer turnReplayBuffer,
+                          ObjectMapper objectMapper) {
+        this.chatService = chatService;
+        this.tokenCoalescer = tokenCoalescer;
+        this.turnReplayBuffer = turnReplayBuffer;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-    public Flux<String> chat(@RequestBody ChatMessageDto request) {
-        return aiAssistant.chat(request.chatId(), request.message());
+    public Flux<ServerSentEvent<String>> chat(@RequestBody ChatMessageDto request,
+                                              @RequestHeader(name = "Last-Event-ID", required = false) String lastEventId) {
+        if (lastEventId != null) {
+            TurnReplayBuffer.Position position = turnReplayBuffer.resume(lastEventId, request.chatId());
+            return events(position.turn(), position.offset());
+        }
+        TurnReplayBuffer.Turn turn = turnReplayBuffer.start(request, request.chatId(),
+                () -> chatService.chat(request.chatId(), request.message()));
+        // Thrown before the stream is returned, so the client gets a 429 rather than a 200 event stream
+        if (turn.failure() instanceof ChatBusyException busy) {
+            throw busy;
+        }
+        return events(turn, 0);
     }
-}
 
+    private Flux<ServerSentEvent<String>> events(TurnReplayBuffer.Turn turn, int offset) {
+        return Flux.defer(() -> {
+            AtomicInteger end = new AtomicInteger(offset);
+            return tokenCoalescer.coalesce(turn.from(offset)).map(frame -> ServerSentEvent.builder(frame)
+                    .id(TurnReplayBuffer.eventId(turn, end.addAndGet(frame.length())))
+                    .build())
+                    // The response is already committed, so GlobalExceptionHandler cannot answer
+                    .onErrorResume(error -> Mono.just(errorEvent(turn, error)));
+        });
+    }
+
+    private ServerSentEvent<String> errorEvent(TurnReplayBuffer.Turn turn, Throwable error) {
+        int status = ChatWebSocketHandler.status(error);
+        logger.debug("Turn {} failed with {}", turn.id(), status, error);
+        ChatSocketFrameDto frame = ChatSocketFrameDto.error(null, status,
+                status == 500 ? "An unexpected error occurred" : error.getMessage());
+        try {
+            return ServerSentEvent.builder(objectMapper.writeValueAsString(frame)).event("error").build();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot write error event", e);
+        }
+    }
+}
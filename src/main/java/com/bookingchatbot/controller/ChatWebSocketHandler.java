@@ -0,0 +1,238 @@
+package com.bookingchatbot.controller;
+
+import com.bookingchatbot.config.StreamProperties;
+import com.bookingchatbot.dto.ChatMessageDto;
+import com.bookingchatbot.dto.ChatSocketFrameDto;
+import com.bookingchatbot.dto.ChatSocketRequestDto;
+import com.bookingchatbot.exception.ChatBusyException;
+import com.bookingchatbot.exception.SlowClientException;
+import com.bookingchatbot.exception.TurnExpiredException;
+import com.bookingchatbot.service.ChatService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Chat over one WebSocket per client, with any number of chats and up to {@code maxTurns}
+ * answers streaming at once.
+ * <p>
+ * A client sends {@code {"id":"1","chatId":"...","message":"..."}} and gets frames such as
+ * {@code {"id":"1","text":"Hello","at":"<turn>:5"}} until {@code {"id":"1","end":true}}, or an
+ * {@code end} frame with {@code status} and {@code error} if the turn failed. Turns go through
+ * the same {@link TurnReplayBuffer} and {@link TokenCoalescer} as the SSE endpoint, so an answer
+ * started on either one can be resumed on the other with its {@code at} position.
+ * <p>
+ * Frames of all turns are sent through one bounded buffer per connection; a client that lets it
+ * fill up is disconnected, which cancels its streams but not its answers.
+ */
+@Component
+public class ChatWebSocketHandler extends TextWebSocketHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChatWebSocketHandler.class);
+
+    private static final String CONNECTION = "chatConnection";
+
+    private final ChatService chatService;
+    private final TokenCoalescer tokenCoalescer;
+    private final TurnReplayBuffer turnReplayBuffer;
+    private final ObjectMapper objectMapper;
+    private final StreamProperties.Socket limits;
+
+    private final AtomicInteger connections = new AtomicInteger();
+    private final AtomicLong turns = new AtomicLong();
+
+    public ChatWebSocketHandler(ChatService chatService,
+                                TokenCoalescer tokenCoalescer,
+                                TurnReplayBuffer turnReplayBuffer,
+                                ObjectMapper objectMapper,
+                                StreamProperties properties) {
+        this.chatService = chatService;
+        this.tokenCoalescer = tokenCoalescer;
+        this.turnReplayBuffer = turnReplayBuffer;
+        this.objectMapper = objectMapper;
+        this.limits = properties.socket();
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) {
+        session.getAttributes().put(CONNECTION, new Connection(new ConcurrentWebSocketSessionDecorator(session,
+                (int) limits.sendTimeLimit().toMillis(), limits.sendBufferSize())));
+        connections.incrementAndGet();
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) {
+        Connection connection = (Connection) session.getAttributes().get(CONNECTION);
+        ChatSocketRequestDto request;
+        try {
+            request = objectMapper.readValue(message.getPayload(), ChatSocketRequestDto.class);
+        } catch (JsonProcessingException e) {
+            connection.send(ChatSocketFrameDto.error(null, HttpStatus.BAD_REQUEST.value(), "Malformed message"));
+            return;
+        }
+        if (request.id() == null) {
+            connection.send(ChatSocketFrameDto.error(null, HttpStatus.BAD_REQUEST.value(), "id is required"));
+        } else if (request.cancel()) {
+            connection.cancel(request.id());
+        } else if (request.chatId() == null || request.message() == null && request.resume() == null) {
+            connection.send(ChatSocketFrameDto.error(request.id(), HttpStatus.BAD_REQUEST.value(),
+                    "chatId and either message or resume are required"));
+        } else {
+            connection.start(request);
+        }
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        Connection connection = (Connection) session.getAttributes().remove(CONNECTION);
+        if (connection != null) {
+            connection.close();
+            connections.decrementAndGet();
+        }
+    }
+
+    /**
+     * Open WebSocket connections.
+     */
+    public int connections() {
+        return connections.get();
+    }
+
+    /**
+     * Turns streamed over WebSocket connections.
+     */
+    public long turns() {
+        return turns.get();
+    }
+
+    /**
+     * HTTP-style status of a turn that failed with {@code error}, also used for SSE error events.
+     */
+    static int status(Throwable error) {
+        if (error instanceof ChatBusyException) {
+            return HttpStatus.TOO_MANY_REQUESTS.value();
+        }
+        if (error instanceof TurnExpiredException) {
+            return HttpStatus.GONE.value();
+        }
+        if (error instanceof SlowClientException) {
+            return HttpStatus.SERVICE_UNAVAILABLE.value();
+        }
+        return HttpStatus.INTERNAL_SERVER_ERROR.value();
+    }
+
+    /**
+     * The turns streaming on one connection.
+     */
+    private class Connection {
+
+        private final ConcurrentWebSocketSessionDecorator session;
+        private final Map<String, Disposable> streams = new ConcurrentHashMap<>();
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        Connection(ConcurrentWebSocketSessionDecorator session) {
+            this.session = session;
+        }
+
+        void start(ChatSocketRequestDto request) {
+            if (streams.containsKey(request.id())) {
+                send(ChatSocketFrameDto.error(request.id(), HttpStatus.CONFLICT.value(), "A turn with this id is still running"));
+                return;
+            }
+            if (streams.size() >= limits.maxTurns()) {
+                send(ChatSocketFrameDto.error(request.id(), HttpStatus.TOO_MANY_REQUESTS.value(),
+                        "Please wait for your other answers before sending more messages."));
+                return;
+            }
+            TurnReplayBuffer.Turn turn;
+            int offset;
+            try {
+                if (request.resume() != null) {
+                    TurnReplayBuffer.Position position = turnReplayBuffer.resume(request.resume(), request.chatId());
+                    turn = position.turn();
+                    offset = position.offset();
+                } else {
+                    ChatMessageDto message = new ChatMessageDto(request.chatId(), request.message());
+                    turn = turnReplayBuffer.start(message, message.chatId(),
+                            () -> chatService.chat(message.chatId(), message.message()));
+                    offset = 0;
+                }
+            } catch (TurnExpiredException e) {
+                send(ChatSocketFrameDto.error(request.id(), status(e), e.getMessage()));
+                return;
+            }
+            turns.incrementAndGet();
+            String id = request.id();
+            AtomicInteger end = new AtomicInteger(offset);
+            // Registered before subscribing, as a short answer may finish during subscribe
+            Disposable.Swap stream = Disposables.swap();
+            streams.put(id, stream);
+            stream.update(tokenCoalescer.coalesce(turn.from(offset)).subscribe(
+                    text -> send(ChatSocketFrameDto.text(id, text, TurnReplayBuffer.eventId(turn, end.addAndGet(text.length())))),
+                    error -> {
+                        streams.remove(id, stream);
+                        int status = status(error);
+                        logger.debug("Turn {} on WebSocket {} failed with {}", id, session.getId(), status, error);
+                        send(ChatSocketFrameDto.error(id, status,
+                                status == 500 ? "An unexpected error occurred" : error.getMessage()));
+                    },
+                    () -> {
+                        streams.remove(id, stream);
+                        send(ChatSocketFrameDto.end(id));
+                    }));
+            if (closed.get()) {
+                stream.dispose();
+            }
+        }
+
+        void cancel(String id) {
+            Disposable stream = streams.remove(id);
+            if (stream != null) {
+                stream.dispose();
+                send(ChatSocketFrameDto.end(id));
+            }
+        }
+
+        void send(ChatSocketFrameDto frame) {
+            if (closed.get()) {
+                return;
+            }
+            try {
+                session.sendMessage(new TextMessage(objectMapper.writeValueAsString(frame)));
+            } catch (IOException | RuntimeException e) {
+                // Includes a full send buffer, after which the decorator has closed the session
+                logger.debug("Closing WebSocket {}: {}", session.getId(), e.getMessage());
+                close();
+                try {
+                    session.close(CloseStatus.SESSION_NOT_RELIABLE);
+                } catch (IOException ignored) {
+                    // Already closed
+                }
+            }
+        }
+
+        void close() {
+            if (closed.compareAndSet(false, true)) {
+                streams.values().forEach(Disposable::dispose);
+                streams.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package com.bookingchatbot.controller;
+
+import com.bookingchatbot.config.StreamProperties;
+import com.bookingchatbot.exception.SlowClientException;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Joins streamed tokens into larger frames, so a connection gets one write per frame instead of
+ * one per token.
+ * <p>
+ * The first token of a stream is sent right away. Later tokens are buffered until the frame
+ * reaches {@code frameSize} characters, the oldest buffered token has waited {@code frameDelay},
+ * or the stream ends. While the client has not asked for the next frame, tokens keep being
+ * joined into the pending one; once a client is {@code maxBuffered} characters behind, the
+ * answer is cancelled and the stream fails with a {@link SlowClientException}.
+ * <p>
+ * Frame delays are tracked in one queue checked by a single periodic task rather than a timer
+ * per frame, which would cost more than the writes it saves. The task runs while any stream is
+ * open and is cancelled when the last one ends or the coalescer is closed.
+ */
+@Component
+public class TokenCoalescer implements AutoCloseable {
+
+    private final int frameSize;
+    private final long frameDelayNanos;
+    private final int maxBuffered;
+    private final Scheduler timer = Schedulers.parallel();
+
+    // Oldest first, as every deadline is the time of a token plus frameDelay
+    private final Queue<Deadline> deadlines = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger streams = new AtomicInteger();
+
+    // Written under this; read without it before adding a deadline
+    private volatile Disposable ticker;
+
+    private final AtomicLong tokens = new AtomicLong();
+    private final AtomicLong frames = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    public TokenCoalescer(StreamProperties properties) {
+        this.frameSize = properties.frameSize();
+        this.frameDelayNanos = properties.frameDelay().toNanos();
+        this.maxBuffered = properties.maxBuffered();
+    }
+
+    public Flux<String> coalesce(Flux<String> tokens) {
+        return Flux.create(sink -> new Stream(sink).subscribe(tokens));
+    }
+
+    /**
+     * Tokens received from upstream.
+     */
+    public long tokens() {
+        return tokens.get();
+    }
+
+    /**
+     * Frames sent to clients.
+     */
+    public long frames() {
+        return frames.get();
+    }
+
+    /**
+     * Streams dropped because the client fell too far behind.
+     */
+    public long dropped() {
+        return dropped.get();
+    }
+
+    /**
+     * Cancels the periodic task; frames still waiting are sent with the next token or at the end
+     * of their stream.
+     */
+    @Override
+    public synchronized void close() {
+        if (ticker != null) {
+            ticker.dispose();
+            ticker = null;
+        }
+    }
+
+    private void await(Stream stream, long frame) {
+        deadlines.add(new Deadline(stream, frame, System.nanoTime() + frameDelayNanos));
+        if (ticker == null) {
+            startTicking();
+        }
+    }
+
+    private synchronized void startTicking() {
+        if (ticker == null) {
+            long tick = Math.max(frameDelayNanos / 4, TimeUnit.MILLISECONDS.toNanos(1));
+            ticker = timer.schedulePeriodically(this::flushDue, tick, tick, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private synchronized void streamEnded() {
+        if (streams.decrementAndGet() > 0 || ticker == null) {
+            return;
+        }
+        close();
+        // A stream opened meanwhile may have queued its deadline before the ticker was cleared
+        if (streams.get() > 0 && !deadlines.isEmpty()) {
+            startTicking();
+        }
+    }
+
+    private void flushDue() {
+        long now = System.nanoTime();
+        Deadline deadline;
+        while ((deadline = deadlines.peek()) != null && deadline.nanos() - now <= 0) {
+            deadlines.poll();
+            deadline.stream().deadlinePassed(deadline.frame());
+        }
+    }
+
+    private record Deadline(Stream stream, long frame, long nanos) {
+    }
+
+    private class Stream {
+
+        private final FluxSink<String> sink;
+        private final AtomicInteger wip = new AtomicInteger();
+
+        // Guarded by this
+        private final StringBuilder pending = new StringBuilder();
+        private boolean first = true;
+        private boolean due;
+        private boolean done;
+        private Throwable error;
+        private boolean terminated;
+        private long frame;
+        private boolean waiting;
+        private Disposable upstream;
+
+        Stream(FluxSink<String> sink) {
+            this.sink = sink;
+        }
+
+        void subscribe(Flux<String> tokens) {
+            streams.incrementAndGet();
+            sink.onRequest(n -> drain());
+            sink.onDispose(() -> {
+                cancel();
+                streamEnded();
+            });
+            Disposable subscription = tokens.subscribe(this::onToken, this::onError, this::onComplete);
+            synchronized (this) {
+                if (terminated) {
+                    subscription.dispose();
+                } else {
+                    upstream = subscription;
+                }
+            }
+        }
+
+        private void onToken(String token) {
+            TokenCoalescer.this.tokens.incrementAndGet();
+            boolean overflow = false;
+            boolean send;
+            synchronized (this) {
+                if (terminated) {
+                    return;
+                }
+                pending.append(token);
+                if (pending.length() > maxBuffered) {
+                    overflow = true;
+                    terminated = true;
+                    pending.setLength(0);
+                } else if (first || pending.length() >= frameSize) {
+                    first = false;
+                    due = true;
+                } else if (!waiting) {
+                    waiting = true;
+                    await(this, frame);
+                }
+                send = due;
+            }
+            if (overflow) {
+                dropped.incrementAndGet();
+                cancelUpstream();
+                sink.error(new SlowClientException("Client fell more than " + maxBuffered + " characters behind"));
+                return;
+            }
+            if (send) {
+                drain();
+            }
+        }
+
+        private void onError(Throwable throwable) {
+            synchronized (this) {
+                error = throwable;
+                done = true;
+            }
+            drain();
+        }
+
+        private void onComplete() {
+            synchronized (this) {
+                done = true;
+            }
+            drain();
+        }
+
+        private void deadlinePassed(long waitingFrame) {
+            synchronized (this) {
+                if (waitingFrame != frame) {
+                    return;
+                }
+                due = true;
+            }
+            drain();
+        }
+
+        /**
+         * Sends the pending frame if it is due and the client asked for it, then the end of the
+         * stream once nothing is pending. Runs on one thread at a time, so frames keep their order.
+         */
+        private void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                String next = null;
+                boolean complete = false;
+                Throwable failure = null;
+                synchronized (this) {
+                    if (terminated) {
+                        return;
+                    }
+                    if (!pending.isEmpty() && (due || done) && sink.requestedFromDownstream() > 0) {
+                        next = pending.toString();
+                        pending.setLength(0);
+                        due = false;
+                        waiting = false;
+                        frame++;
+                    } else if (pending.isEmpty() && done) {
+                        terminated = true;
+                        complete = error == null;
+                        failure = error;
+                    }
+                }
+                if (next != null) {
+                    frames.incrementAndGet();
+                    sink.next(next);
+                    continue;
+                }
+                if (complete) {
+                    sink.complete();
+                } else if (failure != null) {
+                    sink.error(failure);
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void cancel() {
+            synchronized (this) {
+                terminated = true;
+                pending.setLength(0);
+            }
+            cancelUpstream();
+        }
+
+        private void cancelUpstream() {
+            Disposable subscription;
+            synchronized (this) {
+                subscription = upstream;
+                upstream = null;
+            }
+            if (subscription != null) {
+                subscription.dispose();
+            }
+        }
+    }
+}
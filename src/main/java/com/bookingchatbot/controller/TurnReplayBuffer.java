@@ -0,0 +1,332 @@
+package com.bookingchatbot.controller;
+
+import com.bookingchatbot.config.StreamProperties;
+import com.bookingchatbot.exception.TurnExpiredException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the text of recent answers so a client whose connection dropped can resume where it
+ * stopped instead of asking again.
+ * <p>
+ * Every turn gets an ID and runs to the end even when all of its clients have gone, so the
+ * answer and the chat memory are complete when a client comes back. Any client can read a turn
+ * from a character offset: the text so far is replayed as one token, then new tokens follow
+ * live. Finished turns are kept for {@code ttl}; beyond {@code maxTurns} finished turns or
+ * {@code maxCharacters} characters in total, the oldest finished turns are dropped early.
+ * <p>
+ * A turn started with the same key as a turn still running is not started again; the caller
+ * gets the running turn, e.g. for client retries and double submits.
+ */
+@Component
+public class TurnReplayBuffer {
+
+    private final Duration ttl;
+    private final int maxTurns;
+    private final long maxCharacters;
+    private final Clock clock;
+
+    // Guarded by itself; oldest turn first
+    private final Map<String, Turn> turns = new LinkedHashMap<>();
+    private final Map<Object, Turn> running = new ConcurrentHashMap<>();
+
+    private final AtomicInteger finishedTurns = new AtomicInteger();
+    private final AtomicLong characters = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong resumed = new AtomicLong();
+
+    @Autowired
+    public TurnReplayBuffer(StreamProperties properties) {
+        this(properties, Clock.systemUTC());
+    }
+
+    TurnReplayBuffer(StreamProperties properties, Clock clock) {
+        this.ttl = properties.replay().ttl();
+        this.maxTurns = properties.replay().maxTurns();
+        this.maxCharacters = properties.replay().maxCharacters();
+        this.clock = clock;
+    }
+
+    /**
+     * Starts the turn answered by {@code answer}, or returns the running turn started with the
+     * same {@code key}. The answer is subscribed to before this returns, so a turn whose answer
+     * fails on subscribe, e.g. one the chat mailbox rejects, has already failed.
+     */
+    public Turn start(Object key, String chatId, Supplier<Flux<String>> answer) {
+        Turn created = new Turn(UUID.randomUUID().toString(), chatId);
+        Turn turn = running.putIfAbsent(key, created);
+        if (turn != null) {
+            coalesced.incrementAndGet();
+            return turn;
+        }
+        synchronized (turns) {
+            trim();
+            turns.put(created.id(), created);
+        }
+        Flux.defer(answer)
+                .doFinally(signal -> running.remove(key, created))
+                .subscribe(created::onToken, created::onError, created::onComplete);
+        return created;
+    }
+
+    /**
+     * The turn with {@code turnId} of {@code chatId}, if it is still kept.
+     */
+    public Optional<Turn> find(String turnId, String chatId) {
+        synchronized (turns) {
+            trim();
+            Turn turn = turns.get(turnId);
+            if (turn == null || !turn.chatId().equals(chatId)) {
+                return Optional.empty();
+            }
+            resumed.incrementAndGet();
+            return Optional.of(turn);
+        }
+    }
+
+    /**
+     * The turn and offset named by an event ID of {@code chatId}, as built by {@link #eventId}.
+     *
+     * @throws TurnExpiredException if the turn is no longer kept, belongs to another chat or the
+     *                              offset is beyond its answer
+     */
+    public Position resume(String eventId, String chatId) {
+        int separator = eventId.lastIndexOf(':');
+        Turn turn = separator < 0 ? null : find(eventId.substring(0, separator), chatId).orElse(null);
+        int offset;
+        try {
+            offset = Integer.parseInt(eventId.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            offset = -1;
+        }
+        if (turn == null || offset < 0 || offset > turn.length()) {
+            throw new TurnExpiredException("This answer can no longer be resumed. Please send your message again.");
+        }
+        return new Position(turn, offset);
+    }
+
+    /**
+     * ID of the position {@code offset} characters into the answer of {@code turn}.
+     */
+    public static String eventId(Turn turn, int offset) {
+        return turn.id() + ":" + offset;
+    }
+
+    /**
+     * Turns kept for replay, running or finished.
+     */
+    public int turns() {
+        synchronized (turns) {
+            return turns.size();
+        }
+    }
+
+    /**
+     * Characters kept for replay.
+     */
+    public long characters() {
+        return characters.get();
+    }
+
+    /**
+     * Requests answered by a turn that was already running.
+     */
+    public long coalesced() {
+        return coalesced.get();
+    }
+
+    /**
+     * Turns found again by a reconnecting client.
+     */
+    public long resumed() {
+        return resumed.get();
+    }
+
+    /**
+     * Drops expired finished turns and, while over a limit, the oldest finished turns. Turns
+     * that are still running are never dropped.
+     */
+    private void trim() {
+        long now = clock.millis();
+        Iterator<Turn> iterator = turns.values().iterator();
+        while (iterator.hasNext()) {
+            Turn turn = iterator.next();
+            long finishedAt = turn.finishedAt();
+            if (finishedAt < 0) {
+                continue;
+            }
+            boolean expired = now - finishedAt >= ttl.toMillis();
+            if (!expired && finishedTurns.get() <= maxTurns && characters.get() <= maxCharacters) {
+                break;
+            }
+            iterator.remove();
+            finishedTurns.decrementAndGet();
+            characters.addAndGet(-turn.length());
+        }
+    }
+
+    public record Position(Turn turn, int offset) {
+    }
+
+    /**
+     * One answer, readable from any offset while it is kept.
+     * <p>
+     * Tokens are passed to readers while holding the turn's lock, so none is lost or repeated
+     * between the replay and the live tokens. A reader may write to its connection right away,
+     * which blocks; the lock is a {@link ReentrantLock} rather than a monitor so a virtual thread
+     * blocked in that write does not pin its carrier, and the buffer only reads volatile fields
+     * of a turn, so it never waits for such a write.
+     */
+    public class Turn {
+
+        private final String id;
+        private final String chatId;
+        private final ReentrantLock lock = new ReentrantLock();
+
+        // Guarded by lock
+        private final StringBuilder text = new StringBuilder();
+        private final List<FluxSink<String>> readers = new ArrayList<>(1);
+        private boolean done;
+        private Throwable error;
+
+        private volatile int length;
+        private volatile long finishedAt = -1;
+
+        Turn(String id, String chatId) {
+            this.id = id;
+            this.chatId = chatId;
+        }
+
+        public String id() {
+            return id;
+        }
+
+        public String chatId() {
+            return chatId;
+        }
+
+        /**
+         * The answer from character {@code offset} on, then new tokens as they arrive.
+         *
+         * @throws IllegalArgumentException if {@code offset} is beyond the text generated so far
+         */
+        public Flux<String> from(int offset) {
+            if (offset < 0 || offset > length) {
+                throw new IllegalArgumentException("Offset " + offset + " is beyond the answer");
+            }
+            return Flux.create(sink -> {
+                lock.lock();
+                try {
+                    if (offset < text.length()) {
+                        sink.next(text.substring(offset));
+                    }
+                    if (done) {
+                        finish(sink, error);
+                        return;
+                    }
+                    readers.add(sink);
+                } finally {
+                    lock.unlock();
+                }
+                sink.onDispose(() -> {
+                    lock.lock();
+                    try {
+                        readers.remove(sink);
+                    } finally {
+                        lock.unlock();
+                    }
+                });
+            });
+        }
+
+        /**
+         * What the answer failed with, or {@code null} if it is still streaming or completed.
+         */
+        @Nullable
+        public Throwable failure() {
+            lock.lock();
+            try {
+                return error;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        int length() {
+            return length;
+        }
+
+        long finishedAt() {
+            return finishedAt;
+        }
+
+        private void onToken(String token) {
+            lock.lock();
+            try {
+                text.append(token);
+                length = text.length();
+                characters.addAndGet(token.length());
+                for (FluxSink<String> reader : readers) {
+                    reader.next(token);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void onError(Throwable throwable) {
+            lock.lock();
+            try {
+                error = throwable;
+            } finally {
+                lock.unlock();
+            }
+            onComplete();
+        }
+
+        private void onComplete() {
+            List<FluxSink<String>> finished;
+            Throwable failure;
+            lock.lock();
+            try {
+                done = true;
+                finishedAt = clock.millis();
+                finished = new ArrayList<>(readers);
+                readers.clear();
+                failure = error;
+            } finally {
+                lock.unlock();
+            }
+            finishedTurns.incrementAndGet();
+            for (FluxSink<String> reader : finished) {
+                finish(reader, failure);
+            }
+        }
+
+        private static void finish(FluxSink<String> reader, Throwable error) {
+            if (error != null) {
+                reader.error(error);
+            } else {
+                reader.complete();
+            }
+        }
+    }
+}
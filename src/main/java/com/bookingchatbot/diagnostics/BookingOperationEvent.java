@@ -0,0 +1,70 @@
+package com.bookingchatbot.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A booking lookup, change or cancellation, with the chat turn it was made in, if any.
+ * <p>
+ * Create one with {@link #begin(String, String)} when the operation starts and call
+ * {@link #finish(String)} when it ends; that also adds it to the trace of the turn.
+ */
+@Name("com.bookingchatbot.BookingOperation")
+@Label("Booking Operation")
+@Category({"Booking Chatbot", "Bookings"})
+@StackTrace(false)
+public class BookingOperationEvent extends jdk.jfr.Event {
+
+    @Label("Chat ID")
+    @Description("Chat of the tool call that made the operation; empty for the bookings API")
+    String chatId;
+
+    @Label("Turn ID")
+    long turnId;
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Booking Number")
+    String bookingNumber;
+
+    @Label("Outcome")
+    String outcome;
+
+    private transient long startNanos;
+
+    private BookingOperationEvent() {
+    }
+
+    public static BookingOperationEvent begin(String operation, String bookingNumber) {
+        BookingOperationEvent event = new BookingOperationEvent();
+        event.operation = operation;
+        event.bookingNumber = bookingNumber;
+        event.startNanos = System.nanoTime();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * @param outcome {@code success}, {@code not_found}, {@code rejected} or {@code error}
+     */
+    public void finish(String outcome) {
+        end();
+        TurnTrace trace = TurnTracer.current();
+        if (trace != null) {
+            // Without the booking number, which the flight recorder event keeps
+            trace.add(Stage.BOOKING, operation + " " + outcome, startNanos, System.nanoTime());
+        }
+        if (shouldCommit()) {
+            if (trace != null) {
+                chatId = trace.chatId();
+                turnId = trace.turnId();
+            }
+            this.outcome = outcome;
+            commit();
+        }
+    }
+}
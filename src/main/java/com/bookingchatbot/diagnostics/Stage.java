@@ -0,0 +1,45 @@
+package com.bookingchatbot.diagnostics;
+
+import java.util.Locale;
+
+/**
+ * The parts of a chat turn that are traced.
+ */
+public enum Stage {
+
+    /**
+     * Reading or adding to the chat memory, which counts the tokens of the whole memory.
+     */
+    MEMORY,
+
+    /**
+     * Embedding the query for retrieval.
+     */
+    EMBEDDING,
+
+    /**
+     * Searching the embedding store for retrieval.
+     */
+    SEARCH,
+
+    /**
+     * A model request, from sending it to the end of the response.
+     */
+    MODEL,
+
+    /**
+     * A tool call, as long as the turn waited for its result.
+     */
+    TOOL,
+
+    /**
+     * A {@code BookingService} operation.
+     */
+    BOOKING;
+
+    private final String label = name().toLowerCase(Locale.ROOT);
+
+    public String label() {
+        return label;
+    }
+}
@@ -0,0 +1,73 @@
+package com.bookingchatbot.diagnostics;
+
+import com.bookingchatbot.ai.AiAssistant;
+import com.bookingchatbot.service.ChatMailbox;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.SignalType;
+
+import java.util.function.Consumer;
+
+/**
+ * Traces each turn of the assistant, from subscription to the end of the answer. The stages
+ * LangChain4j runs before the answer streams, loading the memory and retrieval, run inside
+ * {@link AiAssistant#chat}, so the turn is started before it is called. Its ID is the one the
+ * {@link ChatMailbox} gave the turn.
+ */
+public class TracingAiAssistant implements AiAssistant {
+
+    private final AiAssistant delegate;
+    private final TurnTracer tracer;
+    private final ChatMailbox chatMailbox;
+
+    public TracingAiAssistant(AiAssistant delegate, TurnTracer tracer, ChatMailbox chatMailbox) {
+        this.delegate = delegate;
+        this.tracer = tracer;
+        this.chatMailbox = chatMailbox;
+    }
+
+    @Override
+    public Flux<String> chat(String chatId, String userMessage) {
+        return Flux.defer(() -> {
+            Turn turn = new Turn(tracer.start(chatId, chatMailbox.runningTurn(chatId)));
+            TurnTrace previous = TurnTracer.enter(turn.trace);
+            Flux<String> answer;
+            try {
+                answer = delegate.chat(chatId, userMessage);
+            } catch (RuntimeException e) {
+                tracer.finish(turn.trace, 0, "error");
+                throw e;
+            } finally {
+                TurnTracer.exit(previous);
+            }
+            return answer.doOnNext(turn).doFinally(turn::finish);
+        });
+    }
+
+    /**
+     * Tokens of a turn arrive one after another, as Reactor signals are serialized.
+     */
+    private class Turn implements Consumer<String> {
+
+        private final TurnTrace trace;
+        private int tokens;
+
+        private Turn(TurnTrace trace) {
+            this.trace = trace;
+        }
+
+        @Override
+        public void accept(String token) {
+            if (tokens++ == 0) {
+                trace.firstToken(System.nanoTime());
+            }
+        }
+
+        private void finish(SignalType signal) {
+            tracer.finish(trace, tokens, switch (signal) {
+                case ON_COMPLETE -> "success";
+                case ON_ERROR -> "error";
+                default -> "cancelled";
+            });
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.bookingchatbot.diagnostics;
+
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.memory.ChatMemory;
+
+import java.util.List;
+
+/**
+ * Traces reads of and additions to a chat memory as {@link Stage#MEMORY} stages of the running
+ * turn of its chat. Both count the tokens of the whole memory in a token window memory.
+ * <p>
+ * Also remembers the last message added, which is how {@link TracingStreamingChatModel} tells
+ * which turn a model request belongs to.
+ */
+public class TracingChatMemory implements ChatMemory {
+
+    private final ChatMemory delegate;
+    private final TurnTracer tracer;
+
+    public TracingChatMemory(ChatMemory delegate, TurnTracer tracer) {
+        this.delegate = delegate;
+        this.tracer = tracer;
+    }
+
+    @Override
+    public Object id() {
+        return delegate.id();
+    }
+
+    @Override
+    public void add(ChatMessage message) {
+        TurnTrace trace = tracer.running(delegate.id());
+        if (trace == null) {
+            delegate.add(message);
+            return;
+        }
+        TurnTrace.Span span = trace.begin(Stage.MEMORY);
+        delegate.add(message);
+        tracer.lastMessage(trace, message);
+        span.end("add " + message.type().name().toLowerCase());
+    }
+
+    @Override
+    public List<ChatMessage> messages() {
+        TurnTrace trace = tracer.running(delegate.id());
+        if (trace == null) {
+            return delegate.messages();
+        }
+        TurnTrace.Span span = trace.begin(Stage.MEMORY);
+        List<ChatMessage> messages = delegate.messages();
+        span.end("read " + messages.size() + " messages");
+        return messages;
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+    }
+}
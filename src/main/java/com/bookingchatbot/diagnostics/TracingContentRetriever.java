@@ -0,0 +1,39 @@
+package com.bookingchatbot.diagnostics;
+
+import dev.langchain4j.rag.content.Content;
+import dev.langchain4j.rag.content.retriever.ContentRetriever;
+import dev.langchain4j.rag.query.Metadata;
+import dev.langchain4j.rag.query.Query;
+
+import java.util.List;
+
+/**
+ * Makes the turn of the query's chat {@link TurnTracer#current()} while retrieving, so the query
+ * embedding and vector search below show up as stages of it, wherever the retrieval augmentor
+ * runs the retrieval.
+ */
+public class TracingContentRetriever implements ContentRetriever {
+
+    private final ContentRetriever delegate;
+    private final TurnTracer tracer;
+
+    public TracingContentRetriever(ContentRetriever delegate, TurnTracer tracer) {
+        this.delegate = delegate;
+        this.tracer = tracer;
+    }
+
+    @Override
+    public List<Content> retrieve(Query query) {
+        Metadata metadata = query.metadata();
+        TurnTrace trace = metadata != null ? tracer.running(metadata.chatMemoryId()) : null;
+        if (trace == null) {
+            return delegate.retrieve(query);
+        }
+        TurnTrace previous = TurnTracer.enter(trace);
+        try {
+            return delegate.retrieve(query);
+        } finally {
+            TurnTracer.exit(previous);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.bookingchatbot.diagnostics;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+
+import java.util.List;
+
+/**
+ * Traces embedding requests made for a turn, i.e. while one is {@link TurnTracer#current()}, as
+ * {@link Stage#EMBEDDING} stages. Other requests, like those of ingestion, are passed through.
+ */
+public class TracingEmbeddingModel implements EmbeddingModel {
+
+    private final EmbeddingModel delegate;
+
+    public TracingEmbeddingModel(EmbeddingModel delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Response<Embedding> embed(String text) {
+        return embed(TextSegment.from(text));
+    }
+
+    @Override
+    public Response<Embedding> embed(TextSegment textSegment) {
+        TurnTrace trace = TurnTracer.current();
+        if (trace == null) {
+            return delegate.embed(textSegment);
+        }
+        TurnTrace.Span span = trace.begin(Stage.EMBEDDING);
+        try {
+            Response<Embedding> response = delegate.embed(textSegment);
+            span.end("query");
+            return response;
+        } catch (RuntimeException e) {
+            span.end("query failed");
+            throw e;
+        }
+    }
+
+    @Override
+    public Response<List<Embedding>> embedAll(List<TextSegment> textSegments) {
+        TurnTrace trace = TurnTracer.current();
+        if (trace == null) {
+            return delegate.embedAll(textSegments);
+        }
+        TurnTrace.Span span = trace.begin(Stage.EMBEDDING);
+        try {
+            Response<List<Embedding>> response = delegate.embedAll(textSegments);
+            span.end(textSegments.size() + " segments");
+            return response;
+        } catch (RuntimeException e) {
+            span.end(textSegments.size() + " segments failed");
+            throw e;
+        }
+    }
+
+    @Override
+    public int dimension() {
+        return delegate.dimension();
+    }
+}
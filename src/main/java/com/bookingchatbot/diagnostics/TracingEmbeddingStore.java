@@ -0,0 +1,85 @@
+package com.bookingchatbot.diagnostics;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
+import dev.langchain4j.store.embedding.EmbeddingSearchResult;
+import dev.langchain4j.store.embedding.EmbeddingStore;
+import dev.langchain4j.store.embedding.filter.Filter;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Traces searches made for a turn, i.e. while one is {@link TurnTracer#current()}, as
+ * {@link Stage#SEARCH} stages. Everything else is passed through.
+ */
+public class TracingEmbeddingStore<Embedded> implements EmbeddingStore<Embedded> {
+
+    private final EmbeddingStore<Embedded> delegate;
+
+    public TracingEmbeddingStore(EmbeddingStore<Embedded> delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public String add(Embedding embedding) {
+        return delegate.add(embedding);
+    }
+
+    @Override
+    public void add(String id, Embedding embedding) {
+        delegate.add(id, embedding);
+    }
+
+    @Override
+    public String add(Embedding embedding, Embedded embedded) {
+        return delegate.add(embedding, embedded);
+    }
+
+    @Override
+    public List<String> addAll(List<Embedding> embeddings) {
+        return delegate.addAll(embeddings);
+    }
+
+    @Override
+    public List<String> addAll(List<Embedding> embeddings, List<Embedded> embedded) {
+        return delegate.addAll(embeddings, embedded);
+    }
+
+    @Override
+    public void remove(String id) {
+        delegate.remove(id);
+    }
+
+    @Override
+    public void removeAll(Collection<String> ids) {
+        delegate.removeAll(ids);
+    }
+
+    @Override
+    public void removeAll(Filter filter) {
+        delegate.removeAll(filter);
+    }
+
+    @Override
+    public void removeAll() {
+        delegate.removeAll();
+    }
+
+    @Override
+    public EmbeddingSearchResult<Embedded> search(EmbeddingSearchRequest request) {
+        TurnTrace trace = TurnTracer.current();
+        if (trace == null) {
+            return delegate.search(request);
+        }
+        TurnTrace.Span span = trace.begin(Stage.SEARCH);
+        try {
+            EmbeddingSearchResult<Embedded> result = delegate.search(request);
+            span.end(result.matches().size() + " of max " + request.maxResults() + " matches");
+            return result;
+        } catch (RuntimeException e) {
+            span.end("failed");
+            throw e;
+        }
+    }
+}
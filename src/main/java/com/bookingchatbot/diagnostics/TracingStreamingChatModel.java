@@ -0,0 +1,104 @@
+package com.bookingchatbot.diagnostics;
+
+import dev.langchain4j.agent.tool.ToolSpecification;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.model.StreamingResponseHandler;
+import dev.langchain4j.model.chat.StreamingChatLanguageModel;
+import dev.langchain4j.model.output.Response;
+import dev.langchain4j.model.output.TokenUsage;
+
+import java.util.List;
+
+/**
+ * Traces model requests as {@link Stage#MODEL} stages of their turns, from the request to the
+ * complete response, with the time to the first token and the tokens used.
+ * <p>
+ * Used directly below the assistant, so a turn shows one stage per model round trip however
+ * it was routed or hedged.
+ */
+public class TracingStreamingChatModel implements StreamingChatLanguageModel {
+
+    private final StreamingChatLanguageModel delegate;
+    private final TurnTracer tracer;
+
+    public TracingStreamingChatModel(StreamingChatLanguageModel delegate, TurnTracer tracer) {
+        this.delegate = delegate;
+        this.tracer = tracer;
+    }
+
+    @Override
+    public void generate(List<ChatMessage> messages, StreamingResponseHandler<AiMessage> handler) {
+        delegate.generate(messages, traced(messages, handler));
+    }
+
+    @Override
+    public void generate(List<ChatMessage> messages,
+                         List<ToolSpecification> toolSpecifications,
+                         StreamingResponseHandler<AiMessage> handler) {
+        delegate.generate(messages, toolSpecifications, traced(messages, handler));
+    }
+
+    @Override
+    public void generate(List<ChatMessage> messages,
+                         ToolSpecification toolSpecification,
+                         StreamingResponseHandler<AiMessage> handler) {
+        delegate.generate(messages, toolSpecification, traced(messages, handler));
+    }
+
+    private StreamingResponseHandler<AiMessage> traced(List<ChatMessage> messages,
+                                                       StreamingResponseHandler<AiMessage> handler) {
+        TurnTrace trace = tracer.forModelRequest(messages);
+        return trace != null ? new Request(trace.begin(Stage.MODEL), handler) : handler;
+    }
+
+    /**
+     * The model client delivers the tokens of a request one after another on one thread.
+     */
+    private static class Request implements StreamingResponseHandler<AiMessage> {
+
+        private final TurnTrace.Span span;
+        private final StreamingResponseHandler<AiMessage> handler;
+        private final long start = System.nanoTime();
+        private long firstTokenAt;
+
+        private Request(TurnTrace.Span span, StreamingResponseHandler<AiMessage> handler) {
+            this.span = span;
+            this.handler = handler;
+        }
+
+        @Override
+        public void onNext(String token) {
+            if (firstTokenAt == 0) {
+                firstTokenAt = System.nanoTime();
+            }
+            handler.onNext(token);
+        }
+
+        @Override
+        public void onComplete(Response<AiMessage> response) {
+            StringBuilder detail = new StringBuilder();
+            if (firstTokenAt != 0) {
+                detail.append("first token after ").append((firstTokenAt - start) / 1_000_000).append(" ms, ");
+            }
+            if (response.content() != null && response.content().hasToolExecutionRequests()) {
+                detail.append(response.content().toolExecutionRequests().size()).append(" tool calls, ");
+            }
+            TokenUsage tokenUsage = response.tokenUsage();
+            if (tokenUsage != null) {
+                detail.append(tokenUsage.inputTokenCount()).append(" input and ")
+                        .append(tokenUsage.outputTokenCount()).append(" output tokens");
+            } else if (!detail.isEmpty()) {
+                detail.setLength(detail.length() - 2);
+            }
+            span.end(detail.toString());
+            handler.onComplete(response);
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            span.end("failed: " + error.getClass().getSimpleName());
+            handler.onError(error);
+        }
+    }
+}
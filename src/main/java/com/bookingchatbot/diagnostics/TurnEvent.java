@@ -0,0 +1,35 @@
+package com.bookingchatbot.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * A chat turn answered by the assistant, from the message to the end of the answer.
+ */
+@Name("com.bookingchatbot.Turn")
+@Label("Chat Turn")
+@Category({"Booking Chatbot", "Turns"})
+@StackTrace(false)
+class TurnEvent extends jdk.jfr.Event {
+
+    @Label("Chat ID")
+    String chatId;
+
+    @Label("Turn ID")
+    long turnId;
+
+    @Label("Time to First Token")
+    @Timespan(Timespan.NANOSECONDS)
+    long firstToken;
+
+    @Label("Tokens")
+    @Description("Tokens streamed to the client")
+    int tokens;
+
+    @Label("Outcome")
+    String outcome;
+}
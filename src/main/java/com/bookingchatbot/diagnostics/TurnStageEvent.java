@@ -0,0 +1,28 @@
+package com.bookingchatbot.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A {@link Stage} of a chat turn.
+ */
+@Name("com.bookingchatbot.TurnStage")
+@Label("Chat Turn Stage")
+@Category({"Booking Chatbot", "Turns"})
+@StackTrace(false)
+class TurnStageEvent extends jdk.jfr.Event {
+
+    @Label("Chat ID")
+    String chatId;
+
+    @Label("Turn ID")
+    long turnId;
+
+    @Label("Stage")
+    String stage;
+
+    @Label("Detail")
+    String detail;
+}
@@ -0,0 +1,165 @@
+package com.bookingchatbot.diagnostics;
+
+import com.bookingchatbot.dto.TurnTraceDto;
+import dev.langchain4j.data.message.ChatMessage;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * The stages of one chat turn, recorded as they end, possibly on several threads at once.
+ */
+public final class TurnTrace {
+
+    private final String chatId;
+    private final long turnId;
+    private final Instant startedAt = Instant.now();
+    private final long startNanos = System.nanoTime();
+    private final Queue<Recorded> stages = new ConcurrentLinkedQueue<>();
+    private final TurnEvent event = new TurnEvent();
+
+    // The last message added to the chat memory, which ends the message list of the next model request
+    private volatile ChatMessage lastMessage;
+
+    // Set once, by the thread that delivers the answer
+    private volatile long firstTokenNanos;
+    private volatile long endNanos;
+    private volatile int tokens;
+    private volatile String outcome;
+
+    TurnTrace(String chatId, long turnId) {
+        this.chatId = chatId;
+        this.turnId = turnId;
+        event.begin();
+    }
+
+    public String chatId() {
+        return chatId;
+    }
+
+    public long turnId() {
+        return turnId;
+    }
+
+    /**
+     * Starts a stage, which is recorded and emitted as a {@link TurnStageEvent} when it ends.
+     */
+    public Span begin(Stage stage) {
+        return new Span(stage);
+    }
+
+    /**
+     * Records a stage that has already ended; no event is emitted for it.
+     */
+    void add(Stage stage, String detail, long startNanos, long endNanos) {
+        stages.add(new Recorded(stage, detail, startNanos, endNanos));
+    }
+
+    void lastMessage(ChatMessage message) {
+        lastMessage = message;
+    }
+
+    ChatMessage lastMessage() {
+        return lastMessage;
+    }
+
+    boolean finished() {
+        return endNanos != 0;
+    }
+
+    void firstToken(long nanos) {
+        firstTokenNanos = nanos;
+    }
+
+    void finish(int tokens, String outcome) {
+        this.tokens = tokens;
+        this.outcome = outcome;
+        this.endNanos = System.nanoTime();
+        event.end();
+        if (event.shouldCommit()) {
+            event.chatId = chatId;
+            event.turnId = turnId;
+            event.firstToken = firstTokenNanos != 0 ? firstTokenNanos - startNanos : 0;
+            event.tokens = tokens;
+            event.outcome = outcome;
+            event.commit();
+        }
+    }
+
+    TurnTraceDto toDto() {
+        List<Recorded> recorded = new ArrayList<>(stages);
+        recorded.sort(Comparator.comparingLong(Recorded::startNanos));
+        List<TurnTraceDto.StageDto> stageDtos = new ArrayList<>(recorded.size());
+        for (Recorded stage : recorded) {
+            stageDtos.add(new TurnTraceDto.StageDto(
+                    stage.stage().label(),
+                    stage.detail(),
+                    millis(stage.startNanos() - startNanos),
+                    millis(stage.endNanos() - stage.startNanos())
+            ));
+        }
+        long end = endNanos;
+        long firstToken = firstTokenNanos;
+        return new TurnTraceDto(
+                chatHash(chatId),
+                turnId,
+                startedAt,
+                outcome != null ? outcome : "running",
+                end != 0 ? millis(end - startNanos) : null,
+                firstToken != 0 ? millis(firstToken - startNanos) : null,
+                tokens,
+                stageDtos
+        );
+    }
+
+    private static String chatHash(String chatId) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(chatId.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 1e4) / 100.0;
+    }
+
+    private record Recorded(Stage stage, String detail, long startNanos, long endNanos) {
+    }
+
+    /**
+     * A stage of this turn that is under way.
+     */
+    public final class Span {
+
+        private final Stage stage;
+        private final long startNanos = System.nanoTime();
+        private final TurnStageEvent event = new TurnStageEvent();
+
+        private Span(Stage stage) {
+            this.stage = stage;
+            event.begin();
+        }
+
+        public void end(String detail) {
+            event.end();
+            add(stage, detail, startNanos, System.nanoTime());
+            if (event.shouldCommit()) {
+                event.chatId = chatId;
+                event.turnId = turnId;
+                event.stage = stage.label();
+                event.detail = detail;
+                event.commit();
+            }
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.bookingchatbot.diagnostics;
+
+import com.bookingchatbot.dto.TurnTraceDto;
+import dev.langchain4j.agent.tool.ToolSpecification;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.service.tool.ToolExecutor;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Traces the stages of the turns answered by the assistant, as {@link TurnTrace}s and flight
+ * recorder events, and keeps the traces of the most recent turns.
+ * <p>
+ * A chat has at most one turn running at a time, so stages that know their chat find the trace
+ * by chat ID. Model requests don't; a request belongs to the turn whose chat memory ended with
+ * the request's last message when it was sent, which is looked up by the identity of that
+ * message. Stages inside a tool call or retrieval, like
+ * booking operations and query embedding, find it on their thread through {@link #current()}.
+ * <p>
+ * Finished traces go into a ring buffer without locking; a trace is overwritten
+ * {@code capacity} turns later.
+ */
+public class TurnTracer {
+
+    private static final ThreadLocal<TurnTrace> CURRENT = new ThreadLocal<>();
+
+    private final Map<Object, TurnTrace> running = new ConcurrentHashMap<>();
+    // The last message added to the chat memory of each running turn
+    private final Map<MessageKey, TurnTrace> lastMessages = new ConcurrentHashMap<>();
+    private final AtomicReferenceArray<TurnTrace> recent;
+    private final AtomicLong finished = new AtomicLong();
+
+    /**
+     * @param capacity recent turns to keep, a power of 2
+     */
+    public TurnTracer(int capacity) {
+        if (capacity < 1 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of 2");
+        }
+        this.recent = new AtomicReferenceArray<>(capacity);
+    }
+
+    /**
+     * The trace of the turn the current thread works for, or {@code null}.
+     */
+    public static TurnTrace current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Makes {@code trace} the {@link #current()} one of this thread.
+     *
+     * @return the previous one, to pass to {@link #exit(TurnTrace)}
+     */
+    static TurnTrace enter(TurnTrace trace) {
+        TurnTrace previous = CURRENT.get();
+        CURRENT.set(trace);
+        return previous;
+    }
+
+    static void exit(TurnTrace previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    /**
+     * @param turnId the ID the {@code ChatMailbox} gave the turn, so traces, tool idempotency keys
+     *               and audit records of a turn carry the same one
+     */
+    public TurnTrace start(String chatId, long turnId) {
+        TurnTrace trace = new TurnTrace(chatId, turnId);
+        running.put(chatId, trace);
+        return trace;
+    }
+
+    /**
+     * @param outcome {@code success}, {@code error} or {@code cancelled}
+     */
+    public void finish(TurnTrace trace, int tokens, String outcome) {
+        running.remove(trace.chatId(), trace);
+        synchronized (trace) {
+            trace.finish(tokens, outcome);
+            ChatMessage last = trace.lastMessage();
+            if (last != null) {
+                lastMessages.remove(new MessageKey(last), trace);
+            }
+        }
+        long sequence = finished.getAndIncrement();
+        recent.set((int) (sequence & (recent.length() - 1)), trace);
+    }
+
+    /**
+     * The running turn of a chat, or {@code null}.
+     */
+    public TurnTrace running(Object chatId) {
+        return chatId != null ? running.get(chatId) : null;
+    }
+
+    /**
+     * Records {@code message} as the last one added to the chat memory of the turn.
+     */
+    void lastMessage(TurnTrace trace, ChatMessage message) {
+        synchronized (trace) {
+            ChatMessage previous = trace.lastMessage();
+            if (previous != null) {
+                lastMessages.remove(new MessageKey(previous), trace);
+            }
+            trace.lastMessage(message);
+            if (!trace.finished()) {
+                lastMessages.put(new MessageKey(message), trace);
+            }
+        }
+    }
+
+    /**
+     * The running turn a model request with these messages belongs to, or {@code null}.
+     */
+    public TurnTrace forModelRequest(List<ChatMessage> messages) {
+        if (messages.isEmpty()) {
+            return null;
+        }
+        return lastMessages.get(new MessageKey(messages.get(messages.size() - 1)));
+    }
+
+    /**
+     * Recent turns, latest first, including running ones.
+     *
+     * @param chatId only turns of this chat, or {@code null} for all
+     */
+    public List<TurnTraceDto> recent(String chatId) {
+        // A turn that finishes meanwhile may be seen in both places
+        Set<TurnTrace> traces = new HashSet<>();
+        for (int i = 0; i < recent.length(); i++) {
+            TurnTrace trace = recent.get(i);
+            if (trace != null && (chatId == null || chatId.equals(trace.chatId()))) {
+                traces.add(trace);
+            }
+        }
+        for (TurnTrace trace : running.values()) {
+            if (chatId == null || chatId.equals(trace.chatId())) {
+                traces.add(trace);
+            }
+        }
+        List<TurnTraceDto> dtos = new ArrayList<>(traces.size());
+        for (TurnTrace trace : traces) {
+            dtos.add(trace.toDto());
+        }
+        dtos.sort(Comparator.comparingLong(TurnTraceDto::turnId).reversed());
+        return dtos;
+    }
+
+    /**
+     * Traces every call of the tools as a {@link Stage#TOOL} stage of its turn, which is also
+     * {@link #current()} while the call runs. For calls a {@code ParallelToolExecutor} started
+     * ahead, the stage is the wait for the result; their booking stages show the actual work.
+     */
+    public Map<ToolSpecification, ToolExecutor> tracing(Map<ToolSpecification, ToolExecutor> tools) {
+        Map<ToolSpecification, ToolExecutor> traced = new LinkedHashMap<>();
+        tools.forEach((specification, executor) -> traced.put(specification, (request, memoryId) -> {
+            TurnTrace trace = running(memoryId);
+            if (trace == null) {
+                return executor.execute(request, memoryId);
+            }
+            TurnTrace.Span span = trace.begin(Stage.TOOL);
+            TurnTrace previous = enter(trace);
+            try {
+                String result = executor.execute(request, memoryId);
+                span.end(request.name());
+                return result;
+            } catch (RuntimeException e) {
+                span.end(request.name() + " failed");
+                throw e;
+            } finally {
+                exit(previous);
+            }
+        }));
+        return traced;
+    }
+
+    /**
+     * Runs tasks on {@code executor} with the {@link #current()} trace of the thread that
+     * submitted them.
+     */
+    public static Executor propagating(Executor executor) {
+        return task -> {
+            TurnTrace trace = CURRENT.get();
+            if (trace == null) {
+                executor.execute(task);
+                return;
+            }
+            executor.execute(() -> {
+                TurnTrace previous = enter(trace);
+                try {
+                    task.run();
+                } finally {
+                    exit(previous);
+                }
+            });
+        };
+    }
+
+    /**
+     * A message compared by identity; equal messages in two chats end different requests.
+     */
+    private record MessageKey(ChatMessage message) {
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof MessageKey key && key.message == message;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(message);
+        }
+    }
+}
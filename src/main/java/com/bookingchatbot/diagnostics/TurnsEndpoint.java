@@ -0,0 +1,28 @@
+package com.bookingchatbot.diagnostics;
+
+import com.bookingchatbot.dto.TurnTraceDto;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * {@code GET /actuator/turns[?chatId=...]}: latency breakdown of the recent turns, latest first.
+ */
+@Component
+@Endpoint(id = "turns")
+public class TurnsEndpoint {
+
+    private final TurnTracer turnTracer;
+
+    public TurnsEndpoint(TurnTracer turnTracer) {
+        this.turnTracer = turnTracer;
+    }
+
+    @ReadOperation
+    public List<TurnTraceDto> turns(@Nullable String chatId) {
+        return turnTracer.recent(chatId);
+    }
+}
@@ -0,0 +1,36 @@
+package com.bookingchatbot.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Message sent to a client over the chat WebSocket; fields without a value are left out.
+ *
+ * @param id     ID of the turn the frame belongs to, as chosen by the client
+ * @param text   next part of the answer
+ * @param at     position after this frame, to resume from if the connection drops
+ * @param end    set on the last frame of a turn
+ * @param status HTTP-style status of a failed turn
+ * @param error  message of a failed turn
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ChatSocketFrameDto(
+        String id,
+        String text,
+        String at,
+        Boolean end,
+        Integer status,
+        String error
+) {
+
+    public static ChatSocketFrameDto text(String id, String text, String at) {
+        return new ChatSocketFrameDto(id, text, at, null, null, null);
+    }
+
+    public static ChatSocketFrameDto end(String id) {
+        return new ChatSocketFrameDto(id, null, null, true, null, null);
+    }
+
+    public static ChatSocketFrameDto error(String id, int status, String error) {
+        return new ChatSocketFrameDto(id, null, null, true, status, error);
+    }
+}
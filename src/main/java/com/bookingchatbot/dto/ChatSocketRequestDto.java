@@ -0,0 +1,19 @@
+package com.bookingchatbot.dto;
+
+/**
+ * Message sent by a client over the chat WebSocket.
+ *
+ * @param id      client-chosen ID of the turn, unique among the turns running on the connection
+ * @param chatId  the chat the turn belongs to
+ * @param message the user's message; not needed when resuming or cancelling
+ * @param resume  position to resume an answer from, as sent in an earlier {@code at} field
+ * @param cancel  stop streaming the turn with this {@code id}
+ */
+public record ChatSocketRequestDto(
+        String id,
+        String chatId,
+        String message,
+        String resume,
+        boolean cancel
+) {
+}
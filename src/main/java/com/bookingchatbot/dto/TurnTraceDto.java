@@ -0,0 +1,43 @@
+package com.bookingchatbot.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Latency breakdown of a chat turn answered by the assistant.
+ *
+ * @param chatHash         start of the SHA-256 of the chat ID, which groups the turns of a chat
+ *                         without revealing the ID
+ * @param turnId           sequence number of the turn, also on its flight recorder events
+ * @param startedAt        when the message arrived
+ * @param outcome          {@code success}, {@code error}, {@code cancelled} or {@code running}
+ * @param durationMillis   time to the end of the answer, while running {@code null}
+ * @param firstTokenMillis time to the first token, {@code null} before it
+ * @param tokens           tokens streamed to the client
+ * @param stages           stages in the order they started
+ */
+public record TurnTraceDto(
+        String chatHash,
+        long turnId,
+        Instant startedAt,
+        String outcome,
+        Double durationMillis,
+        Double firstTokenMillis,
+        int tokens,
+        List<StageDto> stages
+) {
+
+    /**
+     * @param stage       {@code memory}, {@code embedding}, {@code search}, {@code model},
+     *                    {@code tool} or {@code booking}
+     * @param detail      e.g. the tool called or the tokens of a model response
+     * @param startMillis start, relative to the start of the turn
+     */
+    public record StageDto(
+            String stage,
+            String detail,
+            double startMillis,
+            double durationMillis
+    ) {
+    }
+}
@@ -0,0 +1,11 @@
+package com.bookingchatbot.exception;
+
+/**
+ * Exception thrown when a chat already has too many turns waiting to be answered.
+ */
+public class ChatBusyException extends RuntimeException {
+
+    public ChatBusyException(String message) {
+        super(message);
+    }
+}
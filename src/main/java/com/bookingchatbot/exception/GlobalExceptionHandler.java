@@ -31,6 +31,24 @@ public class GlobalExceptionHandler {
         return buildErrorResponse(ex.getMessage(), HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(IdempotencyKeyReuseException.class)
+    public ResponseEntity<Map<String, Object>> handleIdempotencyKeyReuse(IdempotencyKeyReuseException ex) {
+        logger.warn("Idempotency key reused: {}", ex.getMessage());
+        return buildErrorResponse(ex.getMessage(), HttpStatus.UNPROCESSABLE_ENTITY);
+    }
+
+    @ExceptionHandler(ChatBusyException.class)
+    public ResponseEntity<Map<String, Object>> handleChatBusy(ChatBusyException ex) {
+        logger.warn("Chat busy: {}", ex.getMessage());
+        return buildErrorResponse(ex.getMessage(), HttpStatus.TOO_MANY_REQUESTS);
+    }
+
+    @ExceptionHandler(TurnExpiredException.class)
+    public ResponseEntity<Map<String, Object>> handleTurnExpired(TurnExpiredException ex) {
+        logger.warn("Cannot resume answer: {}", ex.getMessage());
+        return buildErrorResponse(ex.getMessage(), HttpStatus.GONE);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Map<String, Object>> handleGeneralException(Exception ex) {
         logger.error("Unexpected error occurred", ex);
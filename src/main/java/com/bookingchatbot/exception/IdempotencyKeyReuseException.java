@@ -0,0 +1,11 @@
+package com.bookingchatbot.exception;
+
+/**
+ * Exception thrown when an idempotency key is sent again with a different request.
+ */
+public class IdempotencyKeyReuseException extends RuntimeException {
+
+    public IdempotencyKeyReuseException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package com.bookingchatbot.exception;
+
+/**
+ * Exception thrown when a client reads a chat stream too slowly to keep up with the answer.
+ */
+public class SlowClientException extends RuntimeException {
+
+    public SlowClientException(String message) {
+        super(message);
+    }
+}
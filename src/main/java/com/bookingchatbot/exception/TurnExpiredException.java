@@ -0,0 +1,11 @@
+package com.bookingchatbot.exception;
+
+/**
+ * Exception thrown when a client resumes an answer that is no longer kept for replay.
+ */
+public class TurnExpiredException extends RuntimeException {
+
+    public TurnExpiredException(String message) {
+        super(message);
+    }
+}
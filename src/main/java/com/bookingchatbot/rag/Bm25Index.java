@@ -0,0 +1,341 @@
+package com.bookingchatbot.rag;
+
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.filter.Filter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-process BM25 inverted index over text segments.
+ * <p>
+ * Postings are kept per term as delta-encoded varints ({@code docGap, termFrequency}) in a
+ * single growable byte array, typically 2 bytes per posting. Removed segments are tombstoned
+ * and the index is rebuilt once more than half of it is dead. Searches run in parallel with
+ * each other; writes take an exclusive lock.
+ */
+public class Bm25Index {
+
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "about", "all", "am", "an", "and", "any", "are", "as", "at", "be", "been", "but", "by",
+            "can", "could", "did", "do", "does", "for", "from", "get", "got", "had", "has", "have",
+            "how", "i", "if", "in", "into", "is", "it", "its", "just", "me", "much", "my", "no", "not",
+            "of", "on", "or", "our", "should", "so", "still", "than", "that", "the", "their", "them",
+            "then", "there", "these", "they", "this", "to", "up", "us", "was", "we", "were", "what",
+            "when", "where", "which", "who", "why", "will", "with", "would", "you", "your"
+    );
+
+    private final float k1;
+    private final float b;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // All fields below are guarded by lock
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final Map<String, Integer> docsById = new HashMap<>();
+    private final BitSet deleted = new BitSet();
+    private String[] ids = new String[16];
+    private TextSegment[] segments = new TextSegment[16];
+    private int[] lengths = new int[16];
+    private int docCount;
+    private int liveDocs;
+    private long liveLength;
+
+    public Bm25Index() {
+        this(1.2f, 0.75f);
+    }
+
+    public Bm25Index(float k1, float b) {
+        this.k1 = k1;
+        this.b = b;
+    }
+
+    public void add(String id, TextSegment segment) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+            index(id, segment);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String id) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+            compactIfSparse();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes every segment whose metadata matches {@code filter}.
+     */
+    public void removeAll(Filter filter) {
+        lock.writeLock().lock();
+        try {
+            for (int doc = deleted.nextClearBit(0); doc < docCount; doc = deleted.nextClearBit(doc + 1)) {
+                if (filter.test(segments[doc].metadata())) {
+                    removeLocked(ids[doc]);
+                }
+            }
+            compactIfSparse();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            reset();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return liveDocs;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Best-scoring segments for {@code query}, highest score first.
+     *
+     * @param filter metadata filter applied to candidates, or {@code null}
+     */
+    public List<Match> search(String query, int maxResults, Filter filter) {
+        Set<String> terms = termFrequencies(query).keySet();
+        lock.readLock().lock();
+        try {
+            if (liveDocs == 0 || terms.isEmpty()) {
+                return List.of();
+            }
+            float averageLength = (float) liveLength / liveDocs;
+            float[] scores = new float[docCount];
+            int[] touched = new int[16];
+            int touchedCount = 0;
+            for (String term : terms) {
+                Postings termPostings = postings.get(term);
+                if (termPostings == null || termPostings.liveDocs == 0) {
+                    continue;
+                }
+                float idf = (float) Math.log(1 + (liveDocs - termPostings.liveDocs + 0.5) / (termPostings.liveDocs + 0.5));
+                byte[] data = termPostings.data;
+                int position = 0;
+                int doc = 0;
+                while (position < termPostings.length) {
+                    int gap = 0;
+                    int shift = 0;
+                    byte next;
+                    do {
+                        next = data[position++];
+                        gap |= (next & 0x7F) << shift;
+                        shift += 7;
+                    } while (next < 0);
+                    doc += gap;
+                    int tf = 0;
+                    shift = 0;
+                    do {
+                        next = data[position++];
+                        tf |= (next & 0x7F) << shift;
+                        shift += 7;
+                    } while (next < 0);
+                    if (deleted.get(doc)) {
+                        continue;
+                    }
+                    if (scores[doc] == 0f) {
+                        if (touchedCount == touched.length) {
+                            touched = Arrays.copyOf(touched, touchedCount * 2);
+                        }
+                        touched[touchedCount++] = doc;
+                    }
+                    float norm = k1 * (1 - b + b * lengths[doc] / averageLength);
+                    scores[doc] += idf * tf * (k1 + 1) / (tf + norm);
+                }
+            }
+
+            ScoredQueue best = ScoredQueue.minFirst(maxResults + 1);
+            for (int i = 0; i < touchedCount; i++) {
+                int doc = touched[i];
+                if (filter == null || filter.test(segments[doc].metadata())) {
+                    best.pushBounded(doc, scores[doc], maxResults);
+                }
+            }
+            float[] bestScores = new float[best.size()];
+            int[] bestDocs = best.drainDescending(bestScores);
+            List<Match> matches = new ArrayList<>(bestDocs.length);
+            for (int i = 0; i < bestDocs.length; i++) {
+                matches.add(new Match(ids[bestDocs[i]], bestScores[i], segments[bestDocs[i]]));
+            }
+            return matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Bytes used by postings lists, for benchmarks.
+     */
+    public long postingsBytes() {
+        lock.readLock().lock();
+        try {
+            long bytes = 0;
+            for (Postings termPostings : postings.values()) {
+                bytes += termPostings.length;
+            }
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Lower-cased, stop-word-free terms of {@code text} with their frequencies, in order of
+     * first occurrence.
+     */
+    static Map<String, Integer> termFrequencies(String text) {
+        Map<String, Integer> frequencies = new LinkedHashMap<>();
+        for (String word : NON_WORD.split(text.toLowerCase(Locale.ROOT))) {
+            if (!word.isEmpty() && !STOP_WORDS.contains(word)) {
+                frequencies.merge(stem(word), 1, Integer::sum);
+            }
+        }
+        return frequencies;
+    }
+
+    /**
+     * Minimal suffix folding so "fees"/"fee", "changes"/"change" and
+     * "cancelling"/"cancellation"/"cancel" meet.
+     */
+    private static String stem(String word) {
+        if (word.length() <= 3 || Character.isDigit(word.charAt(0))) {
+            return word;
+        }
+        for (String suffix : new String[]{"ations", "ation", "ings", "ing", "ed", "es", "s"}) {
+            if (word.endsWith(suffix) && word.length() - suffix.length() >= 3) {
+                word = word.substring(0, word.length() - suffix.length());
+                break;
+            }
+        }
+        if (word.length() > 4 && word.endsWith("e")) {
+            word = word.substring(0, word.length() - 1);
+        }
+        if (word.length() > 3 && word.charAt(word.length() - 1) == word.charAt(word.length() - 2)) {
+            word = word.substring(0, word.length() - 1);
+        }
+        return word;
+    }
+
+    private void index(String id, TextSegment segment) {
+        Map<String, Integer> frequencies = termFrequencies(segment.text());
+        int doc = docCount++;
+        if (doc == ids.length) {
+            ids = Arrays.copyOf(ids, doc * 2);
+            segments = Arrays.copyOf(segments, doc * 2);
+            lengths = Arrays.copyOf(lengths, doc * 2);
+        }
+        ids[doc] = id;
+        segments[doc] = segment;
+        int length = 0;
+        for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), term -> new Postings()).append(doc, entry.getValue());
+            length += entry.getValue();
+        }
+        lengths[doc] = length;
+        docsById.put(id, doc);
+        liveDocs++;
+        liveLength += length;
+    }
+
+    private void removeLocked(String id) {
+        Integer doc = docsById.remove(id);
+        if (doc == null) {
+            return;
+        }
+        deleted.set(doc);
+        liveDocs--;
+        liveLength -= lengths[doc];
+        for (String term : termFrequencies(segments[doc].text()).keySet()) {
+            postings.get(term).liveDocs--;
+        }
+    }
+
+    private void compactIfSparse() {
+        int dead = docCount - liveDocs;
+        if (dead <= liveDocs || dead < 64) {
+            return;
+        }
+        String[] liveIds = new String[liveDocs];
+        TextSegment[] liveSegments = new TextSegment[liveDocs];
+        int live = 0;
+        for (int doc = deleted.nextClearBit(0); doc < docCount; doc = deleted.nextClearBit(doc + 1)) {
+            liveIds[live] = ids[doc];
+            liveSegments[live++] = segments[doc];
+        }
+        reset();
+        for (int i = 0; i < live; i++) {
+            index(liveIds[i], liveSegments[i]);
+        }
+    }
+
+    private void reset() {
+        postings.clear();
+        docsById.clear();
+        deleted.clear();
+        ids = new String[16];
+        segments = new TextSegment[16];
+        lengths = new int[16];
+        docCount = 0;
+        liveDocs = 0;
+        liveLength = 0;
+    }
+
+    /**
+     * A segment and its BM25 score.
+     */
+    public record Match(String id, float score, TextSegment segment) {
+    }
+
+    private static final class Postings {
+
+        byte[] data = new byte[8];
+        int length;
+        int lastDoc;
+        int liveDocs;
+
+        void append(int doc, int termFrequency) {
+            if (length + 10 > data.length) {
+                data = Arrays.copyOf(data, data.length * 2);
+            }
+            writeVarint(doc - lastDoc);
+            writeVarint(termFrequency);
+            lastDoc = doc;
+            liveDocs++;
+        }
+
+        private void writeVarint(int value) {
+            while ((value & ~0x7F) != 0) {
+                data[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            data[length++] = (byte) value;
+        }
+    }
+}
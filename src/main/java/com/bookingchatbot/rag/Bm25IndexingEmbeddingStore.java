@@ -0,0 +1,92 @@
+package com.bookingchatbot.rag;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
+import dev.langchain4j.store.embedding.EmbeddingSearchResult;
+import dev.langchain4j.store.embedding.EmbeddingStore;
+import dev.langchain4j.store.embedding.filter.Filter;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Embedding store decorator that mirrors every text segment it stores into a {@link Bm25Index},
+ * under the same id, so keyword and vector results can be fused.
+ */
+public class Bm25IndexingEmbeddingStore implements EmbeddingStore<TextSegment> {
+
+    private final EmbeddingStore<TextSegment> delegate;
+    private final Bm25Index index;
+
+    public Bm25IndexingEmbeddingStore(EmbeddingStore<TextSegment> delegate, Bm25Index index) {
+        this.delegate = delegate;
+        this.index = index;
+    }
+
+    public Bm25Index index() {
+        return index;
+    }
+
+    @Override
+    public String add(Embedding embedding) {
+        return delegate.add(embedding);
+    }
+
+    @Override
+    public void add(String id, Embedding embedding) {
+        delegate.add(id, embedding);
+    }
+
+    @Override
+    public String add(Embedding embedding, TextSegment textSegment) {
+        String id = delegate.add(embedding, textSegment);
+        index.add(id, textSegment);
+        return id;
+    }
+
+    @Override
+    public List<String> addAll(List<Embedding> embeddings) {
+        return delegate.addAll(embeddings);
+    }
+
+    @Override
+    public List<String> addAll(List<Embedding> embeddings, List<TextSegment> textSegments) {
+        List<String> ids = delegate.addAll(embeddings, textSegments);
+        for (int i = 0; i < ids.size(); i++) {
+            index.add(ids.get(i), textSegments.get(i));
+        }
+        return ids;
+    }
+
+    @Override
+    public void remove(String id) {
+        delegate.remove(id);
+        index.remove(id);
+    }
+
+    @Override
+    public void removeAll(Collection<String> ids) {
+        delegate.removeAll(ids);
+        for (String id : ids) {
+            index.remove(id);
+        }
+    }
+
+    @Override
+    public void removeAll(Filter filter) {
+        delegate.removeAll(filter);
+        index.removeAll(filter);
+    }
+
+    @Override
+    public void removeAll() {
+        delegate.removeAll();
+        index.clear();
+    }
+
+    @Override
+    public EmbeddingSearchResult<TextSegment> search(EmbeddingSearchRequest request) {
+        return delegate.search(request);
+    }
+}
@@ -0,0 +1,102 @@
+package com.bookingchatbot.rag;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.openai.OpenAiEmbeddingModel;
+import dev.langchain4j.model.output.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Embedding model decorator that serves previously embedded texts from a {@link DiskEmbeddingCache}
+ * and only sends cache misses to the underlying model, in a single batch.
+ */
+public class CachingEmbeddingModel implements EmbeddingModel {
+
+    private static final Logger logger = LoggerFactory.getLogger(CachingEmbeddingModel.class);
+
+    private final EmbeddingModel delegate;
+    private final DiskEmbeddingCache cache;
+    private final String modelName;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public CachingEmbeddingModel(EmbeddingModel delegate, DiskEmbeddingCache cache) {
+        this(delegate, cache, modelName(delegate));
+    }
+
+    public CachingEmbeddingModel(EmbeddingModel delegate, DiskEmbeddingCache cache, String modelName) {
+        this.delegate = delegate;
+        this.cache = cache;
+        this.modelName = modelName;
+    }
+
+    @Override
+    public Response<List<Embedding>> embedAll(List<TextSegment> textSegments) {
+        Embedding[] embeddings = new Embedding[textSegments.size()];
+        DiskEmbeddingCache.Digest[] digests = new DiskEmbeddingCache.Digest[textSegments.size()];
+        List<Integer> missing = new ArrayList<>();
+        for (int i = 0; i < textSegments.size(); i++) {
+            digests[i] = DiskEmbeddingCache.digest(modelName, textSegments.get(i).text());
+            embeddings[i] = cache.get(digests[i]);
+            if (embeddings[i] == null) {
+                missing.add(i);
+            }
+        }
+        hits.addAndGet(textSegments.size() - missing.size());
+        misses.addAndGet(missing.size());
+        logger.debug("Embedding {} segments: {} from cache, {} to embed",
+                textSegments.size(), textSegments.size() - missing.size(), missing.size());
+        if (missing.isEmpty()) {
+            return Response.from(Arrays.asList(embeddings));
+        }
+
+        List<TextSegment> toEmbed = new ArrayList<>(missing.size());
+        for (int index : missing) {
+            toEmbed.add(textSegments.get(index));
+        }
+        Response<List<Embedding>> response = delegate.embedAll(toEmbed);
+        try {
+            for (int i = 0; i < missing.size(); i++) {
+                int index = missing.get(i);
+                embeddings[index] = response.content().get(i);
+                cache.put(digests[index], embeddings[index]);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write embedding cache " + cache.path(), e);
+        }
+        return Response.from(Arrays.asList(embeddings), response.tokenUsage(), response.finishReason());
+    }
+
+    @Override
+    public int dimension() {
+        return delegate.dimension();
+    }
+
+    public long hits() {
+        return hits.get();
+    }
+
+    public long misses() {
+        return misses.get();
+    }
+
+    /**
+     * Name that identifies the vectors a model produces; part of every cache key so switching
+     * models never serves stale vectors.
+     */
+    static String modelName(EmbeddingModel model) {
+        if (model instanceof OpenAiEmbeddingModel openAi) {
+            return "openai:" + openAi.modelName();
+        }
+        return model.getClass().getName();
+    }
+}
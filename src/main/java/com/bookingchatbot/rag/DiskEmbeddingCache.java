@@ -0,0 +1,249 @@
+package com.bookingchatbot.rag;
+
+import dev.langchain4j.data.embedding.Embedding;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Persistent embedding cache keyed by SHA-256 of the model name and the embedded text.
+ * <p>
+ * The cache is an append-only file of {@code [digest][dimension][floats]} records. On open the
+ * file is memory-mapped and indexed, so cached vectors are read straight from the page cache
+ * without deserializing the whole file. A mapping holds at most 2 GB, so the file is mapped in
+ * segments of up to {@code segmentBytes} that each end at a record boundary. New entries are
+ * appended to the file and served from memory until the next open. A truncated tail (e.g. after
+ * a crash mid-write) is ignored and overwritten; a file with an unknown header is discarded.
+ */
+public class DiskEmbeddingCache implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(DiskEmbeddingCache.class);
+
+    private static final int MAGIC = 0x454D4243; // "EMBC"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 2 * Integer.BYTES;
+    private static final int DIGEST_BYTES = 32;
+    private static final int SEGMENT_BYTES = 1 << 30;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final int segmentBytes;
+    private final Map<Digest, Long> mappedOffsets = new ConcurrentHashMap<>();
+    private final Map<Digest, float[]> appended = new ConcurrentHashMap<>();
+
+    // Set by index() before the cache is handed out; segment i covers the file from segmentStarts[i]
+    private MappedByteBuffer[] segments = new MappedByteBuffer[0];
+    private long[] segmentStarts = new long[0];
+    private long writePosition;
+
+    private DiskEmbeddingCache(Path path, FileChannel channel, int segmentBytes) {
+        this.path = path;
+        this.channel = channel;
+        this.segmentBytes = segmentBytes;
+    }
+
+    /**
+     * Opens the cache file, creating it (and its parent directories) if needed.
+     */
+    public static DiskEmbeddingCache open(Path path) throws IOException {
+        return open(path, SEGMENT_BYTES);
+    }
+
+    static DiskEmbeddingCache open(Path path, int segmentBytes) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            DiskEmbeddingCache cache = new DiskEmbeddingCache(path, channel, segmentBytes);
+            cache.writePosition = cache.index();
+            channel.truncate(cache.writePosition);
+            if (cache.writePosition == 0) {
+                cache.writeHeader();
+            }
+            return cache;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Cache key for {@code text} embedded by the model called {@code modelName}.
+     */
+    public static Digest digest(String modelName, String text) {
+        MessageDigest sha256 = sha256();
+        sha256.update(modelName.getBytes(StandardCharsets.UTF_8));
+        sha256.update((byte) 0);
+        return Digest.of(sha256.digest(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    public Embedding get(Digest digest) {
+        float[] vector = appended.get(digest);
+        if (vector != null) {
+            return Embedding.from(vector.clone());
+        }
+        Long offset = mappedOffsets.get(digest);
+        if (offset == null) {
+            return null;
+        }
+        int index = Arrays.binarySearch(segmentStarts, offset);
+        if (index < 0) {
+            index = -index - 2;
+        }
+        MappedByteBuffer segment = segments[index];
+        int position = (int) (offset - segmentStarts[index]);
+        int dimension = segment.getInt(position + DIGEST_BYTES);
+        vector = new float[dimension];
+        segment.slice(position + DIGEST_BYTES + Integer.BYTES, dimension * Float.BYTES)
+                .asFloatBuffer()
+                .get(vector);
+        return Embedding.from(vector);
+    }
+
+    /**
+     * Appends an entry to the cache file. Entries that are already cached are ignored.
+     */
+    public synchronized void put(Digest digest, Embedding embedding) throws IOException {
+        if (mappedOffsets.containsKey(digest) || appended.containsKey(digest)) {
+            return;
+        }
+        float[] vector = embedding.vector();
+        ByteBuffer record = ByteBuffer.allocate(DIGEST_BYTES + Integer.BYTES + vector.length * Float.BYTES);
+        digest.writeTo(record);
+        record.putInt(vector.length);
+        record.asFloatBuffer().put(vector);
+        record.position(record.limit()).flip();
+        writeFully(record);
+        appended.put(digest, vector.clone());
+    }
+
+    public int size() {
+        return mappedOffsets.size() + appended.size();
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Maps and indexes the records and returns the offset just past the last complete one,
+     * or 0 if the file has to be rewritten from scratch.
+     */
+    private long index() throws IOException {
+        long size = channel.size();
+        if (size < HEADER_BYTES) {
+            return 0;
+        }
+        List<MappedByteBuffer> mapped = new ArrayList<>();
+        List<Long> starts = new ArrayList<>();
+        long start = 0;
+        MappedByteBuffer segment = map(start, segmentBytes, size);
+        if (segment.getInt(0) != MAGIC || segment.getInt(Integer.BYTES) != VERSION) {
+            logger.warn("Ignoring embedding cache {} with an unknown format", path);
+            return 0;
+        }
+        long position = HEADER_BYTES;
+        while (position + DIGEST_BYTES + Integer.BYTES <= size) {
+            if (position + DIGEST_BYTES + Integer.BYTES > start + segment.limit()) {
+                mapped.add(segment);
+                starts.add(start);
+                start = position;
+                segment = map(start, segmentBytes, size);
+            }
+            int dimension = segment.getInt((int) (position - start) + DIGEST_BYTES);
+            long end = position + DIGEST_BYTES + Integer.BYTES + (long) dimension * Float.BYTES;
+            if (dimension <= 0 || end > size || end - position > Integer.MAX_VALUE) {
+                break;
+            }
+            if (end > start + segment.limit()) {
+                // Records never span two segments, so the next one starts with this record
+                if (position > start) {
+                    mapped.add(segment);
+                    starts.add(start);
+                }
+                start = position;
+                segment = map(start, (int) Math.max(segmentBytes, end - position), size);
+            }
+            mappedOffsets.put(Digest.read(segment, (int) (position - start)), position);
+            position = end;
+        }
+        mapped.add(segment);
+        starts.add(start);
+        segments = mapped.toArray(MappedByteBuffer[]::new);
+        segmentStarts = starts.stream().mapToLong(Long::longValue).toArray();
+        if (position < size) {
+            logger.warn("Discarding {} bytes of incomplete entries at the end of embedding cache {}",
+                    size - position, path);
+        }
+        return position;
+    }
+
+    private MappedByteBuffer map(long start, int maxBytes, long size) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(maxBytes, size - start));
+    }
+
+    private void writeHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putInt(VERSION).flip();
+        writeFully(header);
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            writePosition += channel.write(buffer, writePosition);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * A SHA-256 digest held as four longs, so it is cheap to hash and compare.
+     */
+    public record Digest(long a, long b, long c, long d) {
+
+        static Digest of(byte[] bytes) {
+            return read(ByteBuffer.wrap(bytes), 0);
+        }
+
+        static Digest read(ByteBuffer buffer, int offset) {
+            return new Digest(
+                    buffer.getLong(offset),
+                    buffer.getLong(offset + Long.BYTES),
+                    buffer.getLong(offset + 2 * Long.BYTES),
+                    buffer.getLong(offset + 3 * Long.BYTES));
+        }
+
+        void writeTo(ByteBuffer buffer) {
+            buffer.putLong(a).putLong(b).putLong(c).putLong(d);
+        }
+    }
+}
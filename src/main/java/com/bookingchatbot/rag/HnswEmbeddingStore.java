@@ -0,0 +1,542 @@
+package com.bookingchatbot.rag;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
+import dev.langchain4j.store.embedding.EmbeddingSearchResult;
+import dev.langchain4j.store.embedding.EmbeddingStore;
+import dev.langchain4j.store.embedding.RelevanceScore;
+import dev.langchain4j.store.embedding.filter.Filter;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Embedding store backed by an in-process HNSW (Hierarchical Navigable Small World) graph.
+ * <p>
+ * Vectors are normalized on insert, so cosine similarity is a plain dot product and the
+ * embeddings returned in matches are the normalized copies. Inserts may run concurrently with
+ * each other and with searches: each node guards its own neighbour lists and publishes them
+ * copy-on-write, so readers never take a lock. Removed entries are tombstoned; they keep
+ * routing searches through the graph but are never returned.
+ *
+ * @param <Embedded> the type of content stored next to each embedding
+ */
+public class HnswEmbeddingStore<Embedded> implements EmbeddingStore<Embedded> {
+
+    private static final int CHUNK_BITS = 12;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int MAX_CHUNKS = 1 << 16;
+    private static final int MAX_LEVEL = 16;
+    private static final VarHandle LINKS = MethodHandles.arrayElementVarHandle(int[][].class);
+    private static final ThreadLocal<VisitedSet> VISITED = ThreadLocal.withInitial(VisitedSet::new);
+
+    private final int m;
+    private final int maxLinksLayer0;
+    private final int efConstruction;
+    private final int efSearch;
+    private final double levelMultiplier;
+
+    private volatile Graph<Embedded> graph = new Graph<>();
+
+    public HnswEmbeddingStore(int m, int efConstruction, int efSearch) {
+        if (m < 2) {
+            throw new IllegalArgumentException("m must be at least 2");
+        }
+        if (efConstruction < 1 || efSearch < 1) {
+            throw new IllegalArgumentException("efConstruction and efSearch must be positive");
+        }
+        this.m = m;
+        this.maxLinksLayer0 = 2 * m;
+        this.efConstruction = efConstruction;
+        this.efSearch = efSearch;
+        this.levelMultiplier = 1 / Math.log(m);
+    }
+
+    @Override
+    public String add(Embedding embedding) {
+        return add(embedding, null);
+    }
+
+    @Override
+    public void add(String id, Embedding embedding) {
+        add(id, embedding, null);
+    }
+
+    @Override
+    public String add(Embedding embedding, Embedded embedded) {
+        String id = UUID.randomUUID().toString();
+        add(id, embedding, embedded);
+        return id;
+    }
+
+    /**
+     * Adds an entry under a caller-chosen id. An existing entry with the same id is replaced.
+     */
+    public void add(String id, Embedding embedding, Embedded embedded) {
+        if (id == null || id.isBlank()) {
+            throw new IllegalArgumentException("id cannot be blank");
+        }
+        if (embedding == null) {
+            throw new IllegalArgumentException("embedding cannot be null");
+        }
+        Graph<Embedded> g = graph;
+        float[] vector = g.normalizedCopy(embedding.vector());
+        Node<Embedded> node = new Node<>(g.nextIndex(), id, vector, embedded, randomLevel());
+        g.store(node);
+        insert(g, node);
+        Node<Embedded> previous = g.byId.put(id, node);
+        if (previous != null) {
+            previous.deleted = true;
+        }
+    }
+
+    @Override
+    public List<String> addAll(List<Embedding> embeddings) {
+        List<String> ids = new ArrayList<>(embeddings.size());
+        for (Embedding embedding : embeddings) {
+            ids.add(add(embedding));
+        }
+        return ids;
+    }
+
+    @Override
+    public List<String> addAll(List<Embedding> embeddings, List<Embedded> embedded) {
+        if (embeddings.size() != embedded.size()) {
+            throw new IllegalArgumentException("The list of embeddings and embedded must have the same size");
+        }
+        List<String> ids = new ArrayList<>(embeddings.size());
+        for (int i = 0; i < embeddings.size(); i++) {
+            ids.add(add(embeddings.get(i), embedded.get(i)));
+        }
+        return ids;
+    }
+
+    @Override
+    public void removeAll(Collection<String> ids) {
+        if (ids == null || ids.isEmpty()) {
+            throw new IllegalArgumentException("ids cannot be null or empty");
+        }
+        Graph<Embedded> g = graph;
+        for (String id : ids) {
+            Node<Embedded> node = g.byId.remove(id);
+            if (node != null) {
+                node.deleted = true;
+            }
+        }
+    }
+
+    @Override
+    public void removeAll(Filter filter) {
+        if (filter == null) {
+            throw new IllegalArgumentException("filter cannot be null");
+        }
+        Graph<Embedded> g = graph;
+        for (Map.Entry<String, Node<Embedded>> entry : g.byId.entrySet()) {
+            Node<Embedded> node = entry.getValue();
+            if (node.embedded instanceof TextSegment segment && filter.test(segment.metadata())) {
+                node.deleted = true;
+                g.byId.remove(entry.getKey(), node);
+            }
+        }
+    }
+
+    @Override
+    public void removeAll() {
+        graph = new Graph<>();
+    }
+
+    /**
+     * Number of live (not removed) entries.
+     */
+    public int size() {
+        return graph.byId.size();
+    }
+
+    @Override
+    public EmbeddingSearchResult<Embedded> search(EmbeddingSearchRequest request) {
+        Graph<Embedded> g = graph;
+        Node<Embedded> entry = g.entryPoint;
+        if (entry == null) {
+            return new EmbeddingSearchResult<>(List.of());
+        }
+        float[] query = g.normalizedCopy(request.queryEmbedding().vector());
+        int maxResults = request.maxResults();
+
+        Node<Embedded> current = greedyDescend(g, query, entry, 0);
+
+        int ef = Math.max(efSearch, maxResults);
+        ScoredQueue accepted = ScoredQueue.minFirst(maxResults + 1);
+        while (true) {
+            accepted.clear();
+            int rejected = searchLayer(g, query, current, ef, 0, null, accepted, request);
+            // Filters and tombstones can starve the candidate list; widen the beam and retry.
+            if (accepted.size() >= maxResults || rejected == 0 || ef >= g.size.get()) {
+                break;
+            }
+            ef *= 4;
+        }
+
+        float[] scores = new float[accepted.size()];
+        int[] ordered = accepted.drainDescending(scores);
+        List<EmbeddingMatch<Embedded>> matches = new ArrayList<>(ordered.length);
+        for (int i = 0; i < ordered.length; i++) {
+            Node<Embedded> node = g.node(ordered[i]);
+            matches.add(new EmbeddingMatch<>(
+                    RelevanceScore.fromCosineSimilarity(scores[i]),
+                    node.id,
+                    Embedding.from(node.vector),
+                    node.embedded
+            ));
+        }
+        return new EmbeddingSearchResult<>(matches);
+    }
+
+    private void insert(Graph<Embedded> g, Node<Embedded> node) {
+        Node<Embedded> entry = g.entryPoint;
+        if (entry == null) {
+            synchronized (g) {
+                if (g.entryPoint == null) {
+                    g.entryPoint = node;
+                    return;
+                }
+                entry = g.entryPoint;
+            }
+        }
+
+        Node<Embedded> current = greedyDescend(g, node.vector, entry, node.level());
+        ScoredQueue candidates = ScoredQueue.minFirst(efConstruction + 1);
+        for (int level = Math.min(node.level(), entry.level()); level >= 0; level--) {
+            candidates.clear();
+            searchLayer(g, node.vector, current, efConstruction, level, candidates, null, null);
+            float[] scores = new float[candidates.size()];
+            int[] nearest = candidates.drainDescending(scores);
+            if (nearest.length == 0) {
+                continue;
+            }
+            int maxLinks = maxLinks(level);
+            int[] selected = selectNeighbours(g, nearest, scores, maxLinks);
+            connect(g, node, level, selected, maxLinks);
+            for (int neighbour : selected) {
+                connect(g, g.node(neighbour), level, new int[]{node.index}, maxLinks);
+            }
+            current = g.node(nearest[0]);
+        }
+
+        if (node.level() > entry.level()) {
+            synchronized (g) {
+                if (node.level() > g.entryPoint.level()) {
+                    g.entryPoint = node;
+                }
+            }
+        }
+    }
+
+    /**
+     * Greedy walk from the entry point down to (but not including) {@code targetLevel},
+     * always moving to the neighbour most similar to the query.
+     */
+    private Node<Embedded> greedyDescend(Graph<Embedded> g, float[] query, Node<Embedded> entry, int targetLevel) {
+        Node<Embedded> current = entry;
+        float currentScore = VectorMath.dot(query, current.vector);
+        for (int level = entry.level(); level > targetLevel; level--) {
+            boolean improved = true;
+            while (improved) {
+                improved = false;
+                for (int neighbour : current.links(level)) {
+                    Node<Embedded> candidate = g.node(neighbour);
+                    float score = VectorMath.dot(query, candidate.vector);
+                    if (score > currentScore) {
+                        currentScore = score;
+                        current = candidate;
+                        improved = true;
+                    }
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Best-first beam search on one layer.
+     * When {@code nearest} is given it receives the {@code ef} closest nodes regardless of state
+     * (used while building the graph). When {@code accepted} is given it receives the closest
+     * live nodes that pass the request's filter and minimum score.
+     *
+     * @return how many visited nodes were rejected by tombstones or the filter
+     */
+    private int searchLayer(Graph<Embedded> g, float[] query, Node<Embedded> entry, int ef, int level,
+                            ScoredQueue nearest, ScoredQueue accepted, EmbeddingSearchRequest request) {
+        VisitedSet visited = VISITED.get();
+        visited.reset(g.size.get());
+        ScoredQueue candidates = ScoredQueue.maxFirst(ef * 2);
+        ScoredQueue beam = ScoredQueue.minFirst(ef + 1);
+        int rejected = 0;
+
+        float entryScore = VectorMath.dot(query, entry.vector);
+        visited.visit(entry.index);
+        candidates.push(entry.index, entryScore);
+        beam.push(entry.index, entryScore);
+        rejected += offer(entry, entryScore, nearest, accepted, request, ef);
+
+        while (!candidates.isEmpty()) {
+            float candidateScore = candidates.topScore();
+            if (beam.size() >= ef && candidateScore < beam.topScore()) {
+                break;
+            }
+            Node<Embedded> candidate = g.node(candidates.topNode());
+            candidates.pop();
+            for (int neighbourIndex : candidate.links(level)) {
+                if (!visited.visit(neighbourIndex)) {
+                    continue;
+                }
+                Node<Embedded> neighbour = g.node(neighbourIndex);
+                float score = VectorMath.dot(query, neighbour.vector);
+                if (beam.size() < ef || score > beam.topScore()) {
+                    candidates.push(neighbourIndex, score);
+                    beam.pushBounded(neighbourIndex, score, ef);
+                    rejected += offer(neighbour, score, nearest, accepted, request, ef);
+                }
+            }
+        }
+        return rejected;
+    }
+
+    private int offer(Node<Embedded> node, float score, ScoredQueue nearest, ScoredQueue accepted,
+                      EmbeddingSearchRequest request, int ef) {
+        if (nearest != null) {
+            nearest.pushBounded(node.index, score, ef);
+        }
+        if (accepted == null) {
+            return 0;
+        }
+        if (node.deleted || !matchesFilter(node, request.filter())) {
+            return 1;
+        }
+        if (RelevanceScore.fromCosineSimilarity(score) >= request.minScore()) {
+            accepted.pushBounded(node.index, score, request.maxResults());
+        }
+        return 0;
+    }
+
+    private static boolean matchesFilter(Node<?> node, Filter filter) {
+        if (filter == null || !(node.embedded instanceof TextSegment segment)) {
+            return true;
+        }
+        return filter.test(segment.metadata());
+    }
+
+    /**
+     * Neighbour selection heuristic from the HNSW paper: a candidate is kept only if it is closer
+     * to the base vector than to any neighbour already selected, which spreads links across
+     * clusters. Pruned candidates backfill the list if it ends up short.
+     *
+     * @param ordered candidates ordered by descending similarity to the base vector
+     * @param scores  similarity of each candidate to the base vector
+     */
+    private int[] selectNeighbours(Graph<Embedded> g, int[] ordered, float[] scores, int maxLinks) {
+        if (ordered.length <= maxLinks) {
+            return ordered;
+        }
+        int[] selected = new int[maxLinks];
+        int count = 0;
+        boolean[] taken = new boolean[ordered.length];
+        for (int i = 0; i < ordered.length && count < maxLinks; i++) {
+            float[] candidate = g.node(ordered[i]).vector;
+            boolean diverse = true;
+            for (int j = 0; j < count; j++) {
+                if (VectorMath.dot(candidate, g.node(selected[j]).vector) > scores[i]) {
+                    diverse = false;
+                    break;
+                }
+            }
+            if (diverse) {
+                selected[count++] = ordered[i];
+                taken[i] = true;
+            }
+        }
+        for (int i = 0; i < ordered.length && count < maxLinks; i++) {
+            if (!taken[i]) {
+                selected[count++] = ordered[i];
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Merges {@code additions} into the node's links on one level, pruning back to
+     * {@code maxLinks} with the selection heuristic when the list overflows.
+     */
+    private void connect(Graph<Embedded> g, Node<Embedded> node, int level, int[] additions, int maxLinks) {
+        synchronized (node) {
+            int[] current = node.links(level);
+            int[] merged = new int[current.length + additions.length];
+            System.arraycopy(current, 0, merged, 0, current.length);
+            int size = current.length;
+            outer:
+            for (int addition : additions) {
+                if (addition == node.index) {
+                    continue;
+                }
+                for (int i = 0; i < size; i++) {
+                    if (merged[i] == addition) {
+                        continue outer;
+                    }
+                }
+                merged[size++] = addition;
+            }
+            if (size == current.length) {
+                return;
+            }
+            if (size > maxLinks) {
+                ScoredQueue ranked = ScoredQueue.maxFirst(size);
+                for (int i = 0; i < size; i++) {
+                    ranked.push(merged[i], VectorMath.dot(node.vector, g.node(merged[i]).vector));
+                }
+                float[] scores = new float[size];
+                int[] ordered = ranked.drainDescending(scores);
+                node.setLinks(level, selectNeighbours(g, ordered, scores, maxLinks));
+            } else {
+                node.setLinks(level, size == merged.length ? merged : Arrays.copyOf(merged, size));
+            }
+        }
+    }
+
+    private int maxLinks(int level) {
+        return level == 0 ? maxLinksLayer0 : m;
+    }
+
+    private int randomLevel() {
+        double r = 1.0 - ThreadLocalRandom.current().nextDouble();
+        return Math.min((int) (-Math.log(r) * levelMultiplier), MAX_LEVEL);
+    }
+
+    /**
+     * All mutable graph state, swapped as a whole by {@link #removeAll()}.
+     */
+    private static final class Graph<Embedded> {
+
+        final AtomicReferenceArray<Node<Embedded>[]> chunks = new AtomicReferenceArray<>(MAX_CHUNKS);
+        final AtomicInteger size = new AtomicInteger();
+        final Map<String, Node<Embedded>> byId = new ConcurrentHashMap<>();
+        volatile Node<Embedded> entryPoint;
+        volatile int dimension = -1;
+
+        int nextIndex() {
+            int index = size.getAndIncrement();
+            if (index >= CHUNK_SIZE * MAX_CHUNKS) {
+                throw new IllegalStateException("HNSW store is full");
+            }
+            return index;
+        }
+
+        @SuppressWarnings("unchecked")
+        void store(Node<Embedded> node) {
+            int chunkIndex = node.index >>> CHUNK_BITS;
+            Node<Embedded>[] chunk = chunks.get(chunkIndex);
+            if (chunk == null) {
+                chunks.compareAndSet(chunkIndex, null, (Node<Embedded>[]) new Node[CHUNK_SIZE]);
+                chunk = chunks.get(chunkIndex);
+            }
+            chunk[node.index & (CHUNK_SIZE - 1)] = node;
+        }
+
+        Node<Embedded> node(int index) {
+            return chunks.get(index >>> CHUNK_BITS)[index & (CHUNK_SIZE - 1)];
+        }
+
+        float[] normalizedCopy(float[] vector) {
+            int expected = dimension;
+            if (expected == -1) {
+                synchronized (this) {
+                    if (dimension == -1) {
+                        dimension = vector.length;
+                    }
+                    expected = dimension;
+                }
+            }
+            if (vector.length != expected) {
+                throw new IllegalArgumentException(
+                        "Embedding dimension " + vector.length + " does not match store dimension " + expected);
+            }
+            return VectorMath.normalize(vector);
+        }
+    }
+
+    private static final class Node<Embedded> {
+
+        private static final int[] NO_LINKS = new int[0];
+
+        final int index;
+        final String id;
+        final float[] vector;
+        final Embedded embedded;
+        private final int[][] links;
+        volatile boolean deleted;
+
+        Node(int index, String id, float[] vector, Embedded embedded, int level) {
+            this.index = index;
+            this.id = id;
+            this.vector = vector;
+            this.embedded = embedded;
+            this.links = new int[level + 1][];
+            for (int i = 0; i <= level; i++) {
+                this.links[i] = NO_LINKS;
+            }
+        }
+
+        int level() {
+            return links.length - 1;
+        }
+
+        int[] links(int level) {
+            return level < links.length ? (int[]) LINKS.getAcquire(links, level) : NO_LINKS;
+        }
+
+        void setLinks(int level, int[] newLinks) {
+            LINKS.setRelease(links, level, newLinks);
+        }
+    }
+
+    /**
+     * Per-thread visited marks, cleared in O(1) by bumping an epoch counter.
+     */
+    private static final class VisitedSet {
+
+        private int[] marks = new int[1024];
+        private int epoch;
+
+        void reset(int capacity) {
+            if (marks.length < capacity) {
+                marks = new int[Math.max(capacity, marks.length * 2)];
+                epoch = 0;
+            }
+            if (++epoch == Integer.MAX_VALUE) {
+                Arrays.fill(marks, 0);
+                epoch = 1;
+            }
+        }
+
+        boolean visit(int index) {
+            if (index >= marks.length) {
+                marks = Arrays.copyOf(marks, Math.max(index + 1, marks.length * 2));
+            }
+            if (marks[index] == epoch) {
+                return false;
+            }
+            marks[index] = epoch;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.bookingchatbot.rag;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.rag.content.Content;
+import dev.langchain4j.rag.content.retriever.ContentRetriever;
+import dev.langchain4j.rag.query.Query;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
+import dev.langchain4j.store.embedding.EmbeddingStore;
+import dev.langchain4j.store.embedding.filter.Filter;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Content retriever that fuses BM25 keyword results with vector results by reciprocal rank
+ * fusion: every candidate scores {@code sum(1 / (rrfK + rank))} over the lists it appears in.
+ * <p>
+ * Exact terms such as class names or "48 hours" are found by BM25 even when their embedding
+ * similarity is below {@code minScore}. Vector candidates still have to pass {@code minScore},
+ * and BM25 only contributes segments that share a non-stop-word term with the query.
+ * Ties keep vector order.
+ */
+public class HybridContentRetriever implements ContentRetriever {
+
+    private final EmbeddingStore<TextSegment> embeddingStore;
+    private final EmbeddingModel embeddingModel;
+    private final Bm25Index index;
+    private final Filter filter;
+    private final int maxResults;
+    private final double minScore;
+    private final int candidates;
+    private final int rrfK;
+
+    /**
+     * @param filter     metadata filter applied to both result lists, or {@code null}
+     * @param maxResults number of fused results returned
+     * @param minScore   minimum relevance score of vector candidates
+     * @param candidates number of candidates taken from each list before fusion
+     * @param rrfK       rank constant of reciprocal rank fusion (60 in the original paper)
+     */
+    public HybridContentRetriever(EmbeddingStore<TextSegment> embeddingStore,
+                                  EmbeddingModel embeddingModel,
+                                  Bm25Index index,
+                                  Filter filter,
+                                  int maxResults,
+                                  double minScore,
+                                  int candidates,
+                                  int rrfK) {
+        this.embeddingStore = embeddingStore;
+        this.embeddingModel = embeddingModel;
+        this.index = index;
+        this.filter = filter;
+        this.maxResults = maxResults;
+        this.minScore = minScore;
+        this.candidates = Math.max(candidates, maxResults);
+        this.rrfK = rrfK;
+    }
+
+    @Override
+    public List<Content> retrieve(Query query) {
+        Embedding queryEmbedding = embeddingModel.embed(query.text()).content();
+        List<EmbeddingMatch<TextSegment>> vectorMatches = embeddingStore.search(EmbeddingSearchRequest.builder()
+                .queryEmbedding(queryEmbedding)
+                .maxResults(candidates)
+                .minScore(minScore)
+                .filter(filter)
+                .build()).matches();
+        List<Bm25Index.Match> keywordMatches = index.search(query.text(), candidates, filter);
+
+        Map<String, Fused> fused = new LinkedHashMap<>();
+        for (int rank = 0; rank < vectorMatches.size(); rank++) {
+            EmbeddingMatch<TextSegment> match = vectorMatches.get(rank);
+            fused.computeIfAbsent(match.embeddingId(), id -> new Fused(match.embedded())).score += 1.0 / (rrfK + rank + 1);
+        }
+        for (int rank = 0; rank < keywordMatches.size(); rank++) {
+            Bm25Index.Match match = keywordMatches.get(rank);
+            fused.computeIfAbsent(match.id(), id -> new Fused(match.segment())).score += 1.0 / (rrfK + rank + 1);
+        }
+
+        List<Fused> ranked = new ArrayList<>(fused.values());
+        ranked.sort((a, b) -> Double.compare(b.score, a.score));
+        List<Content> contents = new ArrayList<>(Math.min(maxResults, ranked.size()));
+        for (int i = 0; i < ranked.size() && i < maxResults; i++) {
+            contents.add(Content.from(ranked.get(i).segment));
+        }
+        return contents;
+    }
+
+    private static final class Fused {
+
+        final TextSegment segment;
+        double score;
+
+        Fused(TextSegment segment) {
+            this.segment = segment;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.bookingchatbot.rag;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Dot product of two int8 vectors stored inside larger byte arrays.
+ * <p>
+ * {@link #best()} picks the SIMD implementation when the JVM was started with
+ * {@code --add-modules jdk.incubator.vector} and falls back to a scalar loop otherwise.
+ */
+interface Int8DotProduct {
+
+    int dot(byte[] a, int aOffset, byte[] b, int bOffset, int length);
+
+    static Int8DotProduct best() {
+        return Holder.BEST;
+    }
+
+    static Int8DotProduct scalar() {
+        return ScalarInt8DotProduct.INSTANCE;
+    }
+
+    final class Holder {
+
+        private static final Logger logger = LoggerFactory.getLogger(Int8DotProduct.class);
+        private static final Int8DotProduct BEST = load();
+
+        private Holder() {
+        }
+
+        private static Int8DotProduct load() {
+            if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+                try {
+                    Int8DotProduct vectorized = (Int8DotProduct) Class
+                            .forName("com.bookingchatbot.rag.VectorInt8DotProduct")
+                            .getDeclaredConstructor()
+                            .newInstance();
+                    logger.info("Using Vector API int8 dot product");
+                    return vectorized;
+                } catch (ReflectiveOperationException | LinkageError | UnsupportedOperationException e) {
+                    logger.warn("Vector API unavailable, using scalar int8 dot product: {}", e.getMessage());
+                }
+            } else {
+                logger.info("jdk.incubator.vector not enabled, using scalar int8 dot product");
+            }
+            return ScalarInt8DotProduct.INSTANCE;
+        }
+    }
+}
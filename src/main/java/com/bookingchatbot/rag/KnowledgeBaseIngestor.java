@@ -0,0 +1,412 @@
+package com.bookingchatbot.rag;
+
+import dev.langchain4j.data.document.Document;
+import dev.langchain4j.data.document.DocumentParser;
+import dev.langchain4j.data.document.DocumentSplitter;
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.document.loader.FileSystemDocumentLoader;
+import dev.langchain4j.data.document.parser.TextDocumentParser;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.store.embedding.EmbeddingStore;
+import dev.langchain4j.store.embedding.filter.Filter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static dev.langchain4j.store.embedding.filter.MetadataFilterBuilder.metadataKey;
+
+/**
+ * Loads documents into an embedding store in parallel, batching embedding calls across documents.
+ * <p>
+ * Documents are loaded and split on a worker pool. Segments are grouped into {@code embedAll}
+ * batches of up to {@code batchSize}, with at most {@code maxInFlightBatches} batches being
+ * embedded at a time. Every segment is tagged with the document's file name and an ingestion
+ * version. Once all segments of a document are embedded they are added to the store, the
+ * document's active version is flipped, and the previous version's segments are removed.
+ * Retrieval applies {@link #activeSegments()}, so a search never sees two versions of a
+ * document (or half of one), even while chats run during re-ingestion.
+ * <p>
+ * Documents whose text has not changed since they were last ingested are skipped.
+ */
+public class KnowledgeBaseIngestor implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(KnowledgeBaseIngestor.class);
+
+    static final String VERSION_KEY = "kb_version";
+
+    private static final DocumentParser PARSER = new TextDocumentParser();
+
+    private final EmbeddingModel embeddingModel;
+    private final EmbeddingStore<TextSegment> embeddingStore;
+    private final DocumentSplitter splitter;
+    private final int batchSize;
+    private final Semaphore inFlightBatches;
+    private final ExecutorService workers;
+
+    private final Map<String, Long> activeVersions = new ConcurrentHashMap<>();
+    private final Map<String, String> contentHashes = new ConcurrentHashMap<>();
+    private final AtomicLong nextVersion = new AtomicLong();
+    private final AtomicLong contentVersion = new AtomicLong();
+    private final Filter activeSegments = new ActiveSegmentsFilter();
+    private volatile KnowledgeBaseWatcher watcher;
+
+    public KnowledgeBaseIngestor(EmbeddingModel embeddingModel,
+                                 EmbeddingStore<TextSegment> embeddingStore,
+                                 DocumentSplitter splitter,
+                                 int parallelism,
+                                 int batchSize,
+                                 int maxInFlightBatches) {
+        if (parallelism < 1 || batchSize < 1 || maxInFlightBatches < 1) {
+            throw new IllegalArgumentException("parallelism, batchSize and maxInFlightBatches must be positive");
+        }
+        this.embeddingModel = embeddingModel;
+        this.embeddingStore = embeddingStore;
+        this.splitter = splitter;
+        this.batchSize = batchSize;
+        this.inFlightBatches = new Semaphore(maxInFlightBatches);
+        this.workers = Executors.newFixedThreadPool(parallelism, workerThreads());
+    }
+
+    /**
+     * Filter that only matches segments of the currently active version of each document.
+     * Segments that were not added by this ingestor are not matched either.
+     */
+    public Filter activeSegments() {
+        return activeSegments;
+    }
+
+    /**
+     * Ingests every document ({@code .txt} or {@code .md} file) directly inside {@code directory}.
+     */
+    public Result ingestDirectory(Path directory) {
+        return ingestFiles(listDocuments(directory));
+    }
+
+    /**
+     * Ingests files from disk, parsed as plain text.
+     *
+     * @see #ingest(Collection)
+     */
+    public Result ingestFiles(Collection<Path> files) {
+        List<Source> sources = new ArrayList<>();
+        for (Path file : files) {
+            sources.add(new Source(file.getFileName().toString(),
+                    () -> FileSystemDocumentLoader.loadDocument(file, PARSER)));
+        }
+        return ingest(sources);
+    }
+
+    /**
+     * Splits, embeds and swaps in the given documents. Blocks until all of them are done;
+     * a document that fails keeps its previous version.
+     *
+     * @param sources one loader per document; loaded documents need a {@link Document#FILE_NAME}
+     * @return the outcome, including the file names of documents that failed
+     */
+    public synchronized Result ingest(Collection<Source> sources) {
+        long start = System.nanoTime();
+        ExecutorCompletionService<PendingDocument> loaded = new ExecutorCompletionService<>(workers);
+        Map<Future<PendingDocument>, String> fileNames = new HashMap<>();
+        for (Source source : sources) {
+            fileNames.put(loaded.submit(() -> split(source.loader().call())), source.fileName());
+        }
+
+        List<PendingDocument> documents = new ArrayList<>();
+        List<String> failed = new ArrayList<>();
+        List<CompletableFuture<Void>> batches = new ArrayList<>();
+        Batch batch = new Batch();
+        int skipped = 0;
+        for (int i = 0; i < sources.size(); i++) {
+            PendingDocument document;
+            Future<PendingDocument> future = null;
+            try {
+                future = loaded.take();
+                document = future.get();
+            } catch (ExecutionException e) {
+                logger.error("Failed to load {}", fileNames.get(future), e.getCause());
+                failed.add(fileNames.get(future));
+                continue;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while ingesting documents", e);
+            }
+            if (document == null) {
+                skipped++;
+                continue;
+            }
+            documents.add(document);
+            for (int s = 0; s < document.segments.size(); s++) {
+                batch.add(document, s);
+                if (batch.size() == batchSize) {
+                    batches.add(dispatch(batch));
+                    batch = new Batch();
+                }
+            }
+        }
+        if (batch.size() > 0) {
+            batches.add(dispatch(batch));
+        }
+        CompletableFuture.allOf(batches.toArray(CompletableFuture[]::new))
+                .exceptionally(e -> null)
+                .join();
+
+        int ingested = 0;
+        int segments = 0;
+        for (PendingDocument document : documents) {
+            if (document.failure != null) {
+                logger.error("Failed to embed {}", document.fileName, document.failure);
+                failed.add(document.fileName);
+            } else {
+                swapIn(document);
+                ingested++;
+                segments += document.segments.size();
+            }
+        }
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        return new Result(ingested, skipped, segments, batches.size(), failed, millis);
+    }
+
+    /**
+     * Removes every segment of a document, e.g. after its file was deleted.
+     */
+    public synchronized void remove(String fileName) {
+        activeVersions.remove(fileName);
+        contentHashes.remove(fileName);
+        embeddingStore.removeAll(metadataKey(Document.FILE_NAME).isEqualTo(fileName));
+        contentVersion.incrementAndGet();
+        logger.info("Removed {} from the knowledge base", fileName);
+    }
+
+    public Set<String> documents() {
+        return new HashSet<>(activeVersions.keySet());
+    }
+
+    /**
+     * Incremented whenever a document is swapped in or removed; anything derived from the
+     * knowledge base under an older value may be stale.
+     */
+    public long contentVersion() {
+        return contentVersion.get();
+    }
+
+    /**
+     * Keeps the store in sync with {@code directory} until this ingestor is closed.
+     */
+    public synchronized void watch(Path directory, Duration debounce) throws IOException {
+        if (watcher != null) {
+            throw new IllegalStateException("Already watching a directory");
+        }
+        watcher = new KnowledgeBaseWatcher(directory, this, debounce);
+        watcher.start();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (watcher != null) {
+            watcher.close();
+        }
+        workers.shutdownNow();
+    }
+
+    private PendingDocument split(Document document) {
+        String fileName = document.metadata().getString(Document.FILE_NAME);
+        if (fileName == null) {
+            throw new IllegalArgumentException("Document has no " + Document.FILE_NAME + " metadata");
+        }
+        String hash = sha256(document.text());
+        if (hash.equals(contentHashes.get(fileName))) {
+            logger.debug("Skipping unchanged document {}", fileName);
+            return null;
+        }
+        long version = nextVersion.incrementAndGet();
+        List<TextSegment> segments = splitter.split(document);
+        for (TextSegment segment : segments) {
+            segment.metadata().put(VERSION_KEY, version);
+        }
+        return new PendingDocument(fileName, hash, version, segments);
+    }
+
+    private CompletableFuture<Void> dispatch(Batch batch) {
+        try {
+            inFlightBatches.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while ingesting documents", e);
+        }
+        return CompletableFuture.runAsync(batch::embed, workers)
+                .whenComplete((ignored, e) -> {
+                    inFlightBatches.release();
+                    if (e != null) {
+                        batch.fail(e);
+                    }
+                });
+    }
+
+    private void swapIn(PendingDocument document) {
+        embeddingStore.addAll(Arrays.asList(document.embeddings), document.segments);
+        Long previous = activeVersions.put(document.fileName, document.version);
+        contentHashes.put(document.fileName, document.hash);
+        if (previous != null) {
+            embeddingStore.removeAll(metadataKey(Document.FILE_NAME).isEqualTo(document.fileName)
+                    .and(metadataKey(VERSION_KEY).isNotEqualTo(document.version)));
+        }
+        contentVersion.incrementAndGet();
+        logger.debug("Swapped in {} segments of {} (version {})",
+                document.segments.size(), document.fileName, document.version);
+    }
+
+    static boolean isDocument(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        return name.endsWith(".txt") || name.endsWith(".md");
+    }
+
+    static List<Path> listDocuments(Path directory) {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> Files.isRegularFile(file) && isDocument(file)).sorted().toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to list documents in " + directory, e);
+        }
+    }
+
+    private static String sha256(String text) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static ThreadFactory workerThreads() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "kb-ingest-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * A document to ingest, named so failures can be reported before it is loaded.
+     */
+    public record Source(String fileName, Callable<Document> loader) {
+
+        public static Source of(Document document) {
+            return new Source(document.metadata().getString(Document.FILE_NAME), () -> document);
+        }
+    }
+
+    /**
+     * Outcome of one {@link #ingest} call.
+     *
+     * @param documents documents that were (re-)ingested
+     * @param unchanged documents skipped because their text did not change
+     * @param segments  segments added to the embedding store
+     * @param batches   embedding calls made
+     * @param failed    documents that could not be loaded or embedded
+     * @param millis    wall-clock duration
+     */
+    public record Result(int documents, int unchanged, int segments, int batches, List<String> failed, long millis) {
+    }
+
+    private static final class PendingDocument {
+
+        final String fileName;
+        final String hash;
+        final long version;
+        final List<TextSegment> segments;
+        final Embedding[] embeddings;
+        volatile Throwable failure;
+
+        PendingDocument(String fileName, String hash, long version, List<TextSegment> segments) {
+            this.fileName = fileName;
+            this.hash = hash;
+            this.version = version;
+            this.segments = segments;
+            this.embeddings = new Embedding[segments.size()];
+        }
+    }
+
+    /**
+     * Segments from one or more documents that are embedded with a single call.
+     */
+    private final class Batch {
+
+        private final List<PendingDocument> documents = new ArrayList<>();
+        private final List<Integer> indexes = new ArrayList<>();
+
+        void add(PendingDocument document, int index) {
+            documents.add(document);
+            indexes.add(index);
+        }
+
+        int size() {
+            return indexes.size();
+        }
+
+        void embed() {
+            List<TextSegment> segments = new ArrayList<>(size());
+            for (int i = 0; i < size(); i++) {
+                segments.add(documents.get(i).segments.get(indexes.get(i)));
+            }
+            List<Embedding> embeddings = embeddingModel.embedAll(segments).content();
+            for (int i = 0; i < size(); i++) {
+                documents.get(i).embeddings[indexes.get(i)] = embeddings.get(i);
+            }
+        }
+
+        void fail(Throwable failure) {
+            for (PendingDocument document : documents) {
+                document.failure = failure;
+            }
+        }
+    }
+
+    private final class ActiveSegmentsFilter implements Filter {
+
+        @Override
+        public boolean test(Object object) {
+            if (!(object instanceof Metadata metadata)) {
+                return false;
+            }
+            String fileName = metadata.getString(Document.FILE_NAME);
+            Long version = metadata.getLong(VERSION_KEY);
+            return fileName != null && version != null && version.equals(activeVersions.get(fileName));
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.bookingchatbot.rag;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+/**
+ * Watches a knowledge-base directory and re-ingests documents that are created, modified or
+ * deleted. Events are collected until the directory has been quiet for the debounce interval,
+ * so an editor saving a file in several writes triggers a single re-ingestion.
+ */
+public class KnowledgeBaseWatcher implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(KnowledgeBaseWatcher.class);
+
+    private final Path directory;
+    private final KnowledgeBaseIngestor ingestor;
+    private final Duration debounce;
+    private final WatchService watchService;
+    private final Thread thread;
+
+    public KnowledgeBaseWatcher(Path directory, KnowledgeBaseIngestor ingestor, Duration debounce) throws IOException {
+        this.directory = directory;
+        this.ingestor = ingestor;
+        this.debounce = debounce;
+        this.watchService = directory.getFileSystem().newWatchService();
+        directory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+        this.thread = new Thread(this::run, "kb-watcher");
+        this.thread.setDaemon(true);
+    }
+
+    public void start() {
+        thread.start();
+        logger.info("Watching {} for knowledge base changes", directory.toAbsolutePath());
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                Set<String> changed = new TreeSet<>();
+                boolean overflow = collect(watchService.take(), changed);
+                WatchKey key;
+                while ((key = watchService.poll(debounce.toMillis(), TimeUnit.MILLISECONDS)) != null) {
+                    overflow |= collect(key, changed);
+                }
+                try {
+                    apply(overflow ? ingestor.documents() : changed, overflow);
+                } catch (RuntimeException e) {
+                    logger.error("Failed to re-ingest knowledge base changes", e);
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            logger.debug("Stopped watching {}", directory);
+        }
+    }
+
+    private boolean collect(WatchKey key, Set<String> changed) {
+        boolean overflow = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW) {
+                overflow = true;
+            } else if (event.context() instanceof Path file && KnowledgeBaseIngestor.isDocument(file)) {
+                changed.add(file.getFileName().toString());
+            }
+        }
+        key.reset();
+        return overflow;
+    }
+
+    private void apply(Set<String> fileNames, boolean rescan) {
+        List<Path> existing = new ArrayList<>();
+        for (String fileName : fileNames) {
+            Path file = directory.resolve(fileName);
+            if (Files.isRegularFile(file)) {
+                existing.add(file);
+            } else {
+                ingestor.remove(fileName);
+            }
+        }
+        if (rescan) {
+            existing = KnowledgeBaseIngestor.listDocuments(directory);
+        }
+        if (!existing.isEmpty()) {
+            KnowledgeBaseIngestor.Result result = ingestor.ingestFiles(existing);
+            logger.info("Re-ingested knowledge base changes: {}", result);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.bookingchatbot.rag;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Embedding model decorator that remembers the embeddings of the most recently embedded texts.
+ * <p>
+ * Meant for the query path, where customers often ask the same questions; only single-text
+ * {@code embed} calls are cached. Cached vectors are shared, so callers must not modify them.
+ */
+public class LruEmbeddingModel implements EmbeddingModel {
+
+    private final EmbeddingModel delegate;
+    private final Map<String, Embedding> recent;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public LruEmbeddingModel(EmbeddingModel delegate, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.delegate = delegate;
+        this.recent = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Embedding> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    @Override
+    public Response<Embedding> embed(TextSegment textSegment) {
+        String text = textSegment.text();
+        Embedding embedding;
+        synchronized (recent) {
+            embedding = recent.get(text);
+        }
+        if (embedding != null) {
+            hits.incrementAndGet();
+            return Response.from(embedding);
+        }
+        misses.incrementAndGet();
+        Response<Embedding> response = delegate.embed(textSegment);
+        synchronized (recent) {
+            recent.put(text, response.content());
+        }
+        return response;
+    }
+
+    @Override
+    public Response<List<Embedding>> embedAll(List<TextSegment> textSegments) {
+        if (textSegments.size() == 1) {
+            Response<Embedding> response = embed(textSegments.get(0));
+            return Response.from(List.of(response.content()), response.tokenUsage(), response.finishReason());
+        }
+        return delegate.embedAll(textSegments);
+    }
+
+    @Override
+    public int dimension() {
+        return delegate.dimension();
+    }
+
+    public long hits() {
+        return hits.get();
+    }
+
+    public long misses() {
+        return misses.get();
+    }
+}
@@ -0,0 +1,61 @@
+package com.bookingchatbot.rag;
+
+import dev.langchain4j.rag.content.Content;
+import dev.langchain4j.rag.content.retriever.ContentRetriever;
+import dev.langchain4j.rag.query.Query;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Content retriever decorator that records {@code chatbot.rag.retrieval}, the latency of each
+ * retrieval including the query embedding, by {@code outcome}, and
+ * {@code chatbot.rag.retrieval.results}, the number of segments found.
+ * <p>
+ * Turns that the {@link RetrievalGate} keeps from retrieving are not recorded.
+ */
+public class MeteredContentRetriever implements ContentRetriever {
+
+    private final ContentRetriever delegate;
+    private final Timer succeeded;
+    private final Timer failed;
+    private final DistributionSummary results;
+
+    public MeteredContentRetriever(ContentRetriever delegate, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.succeeded = latency(meterRegistry, "success");
+        this.failed = latency(meterRegistry, "error");
+        this.results = DistributionSummary.builder("chatbot.rag.retrieval.results")
+                .description("Segments found per retrieval")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public List<Content> retrieve(Query query) {
+        long start = System.nanoTime();
+        List<Content> contents;
+        try {
+            contents = delegate.retrieve(query);
+        } catch (RuntimeException e) {
+            failed.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+        succeeded.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        results.record(contents.size());
+        return contents;
+    }
+
+    private static Timer latency(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("chatbot.rag.retrieval")
+                .description("Time to embed a query and search the knowledge base")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(10_000))
+                .maximumExpectedValue(Duration.ofSeconds(10))
+                .register(meterRegistry);
+    }
+}
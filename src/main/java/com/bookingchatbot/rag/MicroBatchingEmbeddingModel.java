@@ -0,0 +1,131 @@
+package com.bookingchatbot.rag;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Embedding model decorator that groups concurrent single-text {@code embed} calls into one
+ * {@code embedAll} call.
+ * <p>
+ * A dispatcher thread takes the oldest waiting request plus whatever else is queued (up to
+ * {@code maxBatchSize}) and embeds them together. Nothing waits for a batch to fill up: a lone
+ * request is embedded immediately, and requests that arrive while a batch is running form the
+ * next one. Multi-segment {@code embedAll} calls bypass the queue.
+ */
+public class MicroBatchingEmbeddingModel implements EmbeddingModel, Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(MicroBatchingEmbeddingModel.class);
+
+    private final EmbeddingModel delegate;
+    private final int maxBatchSize;
+    private final BlockingQueue<Request> queue = new LinkedBlockingQueue<>();
+    private final Thread dispatcher;
+    private volatile boolean closed;
+
+    public MicroBatchingEmbeddingModel(EmbeddingModel delegate, int maxBatchSize) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("maxBatchSize must be positive");
+        }
+        this.delegate = delegate;
+        this.maxBatchSize = maxBatchSize;
+        this.dispatcher = new Thread(this::dispatch, "embedding-batcher");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+    }
+
+    @Override
+    public Response<Embedding> embed(TextSegment textSegment) {
+        if (closed) {
+            throw new IllegalStateException("Embedding model was closed");
+        }
+        Request request = new Request(textSegment);
+        queue.add(request);
+        try {
+            return request.result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public Response<List<Embedding>> embedAll(List<TextSegment> textSegments) {
+        if (textSegments.size() == 1) {
+            Response<Embedding> response = embed(textSegments.get(0));
+            return Response.from(List.of(response.content()), response.tokenUsage(), response.finishReason());
+        }
+        return delegate.embedAll(textSegments);
+    }
+
+    @Override
+    public int dimension() {
+        return delegate.dimension();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        dispatcher.interrupt();
+    }
+
+    private void dispatch() {
+        List<Request> batch = new ArrayList<>(maxBatchSize);
+        try {
+            while (true) {
+                batch.add(queue.take());
+                queue.drainTo(batch, maxBatchSize - 1);
+                embed(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            queue.drainTo(batch);
+            for (Request request : batch) {
+                request.result.completeExceptionally(new IllegalStateException("Embedding model was closed"));
+            }
+        }
+    }
+
+    private void embed(List<Request> batch) {
+        List<TextSegment> segments = new ArrayList<>(batch.size());
+        for (Request request : batch) {
+            segments.add(request.segment);
+        }
+        try {
+            List<Embedding> embeddings = delegate.embedAll(segments).content();
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).result.complete(Response.from(embeddings.get(i)));
+            }
+            if (batch.size() > 1) {
+                logger.trace("Embedded {} queries in one batch", batch.size());
+            }
+        } catch (RuntimeException e) {
+            for (Request request : batch) {
+                request.result.completeExceptionally(e);
+            }
+        }
+    }
+
+    private static final class Request {
+
+        final TextSegment segment;
+        final CompletableFuture<Response<Embedding>> result = new CompletableFuture<>();
+
+        Request(TextSegment segment) {
+            this.segment = segment;
+        }
+    }
+}
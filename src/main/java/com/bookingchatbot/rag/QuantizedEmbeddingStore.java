@@ -0,0 +1,429 @@
+package com.bookingchatbot.rag;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
+import dev.langchain4j.store.embedding.EmbeddingSearchResult;
+import dev.langchain4j.store.embedding.EmbeddingStore;
+import dev.langchain4j.store.embedding.RelevanceScore;
+import dev.langchain4j.store.embedding.filter.Filter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Compact embedding store that keeps vectors as int8 codes with one scale factor per vector.
+ * <p>
+ * Codes live in contiguous byte slabs and are scanned with {@link Int8DotProduct#best()}, which
+ * uses SIMD when the Vector API is enabled. The best {@code maxResults * rerankFactor}
+ * candidates are then re-scored against full-precision copies of the vectors. With a rerank
+ * factor of zero no float copies are kept at all and scores come from the int8 codes alone.
+ * <p>
+ * Vectors are normalized on insert, so scores are cosine similarities. Searches run in parallel
+ * with each other; writes take an exclusive lock.
+ *
+ * @param <Embedded> the type of content stored next to each embedding
+ */
+public class QuantizedEmbeddingStore<Embedded> implements EmbeddingStore<Embedded> {
+
+    private static final int SLAB_BITS = 12;
+    private static final int SLAB_ENTRIES = 1 << SLAB_BITS;
+
+    private final int rerankFactor;
+    private final Int8DotProduct dotProduct;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // All fields below are guarded by lock
+    private final Map<String, Integer> slotsById = new HashMap<>();
+    private int dimension = -1;
+    private int count;
+    private int removed;
+    private byte[][] codeSlabs = new byte[0][];
+    private float[][] vectorSlabs = new float[0][];
+    private float[] scales = new float[0];
+    private String[] ids = new String[0];
+    private Object[] embedded = new Object[0];
+    private boolean[] deleted = new boolean[0];
+
+    public QuantizedEmbeddingStore(int rerankFactor) {
+        this(rerankFactor, Int8DotProduct.best());
+    }
+
+    QuantizedEmbeddingStore(int rerankFactor, Int8DotProduct dotProduct) {
+        if (rerankFactor < 0) {
+            throw new IllegalArgumentException("rerankFactor cannot be negative");
+        }
+        this.rerankFactor = rerankFactor;
+        this.dotProduct = dotProduct;
+    }
+
+    /**
+     * Store that scans with the scalar dot product even when the Vector API is available.
+     * Intended for benchmarks that compare the two.
+     */
+    public static <Embedded> QuantizedEmbeddingStore<Embedded> withScalarScoring(int rerankFactor) {
+        return new QuantizedEmbeddingStore<>(rerankFactor, Int8DotProduct.scalar());
+    }
+
+    @Override
+    public String add(Embedding embedding) {
+        return add(embedding, null);
+    }
+
+    @Override
+    public void add(String id, Embedding embedding) {
+        add(id, embedding, null);
+    }
+
+    @Override
+    public String add(Embedding embedding, Embedded embedded) {
+        String id = UUID.randomUUID().toString();
+        add(id, embedding, embedded);
+        return id;
+    }
+
+    /**
+     * Adds an entry under a caller-chosen id. An existing entry with the same id is replaced.
+     */
+    public void add(String id, Embedding embedding, Embedded content) {
+        if (id == null || id.isBlank()) {
+            throw new IllegalArgumentException("id cannot be blank");
+        }
+        if (embedding == null) {
+            throw new IllegalArgumentException("embedding cannot be null");
+        }
+        float[] normalized = VectorMath.normalize(embedding.vector());
+        lock.writeLock().lock();
+        try {
+            append(id, normalized, content);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<String> addAll(List<Embedding> embeddings) {
+        List<String> generated = new ArrayList<>(embeddings.size());
+        for (Embedding embedding : embeddings) {
+            generated.add(add(embedding));
+        }
+        return generated;
+    }
+
+    @Override
+    public List<String> addAll(List<Embedding> embeddings, List<Embedded> contents) {
+        if (embeddings.size() != contents.size()) {
+            throw new IllegalArgumentException("The list of embeddings and embedded must have the same size");
+        }
+        List<float[]> normalized = new ArrayList<>(embeddings.size());
+        List<String> generated = new ArrayList<>(embeddings.size());
+        for (Embedding embedding : embeddings) {
+            normalized.add(VectorMath.normalize(embedding.vector()));
+            generated.add(UUID.randomUUID().toString());
+        }
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < normalized.size(); i++) {
+                append(generated.get(i), normalized.get(i), contents.get(i));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return generated;
+    }
+
+    @Override
+    public void removeAll(Collection<String> idsToRemove) {
+        if (idsToRemove == null || idsToRemove.isEmpty()) {
+            throw new IllegalArgumentException("ids cannot be null or empty");
+        }
+        lock.writeLock().lock();
+        try {
+            for (String id : idsToRemove) {
+                Integer slot = slotsById.remove(id);
+                if (slot != null) {
+                    markRemoved(slot);
+                }
+            }
+            compactIfSparse();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void removeAll(Filter filter) {
+        if (filter == null) {
+            throw new IllegalArgumentException("filter cannot be null");
+        }
+        lock.writeLock().lock();
+        try {
+            for (int slot = 0; slot < count; slot++) {
+                if (!deleted[slot] && embedded[slot] instanceof TextSegment segment
+                        && filter.test(segment.metadata())) {
+                    slotsById.remove(ids[slot]);
+                    markRemoved(slot);
+                }
+            }
+            compactIfSparse();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void removeAll() {
+        lock.writeLock().lock();
+        try {
+            slotsById.clear();
+            dimension = -1;
+            count = 0;
+            removed = 0;
+            codeSlabs = new byte[0][];
+            vectorSlabs = new float[0][];
+            scales = new float[0];
+            ids = new String[0];
+            embedded = new Object[0];
+            deleted = new boolean[0];
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public EmbeddingSearchResult<Embedded> search(EmbeddingSearchRequest request) {
+        lock.readLock().lock();
+        try {
+            if (count - removed == 0) {
+                return new EmbeddingSearchResult<>(List.of());
+            }
+            float[] query = VectorMath.normalize(request.queryEmbedding().vector());
+            ensureDimension(query.length);
+            byte[] queryCodes = new byte[dimension];
+            float queryScale = quantize(query, queryCodes, 0);
+
+            int maxResults = request.maxResults();
+            int shortlistSize = rerankFactor > 0 ? maxResults * rerankFactor : maxResults;
+            ScoredQueue shortlist = scan(queryCodes, queryScale, request.filter(), shortlistSize);
+
+            ScoredQueue ranked = shortlist;
+            if (rerankFactor > 0) {
+                ranked = ScoredQueue.minFirst(maxResults + 1);
+                while (!shortlist.isEmpty()) {
+                    int slot = shortlist.topNode();
+                    shortlist.pop();
+                    float exact = VectorMath.dot(query, 0, vectorSlab(slot), vectorOffset(slot), dimension);
+                    ranked.pushBounded(slot, exact, maxResults);
+                }
+            }
+
+            float[] scores = new float[ranked.size()];
+            int[] slots = ranked.drainDescending(scores);
+            List<EmbeddingMatch<Embedded>> matches = new ArrayList<>(slots.length);
+            for (int i = 0; i < slots.length; i++) {
+                double score = RelevanceScore.fromCosineSimilarity(scores[i]);
+                if (score < request.minScore()) {
+                    break;
+                }
+                matches.add(match(slots[i], score));
+            }
+            return new EmbeddingSearchResult<>(matches);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of live (not removed) entries.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return count - removed;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Bytes of vector data held per entry: the int8 codes and scale, plus the float copy
+     * when re-ranking is enabled. Ids and embedded content are not included.
+     */
+    public long vectorBytesPerEntry() {
+        lock.readLock().lock();
+        try {
+            if (dimension < 0) {
+                return 0;
+            }
+            return dimension + Float.BYTES + (rerankFactor > 0 ? (long) dimension * Float.BYTES : 0);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private ScoredQueue scan(byte[] queryCodes, float queryScale, Filter filter, int limit) {
+        ScoredQueue top = ScoredQueue.minFirst(limit + 1);
+        for (int slot = 0; slot < count; slot++) {
+            if (deleted[slot]) {
+                continue;
+            }
+            if (filter != null && embedded[slot] instanceof TextSegment segment && !filter.test(segment.metadata())) {
+                continue;
+            }
+            byte[] slab = codeSlabs[slot >>> SLAB_BITS];
+            int offset = (slot & (SLAB_ENTRIES - 1)) * dimension;
+            float score = dotProduct.dot(queryCodes, 0, slab, offset, dimension) * queryScale * scales[slot];
+            top.pushBounded(slot, score, limit);
+        }
+        return top;
+    }
+
+    @SuppressWarnings("unchecked")
+    private EmbeddingMatch<Embedded> match(int slot, double score) {
+        float[] vector = new float[dimension];
+        if (rerankFactor > 0) {
+            System.arraycopy(vectorSlab(slot), vectorOffset(slot), vector, 0, dimension);
+        } else {
+            byte[] slab = codeSlabs[slot >>> SLAB_BITS];
+            int offset = (slot & (SLAB_ENTRIES - 1)) * dimension;
+            for (int i = 0; i < dimension; i++) {
+                vector[i] = slab[offset + i] * scales[slot];
+            }
+        }
+        return new EmbeddingMatch<>(score, ids[slot], Embedding.from(vector), (Embedded) embedded[slot]);
+    }
+
+    private void append(String id, float[] vector, Embedded content) {
+        ensureDimension(vector.length);
+        Integer previous = slotsById.get(id);
+        if (previous != null) {
+            markRemoved(previous);
+        }
+        int slot = count;
+        ensureCapacity(slot + 1);
+        scales[slot] = quantize(vector, codeSlabs[slot >>> SLAB_BITS], (slot & (SLAB_ENTRIES - 1)) * dimension);
+        if (rerankFactor > 0) {
+            System.arraycopy(vector, 0, vectorSlab(slot), vectorOffset(slot), dimension);
+        }
+        ids[slot] = id;
+        embedded[slot] = content;
+        deleted[slot] = false;
+        slotsById.put(id, slot);
+        count++;
+    }
+
+    private void markRemoved(int slot) {
+        if (!deleted[slot]) {
+            deleted[slot] = true;
+            embedded[slot] = null;
+            removed++;
+        }
+    }
+
+    /**
+     * Rewrites the slabs without tombstones once more than half of the slots are dead.
+     */
+    private void compactIfSparse() {
+        if (removed == 0 || removed * 2 < count) {
+            return;
+        }
+        int target = 0;
+        for (int slot = 0; slot < count; slot++) {
+            if (deleted[slot]) {
+                continue;
+            }
+            if (slot != target) {
+                System.arraycopy(codeSlabs[slot >>> SLAB_BITS], (slot & (SLAB_ENTRIES - 1)) * dimension,
+                        codeSlabs[target >>> SLAB_BITS], (target & (SLAB_ENTRIES - 1)) * dimension, dimension);
+                if (rerankFactor > 0) {
+                    System.arraycopy(vectorSlab(slot), vectorOffset(slot), vectorSlab(target), vectorOffset(target), dimension);
+                }
+                scales[target] = scales[slot];
+                ids[target] = ids[slot];
+                embedded[target] = embedded[slot];
+                deleted[target] = false;
+                slotsById.put(ids[target], target);
+            }
+            target++;
+        }
+        Arrays.fill(ids, target, count, null);
+        Arrays.fill(embedded, target, count, null);
+        count = target;
+        removed = 0;
+        int slabs = (count + SLAB_ENTRIES - 1) >>> SLAB_BITS;
+        codeSlabs = Arrays.copyOf(codeSlabs, slabs);
+        if (rerankFactor > 0) {
+            vectorSlabs = Arrays.copyOf(vectorSlabs, slabs);
+        }
+    }
+
+    private void ensureCapacity(int required) {
+        if (required > ids.length) {
+            int capacity = Math.max(required, Math.max(SLAB_ENTRIES, ids.length * 2));
+            scales = Arrays.copyOf(scales, capacity);
+            ids = Arrays.copyOf(ids, capacity);
+            embedded = Arrays.copyOf(embedded, capacity);
+            deleted = Arrays.copyOf(deleted, capacity);
+        }
+        int slabs = (required + SLAB_ENTRIES - 1) >>> SLAB_BITS;
+        if (slabs > codeSlabs.length) {
+            int existing = codeSlabs.length;
+            codeSlabs = Arrays.copyOf(codeSlabs, slabs);
+            for (int i = existing; i < slabs; i++) {
+                codeSlabs[i] = new byte[SLAB_ENTRIES * dimension];
+            }
+            if (rerankFactor > 0) {
+                vectorSlabs = Arrays.copyOf(vectorSlabs, slabs);
+                for (int i = existing; i < slabs; i++) {
+                    vectorSlabs[i] = new float[SLAB_ENTRIES * dimension];
+                }
+            }
+        }
+    }
+
+    private void ensureDimension(int length) {
+        if (dimension == -1) {
+            dimension = length;
+        } else if (length != dimension) {
+            throw new IllegalArgumentException(
+                    "Embedding dimension " + length + " does not match store dimension " + dimension);
+        }
+    }
+
+    private float[] vectorSlab(int slot) {
+        return vectorSlabs[slot >>> SLAB_BITS];
+    }
+
+    private int vectorOffset(int slot) {
+        return (slot & (SLAB_ENTRIES - 1)) * dimension;
+    }
+
+    /**
+     * Symmetric per-vector quantization: the largest magnitude component maps to 127.
+     *
+     * @return the scale that turns a code back into the original value
+     */
+    static float quantize(float[] vector, byte[] target, int offset) {
+        float maxAbs = 0f;
+        for (float v : vector) {
+            maxAbs = Math.max(maxAbs, Math.abs(v));
+        }
+        if (maxAbs == 0f) {
+            Arrays.fill(target, offset, offset + vector.length, (byte) 0);
+            return 0f;
+        }
+        float scale = maxAbs / 127f;
+        float inverse = 1f / scale;
+        for (int i = 0; i < vector.length; i++) {
+            target[offset + i] = (byte) Math.max(-127, Math.min(127, Math.round(vector[i] * inverse)));
+        }
+        return scale;
+    }
+}
@@ -0,0 +1,63 @@
+package com.bookingchatbot.rag;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+
+import java.io.Closeable;
+import java.util.List;
+
+/**
+ * Embeds user messages: concurrent queries are batched by a {@link MicroBatchingEmbeddingModel}
+ * and recent ones are cached by an {@link LruEmbeddingModel}.
+ * <p>
+ * One instance is shared by everything that embeds queries, so they batch together and share one
+ * cache. Closing it stops the batching dispatcher; the wrapped model is left open.
+ */
+public class QueryEmbeddingModel implements EmbeddingModel, Closeable {
+
+    private final EmbeddingModel delegate;
+    private final MicroBatchingEmbeddingModel batching;
+
+    /**
+     * @param embeddingModel the model that computes embeddings
+     * @param batchSize      maximum concurrent queries embedded in one call; 1 disables batching
+     * @param cacheSize      number of recent query embeddings kept; 0 disables the cache
+     */
+    public QueryEmbeddingModel(EmbeddingModel embeddingModel, int batchSize, int cacheSize) {
+        EmbeddingModel model = embeddingModel;
+        if (batchSize > 1) {
+            batching = new MicroBatchingEmbeddingModel(model, batchSize);
+            model = batching;
+        } else {
+            batching = null;
+        }
+        if (cacheSize > 0) {
+            model = new LruEmbeddingModel(model, cacheSize);
+        }
+        this.delegate = model;
+    }
+
+    @Override
+    public Response<Embedding> embed(TextSegment textSegment) {
+        return delegate.embed(textSegment);
+    }
+
+    @Override
+    public Response<List<Embedding>> embedAll(List<TextSegment> textSegments) {
+        return delegate.embedAll(textSegments);
+    }
+
+    @Override
+    public int dimension() {
+        return delegate.dimension();
+    }
+
+    @Override
+    public void close() {
+        if (batching != null) {
+            batching.close();
+        }
+    }
+}
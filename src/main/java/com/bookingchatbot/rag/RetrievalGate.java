@@ -0,0 +1,108 @@
+package com.bookingchatbot.rag;
+
+import dev.langchain4j.rag.content.retriever.ContentRetriever;
+import dev.langchain4j.rag.query.Query;
+import dev.langchain4j.rag.query.router.QueryRouter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Query router that only sends a turn to the content retriever when it is likely to need policy
+ * knowledge.
+ * <p>
+ * The decision is a keyword/intent heuristic that costs microseconds: turns mentioning a
+ * policy topic (cancelling, changing, fees, refunds, classes, deadlines...) and open questions
+ * are retrieved for; booking references, names, confirmations and small talk are not. When in
+ * doubt it retrieves, since a missed policy lookup is worse than an unnecessary one.
+ */
+public class RetrievalGate implements QueryRouter {
+
+    private static final Logger logger = LoggerFactory.getLogger(RetrievalGate.class);
+
+    private static final Pattern WORD_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}']+");
+
+    /**
+     * Word prefixes of policy topics covered by the knowledge base.
+     */
+    private static final List<String> POLICY_STEMS = List.of(
+            "cancel", "chang", "modif", "rebook", "reschedul", "refund", "fee", "charg", "cost",
+            "pay", "price", "fare", "penalt", "polic", "term", "rule", "condition", "allow",
+            "permit", "restrict", "eligib", "deadline", "hour", "upgrad", "downgrad", "class",
+            "economy", "business", "baggag", "luggag", "bag", "pet", "delay", "miss", "late",
+            "compensat", "voucher", "credit", "insur"
+    );
+
+    private static final Set<String> QUESTION_WORDS = Set.of(
+            "what", "what's", "how", "when", "why", "which", "can", "could", "may", "is", "are",
+            "do", "does", "will", "would", "should"
+    );
+
+    private static final Set<String> SMALL_TALK = Set.of(
+            "hi", "hello", "hey", "thanks", "thank", "you", "ok", "okay", "yes", "yeah", "yep",
+            "no", "nope", "sure", "please", "go", "ahead", "great", "perfect", "bye", "good",
+            "fine", "that's", "it", "do", "are", "how", "morning", "afternoon", "evening", "cool"
+    );
+
+    private final List<ContentRetriever> retrievers;
+    private final AtomicLong retrieved = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+
+    public RetrievalGate(ContentRetriever contentRetriever) {
+        this.retrievers = List.of(contentRetriever);
+    }
+
+    @Override
+    public Collection<ContentRetriever> route(Query query) {
+        if (needsRetrieval(query.text())) {
+            retrieved.incrementAndGet();
+            return retrievers;
+        }
+        skipped.incrementAndGet();
+        logger.debug("Skipping retrieval for turn: {}", query.text());
+        return List.of();
+    }
+
+    /**
+     * Whether a user message is likely to need knowledge-base content to be answered.
+     */
+    public static boolean needsRetrieval(String message) {
+        String[] words = WORD_SEPARATOR.split(message.toLowerCase(Locale.ROOT).strip());
+        boolean smallTalk = true;
+        for (String word : words) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            for (String stem : POLICY_STEMS) {
+                if (word.startsWith(stem)) {
+                    return true;
+                }
+            }
+            smallTalk &= SMALL_TALK.contains(word);
+        }
+        if (smallTalk) {
+            return false;
+        }
+        return message.contains("?") || QUESTION_WORDS.contains(words[0]);
+    }
+
+    /**
+     * Turns sent to the content retriever.
+     */
+    public long retrieved() {
+        return retrieved.get();
+    }
+
+    /**
+     * Turns kept from the content retriever.
+     */
+    public long skipped() {
+        return skipped.get();
+    }
+}
@@ -0,0 +1,28 @@
+package com.bookingchatbot.rag;
+
+/**
+ * Portable int8 dot product, used when the Vector API is not available.
+ */
+final class ScalarInt8DotProduct implements Int8DotProduct {
+
+    static final ScalarInt8DotProduct INSTANCE = new ScalarInt8DotProduct();
+
+    private ScalarInt8DotProduct() {
+    }
+
+    @Override
+    public int dot(byte[] a, int aOffset, byte[] b, int bOffset, int length) {
+        int s0 = 0;
+        int s1 = 0;
+        int i = 0;
+        int bound = length & ~1;
+        for (; i < bound; i += 2) {
+            s0 += a[aOffset + i] * b[bOffset + i];
+            s1 += a[aOffset + i + 1] * b[bOffset + i + 1];
+        }
+        if (i < length) {
+            s0 += a[aOffset + i] * b[bOffset + i];
+        }
+        return s0 + s1;
+    }
+}
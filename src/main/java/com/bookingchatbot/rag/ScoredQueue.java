@@ -0,0 +1,140 @@
+package com.bookingchatbot.rag;
+
+import java.util.Arrays;
+
+/**
+ * Binary heap of (node, score) pairs stored in parallel primitive arrays.
+ * Used by the vector indexes to avoid boxing candidates on the search path.
+ */
+final class ScoredQueue {
+
+    private final boolean maxOnTop;
+    private int[] nodes;
+    private float[] scores;
+    private int size;
+
+    private ScoredQueue(int capacity, boolean maxOnTop) {
+        this.maxOnTop = maxOnTop;
+        this.nodes = new int[Math.max(capacity, 4)];
+        this.scores = new float[Math.max(capacity, 4)];
+    }
+
+    /**
+     * Queue whose top is the highest score (best candidate first).
+     */
+    static ScoredQueue maxFirst(int capacity) {
+        return new ScoredQueue(capacity, true);
+    }
+
+    /**
+     * Queue whose top is the lowest score (worst kept result first).
+     */
+    static ScoredQueue minFirst(int capacity) {
+        return new ScoredQueue(capacity, false);
+    }
+
+    void push(int node, float score) {
+        if (size == nodes.length) {
+            nodes = Arrays.copyOf(nodes, size * 2);
+            scores = Arrays.copyOf(scores, size * 2);
+        }
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!outranks(score, scores[parent])) {
+                break;
+            }
+            nodes[i] = nodes[parent];
+            scores[i] = scores[parent];
+            i = parent;
+        }
+        nodes[i] = node;
+        scores[i] = score;
+    }
+
+    /**
+     * Pushes the pair, then drops the top element if the queue grew beyond {@code limit}.
+     * On a {@link #minFirst} queue this keeps the {@code limit} best scores seen so far.
+     */
+    void pushBounded(int node, float score, int limit) {
+        if (size < limit) {
+            push(node, score);
+        } else if (outranks(topScore(), score)) {
+            pop();
+            push(node, score);
+        }
+    }
+
+    int topNode() {
+        return nodes[0];
+    }
+
+    float topScore() {
+        return scores[0];
+    }
+
+    void pop() {
+        int lastNode = nodes[--size];
+        float lastScore = scores[size];
+        int i = 0;
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            int right = child + 1;
+            if (right < size && outranks(scores[right], scores[child])) {
+                child = right;
+            }
+            if (!outranks(scores[child], lastScore)) {
+                break;
+            }
+            nodes[i] = nodes[child];
+            scores[i] = scores[child];
+            i = child;
+        }
+        nodes[i] = lastNode;
+        scores[i] = lastScore;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    /**
+     * Drains the queue and returns its nodes ordered from highest to lowest score.
+     * The matching scores are written into {@code scoresOut} when it is not null.
+     */
+    int[] drainDescending(float[] scoresOut) {
+        int n = size;
+        int[] ordered = new int[n];
+        if (maxOnTop) {
+            for (int i = 0; i < n; i++) {
+                if (scoresOut != null) {
+                    scoresOut[i] = topScore();
+                }
+                ordered[i] = topNode();
+                pop();
+            }
+        } else {
+            for (int i = n - 1; i >= 0; i--) {
+                if (scoresOut != null) {
+                    scoresOut[i] = topScore();
+                }
+                ordered[i] = topNode();
+                pop();
+            }
+        }
+        return ordered;
+    }
+
+    private boolean outranks(float a, float b) {
+        return maxOnTop ? a > b : a < b;
+    }
+}
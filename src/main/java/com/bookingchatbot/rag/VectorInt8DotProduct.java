@@ -0,0 +1,48 @@
+package com.bookingchatbot.rag;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD int8 dot product on the incubating Vector API.
+ * <p>
+ * Bytes are widened to ints before multiplying so products cannot overflow; each step loads
+ * as many bytes as the preferred int species has lanes. Only loaded reflectively by
+ * {@link Int8DotProduct#best()} so the class never links without the incubator module.
+ */
+final class VectorInt8DotProduct implements Int8DotProduct {
+
+    private static final VectorSpecies<Integer> INT_SPECIES = IntVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Byte> BYTE_SPECIES;
+
+    static {
+        int lanes = INT_SPECIES.length();
+        if (lanes < 8) {
+            throw new UnsupportedOperationException("Preferred vector shape is too narrow for int8 widening");
+        }
+        BYTE_SPECIES = ByteVector.SPECIES_PREFERRED.withShape(VectorShape.forBitSize(lanes * Byte.SIZE));
+    }
+
+    @Override
+    public int dot(byte[] a, int aOffset, byte[] b, int bOffset, int length) {
+        int step = BYTE_SPECIES.length();
+        int bound = length - (length % step);
+        IntVector acc = IntVector.zero(INT_SPECIES);
+        int i = 0;
+        for (; i < bound; i += step) {
+            IntVector va = (IntVector) ByteVector.fromArray(BYTE_SPECIES, a, aOffset + i)
+                    .convertShape(VectorOperators.B2I, INT_SPECIES, 0);
+            IntVector vb = (IntVector) ByteVector.fromArray(BYTE_SPECIES, b, bOffset + i)
+                    .convertShape(VectorOperators.B2I, INT_SPECIES, 0);
+            acc = acc.add(va.mul(vb));
+        }
+        int sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            sum += a[aOffset + i] * b[bOffset + i];
+        }
+        return sum;
+    }
+}
@@ -11,6 +11,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * In-memory repository for bookings.
@@ -20,7 +21,8 @@ import java.util.Random;
 public class BookingRepository {
 
     private final List<Customer> customers = new ArrayList<>();
-    private final List<Booking> bookings = new ArrayList<>();
+    // Copy-on-write, so lookups never see a booking missing while another one is saved
+    private final List<Booking> bookings = new CopyOnWriteArrayList<>();
 
     public BookingRepository() {
         initializeDemoData();
@@ -73,8 +75,13 @@ public class BookingRepository {
                 .findFirst();
     }
 
-    public Booking save(Booking booking) {
-        bookings.removeIf(b -> b.getBookingNumber().equals(booking.getBookingNumber()));
+    public synchronized Booking save(Booking booking) {
+        for (int i = 0; i < bookings.size(); i++) {
+            if (bookings.get(i).getBookingNumber().equals(booking.getBookingNumber())) {
+                bookings.set(i, booking);
+                return booking;
+            }
+        }
         bookings.add(booking);
         return booking;
     }
@@ -0,0 +1,16 @@
+package com.bookingchatbot.service;
+
+import com.bookingchatbot.dto.BookingDto;
+
+/**
+ * Published after a booking was changed or cancelled.
+ *
+ * @param bookingNumber booking number as stored, e.g. "BK101"
+ * @param operation     {@code change} or {@code cancel}
+ * @param before        the booking before the operation
+ * @param after         the booking after it
+ * @param turn          the chat turn that made the operation, {@code null} for the bookings API
+ */
+public record BookingChangedEvent(String bookingNumber, String operation, BookingDto before, BookingDto after,
+                                  ChatTurn turn) {
+}
@@ -1,13 +1,18 @@
 package com.bookingchatbot.service;
 
+import com.bookingchatbot.diagnostics.BookingOperationEvent;
 import com.bookingchatbot.dto.BookingDto;
 import com.bookingchatbot.exception.BookingNotFoundException;
 import com.bookingchatbot.exception.BookingPolicyViolationException;
 import com.bookingchatbot.model.Booking;
 import com.bookingchatbot.model.BookingStatus;
 import com.bookingchatbot.repository.BookingRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
@@ -17,6 +22,9 @@ import java.util.regex.Pattern;
 /**
  * Service layer for booking operations.
  * Handles business logic and validation.
+ * <p>
+ * Lookups, changes and cancellations are timed by outcome as {@code chatbot.booking.operations}
+ * and emitted as {@link BookingOperationEvent}s.
  */
 @Service
 public class BookingService {
@@ -25,9 +33,17 @@ public class BookingService {
     private static final Pattern AIRPORT_CODE_PATTERN = Pattern.compile("^[A-Z]{3}$");
     
     private final BookingRepository repository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final OperationTimers detailsTimers;
+    private final OperationTimers changeTimers;
+    private final OperationTimers cancelTimers;
 
-    public BookingService(BookingRepository repository) {
+    public BookingService(BookingRepository repository, ApplicationEventPublisher eventPublisher, MeterRegistry meterRegistry) {
         this.repository = repository;
+        this.eventPublisher = eventPublisher;
+        this.detailsTimers = operationTimers(meterRegistry, "details");
+        this.changeTimers = operationTimers(meterRegistry, "change");
+        this.cancelTimers = operationTimers(meterRegistry, "cancel");
     }
 
     public List<BookingDto> getAllBookings() {
@@ -37,8 +53,18 @@ public class BookingService {
     }
 
     public BookingDto getBookingDetails(String bookingNumber, String firstName, String lastName) {
-        Booking booking = findBooking(bookingNumber, firstName, lastName);
-        return toDto(booking);
+        long start = System.nanoTime();
+        BookingOperationEvent event = BookingOperationEvent.begin("details", bookingNumber);
+        try {
+            BookingDto booking = toDto(findBooking(bookingNumber, firstName, lastName));
+            detailsTimers.record(start, null);
+            event.finish("success");
+            return booking;
+        } catch (RuntimeException e) {
+            detailsTimers.record(start, e);
+            event.finish(OperationTimers.outcome(e));
+            throw e;
+        }
     }
 
     public BookingDto changeBooking(
@@ -48,6 +74,65 @@ public class BookingService {
             LocalDate newFlightDate,
             String newDepartureAirport,
             String newArrivalAirport) {
+        return changeBooking(bookingNumber, firstName, lastName, newFlightDate, newDepartureAirport, newArrivalAirport, null);
+    }
+
+    /**
+     * @param turn the chat turn that asked for the change, passed on with its {@link BookingChangedEvent}
+     */
+    public BookingDto changeBooking(
+            String bookingNumber,
+            String firstName,
+            String lastName,
+            LocalDate newFlightDate,
+            String newDepartureAirport,
+            String newArrivalAirport,
+            @Nullable ChatTurn turn) {
+        long start = System.nanoTime();
+        BookingOperationEvent event = BookingOperationEvent.begin("change", bookingNumber);
+        try {
+            BookingDto changed = change(bookingNumber, firstName, lastName,
+                    newFlightDate, newDepartureAirport, newArrivalAirport, turn);
+            changeTimers.record(start, null);
+            event.finish("success");
+            return changed;
+        } catch (RuntimeException e) {
+            changeTimers.record(start, e);
+            event.finish(OperationTimers.outcome(e));
+            throw e;
+        }
+    }
+
+    public BookingDto cancelBooking(String bookingNumber, String firstName, String lastName) {
+        return cancelBooking(bookingNumber, firstName, lastName, null);
+    }
+
+    /**
+     * @param turn the chat turn that asked for the cancellation, passed on with its {@link BookingChangedEvent}
+     */
+    public BookingDto cancelBooking(String bookingNumber, String firstName, String lastName, @Nullable ChatTurn turn) {
+        long start = System.nanoTime();
+        BookingOperationEvent event = BookingOperationEvent.begin("cancel", bookingNumber);
+        try {
+            BookingDto cancelled = cancel(bookingNumber, firstName, lastName, turn);
+            cancelTimers.record(start, null);
+            event.finish("success");
+            return cancelled;
+        } catch (RuntimeException e) {
+            cancelTimers.record(start, e);
+            event.finish(OperationTimers.outcome(e));
+            throw e;
+        }
+    }
+
+    private BookingDto change(
+            String bookingNumber,
+            String firstName,
+            String lastName,
+            LocalDate newFlightDate,
+            String newDepartureAirport,
+            String newArrivalAirport,
+            ChatTurn turn) {
         
         Booking booking = findBooking(bookingNumber, firstName, lastName);
         
@@ -62,17 +147,20 @@ public class BookingService {
         String normalizedDeparture = normalizeAirportCode(newDepartureAirport, "New departure airport");
         String normalizedArrival = normalizeAirportCode(newArrivalAirport, "New arrival airport");
 
+        BookingDto before = toDto(booking);
         booking.setDate(newFlightDate);
         booking.setDepartureAirport(normalizedDeparture);
         booking.setArrivalAirport(normalizedArrival);
         
         repository.save(booking);
-        logger.info("Booking {} changed successfully", bookingNumber);
+        BookingDto after = toDto(booking);
+        eventPublisher.publishEvent(new BookingChangedEvent(booking.getBookingNumber(), "change", before, after, turn));
+        logger.debug("Booking {} changed successfully", bookingNumber);
         
-        return toDto(booking);
+        return after;
     }
 
-    public BookingDto cancelBooking(String bookingNumber, String firstName, String lastName) {
+    private BookingDto cancel(String bookingNumber, String firstName, String lastName, ChatTurn turn) {
         Booking booking = findBooking(bookingNumber, firstName, lastName);
         
         // Validate that cancellation is allowed
@@ -83,11 +171,19 @@ public class BookingService {
             );
         }
 
+        BookingDto before = toDto(booking);
         booking.setStatus(BookingStatus.CANCELLED);
         repository.save(booking);
-        logger.info("Booking {} cancelled successfully", bookingNumber);
+        BookingDto after = toDto(booking);
+        eventPublisher.publishEvent(new BookingChangedEvent(booking.getBookingNumber(), "cancel", before, after, turn));
+        logger.debug("Booking {} cancelled successfully", bookingNumber);
         
-        return toDto(booking);
+        return after;
+    }
+
+    private static OperationTimers operationTimers(MeterRegistry meterRegistry, String operation) {
+        return OperationTimers.register(meterRegistry, "chatbot.booking.operations",
+                "Booking lookups, changes and cancellations", Tags.of("operation", operation));
     }
 
     private Booking findBooking(String bookingNumber, String firstName, String lastName) {
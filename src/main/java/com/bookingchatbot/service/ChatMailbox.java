@@ -0,0 +1,123 @@
+package com.bookingchatbot.service;
+
+import com.bookingchatbot.exception.ChatBusyException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Runs the turns of each chat one after another, without blocking a thread while a turn waits.
+ * <p>
+ * A turn is queued when its stream is subscribed to and starts when the previous turn of the
+ * same chat has finished streaming (or was cancelled); turns of different chats run in
+ * parallel. A chat with {@code maxQueuedTurns} turns running or waiting rejects further ones
+ * with a {@link ChatBusyException}.
+ * <p>
+ * Each turn gets an ID when it starts, which {@link #runningTurn(String)} returns while it runs.
+ * It is the only turn ID: traces, audit records and tool idempotency keys all carry it.
+ */
+@Component
+public class ChatMailbox {
+
+    private final int maxQueuedTurns;
+
+    // Mailboxes are only changed inside compute, which locks per chat
+    private final Map<String, Mailbox> mailboxes = new ConcurrentHashMap<>();
+
+    private final AtomicLong turnIds = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    /**
+     * @param maxQueuedTurns turns per chat that may be running or waiting at once
+     */
+    public ChatMailbox(@Value("${chatbot.chat.max-queued-turns:3}") int maxQueuedTurns) {
+        this.maxQueuedTurns = maxQueuedTurns;
+    }
+
+    /**
+     * Queues {@code turn} behind the turns of {@code chatId} already queued.
+     */
+    public <T> Flux<T> enqueue(String chatId, Supplier<Flux<T>> turn) {
+        return Flux.defer(() -> {
+            Slot slot = new Slot();
+            mailboxes.compute(chatId, (id, mailbox) -> {
+                Mailbox current = mailbox != null ? mailbox : new Mailbox();
+                if (current.turns < maxQueuedTurns) {
+                    current.turns++;
+                    slot.previous = current.tail;
+                    current.tail = slot.done.asMono();
+                }
+                return current;
+            });
+            if (slot.previous == null) {
+                rejected.incrementAndGet();
+                return Flux.error(new ChatBusyException(
+                        "Please wait for the answers to your previous messages before sending more."));
+            }
+            Flux<T> run = Flux.defer(() -> {
+                slot.turnId = turnIds.incrementAndGet();
+                mailboxes.computeIfPresent(chatId, (id, mailbox) -> {
+                    mailbox.runningTurn = slot.turnId;
+                    return mailbox;
+                });
+                return turn.get();
+            });
+            return (slot.previous == Mailbox.IDLE ? run : slot.previous.publishOn(Schedulers.boundedElastic()).thenMany(run))
+                    .doFinally(signal -> {
+                        mailboxes.computeIfPresent(chatId, (id, mailbox) -> {
+                            if (mailbox.runningTurn == slot.turnId) {
+                                mailbox.runningTurn = 0;
+                            }
+                            return --mailbox.turns == 0 ? null : mailbox;
+                        });
+                        slot.done.tryEmitEmpty();
+                    });
+        });
+    }
+
+    /**
+     * The ID of the turn of {@code chatId} that is running, or {@code 0} if none is.
+     */
+    public long runningTurn(String chatId) {
+        Mailbox mailbox = mailboxes.get(chatId);
+        return mailbox != null ? mailbox.runningTurn : 0;
+    }
+
+    /**
+     * Chats with turns running or waiting.
+     */
+    public int activeChats() {
+        return mailboxes.size();
+    }
+
+    /**
+     * Turns rejected because their chat was full.
+     */
+    public long rejected() {
+        return rejected.get();
+    }
+
+    private static class Mailbox {
+
+        static final Mono<Void> IDLE = Mono.empty();
+
+        int turns;
+        Mono<Void> tail = IDLE;
+        volatile long runningTurn;
+    }
+
+    private static class Slot {
+
+        final Sinks.Empty<Void> done = Sinks.empty();
+        Mono<Void> previous;
+        volatile long turnId;
+    }
+}
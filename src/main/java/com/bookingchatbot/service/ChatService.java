@@ -0,0 +1,121 @@
+package com.bookingchatbot.service;
+
+import com.bookingchatbot.ai.AiAssistant;
+import com.bookingchatbot.ai.BookingFastPath;
+import com.bookingchatbot.ai.SemanticAnswerCache;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.memory.ChatMemory;
+import dev.langchain4j.memory.chat.ChatMemoryProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Service layer for chat turns.
+ * Answers unambiguous booking requests through the fast path, repeated policy questions from
+ * the semantic answer cache and everything else from the assistant.
+ */
+@Service
+public class ChatService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChatService.class);
+
+    /**
+     * Splits a reply after each whitespace run, so templated replies stream word by word.
+     */
+    private static final Pattern TOKEN_BOUNDARY = Pattern.compile("(?<=\\s)(?=\\S)");
+
+    private final AiAssistant aiAssistant;
+    private final BookingFastPath bookingFastPath;
+    private final ChatMemoryProvider chatMemoryProvider;
+    private final SemanticAnswerCache answerCache;
+    private final ChatMailbox chatMailbox;
+
+    public ChatService(AiAssistant aiAssistant,
+                       BookingFastPath bookingFastPath,
+                       ChatMemoryProvider chatMemoryProvider,
+                       ObjectProvider<SemanticAnswerCache> answerCache,
+                       ChatMailbox chatMailbox) {
+        this.aiAssistant = aiAssistant;
+        this.bookingFastPath = bookingFastPath;
+        this.chatMemoryProvider = chatMemoryProvider;
+        this.answerCache = answerCache.getIfAvailable();
+        this.chatMailbox = chatMailbox;
+    }
+
+    /**
+     * Streams the answer to {@code message}, token by token.
+     * <p>
+     * Replies of the booking fast path are streamed word by word. Only the first turn of a chat
+     * takes part in caching, and its answer is cached only if it used no tool, so cached answers
+     * never depend on what a customer said before or on their booking. A cache hit is replayed
+     * with the tokens of the original answer and recorded in the chat memory like a model answer.
+     * <p>
+     * Turns of the same chat are answered one after another through the {@link ChatMailbox}, so
+     * each one sees the complete chat memory and pending confirmation of the turn before it.
+     */
+    public Flux<String> chat(String chatId, String message) {
+        return chatMailbox.enqueue(chatId, () -> bookingFastPath.answer(chatId, message)
+                .map(reply -> Flux.fromArray(TOKEN_BOUNDARY.split(reply)))
+                .orElseGet(() -> answer(chatId, message)));
+    }
+
+    private Flux<String> answer(String chatId, String message) {
+        if (answerCache == null || !SemanticAnswerCache.isCacheable(message)) {
+            return aiAssistant.chat(chatId, message);
+        }
+        return Flux.defer(() -> {
+            ChatMemory chatMemory = chatMemoryProvider.get(chatId);
+            if (hasEarlierMessages(chatMemory)) {
+                return aiAssistant.chat(chatId, message);
+            }
+            Optional<List<String>> cached = answerCache.get(message);
+            if (cached.isPresent()) {
+                logger.debug("Answering chat {} from the answer cache", chatId);
+                chatMemory.add(UserMessage.from(message));
+                chatMemory.add(AiMessage.from(String.join("", cached.get())));
+                return Flux.fromIterable(cached.get());
+            }
+            long start = System.nanoTime();
+            List<String> tokens = new ArrayList<>();
+            return aiAssistant.chat(chatId, message)
+                    .doOnNext(tokens::add)
+                    .doOnComplete(() -> {
+                        if (!usedTools(chatMemoryProvider.get(chatId))) {
+                            answerCache.put(message, tokens, Duration.ofNanos(System.nanoTime() - start));
+                        }
+                    });
+        });
+    }
+
+    private static boolean hasEarlierMessages(ChatMemory chatMemory) {
+        for (ChatMessage message : chatMemory.messages()) {
+            if (!(message instanceof SystemMessage)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean usedTools(ChatMemory chatMemory) {
+        for (ChatMessage message : chatMemory.messages()) {
+            if (message instanceof ToolExecutionResultMessage
+                    || message instanceof AiMessage aiMessage && aiMessage.hasToolExecutionRequests()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
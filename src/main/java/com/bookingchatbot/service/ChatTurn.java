@@ -0,0 +1,10 @@
+package com.bookingchatbot.service;
+
+/**
+ * The chat turn a booking operation is made for.
+ *
+ * @param chatId chat of the turn
+ * @param turnId ID the {@link ChatMailbox} gave the turn, {@code 0} if it did not run in the mailbox
+ */
+public record ChatTurn(String chatId, long turnId) {
+}
@@ -0,0 +1,168 @@
+package com.bookingchatbot.service;
+
+import com.bookingchatbot.config.IdempotencyProperties;
+import com.bookingchatbot.exception.BookingNotFoundException;
+import com.bookingchatbot.exception.BookingPolicyViolationException;
+import com.bookingchatbot.exception.IdempotencyKeyReuseException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Runs a booking mutation once per idempotency key and answers retries with the original
+ * result, for {@code ttl} after the first attempt.
+ * <p>
+ * Retries that arrive while the first attempt is still running wait for its result instead of
+ * running the operation again. Business failures (unknown booking, policy violation) are kept
+ * like results, so a retry fails the same way; any other failure is handed to the attempts
+ * waiting for it and then forgotten, so the next retry runs the operation again.
+ * <p>
+ * Beyond {@code maxEntries} keys, the oldest are dropped early, except those still running. A key used again for a different
+ * request is rejected with {@link IdempotencyKeyReuseException}.
+ */
+@Component
+public class IdempotencyCache {
+
+    private final long ttlMillis;
+    private final int maxEntries;
+    private final Clock clock;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    // Oldest first; may still hold entries already replaced by a later attempt
+    private final Queue<Entry> order = new ConcurrentLinkedQueue<>();
+
+    private final AtomicLong executed = new AtomicLong();
+    private final AtomicLong replayed = new AtomicLong();
+
+    @Autowired
+    public IdempotencyCache(IdempotencyProperties properties) {
+        this(properties.ttl(), properties.maxEntries(), Clock.systemUTC());
+    }
+
+    public IdempotencyCache(Duration ttl, int maxEntries, Clock clock) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be positive");
+        }
+        this.ttlMillis = ttl.toMillis();
+        this.maxEntries = maxEntries;
+        this.clock = clock;
+    }
+
+    /**
+     * Runs {@code operation}, unless it already ran or is running for {@code key}; then returns
+     * or throws what that run did.
+     *
+     * @param request identifies what the key was first used for, compared with {@code equals}
+     * @throws IdempotencyKeyReuseException if the key was first used for another request
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String key, Object request, Supplier<T> operation) {
+        long now = clock.millis();
+        Entry created = new Entry(key, request, now);
+        while (true) {
+            Entry existing = entries.putIfAbsent(key, created);
+            if (existing == null) {
+                break;
+            }
+            if (now - existing.createdAt < ttlMillis) {
+                if (!existing.request.equals(request)) {
+                    throw new IdempotencyKeyReuseException(
+                            "Idempotency key " + key + " was already used for a different request.");
+                }
+                replayed.incrementAndGet();
+                return (T) join(existing.result);
+            }
+            if (entries.replace(key, existing, created)) {
+                break;
+            }
+        }
+        order.add(created);
+        trim(now);
+        executed.incrementAndGet();
+        T result;
+        try {
+            result = operation.get();
+        } catch (BookingNotFoundException | BookingPolicyViolationException e) {
+            created.result.completeExceptionally(e);
+            throw e;
+        } catch (RuntimeException e) {
+            entries.remove(key, created);
+            order.remove(created);
+            created.result.completeExceptionally(e);
+            throw e;
+        }
+        created.result.complete(result);
+        return result;
+    }
+
+    /**
+     * Operations run, once per key.
+     */
+    public long executed() {
+        return executed.get();
+    }
+
+    /**
+     * Retries answered with the result of an earlier or running attempt.
+     */
+    public long replayed() {
+        return replayed.get();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Drops expired keys and, while over {@code maxEntries}, the oldest ones. Entries are created
+     * in {@code order}, and all live for {@code ttl}, so the expired ones are at its head.
+     * <p>
+     * Entries still running are kept, so their retries wait for them instead of running the
+     * operation a second time; they are dropped by a later trim.
+     */
+    private void trim(long now) {
+        Iterator<Entry> oldestFirst = order.iterator();
+        while (oldestFirst.hasNext()) {
+            Entry oldest = oldestFirst.next();
+            if (now - oldest.createdAt < ttlMillis && entries.size() <= maxEntries) {
+                return;
+            }
+            if (oldest.result.isDone() && order.remove(oldest)) {
+                entries.remove(oldest.key, oldest);
+            }
+        }
+    }
+
+    private static Object join(CompletableFuture<Object> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    private static final class Entry {
+
+        private final String key;
+        private final Object request;
+        private final long createdAt;
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+
+        private Entry(String key, Object request, long createdAt) {
+            this.key = key;
+            this.request = request;
+            this.createdAt = createdAt;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.bookingchatbot.service;
+
+import com.bookingchatbot.exception.BookingNotFoundException;
+import com.bookingchatbot.exception.BookingPolicyViolationException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of one operation by outcome: {@code success}, {@code not_found} for unknown bookings,
+ * {@code rejected} for policy violations and {@code error} for anything else.
+ * <p>
+ * The timers are registered up front, so recording looks up and allocates nothing.
+ */
+public final class OperationTimers {
+
+    private final Timer success;
+    private final Timer notFound;
+    private final Timer rejected;
+    private final Timer error;
+
+    private OperationTimers(Timer success, Timer notFound, Timer rejected, Timer error) {
+        this.success = success;
+        this.notFound = notFound;
+        this.rejected = rejected;
+        this.error = error;
+    }
+
+    /**
+     * @param tags identify the operation; the {@code outcome} tag is added
+     */
+    public static OperationTimers register(MeterRegistry registry, String name, String description, Tags tags) {
+        return new OperationTimers(
+                timer(registry, name, description, tags.and("outcome", "success")),
+                timer(registry, name, description, tags.and("outcome", "not_found")),
+                timer(registry, name, description, tags.and("outcome", "rejected")),
+                timer(registry, name, description, tags.and("outcome", "error"))
+        );
+    }
+
+    /**
+     * Records an operation started at {@code startNanos}, from {@link System#nanoTime()}.
+     *
+     * @param failure what the operation threw, or {@code null}
+     */
+    public void record(long startNanos, Throwable failure) {
+        Timer timer = switch (outcome(failure)) {
+            case "success" -> success;
+            case "not_found" -> notFound;
+            case "rejected" -> rejected;
+            default -> error;
+        };
+        timer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * The outcome an operation is recorded with.
+     *
+     * @param failure what the operation threw, or {@code null}
+     */
+    public static String outcome(Throwable failure) {
+        if (failure == null) {
+            return "success";
+        } else if (failure instanceof BookingNotFoundException) {
+            return "not_found";
+        } else if (failure instanceof BookingPolicyViolationException) {
+            return "rejected";
+        }
+        return "error";
+    }
+
+    private static Timer timer(MeterRegistry registry, String name, String description, Tags tags) {
+        return Timer.builder(name)
+                .description(description)
+                .tags(tags)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(1_000))
+                .maximumExpectedValue(Duration.ofSeconds(1))
+                .register(registry);
+    }
+}
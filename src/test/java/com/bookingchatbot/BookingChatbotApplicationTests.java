@@ -0,0 +1,36 @@
+package com.bookingchatbot;
+
+import com.bookingchatbot.ai.BookingFastPath;
+import com.bookingchatbot.service.ChatService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Starts the whole application context, with the bundled terms of service ingested by the local
+ * embedding model. No request reaches OpenAI.
+ */
+@SpringBootTest(properties = {
+        "langchain4j.open-ai.streaming-chat-model.api-key=test",
+        "langchain4j.open-ai.embedding-model.api-key=test",
+        "chatbot.rag.embeddings.provider=local",
+        "chatbot.rag.embedding-cache.enabled=false",
+        "chatbot.audit.enabled=false"
+})
+@DisplayName("Booking Chatbot Application Tests")
+class BookingChatbotApplicationTests {
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Test
+    @DisplayName("Should start the application context")
+    void contextLoads() {
+        assertThat(applicationContext.getBean(BookingFastPath.class)).isNotNull();
+        assertThat(applicationContext.getBean(ChatService.class)).isNotNull();
+    }
+}
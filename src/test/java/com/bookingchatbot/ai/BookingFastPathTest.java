@@ -0,0 +1,178 @@
+package com.bookingchatbot.ai;
+
+import com.bookingchatbot.dto.BookingDto;
+import com.bookingchatbot.exception.BookingNotFoundException;
+import com.bookingchatbot.model.BookingStatus;
+import com.bookingchatbot.service.BookingService;
+import com.bookingchatbot.service.ChatMailbox;
+import com.bookingchatbot.service.ChatTurn;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.memory.chat.ChatMemoryProvider;
+import dev.langchain4j.memory.chat.MessageWindowChatMemory;
+import dev.langchain4j.store.memory.chat.InMemoryChatMemoryStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for BookingFastPath.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Booking Fast Path Tests")
+class BookingFastPathTest {
+
+    private static final BookingDto ECONOMY_BOOKING = new BookingDto(
+            "BK101", "John", "Doe", LocalDate.of(2030, 3, 15), BookingStatus.CONFIRMED, "LAX", "JFK", "ECONOMY");
+
+    @Mock
+    private BookingService bookingService;
+
+    private ChatMemoryProvider chatMemoryProvider;
+    private BookingFastPath fastPath;
+
+    @BeforeEach
+    void setUp() {
+        InMemoryChatMemoryStore store = new InMemoryChatMemoryStore();
+        chatMemoryProvider = chatId -> MessageWindowChatMemory.builder()
+                .id(chatId)
+                .maxMessages(20)
+                .chatMemoryStore(store)
+                .build();
+        Clock clock = Clock.fixed(LocalDate.of(2030, 3, 10).atStartOfDay().toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+        fastPath = new BookingFastPath(bookingService, chatMemoryProvider, new ChatMailbox(3), Jackson2ObjectMapperBuilder.json().build(),
+                clock);
+    }
+
+    @Test
+    @DisplayName("Should answer a lookup and record it in the chat memory like a tool call")
+    void shouldAnswerLookup() {
+        // Given
+        when(bookingService.getBookingDetails("BK101", "John", "Doe")).thenReturn(ECONOMY_BOOKING);
+
+        // When
+        var reply = fastPath.answer("chat-1", "Show booking BK101 for John Doe");
+
+        // Then
+        assertThat(reply).contains(
+                "Here are the details of booking BK101 for John Doe: LAX to JFK on 2030-03-15, Economy, confirmed.");
+        List<ChatMessage> messages = chatMemoryProvider.get("chat-1").messages();
+        assertThat(messages).hasSize(4);
+        assertThat(messages.get(0)).isEqualTo(UserMessage.from("Show booking BK101 for John Doe"));
+        assertThat(((AiMessage) messages.get(1)).toolExecutionRequests().get(0).name()).isEqualTo("getBookingDetails");
+        assertThat(((ToolExecutionResultMessage) messages.get(2)).text()).contains("\"bookingNumber\":\"BK101\"");
+        assertThat(messages.get(3)).isEqualTo(AiMessage.from(reply.get()));
+        assertThat(fastPath.served()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should ask before a cancellation with a fee and cancel on yes")
+    void shouldConfirmCancellationWithFee() {
+        // Given
+        when(bookingService.getBookingDetails("BK101", "John", "Doe")).thenReturn(ECONOMY_BOOKING);
+        when(bookingService.cancelBooking("BK101", "John", "Doe", new ChatTurn("chat-1", 0))).thenReturn(new BookingDto(
+                "BK101", "John", "Doe", LocalDate.of(2030, 3, 15), BookingStatus.CANCELLED, "LAX", "JFK", "ECONOMY"));
+
+        // When
+        var question = fastPath.answer("chat-1", "Cancel BK101, John Doe");
+        var confirmation = fastPath.answer("chat-1", "yes please");
+
+        // Then
+        assertThat(question).hasValueSatisfying(text -> assertThat(text).contains("$75 cancellation fee"));
+        assertThat(confirmation).hasValueSatisfying(text -> assertThat(text).contains("BK101 has been cancelled"));
+        verify(bookingService).cancelBooking("BK101", "John", "Doe", new ChatTurn("chat-1", 0));
+    }
+
+    @Test
+    @DisplayName("Should leave the booking unchanged on no")
+    void shouldKeepBookingOnNo() {
+        // Given
+        when(bookingService.getBookingDetails("BK101", "John", "Doe")).thenReturn(ECONOMY_BOOKING);
+        fastPath.answer("chat-1", "Move BK101 John Doe to 2030-04-01");
+
+        // When
+        var reply = fastPath.answer("chat-1", "no");
+
+        // Then
+        assertThat(reply).hasValueSatisfying(text -> assertThat(text).contains("left booking BK101 unchanged"));
+        verify(bookingService, never()).changeBooking(any(), any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Should drop a pending confirmation when the answer is not a clear yes or no")
+    void shouldPassUnclearConfirmation() {
+        // Given
+        when(bookingService.getBookingDetails("BK101", "John", "Doe")).thenReturn(ECONOMY_BOOKING);
+        fastPath.answer("chat-1", "Cancel BK101, John Doe");
+
+        // When
+        var unclear = fastPath.answer("chat-1", "hmm, what would the refund be?");
+        var later = fastPath.answer("chat-1", "yes");
+
+        // Then
+        assertThat(unclear).isEmpty();
+        assertThat(later).isEmpty();
+        verify(bookingService, never()).cancelBooking(any(), any(), any(), any());
+        assertThat(fastPath.passed()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should explain an unknown booking")
+    void shouldExplainUnknownBooking() {
+        // Given
+        when(bookingService.getBookingDetails("BK999", "John", "Doe"))
+                .thenThrow(new BookingNotFoundException("Booking not found"));
+
+        // When
+        var reply = fastPath.answer("chat-1", "show BK999 for John Doe");
+
+        // Then
+        assertThat(reply).hasValueSatisfying(text -> assertThat(text).startsWith("I couldn't find booking BK999"));
+    }
+
+    @Test
+    @DisplayName("Should apologize and record the failed tool call when a booking operation fails")
+    void shouldRecordFailedOperation() {
+        // Given
+        when(bookingService.getBookingDetails("BK101", "John", "Doe"))
+                .thenThrow(new IllegalStateException("repository unavailable"));
+
+        // When
+        var reply = fastPath.answer("chat-1", "show BK101 for John Doe");
+
+        // Then
+        assertThat(reply).hasValueSatisfying(text -> assertThat(text).contains("something went wrong with booking BK101"));
+        List<ChatMessage> messages = chatMemoryProvider.get("chat-1").messages();
+        assertThat(messages).hasSize(4);
+        assertThat(((AiMessage) messages.get(1)).toolExecutionRequests().get(0).name()).isEqualTo("getBookingDetails");
+        assertThat(((ToolExecutionResultMessage) messages.get(2)).text()).isEqualTo("Error: repository unavailable");
+        assertThat(messages.get(3)).isEqualTo(AiMessage.from(reply.get()));
+    }
+
+    @Test
+    @DisplayName("Should leave other messages to the assistant")
+    void shouldPassOtherMessages() {
+        // When
+        var reply = fastPath.answer("chat-1", "What is the baggage allowance?");
+
+        // Then
+        assertThat(reply).isEmpty();
+        assertThat(chatMemoryProvider.get("chat-1").messages()).isEmpty();
+        verifyNoInteractions(bookingService);
+    }
+}
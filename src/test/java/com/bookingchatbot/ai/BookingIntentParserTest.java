@@ -0,0 +1,86 @@
+package com.bookingchatbot.ai;
+
+import com.bookingchatbot.ai.BookingIntentParser.Action;
+import com.bookingchatbot.ai.BookingIntentParser.Intent;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for BookingIntentParser.
+ */
+@DisplayName("Booking Intent Parser Tests")
+class BookingIntentParserTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2030, 3, 10);
+
+    @Test
+    @DisplayName("Should recognize a booking lookup")
+    void shouldRecognizeLookup() {
+        // When
+        var intent = BookingIntentParser.parse("Hi, please show booking bk103 for Sarah Williams", TODAY);
+
+        // Then
+        assertThat(intent).contains(new Intent(Action.LOOKUP, "BK103", "Sarah", "Williams", null, null, null));
+    }
+
+    @Test
+    @DisplayName("Should recognize a cancellation with the name before the booking number")
+    void shouldRecognizeCancellation() {
+        // When
+        var intent = BookingIntentParser.parse("Cancel Jane Smith, BK102", TODAY);
+
+        // Then
+        assertThat(intent).contains(new Intent(Action.CANCEL, "BK102", "Jane", "Smith", null, null, null));
+    }
+
+    @Test
+    @DisplayName("Should recognize a change with date and airports")
+    void shouldRecognizeChange() {
+        // When
+        var iso = BookingIntentParser.parse("Move BK101 John Doe to 2030-07-01 from LAX to JFK", TODAY);
+        var monthDay = BookingIntentParser.parse("Please reschedule BK101 for John Doe to March 2nd", TODAY);
+
+        // Then
+        assertThat(iso).contains(new Intent(Action.CHANGE, "BK101", "John", "Doe",
+                LocalDate.of(2030, 7, 1), "LAX", "JFK"));
+        assertThat(monthDay).contains(new Intent(Action.CHANGE, "BK101", "John", "Doe",
+                LocalDate.of(2031, 3, 2), null, null));
+    }
+
+    @Test
+    @DisplayName("Should leave questions, negations and ambiguous requests to the assistant")
+    void shouldRejectAmbiguousMessages() {
+        // Given
+        List<String> messages = List.of(
+                "What is the cancellation fee for BK101, John Doe?",
+                "Can I cancel BK101 for John Doe?",
+                "Don't cancel BK101 for John Doe",
+                "Cancel BK101 or BK102 for John Doe",
+                "Cancel BK101",
+                "Cancel BK101 for John Doe and Jane Smith",
+                "Show and cancel BK101 for John Doe",
+                "Change BK101 for John Doe to London on 2030-07-01",
+                "Change BK101 for John Doe",
+                "Change BK101 for John Doe to 2030-07-01 or 2030-07-02",
+                "How do I cancel a booking?"
+        );
+
+        // When & Then
+        assertThat(messages).allMatch(message -> BookingIntentParser.parse(message, TODAY).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should read clear yes and no answers only")
+    void shouldParseConfirmations() {
+        // When & Then
+        assertThat(BookingIntentParser.parseConfirmation("Yes, go ahead please")).contains(true);
+        assertThat(BookingIntentParser.parseConfirmation("no thanks")).contains(false);
+        assertThat(BookingIntentParser.parseConfirmation("yes no")).isEmpty();
+        assertThat(BookingIntentParser.parseConfirmation("yes, but to Paris instead")).isEmpty();
+    }
+}
@@ -0,0 +1,109 @@
+package com.bookingchatbot.ai;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for CircuitBreaker.
+ */
+@DisplayName("Circuit Breaker Tests")
+class CircuitBreakerTest {
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2025-01-01T00:00:00Z"));
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker(2, Duration.ofSeconds(30), clock);
+
+    @Test
+    @DisplayName("Should open after consecutive failures and reject calls")
+    void shouldOpenAfterConsecutiveFailures() {
+        // Given
+        circuitBreaker.tryAcquire();
+        circuitBreaker.recordFailure();
+        circuitBreaker.tryAcquire();
+        circuitBreaker.recordSuccess();
+        circuitBreaker.tryAcquire();
+        circuitBreaker.recordFailure();
+        assertThat(circuitBreaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+
+        // When
+        circuitBreaker.tryAcquire();
+        circuitBreaker.recordFailure();
+
+        // Then
+        assertThat(circuitBreaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(circuitBreaker.tryAcquire()).isFalse();
+        assertThat(circuitBreaker.rejected()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should let a single trial call through after the open duration")
+    void shouldTryAgainAfterOpenDuration() {
+        // Given
+        for (int i = 0; i < 2; i++) {
+            circuitBreaker.tryAcquire();
+            circuitBreaker.recordFailure();
+        }
+        clock.instant = clock.instant.plusSeconds(30);
+
+        // When
+        boolean trial = circuitBreaker.tryAcquire();
+        boolean concurrent = circuitBreaker.tryAcquire();
+        circuitBreaker.recordSuccess();
+
+        // Then
+        assertThat(trial).isTrue();
+        assertThat(concurrent).isFalse();
+        assertThat(circuitBreaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(circuitBreaker.tryAcquire()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should open again when the trial call fails")
+    void shouldReopenWhenTrialFails() {
+        // Given
+        for (int i = 0; i < 2; i++) {
+            circuitBreaker.tryAcquire();
+            circuitBreaker.recordFailure();
+        }
+        clock.instant = clock.instant.plusSeconds(30);
+        circuitBreaker.tryAcquire();
+
+        // When
+        circuitBreaker.recordFailure();
+
+        // Then
+        assertThat(circuitBreaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(circuitBreaker.tryAcquire()).isFalse();
+    }
+
+    private static class MutableClock extends Clock {
+
+        Instant instant;
+
+        MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
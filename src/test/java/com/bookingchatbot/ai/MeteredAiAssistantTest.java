@@ -0,0 +1,74 @@
+package com.bookingchatbot.ai;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for MeteredAiAssistant, with stub assistants.
+ */
+@DisplayName("Metered AI Assistant Tests")
+class MeteredAiAssistantTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    @DisplayName("Should record time to first token, duration and tokens of a turn")
+    void shouldRecordTurn() {
+        // Given
+        AiAssistant assistant = new MeteredAiAssistant(
+                (chatId, message) -> Flux.just("Your ", "booking ", "is ", "confirmed.")
+                        .delaySequence(Duration.ofMillis(50)),
+                meterRegistry);
+
+        // When
+        assistant.chat("chat-1", "Is my booking confirmed?").blockLast();
+
+        // Then
+        assertThat(meterRegistry.get("chatbot.turn.first.token").timer().totalTime(TimeUnit.MILLISECONDS))
+                .isGreaterThanOrEqualTo(50);
+        assertThat(meterRegistry.get("chatbot.turn.duration").tag("outcome", "success").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("chatbot.turn.tokens").summary().totalAmount()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("Should record failed and cancelled turns by outcome")
+    void shouldRecordOutcomes() {
+        // Given
+        AiAssistant failing = new MeteredAiAssistant(
+                (chatId, message) -> Flux.error(new IllegalStateException("model down")), meterRegistry);
+        AiAssistant endless = new MeteredAiAssistant(
+                (chatId, message) -> Flux.interval(Duration.ofMillis(1)).map(String::valueOf), meterRegistry);
+
+        // When
+        catchThrowable(() -> failing.chat("chat-1", "Hello").blockLast());
+        endless.chat("chat-2", "Hello").take(3).blockLast();
+
+        // Then
+        assertThat(meterRegistry.get("chatbot.turn.duration").tag("outcome", "error").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("chatbot.turn.duration").tag("outcome", "cancelled").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("chatbot.turn.first.token").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should time each subscription as a turn of its own")
+    void shouldTimeEachSubscription() {
+        // Given
+        AiAssistant assistant = new MeteredAiAssistant((chatId, message) -> Flux.just("Hi"), meterRegistry);
+        Flux<String> answer = assistant.chat("chat-1", "Hello");
+
+        // When
+        answer.blockLast();
+        answer.blockLast();
+
+        // Then
+        assertThat(meterRegistry.get("chatbot.turn.first.token").timer().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("chatbot.turn.tokens").summary().totalAmount()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,117 @@
+package com.bookingchatbot.ai;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.StreamingResponseHandler;
+import dev.langchain4j.model.chat.StreamingChatLanguageModel;
+import dev.langchain4j.model.output.Response;
+import dev.langchain4j.model.output.TokenUsage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for MeteredStreamingChatModel, with a stub model that streams synchronously.
+ */
+@DisplayName("Metered Streaming Chat Model Tests")
+class MeteredStreamingChatModelTest {
+
+    private static final List<ChatMessage> MESSAGES = List.of(UserMessage.from("Hello"));
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    @DisplayName("Should record first token latency, stream rate and token usage of a response")
+    void shouldRecordResponse() {
+        // Given
+        MeteredStreamingChatModel model = new MeteredStreamingChatModel(
+                streaming(new TokenUsage(120, 3), "Hi ", "there", "!"), meterRegistry, "light");
+
+        // When
+        List<String> tokens = new ArrayList<>();
+        model.generate(MESSAGES, handler(tokens));
+
+        // Then
+        assertThat(tokens).containsExactly("Hi ", "there", "!");
+        assertThat(meterRegistry.get("chatbot.model.first.token").tag("model", "light").timer().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get("chatbot.model.stream.rate").summary().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("chatbot.model.response.tokens").tag("type", "input").summary().totalAmount())
+                .isEqualTo(120);
+        assertThat(meterRegistry.get("chatbot.model.response.tokens").tag("type", "output").summary().totalAmount())
+                .isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Should not record a first token for responses that only call tools")
+    void shouldNotRecordFirstTokenOfToolCalls() {
+        // Given
+        MeteredStreamingChatModel model = new MeteredStreamingChatModel(
+                streaming(new TokenUsage(80, 20)), meterRegistry, "primary");
+
+        // When
+        model.generate(MESSAGES, handler(new ArrayList<>()));
+
+        // Then
+        assertThat(meterRegistry.get("chatbot.model.first.token").timer().count()).isZero();
+        assertThat(meterRegistry.get("chatbot.model.stream.rate").summary().count()).isZero();
+        assertThat(meterRegistry.get("chatbot.model.response.tokens").tag("type", "output").summary().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should count failed requests")
+    void shouldCountErrors() {
+        // Given
+        StreamingChatLanguageModel failing = new StreamingChatLanguageModel() {
+            @Override
+            public void generate(List<ChatMessage> messages, StreamingResponseHandler<AiMessage> handler) {
+                handler.onError(new RuntimeException("HTTP 500"));
+            }
+        };
+        MeteredStreamingChatModel model = new MeteredStreamingChatModel(failing, meterRegistry, "primary");
+
+        // When
+        model.generate(MESSAGES, handler(new ArrayList<>()));
+
+        // Then
+        assertThat(meterRegistry.get("chatbot.model.errors").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("chatbot.model.first.token").timer().totalTime(TimeUnit.NANOSECONDS)).isZero();
+    }
+
+    private static StreamingChatLanguageModel streaming(TokenUsage tokenUsage, String... tokens) {
+        return new StreamingChatLanguageModel() {
+            @Override
+            public void generate(List<ChatMessage> messages, StreamingResponseHandler<AiMessage> handler) {
+                for (String token : tokens) {
+                    handler.onNext(token);
+                }
+                handler.onComplete(Response.from(AiMessage.from(String.join("", tokens)), tokenUsage));
+            }
+        };
+    }
+
+    private static StreamingResponseHandler<AiMessage> handler(List<String> tokens) {
+        return new StreamingResponseHandler<>() {
+            @Override
+            public void onNext(String token) {
+                tokens.add(token);
+            }
+
+            @Override
+            public void onComplete(Response<AiMessage> response) {
+            }
+
+            @Override
+            public void onError(Throwable error) {
+            }
+        };
+    }
+}
@@ -0,0 +1,132 @@
+package com.bookingchatbot.ai;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.StreamingResponseHandler;
+import dev.langchain4j.model.chat.StreamingChatLanguageModel;
+import dev.langchain4j.model.output.Response;
+import dev.langchain4j.model.output.TokenUsage;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for ModelRouter, with stub models.
+ */
+@DisplayName("Model Router Tests")
+class ModelRouterTest {
+
+    private final StubModel light = new StubModel("light answer", new TokenUsage(10, 2));
+    private final StubModel large = new StubModel("large answer", new TokenUsage(200, 40));
+    private final ModelRouter router = new ModelRouter(List.of(
+            new ModelRouter.Route("light", 1, light),
+            new ModelRouter.Route("large", Integer.MAX_VALUE, large)
+    ));
+
+    @Test
+    @DisplayName("Should send simple turns to the light model and complex turns to the large one")
+    void shouldRouteByComplexity() {
+        // When
+        String greeting = generate(List.of(UserMessage.from("Hi there")));
+        String policy = generate(List.of(UserMessage.from("What is the cancellation fee for economy?")));
+
+        // Then
+        assertThat(greeting).isEqualTo("light answer");
+        assertThat(policy).isEqualTo("large answer");
+        assertThat(light.requests).hasSize(1);
+        assertThat(large.requests).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("Should count requests, latency and tokens per route")
+    void shouldRecordRouteStatistics() {
+        // When
+        generate(List.of(UserMessage.from("Hi there")));
+        generate(List.of(UserMessage.from("Thanks!")));
+
+        // Then
+        ModelRouter.Route route = router.routes().get(0);
+        assertThat(route.requests()).isEqualTo(2);
+        assertThat(route.completed()).isEqualTo(2);
+        assertThat(route.latency()).isPositive();
+        assertThat(route.inputTokens()).isEqualTo(20);
+        assertThat(route.outputTokens()).isEqualTo(4);
+        assertThat(router.routes().get(1).requests()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should pass tokens on at once and complete responses through the callback executor")
+    void shouldCompleteThroughCallbackExecutor() {
+        // Given
+        List<Runnable> callbacks = new ArrayList<>();
+        ModelRouter router = new ModelRouter(List.of(new ModelRouter.Route("light", Integer.MAX_VALUE, light)), callbacks::add);
+        List<String> events = new ArrayList<>();
+
+        // When
+        router.generate(List.of(UserMessage.from("Hi there")), new StreamingResponseHandler<>() {
+            @Override
+            public void onNext(String token) {
+                events.add(token);
+            }
+
+            @Override
+            public void onComplete(Response<AiMessage> response) {
+                events.add("complete");
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                fail("Unexpected error", error);
+            }
+        });
+
+        // Then
+        assertThat(events).containsExactly("light answer");
+        callbacks.forEach(Runnable::run);
+        assertThat(events).containsExactly("light answer", "complete");
+    }
+
+    private String generate(List<ChatMessage> messages) {
+        StringBuilder answer = new StringBuilder();
+        router.generate(messages, new StreamingResponseHandler<>() {
+            @Override
+            public void onNext(String token) {
+                answer.append(token);
+            }
+
+            @Override
+            public void onComplete(Response<AiMessage> response) {
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                fail("Unexpected error", error);
+            }
+        });
+        return answer.toString();
+    }
+
+    private static class StubModel implements StreamingChatLanguageModel {
+
+        private final String answer;
+        private final TokenUsage tokenUsage;
+        private final List<List<ChatMessage>> requests = new ArrayList<>();
+
+        StubModel(String answer, TokenUsage tokenUsage) {
+            this.answer = answer;
+            this.tokenUsage = tokenUsage;
+        }
+
+        @Override
+        public void generate(List<ChatMessage> messages, StreamingResponseHandler<AiMessage> handler) {
+            requests.add(messages);
+            handler.onNext(answer);
+            handler.onComplete(Response.from(AiMessage.from(answer), tokenUsage));
+        }
+    }
+}
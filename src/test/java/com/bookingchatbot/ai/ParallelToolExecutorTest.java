@@ -0,0 +1,157 @@
+package com.bookingchatbot.ai;
+
+import dev.langchain4j.agent.tool.P;
+import dev.langchain4j.agent.tool.Tool;
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.agent.tool.ToolSpecification;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.memory.chat.ChatMemoryProvider;
+import dev.langchain4j.memory.chat.MessageWindowChatMemory;
+import dev.langchain4j.service.tool.ToolExecutor;
+import dev.langchain4j.store.memory.chat.InMemoryChatMemoryStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for ParallelToolExecutor.
+ */
+@DisplayName("Parallel Tool Executor Tests")
+class ParallelToolExecutorTest {
+
+    private ChatMemoryProvider chatMemoryProvider;
+    private ExecutorService executor;
+    private TestTools testTools;
+    private Map<ToolSpecification, ToolExecutor> tools;
+
+    @BeforeEach
+    void setUp() {
+        InMemoryChatMemoryStore store = new InMemoryChatMemoryStore();
+        chatMemoryProvider = chatId -> MessageWindowChatMemory.builder()
+                .id(chatId)
+                .maxMessages(20)
+                .chatMemoryStore(store)
+                .build();
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        testTools = new TestTools();
+        tools = new ParallelToolExecutor(List.of(testTools), chatMemoryProvider, executor,
+                Jackson2ObjectMapperBuilder.json().build()).tools();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.close();
+    }
+
+    @Test
+    @DisplayName("Should run read-only calls of one response concurrently and return results in order")
+    void shouldRunReadOnlyCallsConcurrently() {
+        // Given
+        List<ToolExecutionRequest> requests = List.of(
+                request("1", "lookup", "BK101"),
+                request("2", "lookup", "BK102")
+        );
+
+        // When
+        List<String> results = respond("chat-1", requests);
+
+        // Then
+        assertThat(results).containsExactly("details of BK101", "details of BK102");
+    }
+
+    @Test
+    @DisplayName("Should run calls involving a modified booking one after another")
+    void shouldSerializeCallsOnModifiedBooking() {
+        // Given
+        List<ToolExecutionRequest> requests = List.of(
+                request("1", "cancel", "BK101"),
+                request("2", "cancel", "bk101"),
+                request("3", "cancel", "BK102")
+        );
+
+        // When
+        List<String> results = respond("chat-1", requests);
+
+        // Then
+        assertThat(results).containsExactly("cancelled BK101", "cancelled bk101", "cancelled BK102");
+        List<String> bk101 = testTools.events.stream().filter(event -> event.toUpperCase().endsWith("BK101")).toList();
+        assertThat(bk101).containsExactly("start BK101", "end BK101", "start bk101", "end bk101");
+    }
+
+    @Test
+    @DisplayName("Should run a single call on the calling thread")
+    void shouldRunSingleCallDirectly() {
+        // Given
+        ToolExecutionRequest request = request("1", "cancel", "BK101");
+
+        // When
+        List<String> results = respond("chat-1", List.of(request));
+
+        // Then
+        assertThat(results).containsExactly("cancelled BK101");
+        assertThat(testTools.threads).containsExactly(Thread.currentThread().getName());
+    }
+
+    /**
+     * Adds a model response with {@code requests} to the chat memory and executes them one after
+     * another, like LangChain4j does.
+     */
+    private List<String> respond(String chatId, List<ToolExecutionRequest> requests) {
+        chatMemoryProvider.get(chatId).add(AiMessage.from(requests));
+        List<String> results = new ArrayList<>();
+        for (ToolExecutionRequest request : requests) {
+            results.add(tools.entrySet().stream()
+                    .filter(tool -> tool.getKey().name().equals(request.name()))
+                    .findFirst()
+                    .orElseThrow()
+                    .getValue()
+                    .execute(request, chatId));
+        }
+        return results;
+    }
+
+    private static ToolExecutionRequest request(String id, String tool, String bookingNumber) {
+        return ToolExecutionRequest.builder()
+                .id(id)
+                .name(tool)
+                .arguments("{\"bookingNumber\": \"" + bookingNumber + "\"}")
+                .build();
+    }
+
+    static class TestTools {
+
+        final CountDownLatch lookupsStarted = new CountDownLatch(2);
+        final List<String> events = Collections.synchronizedList(new ArrayList<>());
+        final List<String> threads = Collections.synchronizedList(new ArrayList<>());
+
+        @Tool("Looks up a booking")
+        @ReadOnlyTool
+        public String lookup(@P("Booking number") String bookingNumber) throws InterruptedException {
+            lookupsStarted.countDown();
+            // Only completes in time when both lookups run at once
+            return lookupsStarted.await(5, TimeUnit.SECONDS) ? "details of " + bookingNumber : "timed out";
+        }
+
+        @Tool("Cancels a booking")
+        public String cancel(@P("Booking number") String bookingNumber) throws InterruptedException {
+            threads.add(Thread.currentThread().getName());
+            events.add("start " + bookingNumber);
+            Thread.sleep(20);
+            events.add("end " + bookingNumber);
+            return "cancelled " + bookingNumber;
+        }
+    }
+}
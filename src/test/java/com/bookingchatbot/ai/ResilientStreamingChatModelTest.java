@@ -0,0 +1,193 @@
+package com.bookingchatbot.ai;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.StreamingResponseHandler;
+import dev.langchain4j.model.chat.StreamingChatLanguageModel;
+import dev.langchain4j.model.output.Response;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for ResilientStreamingChatModel, against a fake model with injected latency.
+ */
+@DisplayName("Resilient Streaming Chat Model Tests")
+class ResilientStreamingChatModelTest {
+
+    private static final List<ChatMessage> MESSAGES = List.of(UserMessage.from("Hello"));
+
+    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2);
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Should stream a fast answer without a backup request")
+    void shouldStreamFastAnswer() {
+        // Given
+        FakeModel fakeModel = new FakeModel(Reply.after(10, "Hi ", "there"));
+        ResilientStreamingChatModel model = resilient(fakeModel, Duration.ofMillis(200), 5);
+
+        // When
+        Recorded recorded = generate(model);
+
+        // Then
+        assertThat(recorded.tokens).containsExactly("Hi ", "there");
+        assertThat(fakeModel.calls).hasValue(1);
+        assertThat(model.hedges()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should send a backup request when the first token is late and stream the first to answer")
+    void shouldHedgeSlowRequest() throws InterruptedException {
+        // Given
+        FakeModel fakeModel = new FakeModel(Reply.after(300, "slow"), Reply.after(10, "fast"));
+        ResilientStreamingChatModel model = resilient(fakeModel, Duration.ofMillis(50), 5);
+
+        // When
+        Recorded recorded = generate(model);
+        Thread.sleep(400);
+
+        // Then
+        assertThat(recorded.tokens).containsExactly("fast");
+        assertThat(recorded.response.join().content().text()).isEqualTo("fast");
+        assertThat(fakeModel.calls).hasValue(2);
+        assertThat(model.hedges()).isEqualTo(1);
+        assertThat(model.hedgeWins()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should retry right away when a request fails before answering")
+    void shouldRetryFailedRequest() {
+        // Given
+        FakeModel fakeModel = new FakeModel(Reply.failing(), Reply.after(10, "ok"));
+        ResilientStreamingChatModel model = resilient(fakeModel, Duration.ofSeconds(5), 5);
+
+        // When
+        Recorded recorded = generate(model);
+
+        // Then
+        assertThat(recorded.tokens).containsExactly("ok");
+        assertThat(model.circuitBreaker().state()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    @DisplayName("Should send the degraded response when nothing answers before the deadline")
+    void shouldDegradeAfterDeadline() {
+        // Given
+        FakeModel fakeModel = new FakeModel(Reply.after(1000, "late"), Reply.after(1000, "late"));
+        ResilientStreamingChatModel model = resilient(fakeModel, Duration.ofMillis(50), 5);
+
+        // When
+        Recorded recorded = generate(model);
+
+        // Then
+        assertThat(recorded.tokens).containsExactly(ResilientStreamingChatModel.DEGRADED_RESPONSE);
+        assertThat(model.timeouts()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should stop calling the model while the circuit is open")
+    void shouldShortCircuitWhenOpen() {
+        // Given
+        FakeModel fakeModel = new FakeModel(Reply.failing(), Reply.failing(), Reply.after(10, "ok"));
+        ResilientStreamingChatModel model = resilient(fakeModel, Duration.ofSeconds(5), 1);
+        generate(model);
+
+        // When
+        Recorded recorded = generate(model);
+
+        // Then
+        assertThat(recorded.tokens).containsExactly(ResilientStreamingChatModel.DEGRADED_RESPONSE);
+        assertThat(fakeModel.calls).hasValue(2);
+        assertThat(model.degraded()).isEqualTo(2);
+    }
+
+    private ResilientStreamingChatModel resilient(FakeModel fakeModel, Duration hedgeDelay, int failureThreshold) {
+        return new ResilientStreamingChatModel(fakeModel, Duration.ofMillis(200), true, 0.95, hedgeDelay,
+                Duration.ofMillis(10), 20, new CircuitBreaker(failureThreshold, Duration.ofMinutes(1), Clock.systemUTC()),
+                scheduler);
+    }
+
+    private static Recorded generate(StreamingChatLanguageModel model) {
+        Recorded recorded = new Recorded();
+        model.generate(MESSAGES, recorded);
+        recorded.response.orTimeout(5, TimeUnit.SECONDS).join();
+        return recorded;
+    }
+
+    private record Reply(long delayMillis, List<String> tokens, boolean fails) {
+
+        static Reply after(long delayMillis, String... tokens) {
+            return new Reply(delayMillis, List.of(tokens), false);
+        }
+
+        static Reply failing() {
+            return new Reply(0, List.of(), true);
+        }
+    }
+
+    /**
+     * Answers its n-th request with the n-th reply, from another thread after the reply's delay.
+     */
+    private class FakeModel implements StreamingChatLanguageModel {
+
+        private final List<Reply> replies;
+        private final AtomicInteger calls = new AtomicInteger();
+
+        FakeModel(Reply... replies) {
+            this.replies = List.of(replies);
+        }
+
+        @Override
+        public void generate(List<ChatMessage> messages, StreamingResponseHandler<AiMessage> handler) {
+            Reply reply = replies.get(calls.getAndIncrement());
+            scheduler.schedule(() -> {
+                if (reply.fails()) {
+                    handler.onError(new RuntimeException("Service unavailable"));
+                    return;
+                }
+                reply.tokens().forEach(handler::onNext);
+                handler.onComplete(Response.from(AiMessage.from(String.join("", reply.tokens()))));
+            }, reply.delayMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static class Recorded implements StreamingResponseHandler<AiMessage> {
+
+        final List<String> tokens = Collections.synchronizedList(new ArrayList<>());
+        final CompletableFuture<Response<AiMessage>> response = new CompletableFuture<>();
+
+        @Override
+        public void onNext(String token) {
+            tokens.add(token);
+        }
+
+        @Override
+        public void onComplete(Response<AiMessage> response) {
+            this.response.complete(response);
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            response.completeExceptionally(error);
+        }
+    }
+}
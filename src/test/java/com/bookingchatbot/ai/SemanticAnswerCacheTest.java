@@ -0,0 +1,126 @@
+package com.bookingchatbot.ai;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for SemanticAnswerCache.
+ */
+@DisplayName("Semantic Answer Cache Tests")
+class SemanticAnswerCacheTest {
+
+    private static final Map<String, float[]> VECTORS = Map.of(
+            "Can I cancel within 48 hours?", new float[]{1f, 0f, 0f},
+            "Is it possible to cancel within 48 hours?", new float[]{0.98f, 0.2f, 0f},
+            "Can I cancel within 24 hours?", new float[]{0.99f, 0.1f, 0f},
+            "How long do refunds take?", new float[]{0.5f, 0.5f, 0.7f}
+    );
+
+    private static final EmbeddingModel EMBEDDING_MODEL = segments -> Response.from(segments.stream()
+            .map(segment -> Embedding.from(VECTORS.get(segment.text())))
+            .toList());
+
+    private static final List<String> ANSWER = List.of("Yes", ", up to ", "48 hours", " before departure.");
+
+    @Test
+    @DisplayName("Should only cache self-contained policy questions")
+    void shouldOnlyCacheSelfContainedPolicyQuestions() {
+        // When & Then
+        assertThat(List.of(
+                "Can I cancel within 48 hours?",
+                "What is the change fee for Premium Economy?",
+                "How long do refunds take?",
+                "Can I bring my dog on the plane?"
+        )).allMatch(SemanticAnswerCache::isCacheable);
+        assertThat(List.of(
+                "Can I cancel BK101?",
+                "I'm John Doe, can I cancel?",
+                "Is there a fee for that?",
+                "Can I do the same for my return flight?",
+                "yes, go ahead",
+                ""
+        )).noneMatch(SemanticAnswerCache::isCacheable);
+    }
+
+    @Test
+    @DisplayName("Should answer similar questions and keep questions with different numbers apart")
+    void shouldAnswerSimilarQuestions() {
+        // Given
+        SemanticAnswerCache cache = new SemanticAnswerCache(
+                EMBEDDING_MODEL, 0.95, Duration.ofHours(1), 10, () -> 0, Clock.systemUTC());
+        cache.put("Can I cancel within 48 hours?", ANSWER, Duration.ofSeconds(3));
+
+        // When & Then
+        assertThat(cache.get("Is it possible to cancel within 48 hours?")).contains(ANSWER);
+        assertThat(cache.get("Can I cancel within 24 hours?")).isEmpty();
+        assertThat(cache.get("How long do refunds take?")).isEmpty();
+        assertThat(cache.hits()).isEqualTo(1);
+        assertThat(cache.misses()).isEqualTo(2);
+        assertThat(cache.savedTime()).isEqualTo(Duration.ofSeconds(3));
+    }
+
+    @Test
+    @DisplayName("Should drop answers after the TTL and when the knowledge base changes")
+    void shouldExpireAnswers() {
+        // Given
+        MutableClock clock = new MutableClock(Instant.parse("2025-01-01T00:00:00Z"));
+        AtomicLong contentVersion = new AtomicLong();
+        SemanticAnswerCache cache = new SemanticAnswerCache(
+                EMBEDDING_MODEL, 0.95, Duration.ofHours(1), 10, contentVersion::get, clock);
+        cache.put("Can I cancel within 48 hours?", ANSWER, Duration.ofSeconds(3));
+        cache.put("How long do refunds take?", List.of("7 business days."), Duration.ofSeconds(2));
+
+        // When
+        clock.instant = clock.instant.plus(Duration.ofMinutes(59));
+        Optional<List<String>> beforeTtl = cache.get("Can I cancel within 48 hours?");
+        clock.instant = clock.instant.plus(Duration.ofMinutes(2));
+        Optional<List<String>> afterTtl = cache.get("Can I cancel within 48 hours?");
+        cache.put("Can I cancel within 48 hours?", ANSWER, Duration.ofSeconds(3));
+        contentVersion.incrementAndGet();
+
+        // Then
+        assertThat(beforeTtl).contains(ANSWER);
+        assertThat(afterTtl).isEmpty();
+        assertThat(cache.get("Can I cancel within 48 hours?")).isEmpty();
+        assertThat(cache.size()).isZero();
+    }
+
+    private static class MutableClock extends Clock {
+
+        Instant instant;
+
+        MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
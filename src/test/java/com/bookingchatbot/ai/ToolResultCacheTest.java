@@ -0,0 +1,114 @@
+package com.bookingchatbot.ai;
+
+import com.bookingchatbot.dto.BookingDto;
+import com.bookingchatbot.exception.BookingNotFoundException;
+import com.bookingchatbot.model.BookingStatus;
+import com.bookingchatbot.service.BookingChangedEvent;
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.memory.chat.ChatMemoryProvider;
+import dev.langchain4j.memory.chat.MessageWindowChatMemory;
+import dev.langchain4j.model.openai.OpenAiTokenizer;
+import dev.langchain4j.store.memory.chat.InMemoryChatMemoryStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for ToolResultCache.
+ */
+@DisplayName("Tool Result Cache Tests")
+class ToolResultCacheTest {
+
+    private static final BookingDto BOOKING = new BookingDto(
+            "BK101", "John", "Doe", LocalDate.of(2030, 1, 1), BookingStatus.CONFIRMED, "LAX", "JFK", "Economy");
+
+    private ChatMemoryProvider chatMemoryProvider;
+    private ToolResultCache cache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        InMemoryChatMemoryStore store = new InMemoryChatMemoryStore();
+        chatMemoryProvider = chatId -> MessageWindowChatMemory.builder()
+                .id(chatId)
+                .maxMessages(20)
+                .chatMemoryStore(store)
+                .build();
+        cache = new ToolResultCache(chatMemoryProvider, new OpenAiTokenizer(), Jackson2ObjectMapperBuilder.json().build());
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    @DisplayName("Should load a booking once per chat and refer back to a result still in memory")
+    void shouldMemoizeLookups() {
+        // Given
+        String first = lookup("chat-1", "BK101", "John", "Doe", this::loadBooking);
+        String repeated = lookup("chat-1", "bk101", "JOHN", "doe", this::loadBooking);
+        chatMemoryProvider.get("chat-1").add(ToolExecutionResultMessage.from(
+                ToolExecutionRequest.builder().id("1").name("getBookingDetails").build(), first));
+
+        // When
+        String referred = lookup("chat-1", "BK101", "John", "Doe", this::loadBooking);
+        lookup("chat-2", "BK101", "John", "Doe", this::loadBooking);
+
+        // Then
+        assertThat(loads).hasValue(2);
+        assertThat(first).contains("\"bookingNumber\"").isEqualTo(repeated);
+        assertThat(referred).contains("has not changed");
+        assertThat(cache.calls()).isEqualTo(4);
+        assertThat(cache.avoidedCalls()).isEqualTo(2);
+        assertThat(cache.avoidedTokens()).isPositive();
+    }
+
+    @Test
+    @DisplayName("Should reload a booking in every chat after it changed")
+    void shouldInvalidateOnBookingChange() {
+        // Given
+        lookup("chat-1", "BK101", "John", "Doe", this::loadBooking);
+        lookup("chat-2", "BK101", "John", "Doe", this::loadBooking);
+
+        // When
+        cache.onBookingChanged(new BookingChangedEvent("BK101", "change", null, null, null));
+        lookup("chat-1", "BK101", "John", "Doe", this::loadBooking);
+        lookup("chat-2", "BK101", "John", "Doe", this::loadBooking);
+
+        // Then
+        assertThat(loads).hasValue(4);
+        assertThat(cache.avoidedCalls()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should not cache failed lookups")
+    void shouldNotCacheFailures() {
+        // Given
+        Supplier<Object> notFound = () -> {
+            loads.incrementAndGet();
+            throw new BookingNotFoundException("Booking not found for booking number: BK999");
+        };
+
+        // When & Then
+        assertThatThrownBy(() -> lookup("chat-1", "BK999", "John", "Doe", notFound))
+                .isInstanceOf(BookingNotFoundException.class);
+        assertThatThrownBy(() -> lookup("chat-1", "BK999", "John", "Doe", notFound))
+                .isInstanceOf(BookingNotFoundException.class);
+        assertThat(loads).hasValue(2);
+    }
+
+    private String lookup(String chatId, String bookingNumber, String firstName, String lastName, Supplier<Object> loader) {
+        return cache.get(chatId, "getBookingDetails", bookingNumber, List.of(firstName, lastName), loader);
+    }
+
+    private BookingDto loadBooking() {
+        loads.incrementAndGet();
+        return BOOKING;
+    }
+}
@@ -0,0 +1,75 @@
+package com.bookingchatbot.ai;
+
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.data.message.UserMessage;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for TurnComplexity.
+ */
+@DisplayName("Turn Complexity Tests")
+class TurnComplexityTest {
+
+    @Test
+    @DisplayName("Should score greetings, names and booking numbers as simple")
+    void shouldScoreSimpleTurnsLow() {
+        // Given
+        List<String> turns = List.of("Hi there", "Thanks!", "BK101, John Doe", "My name is Jane Smith");
+
+        // When & Then
+        assertThat(turns).allMatch(turn -> TurnComplexity.score(List.of(UserMessage.from(turn))) == 0);
+    }
+
+    @Test
+    @DisplayName("Should score policy questions and booking changes as complex")
+    void shouldScorePolicyAndChangesHigh() {
+        // Given
+        List<String> turns = List.of(
+                "Can I bring my dog on the plane?",
+                "I want to cancel my booking",
+                "Summer trip\n\nAnswer using the following information:\nPets travel in the cabin."
+        );
+
+        // When & Then
+        assertThat(turns).allMatch(turn -> TurnComplexity.score(List.of(UserMessage.from(turn))) >= 2);
+    }
+
+    @Test
+    @DisplayName("Should score a confirmation of a booking change as complex")
+    void shouldScoreConfirmationOfChangeHigh() {
+        // Given
+        var afterFeeQuestion = List.of(
+                UserMessage.from("cancel it"),
+                AiMessage.from("Cancelling has a $75 fee. Shall I cancel it?"),
+                UserMessage.from("yes"));
+        var afterSmallTalk = List.of(
+                UserMessage.from("hi"),
+                AiMessage.from("Hello! How can I help you today?"),
+                UserMessage.from("yes"));
+
+        // When & Then
+        assertThat(TurnComplexity.score(afterFeeQuestion)).isGreaterThanOrEqualTo(2);
+        assertThat(TurnComplexity.score(afterSmallTalk)).isZero();
+    }
+
+    @Test
+    @DisplayName("Should score requests after tool results by the turn's user message")
+    void shouldScoreToolFollowUpsLikeTheirTurn() {
+        // Given
+        ToolExecutionRequest request = ToolExecutionRequest.builder().id("1").name("getBookingDetails").arguments("{}").build();
+        var turn = List.of(
+                UserMessage.from("BK101, John Doe"),
+                AiMessage.from(request),
+                ToolExecutionResultMessage.from(request, "{\"bookingStatus\": \"CONFIRMED\"}"));
+
+        // When & Then
+        assertThat(TurnComplexity.score(turn)).isZero();
+    }
+}
@@ -0,0 +1,181 @@
+package com.bookingchatbot.audit;
+
+import com.bookingchatbot.dto.BookingDto;
+import com.bookingchatbot.model.BookingStatus;
+import com.bookingchatbot.service.BookingChangedEvent;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for AuditLog, writing to a temporary directory.
+ */
+@DisplayName("Audit Log Tests")
+class AuditLogTest {
+
+    private final ObjectMapper objectMapper = JsonMapper.builder()
+            .findAndAddModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+    private final Clock clock = Clock.fixed(Instant.parse("2026-05-01T10:15:30Z"), ZoneOffset.UTC);
+
+    @TempDir
+    Path directory;
+
+    private AuditLog auditLog;
+
+    @AfterEach
+    void tearDown() {
+        auditLog.close();
+    }
+
+    @Test
+    @DisplayName("Should write booking changes as one JSON line each, with the booking before and after")
+    void shouldWriteBookingChanges() throws IOException {
+        // Given
+        auditLog = open(1 << 20, 5, 16);
+        BookingAuditor auditor = new BookingAuditor(auditLog, clock);
+        BookingDto before = booking(BookingStatus.CONFIRMED);
+        BookingDto after = booking(BookingStatus.CANCELLED);
+
+        // When
+        auditor.onBookingChanged(new BookingChangedEvent("BK101", "cancel", before, after, null));
+        auditor.onBookingChanged(new BookingChangedEvent("BK101", "change", after, after, null));
+        auditLog.close();
+
+        // Then
+        List<String> lines = Files.readAllLines(auditLog.current());
+        assertThat(lines).hasSize(2);
+        JsonNode first = objectMapper.readTree(lines.get(0));
+        assertThat(first.get("at").asText()).isEqualTo("2026-05-01T10:15:30Z");
+        assertThat(first.get("operation").asText()).isEqualTo("cancel");
+        assertThat(first.get("bookingNumber").asText()).isEqualTo("BK101");
+        assertThat(first.has("chatId")).isFalse();
+        assertThat(first.get("before").get("bookingStatus").asText()).isEqualTo("CONFIRMED");
+        assertThat(first.get("after").get("bookingStatus").asText()).isEqualTo("CANCELLED");
+        assertThat(first.get("after").get("date").asText()).isEqualTo("2026-06-01");
+        assertThat(objectMapper.readTree(lines.get(1)).get("operation").asText()).isEqualTo("change");
+        assertThat(auditLog.written()).isEqualTo(2);
+        assertThat(auditLog.pending()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should rotate the file before it grows past the maximum size and keep the newest rotated files")
+    void shouldRotateFiles() throws IOException {
+        // Given: about 14 bytes per line, so 3 lines per file
+        auditLog = open(50, 2, 16);
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            auditLog.append(Map.of("sequence", i));
+        }
+        auditLog.close();
+
+        // Then
+        assertThat(auditLog.rotations()).isEqualTo(3);
+        List<Path> rotated;
+        try (Stream<Path> files = Files.list(directory)) {
+            rotated = files.filter(path -> !path.equals(auditLog.current())).sorted().toList();
+        }
+        assertThat(rotated).hasSize(2);
+        List<String> lines = new ArrayList<>();
+        for (Path path : rotated) {
+            assertThat(Files.size(path)).isLessThanOrEqualTo(50);
+            lines.addAll(Files.readAllLines(path));
+        }
+        lines.addAll(Files.readAllLines(auditLog.current()));
+        assertThat(lines).containsExactly(
+                "{\"sequence\":3}", "{\"sequence\":4}", "{\"sequence\":5}",
+                "{\"sequence\":6}", "{\"sequence\":7}", "{\"sequence\":8}",
+                "{\"sequence\":9}"
+        );
+    }
+
+    @Test
+    @DisplayName("Should write every record of concurrent producers once when the buffer fills up")
+    void shouldWriteConcurrentRecords() throws Exception {
+        // Given
+        auditLog = open(1 << 20, 5, 4);
+        int producers = 4;
+        int perProducer = 2_000;
+        List<Thread> threads = new ArrayList<>();
+
+        // When
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            threads.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    auditLog.append(Map.of("producer", producer, "sequence", i));
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        auditLog.close();
+
+        // Then
+        List<String> lines = Files.readAllLines(auditLog.current());
+        assertThat(lines).hasSize(producers * perProducer);
+        Set<String> distinct = new HashSet<>(lines);
+        assertThat(distinct).hasSize(producers * perProducer);
+        int[] last = {-1, -1, -1, -1};
+        for (String line : lines) {
+            JsonNode record = objectMapper.readTree(line);
+            int producer = record.get("producer").asInt();
+            int sequence = record.get("sequence").asInt();
+            assertThat(sequence).isGreaterThan(last[producer]);
+            last[producer] = sequence;
+        }
+        assertThat(auditLog.batches()).isLessThan(producers * perProducer);
+    }
+
+    @Test
+    @DisplayName("Should append to an existing file and refuse records once closed")
+    void shouldAppendToExistingFile() throws IOException {
+        // Given
+        auditLog = open(1 << 20, 5, 16);
+        auditLog.append(Map.of("sequence", 1));
+        auditLog.close();
+        auditLog = open(1 << 20, 5, 16);
+
+        // When
+        auditLog.append(Map.of("sequence", 2));
+        auditLog.close();
+
+        // Then
+        assertThat(Files.readAllLines(auditLog.current())).containsExactly("{\"sequence\":1}", "{\"sequence\":2}");
+        assertThatThrownBy(() -> auditLog.append(Map.of("sequence", 3)))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private AuditLog open(long maxFileSize, int maxFiles, int capacity) {
+        return new AuditLog(objectMapper.writer(), directory, "bookings", maxFileSize, maxFiles,
+                capacity, 8, false, Clock.systemUTC());
+    }
+
+    private static BookingDto booking(BookingStatus status) {
+        return new BookingDto("BK101", "John", "Doe", LocalDate.of(2026, 6, 1), status, "LAX", "JFK", "Economy");
+    }
+}
@@ -0,0 +1,110 @@
+package com.bookingchatbot.audit;
+
+import com.bookingchatbot.ai.BookingFastPath;
+import com.bookingchatbot.model.Booking;
+import com.bookingchatbot.model.BookingClass;
+import com.bookingchatbot.model.BookingStatus;
+import com.bookingchatbot.model.Customer;
+import com.bookingchatbot.repository.BookingRepository;
+import com.bookingchatbot.service.BookingChangedEvent;
+import com.bookingchatbot.service.BookingService;
+import com.bookingchatbot.service.ChatMailbox;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.langchain4j.memory.chat.ChatMemoryProvider;
+import dev.langchain4j.memory.chat.MessageWindowChatMemory;
+import dev.langchain4j.store.memory.chat.InMemoryChatMemoryStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Tests for BookingAuditor, with booking operations made by the fast path and the bookings API.
+ */
+@DisplayName("Booking Auditor Tests")
+class BookingAuditorTest {
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    @TempDir
+    Path directory;
+
+    private AuditLog auditLog;
+    private BookingService bookingService;
+    private ChatMailbox chatMailbox;
+    private BookingFastPath fastPath;
+
+    @BeforeEach
+    void setUp() {
+        auditLog = new AuditLog(objectMapper.writer(), directory, "bookings", 1 << 20, 2, 16, 8, false, Clock.systemUTC());
+        BookingAuditor auditor = new BookingAuditor(auditLog, Clock.systemUTC());
+        BookingRepository repository = new BookingRepository();
+        for (String bookingNumber : List.of("BK901", "BK902")) {
+            repository.save(new Booking(bookingNumber, LocalDate.now().plusDays(30), new Customer("John", "Doe"),
+                    BookingStatus.CONFIRMED, "LAX", "JFK", BookingClass.BUSINESS));
+        }
+        bookingService = new BookingService(repository,
+                event -> auditor.onBookingChanged((BookingChangedEvent) event), new SimpleMeterRegistry());
+        InMemoryChatMemoryStore store = new InMemoryChatMemoryStore();
+        ChatMemoryProvider chatMemoryProvider = chatId -> MessageWindowChatMemory.builder()
+                .id(chatId)
+                .maxMessages(20)
+                .chatMemoryStore(store)
+                .build();
+        chatMailbox = new ChatMailbox(3);
+        fastPath = new BookingFastPath(bookingService, chatMemoryProvider, chatMailbox, objectMapper);
+    }
+
+    @AfterEach
+    void tearDown() {
+        auditLog.close();
+    }
+
+    @Test
+    @DisplayName("Should audit a fast path cancellation with its chat and turn, and an API one without")
+    void shouldAuditChatAndTurn() throws IOException {
+        // Given
+        AtomicLong confirmingTurn = new AtomicLong();
+        turn("chat-1", "Cancel BK901, John Doe", new AtomicLong());
+
+        // When
+        List<String> reply = turn("chat-1", "yes", confirmingTurn);
+        bookingService.cancelBooking("BK902", "John", "Doe");
+        auditLog.close();
+
+        // Then
+        assertThat(reply).singleElement().asString().contains("BK901 has been cancelled");
+        List<String> lines = Files.readAllLines(auditLog.current());
+        assertThat(lines).hasSize(2);
+        JsonNode fastPathCancel = objectMapper.readTree(lines.get(0));
+        assertThat(fastPathCancel.get("bookingNumber").asText()).isEqualTo("BK901");
+        assertThat(fastPathCancel.get("chatId").asText()).isEqualTo("chat-1");
+        assertThat(fastPathCancel.get("turnId").asLong()).isPositive().isEqualTo(confirmingTurn.get());
+        JsonNode apiCancel = objectMapper.readTree(lines.get(1));
+        assertThat(apiCancel.get("bookingNumber").asText()).isEqualTo("BK902");
+        assertThat(apiCancel.has("chatId")).isFalse();
+        assertThat(apiCancel.has("turnId")).isFalse();
+    }
+
+    private List<String> turn(String chatId, String message, AtomicLong turnId) {
+        return chatMailbox.enqueue(chatId, () -> {
+            turnId.set(chatMailbox.runningTurn(chatId));
+            return Flux.fromStream(fastPath.answer(chatId, message).stream());
+        }).collectList().block();
+    }
+}
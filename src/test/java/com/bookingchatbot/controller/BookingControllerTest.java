@@ -1,29 +1,41 @@
 package com.bookingchatbot.controller;
 
+import com.bookingchatbot.config.IdempotencyProperties;
+import com.bookingchatbot.dto.BookingChangeRequestDto;
 import com.bookingchatbot.dto.BookingDto;
 import com.bookingchatbot.model.BookingStatus;
 import com.bookingchatbot.service.BookingService;
+import com.bookingchatbot.service.IdempotencyCache;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.time.LocalDate;
 import java.util.List;
 
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 /**
  * Integration tests for BookingController.
  */
 @WebMvcTest(BookingController.class)
+@Import(IdempotencyCache.class)
+@EnableConfigurationProperties(IdempotencyProperties.class)
 @DisplayName("Booking Controller Tests")
 class BookingControllerTest {
 
@@ -107,5 +119,60 @@ class BookingControllerTest {
                 .andExpect(jsonPath("$").isArray())
                 .andExpect(jsonPath("$.length()").value(0));
     }
-}
 
+    @Test
+    @DisplayName("DELETE /api/bookings/{bookingNumber} should cancel once per idempotency key")
+    void shouldCancelOncePerIdempotencyKey() throws Exception {
+        // Given
+        BookingDto cancelled = new BookingDto(
+                "BK101", "John", "Doe",
+                LocalDate.now().plusDays(5),
+                BookingStatus.CANCELLED,
+                "LAX", "JFK", "ECONOMY"
+        );
+        when(bookingService.cancelBooking("BK101", "John", "Doe")).thenReturn(cancelled);
+
+        // When & Then
+        for (int attempt = 0; attempt < 3; attempt++) {
+            mockMvc.perform(delete("/api/bookings/BK101")
+                            .param("firstName", "John")
+                            .param("lastName", "Doe")
+                            .header("Idempotency-Key", "cancel-BK101-1"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.bookingStatus").value("CANCELLED"));
+        }
+        mockMvc.perform(delete("/api/bookings/BK101")
+                        .param("firstName", "John")
+                        .param("lastName", "Doe"))
+                .andExpect(status().isOk());
+        verify(bookingService, times(2)).cancelBooking("BK101", "John", "Doe");
+    }
+
+    @Test
+    @DisplayName("PUT /api/bookings/{bookingNumber} should reject an idempotency key reused for another change")
+    void shouldRejectReusedIdempotencyKey() throws Exception {
+        // Given
+        LocalDate newDate = LocalDate.now().plusDays(10);
+        BookingDto changed = new BookingDto(
+                "BK101", "John", "Doe", newDate,
+                BookingStatus.CONFIRMED,
+                "SFO", "BOS", "ECONOMY"
+        );
+        when(bookingService.changeBooking("BK101", "John", "Doe", newDate, "SFO", "BOS")).thenReturn(changed);
+        mockMvc.perform(put("/api/bookings/BK101")
+                        .header("Idempotency-Key", "change-BK101-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new BookingChangeRequestDto(
+                                "BK101", "John", "Doe", newDate, "SFO", "BOS"))))
+                .andExpect(status().isOk());
+
+        // When & Then
+        mockMvc.perform(put("/api/bookings/BK101")
+                        .header("Idempotency-Key", "change-BK101-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new BookingChangeRequestDto(
+                                "BK101", "John", "Doe", newDate, "SFO", "LAX"))))
+                .andExpect(status().isUnprocessableEntity());
+        verify(bookingService, times(1)).changeBooking(anyString(), anyString(), anyString(), any(), anyString(), anyString());
+    }
+}
@@ -0,0 +1,247 @@
+package com.bookingchatbot.controller;
+
+import com.bookingchatbot.config.StreamProperties;
+import com.bookingchatbot.dto.ChatMessageDto;
+import com.bookingchatbot.exception.GlobalExceptionHandler;
+import com.bookingchatbot.exception.TurnExpiredException;
+import com.bookingchatbot.service.ChatMailbox;
+import com.bookingchatbot.service.ChatService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.reactivestreams.Subscription;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import reactor.core.Disposable;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Unit tests for ChatController.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Chat Controller Tests")
+class ChatControllerTest {
+
+    @Mock
+    private ChatService chatService;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private ChatController chatController;
+    private TurnReplayBuffer turnReplayBuffer;
+    private AtomicInteger upstreamCalls;
+
+    @BeforeEach
+    void setUp() {
+        upstreamCalls = new AtomicInteger();
+        lenient().when(chatService.chat(anyString(), anyString())).thenAnswer(invocation -> Flux.defer(() -> {
+            upstreamCalls.incrementAndGet();
+            return Flux.just("Hello ", "from ", invocation.<String>getArgument(1)).delayElements(Duration.ofMillis(100));
+        }));
+        StreamProperties properties = new StreamProperties(64, Duration.ofMillis(20), 16384,
+                new StreamProperties.Replay(Duration.ofMinutes(5), 100, 100_000),
+                new StreamProperties.Socket(8, 65536, Duration.ofSeconds(10)));
+        turnReplayBuffer = new TurnReplayBuffer(properties);
+        chatController = new ChatController(chatService, new TokenCoalescer(properties), turnReplayBuffer, objectMapper);
+    }
+
+    @Test
+    @DisplayName("Should make one upstream call for concurrent identical requests")
+    void shouldCoalesceConcurrentIdenticalRequests() throws Exception {
+        // Given
+        int requests = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<String>>> answers = new ArrayList<>();
+
+        // When
+        try (ExecutorService executor = Executors.newFixedThreadPool(requests)) {
+            for (int i = 0; i < requests; i++) {
+                answers.add(executor.submit(() -> {
+                    start.await();
+                    return data(chatController.chat(new ChatMessageDto("chat-1", "BK101"), null));
+                }));
+            }
+            start.countDown();
+
+            // Then
+            for (Future<List<String>> answer : answers) {
+                assertThat(answer.get()).containsExactly("Hello ", "from ", "BK101");
+            }
+        }
+        assertThat(upstreamCalls).hasValue(1);
+        assertThat(turnReplayBuffer.coalesced()).isEqualTo(requests - 1);
+    }
+
+    @Test
+    @DisplayName("Should replay tokens already streamed to a late duplicate")
+    void shouldReplayToLateDuplicate() throws InterruptedException {
+        // Given
+        List<ServerSentEvent<String>> firstEvents = new CopyOnWriteArrayList<>();
+        chatController.chat(new ChatMessageDto("chat-1", "hi"), null).subscribe(firstEvents::add);
+        await(() -> !firstEvents.isEmpty());
+
+        // When
+        List<String> late = data(chatController.chat(new ChatMessageDto("chat-1", "hi"), null));
+
+        // Then
+        assertThat(late).containsExactly("Hello ", "from ", "hi");
+        assertThat(upstreamCalls).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("Should call upstream again for different or repeated requests")
+    void shouldNotCoalesceDistinctOrSequentialRequests() {
+        // When
+        Flux.merge(
+                chatController.chat(new ChatMessageDto("chat-1", "hi"), null),
+                chatController.chat(new ChatMessageDto("chat-2", "hi"), null),
+                chatController.chat(new ChatMessageDto("chat-1", "hello"), null)
+        ).blockLast();
+        chatController.chat(new ChatMessageDto("chat-1", "hi"), null).blockLast();
+
+        // Then
+        assertThat(upstreamCalls).hasValue(4);
+        verify(chatService, times(2)).chat("chat-1", "hi");
+    }
+
+    @Test
+    @DisplayName("Should resume an answer from the last event ID without calling upstream again")
+    void shouldResumeFromLastEventId() throws InterruptedException {
+        // Given
+        ChatMessageDto request = new ChatMessageDto("chat-1", "hi");
+        List<ServerSentEvent<String>> received = new CopyOnWriteArrayList<>();
+        Disposable connection = chatController.chat(request, null).subscribe(received::add);
+        await(() -> !received.isEmpty());
+        connection.dispose();
+
+        // When
+        List<ServerSentEvent<String>> resumed = chatController.chat(request, received.get(0).id()).collectList().block();
+
+        // Then
+        assertThat(received.get(0).data()).isEqualTo("Hello ");
+        assertThat(resumed).extracting(ServerSentEvent::data).containsExactly("from ", "hi");
+        assertThat(resumed.get(resumed.size() - 1).id()).endsWith(":" + "Hello from hi".length());
+        assertThat(upstreamCalls).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("Should refuse to resume an unknown answer or another chat's answer")
+    void shouldRefuseToResumeUnknownAnswer() {
+        // Given
+        String eventId = chatController.chat(new ChatMessageDto("chat-1", "hi"), null).blockFirst().id();
+
+        // When & Then
+        assertThatThrownBy(() -> chatController.chat(new ChatMessageDto("chat-1", "hi"), "unknown:0"))
+                .isInstanceOf(TurnExpiredException.class);
+        assertThatThrownBy(() -> chatController.chat(new ChatMessageDto("chat-2", "hi"), eventId))
+                .isInstanceOf(TurnExpiredException.class);
+        assertThatThrownBy(() -> chatController.chat(new ChatMessageDto("chat-1", "hi"), eventId + "0"))
+                .isInstanceOf(TurnExpiredException.class);
+    }
+
+    @Test
+    @DisplayName("Should answer 429 before streaming when the chat's mailbox is full")
+    void shouldRejectMessageToFullChat() throws Exception {
+        // Given
+        ChatMailbox chatMailbox = new ChatMailbox(3);
+        doAnswer(invocation -> chatMailbox.enqueue(invocation.getArgument(0), Flux::<String>never))
+                .when(chatService).chat(anyString(), anyString());
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(chatController)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+        for (int i = 0; i < 3; i++) {
+            chatController.chat(new ChatMessageDto("chat-1", "message " + i), null);
+        }
+
+        // When & Then
+        mockMvc.perform(post("/api/chat")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.TEXT_EVENT_STREAM, MediaType.APPLICATION_JSON)
+                        .content("{\"chatId\":\"chat-1\",\"message\":\"one more\"}"))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isTooManyRequests())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.status").value(429))
+                .andExpect(jsonPath("$.message").value(
+                        "Please wait for the answers to your previous messages before sending more."));
+        mockMvc.perform(post("/api/chat")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.TEXT_EVENT_STREAM, MediaType.APPLICATION_JSON)
+                        .content("{\"chatId\":\"chat-2\",\"message\":\"hi\"}"))
+                .andExpect(request().asyncStarted());
+    }
+
+    @Test
+    @DisplayName("Should end the stream of a client that fell too far behind with an error event")
+    void shouldSendErrorEventToSlowClient() throws InterruptedException, JsonProcessingException {
+        // Given
+        StreamProperties properties = new StreamProperties(64, Duration.ofMillis(20), 10,
+                new StreamProperties.Replay(Duration.ofMinutes(5), 100, 100_000),
+                new StreamProperties.Socket(8, 65536, Duration.ofSeconds(10)));
+        ChatController controller = new ChatController(chatService, new TokenCoalescer(properties), turnReplayBuffer, objectMapper);
+        List<ServerSentEvent<String>> events = new CopyOnWriteArrayList<>();
+        BaseSubscriber<ServerSentEvent<String>> client = new BaseSubscriber<>() {
+            @Override
+            protected void hookOnSubscribe(Subscription subscription) {
+                request(1);
+            }
+
+            @Override
+            protected void hookOnNext(ServerSentEvent<String> event) {
+                events.add(event);
+            }
+        };
+
+        // When
+        controller.chat(new ChatMessageDto("chat-1", "a message longer than the buffer"), null).subscribe(client);
+        await(() -> !events.isEmpty());
+        Thread.sleep(300);
+        client.request(1);
+
+        // Then
+        await(() -> events.size() == 2);
+        assertThat(events.get(0).data()).isEqualTo("Hello ");
+        assertThat(events.get(1).event()).isEqualTo("error");
+        assertThat(events.get(1).id()).isNull();
+        assertThat(objectMapper.readTree(events.get(1).data()).get("status").asInt()).isEqualTo(503);
+        assertThat(client.isDisposed()).isTrue();
+    }
+
+    private static List<String> data(Flux<ServerSentEvent<String>> events) {
+        return events.map(ServerSentEvent::data).collectList().block();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.bookingchatbot.controller;
+
+import com.bookingchatbot.config.StreamProperties;
+import com.bookingchatbot.dto.ChatSocketFrameDto;
+import com.bookingchatbot.service.ChatService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for ChatWebSocketHandler.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Chat WebSocket Handler Tests")
+class ChatWebSocketHandlerTest {
+
+    @Mock
+    private ChatService chatService;
+
+    @Mock
+    private WebSocketSession session;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<ChatSocketFrameDto> frames = new CopyOnWriteArrayList<>();
+    private ChatWebSocketHandler handler;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        lenient().when(chatService.chat(anyString(), anyString())).thenAnswer(invocation ->
+                Flux.just("Hello ", "from ", invocation.<String>getArgument(0)).delayElements(Duration.ofMillis(100)));
+        Map<String, Object> attributes = new ConcurrentHashMap<>();
+        when(session.getAttributes()).thenReturn(attributes);
+        lenient().doAnswer(invocation -> frames.add(objectMapper.readValue(
+                invocation.<WebSocketMessage<String>>getArgument(0).getPayload(), ChatSocketFrameDto.class)))
+                .when(session).sendMessage(any());
+        StreamProperties properties = new StreamProperties(64, Duration.ofMillis(20), 16384,
+                new StreamProperties.Replay(Duration.ofMinutes(5), 100, 100_000),
+                new StreamProperties.Socket(2, 65536, Duration.ofSeconds(10)));
+        handler = new ChatWebSocketHandler(chatService, new TokenCoalescer(properties), new TurnReplayBuffer(properties),
+                objectMapper, properties);
+        handler.afterConnectionEstablished(session);
+    }
+
+    @Test
+    @DisplayName("Should stream answers of several chats at once on one connection")
+    void shouldStreamSeveralChatsOnOneConnection() throws Exception {
+        // When
+        send("{\"id\":\"1\",\"chatId\":\"chat-1\",\"message\":\"hi\"}");
+        send("{\"id\":\"2\",\"chatId\":\"chat-2\",\"message\":\"hi\"}");
+
+        // Then
+        await(() -> frames.stream().filter(frame -> Boolean.TRUE.equals(frame.end())).count() == 2);
+        assertThat(text("1")).isEqualTo("Hello from chat-1");
+        assertThat(text("2")).isEqualTo("Hello from chat-2");
+        assertThat(frames).filteredOn(frame -> frame.text() != null).allMatch(frame -> frame.at() != null);
+        assertThat(handler.turns()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should refuse more turns at once than the connection allows")
+    void shouldRefuseTooManyTurns() throws Exception {
+        // When
+        send("{\"id\":\"1\",\"chatId\":\"chat-1\",\"message\":\"hi\"}");
+        send("{\"id\":\"2\",\"chatId\":\"chat-2\",\"message\":\"hi\"}");
+        send("{\"id\":\"3\",\"chatId\":\"chat-3\",\"message\":\"hi\"}");
+
+        // Then
+        assertThat(frames).filteredOn(frame -> "3".equals(frame.id()))
+                .singleElement()
+                .satisfies(frame -> {
+                    assertThat(frame.status()).isEqualTo(429);
+                    assertThat(frame.end()).isTrue();
+                });
+        verify(chatService, never()).chat("chat-3", "hi");
+    }
+
+    @Test
+    @DisplayName("Should stop streaming a cancelled turn")
+    void shouldStopStreamingCancelledTurn() throws Exception {
+        // Given
+        send("{\"id\":\"1\",\"chatId\":\"chat-1\",\"message\":\"hi\"}");
+        await(() -> !frames.isEmpty());
+
+        // When
+        send("{\"id\":\"1\",\"cancel\":true}");
+        Thread.sleep(400);
+
+        // Then
+        assertThat(frames).extracting(ChatSocketFrameDto::text).containsExactly("Hello ", null);
+        assertThat(frames.get(1).end()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should resume an answer from the last position received")
+    void shouldResumeFromLastPosition() throws Exception {
+        // Given
+        send("{\"id\":\"1\",\"chatId\":\"chat-1\",\"message\":\"hi\"}");
+        await(() -> !frames.isEmpty());
+        String at = frames.get(0).at();
+        handler.afterConnectionClosed(session, CloseStatus.GOING_AWAY);
+        frames.clear();
+
+        // When
+        handler.afterConnectionEstablished(session);
+        send("{\"id\":\"1\",\"chatId\":\"chat-1\",\"resume\":\"" + at + "\"}");
+
+        // Then
+        await(() -> frames.stream().anyMatch(frame -> Boolean.TRUE.equals(frame.end())));
+        assertThat(text("1")).isEqualTo("from chat-1");
+        verify(chatService, times(1)).chat("chat-1", "hi");
+    }
+
+    @Test
+    @DisplayName("Should answer a malformed or incomplete message with an error frame")
+    void shouldRejectMalformedMessages() throws Exception {
+        // When
+        send("not json");
+        send("{\"id\":\"1\",\"chatId\":\"chat-1\"}");
+
+        // Then
+        assertThat(frames).extracting(ChatSocketFrameDto::status).containsExactly(400, 400);
+        assertThat(handler.connections()).isEqualTo(1);
+        verifyNoInteractions(chatService);
+    }
+
+    private void send(String payload) throws Exception {
+        handler.handleMessage(session, new TextMessage(payload));
+    }
+
+    private String text(String id) {
+        StringBuilder text = new StringBuilder();
+        frames.stream()
+                .filter(frame -> id.equals(frame.id()) && frame.text() != null)
+                .forEach(frame -> text.append(frame.text()));
+        return text.toString();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.bookingchatbot.controller;
+
+import com.bookingchatbot.config.StreamProperties;
+import com.bookingchatbot.exception.SlowClientException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for TokenCoalescer.
+ */
+@DisplayName("Token Coalescer Tests")
+class TokenCoalescerTest {
+
+    private TokenCoalescer tokenCoalescer;
+
+    @BeforeEach
+    void setUp() {
+        tokenCoalescer = new TokenCoalescer(new StreamProperties(10, Duration.ofMillis(50), 40,
+                new StreamProperties.Replay(Duration.ofMinutes(5), 100, 100_000),
+                new StreamProperties.Socket(8, 65536, Duration.ofSeconds(10))));
+    }
+
+    @Test
+    @DisplayName("Should send the first token at once and join later tokens up to the frame size")
+    void shouldJoinTokensUpToFrameSize() throws InterruptedException {
+        // Given
+        Sinks.Many<String> tokens = Sinks.many().unicast().onBackpressureBuffer();
+        List<String> frames = new CopyOnWriteArrayList<>();
+        tokenCoalescer.coalesce(tokens.asFlux()).subscribe(frames::add);
+
+        // When
+        tokens.tryEmitNext("Hello");
+        await(() -> frames.size() == 1);
+        for (String token : List.of(" there", ", how", " can", " I", " help")) {
+            tokens.tryEmitNext(token);
+        }
+
+        // Then
+        assertThat(frames).containsExactly("Hello", " there, how", " can I help");
+        assertThat(tokenCoalescer.tokens()).isEqualTo(6);
+    }
+
+    @Test
+    @DisplayName("Should send buffered tokens after the frame delay")
+    void shouldSendBufferedTokensAfterFrameDelay() throws InterruptedException {
+        // Given
+        Sinks.Many<String> tokens = Sinks.many().unicast().onBackpressureBuffer();
+        List<String> frames = new CopyOnWriteArrayList<>();
+        tokenCoalescer.coalesce(tokens.asFlux()).subscribe(frames::add);
+        tokens.tryEmitNext("Hi");
+
+        // When
+        tokens.tryEmitNext(" you");
+        tokens.tryEmitNext("!");
+
+        // Then
+        assertThat(frames).containsExactly("Hi");
+        await(() -> frames.size() == 2);
+        assertThat(frames).containsExactly("Hi", " you!");
+    }
+
+    @Test
+    @DisplayName("Should send the rest of the answer when the stream completes")
+    void shouldSendRestOnComplete() {
+        // Given
+        List<String> tokens = List.of("Your ", "booking ", "BK101 ", "has ", "been ", "cancelled.");
+
+        // When
+        List<String> frames = tokenCoalescer.coalesce(Flux.fromIterable(tokens)).collectList().block(Duration.ofSeconds(1));
+
+        // Then
+        assertThat(frames).hasSizeLessThan(tokens.size());
+        assertThat(String.join("", frames)).isEqualTo(String.join("", tokens));
+        assertThat(tokenCoalescer.frames()).isEqualTo(frames.size());
+    }
+
+    @Test
+    @DisplayName("Should join tokens into the pending frame while the client is not reading")
+    void shouldJoinTokensWhileClientIsNotReading() throws InterruptedException {
+        // Given
+        Sinks.Many<String> tokens = Sinks.many().unicast().onBackpressureBuffer();
+        ManualSubscriber client = new ManualSubscriber();
+        tokenCoalescer.coalesce(tokens.asFlux()).subscribe(client);
+        client.request(1);
+        tokens.tryEmitNext("A");
+
+        // When
+        for (int i = 0; i < 3; i++) {
+            tokens.tryEmitNext("bcdefghijk");
+        }
+        tokens.tryEmitComplete();
+        Thread.sleep(100);
+        client.request(1);
+
+        // Then
+        await(() -> client.completed.get());
+        assertThat(client.frames).containsExactly("A", "bcdefghijk".repeat(3));
+    }
+
+    @Test
+    @DisplayName("Should drop a client that falls too far behind and cancel the answer")
+    void shouldDropSlowClient() throws InterruptedException {
+        // Given
+        AtomicBoolean cancelled = new AtomicBoolean();
+        Sinks.Many<String> tokens = Sinks.many().unicast().onBackpressureBuffer();
+        ManualSubscriber client = new ManualSubscriber();
+        tokenCoalescer.coalesce(tokens.asFlux().doOnCancel(() -> cancelled.set(true))).subscribe(client);
+        client.request(1);
+        tokens.tryEmitNext("A");
+
+        // When
+        for (int i = 0; i < 5; i++) {
+            tokens.tryEmitNext("bcdefghijk");
+        }
+
+        // Then
+        await(() -> client.error.get() != null);
+        assertThat(client.error.get()).isInstanceOf(SlowClientException.class);
+        assertThat(cancelled).isTrue();
+        assertThat(tokenCoalescer.dropped()).isEqualTo(1);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * Subscriber that only asks for frames when told to, like a client that reads slowly.
+     */
+    private static class ManualSubscriber extends BaseSubscriber<String> {
+
+        final List<String> frames = new CopyOnWriteArrayList<>();
+        final AtomicBoolean completed = new AtomicBoolean();
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+
+        @Override
+        protected void hookOnSubscribe(Subscription subscription) {
+        }
+
+        @Override
+        protected void hookOnNext(String frame) {
+            frames.add(frame);
+        }
+
+        @Override
+        protected void hookOnComplete() {
+            completed.set(true);
+        }
+
+        @Override
+        protected void hookOnError(Throwable throwable) {
+            error.set(throwable);
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.bookingchatbot.controller;
+
+import com.bookingchatbot.config.StreamProperties;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for TurnReplayBuffer.
+ */
+@DisplayName("Turn Replay Buffer Tests")
+class TurnReplayBufferTest {
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2025-01-01T00:00:00Z"));
+
+    private TurnReplayBuffer buffer(int maxTurns, long maxCharacters) {
+        return new TurnReplayBuffer(new StreamProperties(64, Duration.ofMillis(20), 16384,
+                new StreamProperties.Replay(Duration.ofMinutes(5), maxTurns, maxCharacters),
+                new StreamProperties.Socket(8, 65536, Duration.ofSeconds(10))), clock);
+    }
+
+    @Test
+    @DisplayName("Should replay the answer from an offset and then follow new tokens")
+    void shouldReplayFromOffsetThenFollow() {
+        // Given
+        TurnReplayBuffer buffer = buffer(100, 100_000);
+        Sinks.Many<String> tokens = Sinks.many().unicast().onBackpressureBuffer();
+        TurnReplayBuffer.Turn turn = buffer.start("key", "chat-1", tokens::asFlux);
+        tokens.tryEmitNext("Your ");
+        tokens.tryEmitNext("booking ");
+        List<String> resumed = new CopyOnWriteArrayList<>();
+        turn.from(5).subscribe(resumed::add);
+
+        // When
+        tokens.tryEmitNext("is confirmed.");
+        tokens.tryEmitComplete();
+
+        // Then
+        assertThat(resumed).containsExactly("booking ", "is confirmed.");
+        assertThat(turn.from(0).collectList().block()).containsExactly("Your booking is confirmed.");
+        assertThat(buffer.characters()).isEqualTo("Your booking is confirmed.".length());
+    }
+
+    @Test
+    @DisplayName("Should keep generating the answer when every reader has gone")
+    void shouldKeepGeneratingWithoutReaders() {
+        // Given
+        TurnReplayBuffer buffer = buffer(100, 100_000);
+        Sinks.Many<String> tokens = Sinks.many().unicast().onBackpressureBuffer();
+        TurnReplayBuffer.Turn turn = buffer.start("key", "chat-1", tokens::asFlux);
+        Disposable reader = turn.from(0).subscribe();
+        tokens.tryEmitNext("Hello ");
+
+        // When
+        reader.dispose();
+        tokens.tryEmitNext("again");
+        tokens.tryEmitComplete();
+
+        // Then
+        assertThat(turn.from(6).collectList().block()).containsExactly("again");
+    }
+
+    @Test
+    @DisplayName("Should share a running turn with a request of the same key")
+    void shouldShareRunningTurn() {
+        // Given
+        TurnReplayBuffer buffer = buffer(100, 100_000);
+        Sinks.Many<String> tokens = Sinks.many().unicast().onBackpressureBuffer();
+        TurnReplayBuffer.Turn first = buffer.start("key", "chat-1", tokens::asFlux);
+
+        // When
+        TurnReplayBuffer.Turn second = buffer.start("key", "chat-1", () -> Flux.just("other"));
+        tokens.tryEmitComplete();
+        TurnReplayBuffer.Turn third = buffer.start("key", "chat-1", () -> Flux.just("other"));
+
+        // Then
+        assertThat(second).isSameAs(first);
+        assertThat(third).isNotSameAs(first);
+        assertThat(buffer.coalesced()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should only find a turn for the chat it belongs to until it expires")
+    void shouldExpireFinishedTurns() {
+        // Given
+        TurnReplayBuffer buffer = buffer(100, 100_000);
+        TurnReplayBuffer.Turn turn = buffer.start("key", "chat-1", () -> Flux.just("Done."));
+
+        // When & Then
+        assertThat(buffer.find(turn.id(), "chat-1")).containsSame(turn);
+        assertThat(buffer.find(turn.id(), "chat-2")).isEmpty();
+
+        clock.instant = clock.instant.plus(Duration.ofMinutes(5));
+        assertThat(buffer.find(turn.id(), "chat-1")).isEmpty();
+        assertThat(buffer.characters()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should drop the oldest finished turns beyond the limits but never a running one")
+    void shouldBoundMemory() {
+        // Given
+        TurnReplayBuffer buffer = buffer(2, 20);
+        Sinks.Many<String> running = Sinks.many().unicast().onBackpressureBuffer();
+        TurnReplayBuffer.Turn longTurn = buffer.start("long", "chat-1", running::asFlux);
+        running.tryEmitNext("still answering");
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            buffer.start("key-" + i, "chat-" + i, () -> Flux.just("0123456789"));
+        }
+
+        // Then
+        assertThat(buffer.find(longTurn.id(), "chat-1")).containsSame(longTurn);
+        assertThat(buffer.turns()).isLessThanOrEqualTo(3);
+        assertThat(buffer.characters()).isLessThanOrEqualTo("still answering".length() + 2 * 10L);
+    }
+
+    @Test
+    @DisplayName("Should keep starting turns while a reader of another turn is blocked")
+    void shouldNotWaitForBlockedReader() throws Exception {
+        // Given
+        TurnReplayBuffer buffer = buffer(100, 100_000);
+        Sinks.Many<String> tokens = Sinks.many().unicast().onBackpressureBuffer();
+        TurnReplayBuffer.Turn slow = buffer.start("slow", "chat-1", tokens::asFlux);
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        slow.from(0).subscribe(token -> {
+            writing.countDown();
+            awaitUninterruptibly(release);
+        });
+        Thread.ofVirtual().start(() -> tokens.tryEmitNext("Hello"));
+        writing.await();
+
+        try {
+            // When
+            TurnReplayBuffer.Turn other = CompletableFuture
+                    .supplyAsync(() -> buffer.start("other", "chat-2", () -> Flux.just("Done.")))
+                    .get(1, TimeUnit.SECONDS);
+
+            // Then
+            assertThat(other.from(0).collectList().block(Duration.ofSeconds(1))).containsExactly("Done.");
+            assertThat(buffer.find(slow.id(), "chat-1")).containsSame(slow);
+            assertThat(slow.length()).isEqualTo(5);
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    @DisplayName("Should not pin a virtual thread while a reader blocks on a token")
+    void shouldNotPinVirtualThreadWhileReaderBlocks() throws InterruptedException {
+        // Given
+        TurnReplayBuffer buffer = buffer(100, 100_000);
+        List<RecordedEvent> pinned = new CopyOnWriteArrayList<>();
+        CountDownLatch answered = new CountDownLatch(1);
+        Sinks.Many<String> tokens = Sinks.many().unicast().onBackpressureBuffer();
+        TurnReplayBuffer.Turn turn = buffer.start("key", "chat-1", tokens::asFlux);
+        turn.from(0).subscribe(token -> sleep(Duration.ofMillis(20)), error -> { }, answered::countDown);
+
+        // When
+        try (RecordingStream recording = new RecordingStream()) {
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO);
+            recording.onEvent("jdk.VirtualThreadPinned", pinned::add);
+            recording.startAsync();
+            Thread.ofVirtual().start(() -> {
+                tokens.tryEmitNext("Hello ");
+                tokens.tryEmitNext("there");
+                tokens.tryEmitComplete();
+            });
+            answered.await();
+            // Events are delivered about once a second
+            CountDownLatch flushed = new CountDownLatch(1);
+            recording.onFlush(flushed::countDown);
+            flushed.await();
+        }
+
+        // Then
+        assertThat(pinned).isEmpty();
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class MutableClock extends Clock {
+
+        Instant instant;
+
+        MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
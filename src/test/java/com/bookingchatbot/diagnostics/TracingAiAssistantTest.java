@@ -0,0 +1,119 @@
+package com.bookingchatbot.diagnostics;
+
+import com.bookingchatbot.ai.AiAssistant;
+import com.bookingchatbot.dto.TurnTraceDto;
+import com.bookingchatbot.service.ChatMailbox;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.memory.ChatMemory;
+import dev.langchain4j.memory.chat.MessageWindowChatMemory;
+import dev.langchain4j.model.StreamingResponseHandler;
+import dev.langchain4j.model.chat.StreamingChatLanguageModel;
+import dev.langchain4j.model.output.Response;
+import dev.langchain4j.model.output.TokenUsage;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for TracingAiAssistant, with stub assistants that use a traced memory and model
+ * the way LangChain4j does.
+ */
+@DisplayName("Tracing AI Assistant Tests")
+class TracingAiAssistantTest {
+
+    private final TurnTracer tracer = new TurnTracer(8);
+    private final ChatMailbox chatMailbox = new ChatMailbox(3);
+
+    @Test
+    @DisplayName("Should trace the memory and model stages, first token and tokens of a turn")
+    void shouldTraceTurn() {
+        // Given
+        StreamingChatLanguageModel model = new TracingStreamingChatModel(new StreamingChatLanguageModel() {
+            @Override
+            public void generate(List<ChatMessage> messages, StreamingResponseHandler<AiMessage> handler) {
+                handler.onNext("Your ");
+                handler.onNext("booking");
+                handler.onComplete(Response.from(AiMessage.from("Your booking"), new TokenUsage(120, 2)));
+            }
+        }, tracer);
+        AtomicLong mailboxTurn = new AtomicLong();
+        AiAssistant assistant = new TracingAiAssistant((chatId, message) -> {
+            mailboxTurn.set(chatMailbox.runningTurn(chatId));
+            ChatMemory memory = new TracingChatMemory(
+                    MessageWindowChatMemory.builder().id(chatId).maxMessages(10).build(), tracer);
+            memory.add(UserMessage.from(message));
+            return Flux.create(sink -> model.generate(memory.messages(), new StreamingResponseHandler<>() {
+                @Override
+                public void onNext(String token) {
+                    sink.next(token);
+                }
+
+                @Override
+                public void onComplete(Response<AiMessage> response) {
+                    sink.complete();
+                }
+
+                @Override
+                public void onError(Throwable error) {
+                    sink.error(error);
+                }
+            }));
+        }, tracer, chatMailbox);
+
+        // When
+        chatMailbox.enqueue("chat-1", () -> assistant.chat("chat-1", "Show my booking")).blockLast();
+
+        // Then
+        TurnTraceDto turn = tracer.recent("chat-1").get(0);
+        assertThat(turn.turnId()).isPositive().isEqualTo(mailboxTurn.get());
+        assertThat(turn.outcome()).isEqualTo("success");
+        assertThat(turn.tokens()).isEqualTo(2);
+        assertThat(turn.firstTokenMillis()).isNotNull();
+        assertThat(turn.durationMillis()).isGreaterThanOrEqualTo(turn.firstTokenMillis());
+        assertThat(turn.stages())
+                .extracting(TurnTraceDto.StageDto::stage)
+                .containsExactly("memory", "memory", "model");
+        assertThat(turn.stages().get(0).detail()).isEqualTo("add user");
+        assertThat(turn.stages().get(1).detail()).isEqualTo("read 1 messages");
+        assertThat(turn.stages().get(2).detail())
+                .startsWith("first token after ")
+                .endsWith("120 input and 2 output tokens");
+        assertThat(tracer.running("chat-1")).isNull();
+    }
+
+    @Test
+    @DisplayName("Should record failed and cancelled turns by outcome")
+    void shouldRecordOutcomes() {
+        // Given
+        AiAssistant failing = new TracingAiAssistant(
+                (chatId, message) -> Flux.error(new IllegalStateException("model down")), tracer, chatMailbox);
+        AiAssistant throwing = new TracingAiAssistant((chatId, message) -> {
+            throw new IllegalStateException("memory unavailable");
+        }, tracer, chatMailbox);
+        AiAssistant endless = new TracingAiAssistant(
+                (chatId, message) -> Flux.interval(Duration.ofMillis(1)).map(String::valueOf), tracer, chatMailbox);
+
+        // When
+        catchThrowable(() -> chatMailbox.enqueue("chat-1", () -> failing.chat("chat-1", "Hello")).blockLast());
+        catchThrowable(() -> chatMailbox.enqueue("chat-2", () -> throwing.chat("chat-2", "Hello")).blockLast());
+        chatMailbox.enqueue("chat-3", () -> endless.chat("chat-3", "Hello")).take(3).blockLast();
+
+        // Then
+        assertThat(tracer.recent(null))
+                .extracting(TurnTraceDto::turnId, TurnTraceDto::outcome)
+                .containsExactly(
+                        tuple(3L, "cancelled"),
+                        tuple(2L, "error"),
+                        tuple(1L, "error")
+                );
+        assertThat(TurnTracer.current()).isNull();
+    }
+}
@@ -0,0 +1,149 @@
+package com.bookingchatbot.diagnostics;
+
+import com.bookingchatbot.dto.TurnTraceDto;
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.agent.tool.ToolSpecification;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.memory.ChatMemory;
+import dev.langchain4j.memory.chat.MessageWindowChatMemory;
+import dev.langchain4j.service.tool.ToolExecutor;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for TurnTracer.
+ */
+@DisplayName("Turn Tracer Tests")
+class TurnTracerTest {
+
+    private final TurnTracer tracer = new TurnTracer(4);
+
+    @Test
+    @DisplayName("Should keep the most recent turns, latest first")
+    void shouldKeepRecentTurns() {
+        // Given
+        for (int i = 1; i <= 6; i++) {
+            tracer.finish(tracer.start("chat-" + (i % 2), i), i, "success");
+        }
+        tracer.start("chat-1", 7);
+
+        // When
+        List<TurnTraceDto> all = tracer.recent(null);
+        List<TurnTraceDto> chat1 = tracer.recent("chat-1");
+
+        // Then
+        assertThat(all).extracting(TurnTraceDto::turnId).containsExactly(7L, 6L, 5L, 4L, 3L);
+        assertThat(all.get(0).outcome()).isEqualTo("running");
+        assertThat(all.get(0).durationMillis()).isNull();
+        assertThat(all.get(1).outcome()).isEqualTo("success");
+        assertThat(all.get(1).tokens()).isEqualTo(6);
+        assertThat(chat1).extracting(TurnTraceDto::turnId).containsExactly(7L, 5L, 3L);
+        assertThat(chat1).extracting(TurnTraceDto::chatHash).containsOnly(chat1.get(0).chatHash());
+        assertThat(chat1.get(0).chatHash()).hasSize(16).isNotEqualTo(all.get(1).chatHash()).doesNotContain("chat");
+    }
+
+    @Test
+    @DisplayName("Should reject a capacity that is not a power of 2")
+    void shouldRejectCapacity() {
+        assertThatThrownBy(() -> new TurnTracer(100))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("Should trace tool calls and the booking operations they make")
+    void shouldTraceToolCalls() {
+        // Given
+        ToolExecutor changeBooking = (request, memoryId) -> {
+            BookingOperationEvent.begin("change", "BK001").finish("success");
+            return "changed";
+        };
+        Map<ToolSpecification, ToolExecutor> tools = tracer.tracing(Map.of(
+                ToolSpecification.builder().name("changeBooking").build(), changeBooking));
+        TurnTrace trace = tracer.start("chat-1", 1);
+
+        // When
+        String result = tools.values().iterator().next().execute(
+                ToolExecutionRequest.builder().name("changeBooking").arguments("{}").build(), "chat-1");
+        tracer.finish(trace, 0, "success");
+
+        // Then
+        assertThat(result).isEqualTo("changed");
+        assertThat(TurnTracer.current()).isNull();
+        assertThat(tracer.recent("chat-1").get(0).stages())
+                .extracting(TurnTraceDto.StageDto::stage, TurnTraceDto.StageDto::detail)
+                .containsExactly(
+                        tuple("tool", "changeBooking"),
+                        tuple("booking", "change success")
+                );
+    }
+
+    @Test
+    @DisplayName("Should run tasks with the trace of the thread that submitted them")
+    void shouldPropagateTrace() throws Exception {
+        // Given
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        TurnTrace trace = tracer.start("chat-1", 1);
+        CompletableFuture<TurnTrace> seen = new CompletableFuture<>();
+
+        // When
+        TurnTrace previous = TurnTracer.enter(trace);
+        try {
+            TurnTracer.propagating(executor).execute(() -> seen.complete(TurnTracer.current()));
+        } finally {
+            TurnTracer.exit(previous);
+        }
+
+        // Then
+        assertThat(seen.get()).isSameAs(trace);
+        assertThat(executor.submit(TurnTracer::current).get()).isNull();
+        executor.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should match a model request to the turn whose memory ends with its last message")
+    void shouldMatchModelRequest() {
+        // Given
+        TurnTrace trace = tracer.start("chat-1", 1);
+        tracer.start("chat-2", 2);
+        ChatMemory memory = new TracingChatMemory(MessageWindowChatMemory.builder().id("chat-1").maxMessages(10).build(), tracer);
+        UserMessage message = UserMessage.from("Change my booking");
+        memory.add(message);
+
+        // When / Then
+        assertThat(tracer.forModelRequest(memory.messages())).isSameAs(trace);
+        assertThat(tracer.forModelRequest(List.of(UserMessage.from("Change my booking")))).isNull();
+        assertThat(tracer.recent("chat-1").get(0).stages())
+                .extracting(TurnTraceDto.StageDto::stage)
+                .containsExactly("memory", "memory");
+    }
+
+    @Test
+    @DisplayName("Should only match a model request to the last message of a running turn")
+    void shouldForgetEarlierAndFinishedMessages() {
+        // Given
+        TurnTrace trace = tracer.start("chat-1", 1);
+        ChatMemory memory = new TracingChatMemory(MessageWindowChatMemory.builder().id("chat-1").maxMessages(10).build(), tracer);
+        UserMessage first = UserMessage.from("Change my booking");
+        UserMessage second = UserMessage.from("To the 5th of May");
+        memory.add(first);
+        memory.add(second);
+
+        // When
+        TurnTrace earlier = tracer.forModelRequest(List.of(first));
+        TurnTrace last = tracer.forModelRequest(List.of(first, second));
+        tracer.finish(trace, 0, "success");
+
+        // Then
+        assertThat(earlier).isNull();
+        assertThat(last).isSameAs(trace);
+        assertThat(tracer.forModelRequest(List.of(first, second))).isNull();
+    }
+}
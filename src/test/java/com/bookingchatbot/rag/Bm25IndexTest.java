@@ -0,0 +1,73 @@
+package com.bookingchatbot.rag;
+
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.segment.TextSegment;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static dev.langchain4j.store.embedding.filter.MetadataFilterBuilder.metadataKey;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for Bm25Index.
+ */
+@DisplayName("BM25 Index Tests")
+class Bm25IndexTest {
+
+    @Test
+    @DisplayName("Should rank segments containing rare query terms first")
+    void shouldRankByBm25() {
+        // Given
+        Bm25Index index = new Bm25Index();
+        index.add("economy", TextSegment.from("Economy class changes cost $50 per booking."));
+        index.add("premium", TextSegment.from("Premium Economy changes cost $30 per booking."));
+        index.add("business", TextSegment.from("Business class changes are free of charge."));
+        index.add("refund", TextSegment.from("Cancellations within 48 hours are refunded in full."));
+
+        // When
+        List<Bm25Index.Match> matches = index.search("change fee for premium economy", 3, null);
+
+        // Then
+        assertThat(matches).extracting(Bm25Index.Match::id).startsWith("premium", "economy");
+        assertThat(matches).extracting(Bm25Index.Match::id).doesNotContain("refund");
+        assertThat(matches.get(0).score()).isGreaterThan(matches.get(1).score());
+    }
+
+    @Test
+    @DisplayName("Should fold simple suffixes and ignore stop words")
+    void shouldNormalizeTerms() {
+        // When & Then
+        assertThat(Bm25Index.termFrequencies("Cancelling the bookings"))
+                .containsOnlyKeys("cancel", "book");
+        assertThat(Bm25Index.termFrequencies("cancellation of a booking"))
+                .containsOnlyKeys("cancel", "book");
+        assertThat(Bm25Index.termFrequencies("What is the fee? Fees!"))
+                .containsEntry("fee", 2);
+    }
+
+    @Test
+    @DisplayName("Should drop removed segments and apply metadata filters")
+    void shouldRemoveAndFilter() {
+        // Given
+        Bm25Index index = new Bm25Index();
+        for (int i = 0; i < 200; i++) {
+            index.add("old-" + i, TextSegment.from("baggage allowance " + i, Metadata.from("kb_version", "1")));
+        }
+        index.add("new", TextSegment.from("baggage allowance updated", Metadata.from("kb_version", "2")));
+
+        // When
+        index.removeAll(metadataKey("kb_version").isEqualTo("1"));
+        index.add("other", TextSegment.from("baggage allowance other", Metadata.from("kb_version", "3")));
+
+        // Then
+        assertThat(index.size()).isEqualTo(2);
+        assertThat(index.search("baggage", 10, null))
+                .extracting(Bm25Index.Match::id)
+                .containsExactlyInAnyOrder("new", "other");
+        assertThat(index.search("baggage", 10, metadataKey("kb_version").isEqualTo("2")))
+                .extracting(Bm25Index.Match::id)
+                .containsExactly("new");
+    }
+}
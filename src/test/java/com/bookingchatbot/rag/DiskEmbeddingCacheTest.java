@@ -0,0 +1,154 @@
+package com.bookingchatbot.rag;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for DiskEmbeddingCache and CachingEmbeddingModel.
+ */
+@DisplayName("Disk Embedding Cache Tests")
+class DiskEmbeddingCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Should serve cached embeddings after reopening the file")
+    void shouldServeCachedEmbeddingsAfterReopening() throws IOException {
+        // Given
+        Path file = tempDir.resolve("cache/embeddings.bin");
+        DiskEmbeddingCache.Digest digest = DiskEmbeddingCache.digest("model", "hello");
+        try (DiskEmbeddingCache cache = DiskEmbeddingCache.open(file)) {
+            cache.put(digest, Embedding.from(new float[]{0.5f, -1f, 2f}));
+        }
+
+        // When
+        try (DiskEmbeddingCache cache = DiskEmbeddingCache.open(file)) {
+            // Then
+            assertThat(cache.size()).isEqualTo(1);
+            assertThat(cache.get(digest).vector()).containsExactly(0.5f, -1f, 2f);
+            assertThat(cache.get(DiskEmbeddingCache.digest("other-model", "hello"))).isNull();
+        }
+    }
+
+    @Test
+    @DisplayName("Should ignore an incomplete trailing entry")
+    void shouldIgnoreIncompleteTrailingEntry() throws IOException {
+        // Given
+        Path file = tempDir.resolve("embeddings.bin");
+        DiskEmbeddingCache.Digest first = DiskEmbeddingCache.digest("model", "first");
+        try (DiskEmbeddingCache cache = DiskEmbeddingCache.open(file)) {
+            cache.put(first, Embedding.from(new float[]{1f, 2f}));
+        }
+        Files.write(file, new byte[]{1, 2, 3, 4, 5}, StandardOpenOption.APPEND);
+
+        // When
+        DiskEmbeddingCache.Digest second = DiskEmbeddingCache.digest("model", "second");
+        try (DiskEmbeddingCache cache = DiskEmbeddingCache.open(file)) {
+            cache.put(second, Embedding.from(new float[]{3f, 4f}));
+        }
+
+        // Then
+        try (DiskEmbeddingCache cache = DiskEmbeddingCache.open(file)) {
+            assertThat(cache.size()).isEqualTo(2);
+            assertThat(cache.get(first).vector()).containsExactly(1f, 2f);
+            assertThat(cache.get(second).vector()).containsExactly(3f, 4f);
+        }
+    }
+
+    @Test
+    @DisplayName("Should read entries from a file mapped in several segments")
+    void shouldReadEntriesAcrossSegments() throws IOException {
+        // Given: 436-byte entries in 1 KB segments, and one entry larger than a segment
+        Path file = tempDir.resolve("embeddings.bin");
+        int[] dimensions = {100, 100, 100, 100, 100, 500, 100, 100};
+        try (DiskEmbeddingCache cache = DiskEmbeddingCache.open(file, 1024)) {
+            for (int i = 0; i < dimensions.length; i++) {
+                cache.put(DiskEmbeddingCache.digest("model", "text " + i), Embedding.from(vector(dimensions[i], i)));
+            }
+        }
+
+        // When
+        try (DiskEmbeddingCache cache = DiskEmbeddingCache.open(file, 1024)) {
+            // Then
+            assertThat(cache.size()).isEqualTo(dimensions.length);
+            for (int i = 0; i < dimensions.length; i++) {
+                assertThat(cache.get(DiskEmbeddingCache.digest("model", "text " + i)).vector())
+                        .containsExactly(vector(dimensions[i], i));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should only embed segments missing from the cache")
+    void shouldOnlyEmbedMissingSegments() throws IOException {
+        // Given
+        CountingEmbeddingModel model = new CountingEmbeddingModel();
+        Path file = tempDir.resolve("embeddings.bin");
+        try (DiskEmbeddingCache cache = DiskEmbeddingCache.open(file)) {
+            new CachingEmbeddingModel(model, cache, "counting").embedAll(segments("a", "b"));
+        }
+
+        // When
+        Response<List<Embedding>> response;
+        CachingEmbeddingModel cachingModel;
+        try (DiskEmbeddingCache cache = DiskEmbeddingCache.open(file)) {
+            cachingModel = new CachingEmbeddingModel(model, cache, "counting");
+            response = cachingModel.embedAll(segments("b", "c", "a"));
+        }
+
+        // Then
+        assertThat(model.embeddedTexts).containsExactly("a", "b", "c");
+        assertThat(cachingModel.hits()).isEqualTo(2);
+        assertThat(cachingModel.misses()).isEqualTo(1);
+        assertThat(response.content()).extracting(e -> e.vector()[0]).containsExactly(1f, 2f, 0f);
+    }
+
+    private static float[] vector(int dimension, int seed) {
+        float[] vector = new float[dimension];
+        for (int i = 0; i < dimension; i++) {
+            vector[i] = seed * 1000 + i;
+        }
+        return vector;
+    }
+
+    private List<TextSegment> segments(String... texts) {
+        List<TextSegment> segments = new ArrayList<>();
+        for (String text : texts) {
+            segments.add(TextSegment.from(text));
+        }
+        return segments;
+    }
+
+    /**
+     * Embeds a single letter as its distance from 'a' and records every text it was asked for.
+     */
+    private static class CountingEmbeddingModel implements EmbeddingModel {
+
+        private final List<String> embeddedTexts = new ArrayList<>();
+
+        @Override
+        public Response<List<Embedding>> embedAll(List<TextSegment> textSegments) {
+            List<Embedding> embeddings = new ArrayList<>();
+            for (TextSegment segment : textSegments) {
+                embeddedTexts.add(segment.text());
+                embeddings.add(Embedding.from(new float[]{segment.text().charAt(0) - 'a', 1f}));
+            }
+            return Response.from(embeddings);
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.bookingchatbot.rag;
+
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
+import dev.langchain4j.store.embedding.inmemory.InMemoryEmbeddingStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static dev.langchain4j.store.embedding.filter.MetadataFilterBuilder.metadataKey;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for HnswEmbeddingStore.
+ * Recall is checked against the brute-force InMemoryEmbeddingStore.
+ */
+@DisplayName("HNSW Embedding Store Tests")
+class HnswEmbeddingStoreTest {
+
+    private static final int DIMENSION = 32;
+
+    private HnswEmbeddingStore<TextSegment> store;
+    private Random random;
+
+    @BeforeEach
+    void setUp() {
+        store = new HnswEmbeddingStore<>(16, 100, 64);
+        random = new Random(42);
+    }
+
+    @Test
+    @DisplayName("Should return empty result when store is empty")
+    void shouldReturnEmptyResultWhenStoreIsEmpty() {
+        // When
+        List<EmbeddingMatch<TextSegment>> matches = store.search(request(randomEmbedding(), 3)).matches();
+
+        // Then
+        assertThat(matches).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should find exact match with highest score")
+    void shouldFindExactMatchWithHighestScore() {
+        // Given
+        List<Embedding> embeddings = randomEmbeddings(500);
+        List<String> ids = store.addAll(embeddings, segments(embeddings.size()));
+
+        // When
+        List<EmbeddingMatch<TextSegment>> matches = store.search(request(embeddings.get(123), 1)).matches();
+
+        // Then
+        assertThat(matches).hasSize(1);
+        assertThat(matches.get(0).embeddingId()).isEqualTo(ids.get(123));
+        assertThat(matches.get(0).score()).isCloseTo(1.0, within(1e-5));
+    }
+
+    @Test
+    @DisplayName("Should match brute-force results with high recall")
+    void shouldMatchBruteForceResultsWithHighRecall() {
+        // Given
+        InMemoryEmbeddingStore<TextSegment> bruteForce = new InMemoryEmbeddingStore<>();
+        for (Embedding embedding : randomEmbeddings(3000)) {
+            String id = store.add(embedding);
+            bruteForce.add(id, embedding);
+        }
+
+        // When
+        int found = 0;
+        int expected = 0;
+        for (int q = 0; q < 50; q++) {
+            Embedding query = randomEmbedding();
+            Set<String> truth = ids(bruteForce.search(request(query, 10)).matches());
+            Set<String> approximate = ids(store.search(request(query, 10)).matches());
+            approximate.retainAll(truth);
+            found += approximate.size();
+            expected += truth.size();
+        }
+
+        // Then
+        assertThat((double) found / expected).isGreaterThan(0.9);
+    }
+
+    @Test
+    @DisplayName("Should support concurrent inserts")
+    void shouldSupportConcurrentInserts() throws Exception {
+        // Given
+        List<Embedding> embeddings = randomEmbeddings(2000);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // When
+        try {
+            List<Future<String>> futures = new ArrayList<>();
+            for (Embedding embedding : embeddings) {
+                futures.add(executor.submit(() -> store.add(embedding)));
+            }
+            for (Future<String> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        // Then
+        assertThat(store.size()).isEqualTo(2000);
+        for (int i = 0; i < 20; i++) {
+            EmbeddingMatch<TextSegment> best = store.search(request(embeddings.get(i * 100), 1)).matches().get(0);
+            assertThat(best.score()).isCloseTo(1.0, within(1e-5));
+        }
+    }
+
+    @Test
+    @DisplayName("Should not return removed entries")
+    void shouldNotReturnRemovedEntries() {
+        // Given
+        List<Embedding> embeddings = randomEmbeddings(200);
+        List<String> ids = store.addAll(embeddings, segments(embeddings.size()));
+
+        // When
+        store.remove(ids.get(7));
+        List<EmbeddingMatch<TextSegment>> matches = store.search(request(embeddings.get(7), 5)).matches();
+
+        // Then
+        assertThat(matches).hasSize(5);
+        assertThat(ids(matches)).doesNotContain(ids.get(7));
+        assertThat(store.size()).isEqualTo(199);
+    }
+
+    @Test
+    @DisplayName("Should apply metadata filter")
+    void shouldApplyMetadataFilter() {
+        // Given
+        List<Embedding> embeddings = randomEmbeddings(400);
+        store.addAll(embeddings, segments(embeddings.size()));
+
+        // When
+        EmbeddingSearchRequest filtered = EmbeddingSearchRequest.builder()
+                .queryEmbedding(embeddings.get(0))
+                .maxResults(5)
+                .filter(metadataKey("parity").isEqualTo("odd"))
+                .build();
+        List<EmbeddingMatch<TextSegment>> matches = store.search(filtered).matches();
+
+        // Then
+        assertThat(matches).hasSize(5);
+        assertThat(matches).allMatch(m -> "odd".equals(m.embedded().metadata().getString("parity")));
+    }
+
+    @Test
+    @DisplayName("Should reject embeddings with a different dimension")
+    void shouldRejectEmbeddingsWithDifferentDimension() {
+        // Given
+        store.add(randomEmbedding());
+
+        // When & Then
+        assertThatThrownBy(() -> store.add(Embedding.from(new float[DIMENSION + 1])))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("dimension");
+    }
+
+    private EmbeddingSearchRequest request(Embedding query, int maxResults) {
+        return EmbeddingSearchRequest.builder()
+                .queryEmbedding(query)
+                .maxResults(maxResults)
+                .build();
+    }
+
+    private List<Embedding> randomEmbeddings(int count) {
+        List<Embedding> embeddings = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            embeddings.add(randomEmbedding());
+        }
+        return embeddings;
+    }
+
+    private Embedding randomEmbedding() {
+        float[] vector = new float[DIMENSION];
+        for (int i = 0; i < DIMENSION; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return Embedding.from(vector);
+    }
+
+    private List<TextSegment> segments(int count) {
+        List<TextSegment> segments = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Metadata metadata = new Metadata().put("parity", i % 2 == 0 ? "even" : "odd");
+            segments.add(TextSegment.from("segment " + i, metadata));
+        }
+        return segments;
+    }
+
+    private Set<String> ids(List<EmbeddingMatch<TextSegment>> matches) {
+        Set<String> ids = new HashSet<>();
+        for (EmbeddingMatch<TextSegment> match : matches) {
+            ids.add(match.embeddingId());
+        }
+        return ids;
+    }
+}
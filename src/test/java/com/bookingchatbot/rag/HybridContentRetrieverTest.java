@@ -0,0 +1,61 @@
+package com.bookingchatbot.rag;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+import dev.langchain4j.rag.content.Content;
+import dev.langchain4j.rag.query.Query;
+import dev.langchain4j.store.embedding.inmemory.InMemoryEmbeddingStore;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for HybridContentRetriever.
+ */
+@DisplayName("Hybrid Content Retriever Tests")
+class HybridContentRetrieverTest {
+
+    private static final String PREMIUM = "Premium Economy changes cost $30.";
+    private static final String ECONOMY = "Economy changes cost $50.";
+    private static final String BAGGAGE = "Checked baggage is limited to 23 kg.";
+
+    @Test
+    @DisplayName("Should prefer segments ranked by both retrievers over the top vector-only match")
+    void shouldFuseKeywordAndVectorResults() {
+        // Given: embeddings that place the baggage segment closest to the question
+        EmbeddingModel embeddingModel = fixedEmbeddings(Map.of(
+                PREMIUM, new float[]{0.5f, 0.5f},
+                ECONOMY, new float[]{0.7f, 0.3f},
+                BAGGAGE, new float[]{1f, 0f},
+                "premium economy fee", new float[]{1f, 0f}
+        ));
+        Bm25Index index = new Bm25Index();
+        Bm25IndexingEmbeddingStore store = new Bm25IndexingEmbeddingStore(new InMemoryEmbeddingStore<>(), index);
+        List<TextSegment> segments = List.of(
+                TextSegment.from(PREMIUM), TextSegment.from(ECONOMY), TextSegment.from(BAGGAGE));
+        store.addAll(embeddingModel.embedAll(segments).content(), segments);
+        HybridContentRetriever retriever = new HybridContentRetriever(
+                store, embeddingModel, index, null, 2, 0.0, 10, 60);
+
+        // When
+        List<Content> contents = retriever.retrieve(Query.from("premium economy fee"));
+
+        // Then
+        assertThat(index.size()).isEqualTo(3);
+        assertThat(contents)
+                .extracting(content -> content.textSegment().text())
+                .containsExactlyInAnyOrder(PREMIUM, ECONOMY);
+    }
+
+    private static EmbeddingModel fixedEmbeddings(Map<String, float[]> vectors) {
+        return segments -> Response.from(segments.stream()
+                .map(segment -> Embedding.from(vectors.get(segment.text())))
+                .toList());
+    }
+}
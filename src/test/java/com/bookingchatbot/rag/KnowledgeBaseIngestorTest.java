@@ -0,0 +1,202 @@
+package com.bookingchatbot.rag;
+
+import dev.langchain4j.data.document.splitter.DocumentSplitters;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
+import dev.langchain4j.store.embedding.inmemory.InMemoryEmbeddingStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for KnowledgeBaseIngestor and KnowledgeBaseWatcher.
+ */
+@DisplayName("Knowledge Base Ingestor Tests")
+class KnowledgeBaseIngestorTest {
+
+    @TempDir
+    Path directory;
+
+    private RecordingEmbeddingModel embeddingModel;
+    private InMemoryEmbeddingStore<TextSegment> embeddingStore;
+    private KnowledgeBaseIngestor ingestor;
+
+    @BeforeEach
+    void setUp() {
+        embeddingModel = new RecordingEmbeddingModel();
+        embeddingStore = new InMemoryEmbeddingStore<>();
+        ingestor = new KnowledgeBaseIngestor(
+                embeddingModel,
+                embeddingStore,
+                DocumentSplitters.recursive(40, 0),
+                2,
+                3,
+                1
+        );
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        ingestor.close();
+    }
+
+    @Test
+    @DisplayName("Should ingest every document in the directory in bounded batches")
+    void shouldIngestDirectoryInBatches() throws IOException {
+        // Given
+        write("fares.txt", "Economy fares are non-refundable.\n\nBusiness fares can be refunded.");
+        write("baggage.md", "One carry-on bag is included.\n\nChecked bags cost extra.");
+        write("pets.txt", "Small pets may travel in the cabin.");
+        write("notes.json", "{}");
+
+        // When
+        KnowledgeBaseIngestor.Result result = ingestor.ingestDirectory(directory);
+
+        // Then
+        assertThat(result.documents()).isEqualTo(3);
+        assertThat(result.failed()).isEmpty();
+        assertThat(ingestor.documents()).containsExactlyInAnyOrder("fares.txt", "baggage.md", "pets.txt");
+        assertThat(embeddingModel.batchSizes).allMatch(size -> size <= 3);
+        assertThat(embeddingModel.batchSizes.stream().mapToInt(Integer::intValue).sum()).isEqualTo(result.segments());
+        assertThat(embeddingModel.maxConcurrentCalls.get()).isEqualTo(1);
+        assertThat(search("refund")).isNotEmpty();
+    }
+
+    @Test
+    @DisplayName("Should swap in a changed document and skip unchanged ones")
+    void shouldSwapChangedDocumentAndSkipUnchanged() throws IOException {
+        // Given
+        write("fares.txt", "Economy fares are non-refundable.");
+        write("pets.txt", "Small pets may travel in the cabin.");
+        ingestor.ingestDirectory(directory);
+        int callsBefore = embeddingModel.batchSizes.size();
+
+        // When
+        write("fares.txt", "Economy fares can be refunded for a fee.");
+        KnowledgeBaseIngestor.Result result = ingestor.ingestDirectory(directory);
+
+        // Then
+        assertThat(result.documents()).isEqualTo(1);
+        assertThat(result.unchanged()).isEqualTo(1);
+        assertThat(embeddingModel.batchSizes).hasSize(callsBefore + 1);
+        assertThat(search("fares"))
+                .extracting(match -> match.embedded().text())
+                .containsExactly("Economy fares can be refunded for a fee.");
+    }
+
+    @Test
+    @DisplayName("Should keep the previous version when embedding fails")
+    void shouldKeepPreviousVersionWhenEmbeddingFails() throws IOException {
+        // Given
+        write("fares.txt", "Economy fares are non-refundable.");
+        ingestor.ingestDirectory(directory);
+
+        // When
+        embeddingModel.failing = true;
+        write("fares.txt", "Economy fares can be refunded for a fee.");
+        KnowledgeBaseIngestor.Result result = ingestor.ingestDirectory(directory);
+
+        // Then
+        assertThat(result.failed()).containsExactly("fares.txt");
+        assertThat(search("fares"))
+                .extracting(match -> match.embedded().text())
+                .containsExactly("Economy fares are non-refundable.");
+    }
+
+    @Test
+    @DisplayName("Should re-ingest and remove documents when the directory changes")
+    void shouldFollowDirectoryChanges() throws Exception {
+        // Given
+        write("fares.txt", "Economy fares are non-refundable.");
+        write("pets.txt", "Small pets may travel in the cabin.");
+        ingestor.ingestDirectory(directory);
+        ingestor.watch(directory, Duration.ofMillis(100));
+
+        // When
+        write("fares.txt", "Economy fares can be refunded for a fee.");
+        Files.delete(directory.resolve("pets.txt"));
+
+        // Then
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (System.nanoTime() < deadline && !(ingestor.documents().equals(Set.of("fares.txt"))
+                && search("fares").stream().anyMatch(m -> m.embedded().text().contains("fee")))) {
+            Thread.sleep(50);
+        }
+        assertThat(ingestor.documents()).containsExactly("fares.txt");
+        assertThat(search("fares"))
+                .extracting(match -> match.embedded().text())
+                .containsExactly("Economy fares can be refunded for a fee.");
+    }
+
+    private void write(String fileName, String text) throws IOException {
+        Files.writeString(directory.resolve(fileName), text);
+    }
+
+    private List<EmbeddingMatch<TextSegment>> search(String text) {
+        return embeddingStore.search(EmbeddingSearchRequest.builder()
+                        .queryEmbedding(RecordingEmbeddingModel.lettersOf(text))
+                        .filter(ingestor.activeSegments())
+                        .maxResults(100)
+                        .minScore(0.0)
+                        .build())
+                .matches()
+                .stream()
+                .filter(match -> match.embedded().text().toLowerCase().contains(text))
+                .toList();
+    }
+
+    /**
+     * Deterministic bag-of-letters embeddings; records batch sizes and concurrent calls.
+     */
+    private static class RecordingEmbeddingModel implements EmbeddingModel {
+
+        private final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+        private final AtomicInteger concurrentCalls = new AtomicInteger();
+        private final AtomicInteger maxConcurrentCalls = new AtomicInteger();
+        private volatile boolean failing;
+
+        @Override
+        public Response<List<Embedding>> embedAll(List<TextSegment> textSegments) {
+            maxConcurrentCalls.accumulateAndGet(concurrentCalls.incrementAndGet(), Math::max);
+            try {
+                if (failing) {
+                    throw new IllegalStateException("Embedding provider unavailable");
+                }
+                batchSizes.add(textSegments.size());
+                List<Embedding> embeddings = new ArrayList<>();
+                for (TextSegment segment : textSegments) {
+                    embeddings.add(lettersOf(segment.text()));
+                }
+                return Response.from(embeddings);
+            } finally {
+                concurrentCalls.decrementAndGet();
+            }
+        }
+
+        static Embedding lettersOf(String text) {
+            float[] vector = new float[27];
+            for (char c : text.toLowerCase().toCharArray()) {
+                vector[c >= 'a' && c <= 'z' ? c - 'a' : 26]++;
+            }
+            return Embedding.from(vector);
+        }
+    }
+}
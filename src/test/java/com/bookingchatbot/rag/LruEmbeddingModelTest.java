@@ -0,0 +1,49 @@
+package com.bookingchatbot.rag;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for LruEmbeddingModel.
+ */
+@DisplayName("LRU Embedding Model Tests")
+class LruEmbeddingModelTest {
+
+    @Test
+    @DisplayName("Should serve repeated queries from the cache and evict the least recently used")
+    void shouldCacheRecentQueries() {
+        // Given
+        List<String> embedded = new ArrayList<>();
+        EmbeddingModel delegate = segments -> {
+            List<Embedding> embeddings = new ArrayList<>();
+            for (TextSegment segment : segments) {
+                embedded.add(segment.text());
+                embeddings.add(Embedding.from(new float[]{segment.text().length()}));
+            }
+            return Response.from(embeddings);
+        };
+        LruEmbeddingModel model = new LruEmbeddingModel(delegate, 2);
+
+        // When
+        model.embed("can I cancel?");
+        model.embed("baggage");
+        model.embed("can I cancel?");
+        model.embed("pets");
+        model.embed("baggage");
+
+        // Then
+        assertThat(embedded).containsExactly("can I cancel?", "baggage", "pets", "baggage");
+        assertThat(model.hits()).isEqualTo(1);
+        assertThat(model.misses()).isEqualTo(4);
+        assertThat(model.embed("pets").content().vector()).containsExactly(4f);
+    }
+}
@@ -0,0 +1,96 @@
+package com.bookingchatbot.rag;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for MicroBatchingEmbeddingModel.
+ */
+@DisplayName("Micro-Batching Embedding Model Tests")
+class MicroBatchingEmbeddingModelTest {
+
+    @Test
+    @DisplayName("Should embed queries that arrive during a running batch together")
+    void shouldBatchConcurrentQueries() throws Exception {
+        // Given
+        BlockingEmbeddingModel delegate = new BlockingEmbeddingModel();
+        MicroBatchingEmbeddingModel model = new MicroBatchingEmbeddingModel(delegate, 4);
+        ExecutorService callers = Executors.newFixedThreadPool(6);
+
+        // When
+        List<Future<Response<Embedding>>> results = new ArrayList<>();
+        results.add(callers.submit(() -> model.embed("q0")));
+        assertThat(delegate.started.await(5, TimeUnit.SECONDS)).isTrue();
+        for (int i = 1; i <= 5; i++) {
+            String query = "q" + i;
+            results.add(callers.submit(() -> model.embed(query)));
+        }
+        Thread.sleep(200);
+        delegate.release.countDown();
+
+        // Then
+        for (int i = 0; i < results.size(); i++) {
+            assertThat(results.get(i).get(5, TimeUnit.SECONDS).content().vector()[0]).isEqualTo(i);
+        }
+        assertThat(delegate.batchSizes).containsExactly(1, 4, 1);
+        callers.shutdownNow();
+        model.close();
+    }
+
+    @Test
+    @DisplayName("Should propagate embedding failures to every query in the batch")
+    void shouldPropagateFailures() {
+        // Given
+        EmbeddingModel failing = segments -> {
+            throw new IllegalStateException("Embedding provider unavailable");
+        };
+        MicroBatchingEmbeddingModel model = new MicroBatchingEmbeddingModel(failing, 4);
+
+        // When & Then
+        assertThatThrownBy(() -> model.embed("q0"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Embedding provider unavailable");
+        model.close();
+    }
+
+    /**
+     * Embeds "qN" as [N]; the first call blocks until released so later queries queue up.
+     */
+    private static class BlockingEmbeddingModel implements EmbeddingModel {
+
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public Response<List<Embedding>> embedAll(List<TextSegment> textSegments) {
+            batchSizes.add(textSegments.size());
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            List<Embedding> embeddings = new ArrayList<>();
+            for (TextSegment segment : textSegments) {
+                embeddings.add(Embedding.from(new float[]{Integer.parseInt(segment.text().substring(1))}));
+            }
+            return Response.from(embeddings);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.bookingchatbot.rag;
+
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
+import dev.langchain4j.store.embedding.inmemory.InMemoryEmbeddingStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static dev.langchain4j.store.embedding.filter.MetadataFilterBuilder.metadataKey;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for QuantizedEmbeddingStore and the int8 dot products behind it.
+ */
+@DisplayName("Quantized Embedding Store Tests")
+class QuantizedEmbeddingStoreTest {
+
+    private static final int DIMENSION = 96;
+
+    private Random random;
+
+    @BeforeEach
+    void setUp() {
+        random = new Random(7);
+    }
+
+    @Test
+    @DisplayName("SIMD and scalar int8 dot products should agree")
+    void simdAndScalarDotProductsShouldAgree() {
+        // Given
+        byte[] a = new byte[1000];
+        byte[] b = new byte[1000];
+        random.nextBytes(a);
+        random.nextBytes(b);
+
+        // When & Then
+        for (int length : new int[]{0, 1, 7, 8, 31, 384, 999}) {
+            assertThat(Int8DotProduct.best().dot(a, 1, b, 0, length))
+                    .isEqualTo(Int8DotProduct.scalar().dot(a, 1, b, 0, length));
+        }
+    }
+
+    @Test
+    @DisplayName("Should quantize within half a step of the original values")
+    void shouldQuantizeWithinHalfAStep() {
+        // Given
+        float[] vector = randomVector();
+        byte[] codes = new byte[DIMENSION];
+
+        // When
+        float scale = QuantizedEmbeddingStore.quantize(vector, codes, 0);
+
+        // Then
+        for (int i = 0; i < DIMENSION; i++) {
+            assertThat(codes[i] * scale).isCloseTo(vector[i], within(scale / 2 + 1e-6f));
+        }
+    }
+
+    @Test
+    @DisplayName("Should match brute-force results after re-ranking")
+    void shouldMatchBruteForceResultsAfterReranking() {
+        // Given
+        QuantizedEmbeddingStore<TextSegment> store = new QuantizedEmbeddingStore<>(4);
+        InMemoryEmbeddingStore<TextSegment> bruteForce = new InMemoryEmbeddingStore<>();
+        for (int i = 0; i < 5000; i++) {
+            Embedding embedding = Embedding.from(randomVector());
+            String id = store.add(embedding);
+            bruteForce.add(id, embedding);
+        }
+
+        // When
+        int found = 0;
+        for (int q = 0; q < 50; q++) {
+            Embedding query = Embedding.from(randomVector());
+            Set<String> truth = ids(bruteForce.search(request(query, 10)).matches());
+            List<EmbeddingMatch<TextSegment>> matches = store.search(request(query, 10)).matches();
+            for (EmbeddingMatch<TextSegment> match : matches) {
+                if (truth.contains(match.embeddingId())) {
+                    found++;
+                }
+            }
+        }
+
+        // Then
+        assertThat(found / 500.0).isGreaterThan(0.98);
+    }
+
+    @Test
+    @DisplayName("Should score from int8 codes alone when re-ranking is disabled")
+    void shouldScoreFromCodesWhenRerankingIsDisabled() {
+        // Given
+        QuantizedEmbeddingStore<TextSegment> store = new QuantizedEmbeddingStore<>(0);
+        Embedding embedding = Embedding.from(randomVector());
+        String id = store.add(embedding);
+        store.add(Embedding.from(randomVector()));
+
+        // When
+        EmbeddingMatch<TextSegment> best = store.search(request(embedding, 1)).matches().get(0);
+
+        // Then
+        assertThat(best.embeddingId()).isEqualTo(id);
+        assertThat(best.score()).isCloseTo(1.0, within(1e-3));
+        assertThat(store.vectorBytesPerEntry()).isEqualTo(DIMENSION + Float.BYTES);
+    }
+
+    @Test
+    @DisplayName("Should apply filters and skip removed entries")
+    void shouldApplyFiltersAndSkipRemovedEntries() {
+        // Given
+        QuantizedEmbeddingStore<TextSegment> store = new QuantizedEmbeddingStore<>(2);
+        List<Embedding> embeddings = new ArrayList<>();
+        List<TextSegment> segments = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            embeddings.add(Embedding.from(randomVector()));
+            segments.add(TextSegment.from("segment " + i, new Metadata().put("file_name", "doc" + (i % 4) + ".txt")));
+        }
+        List<String> ids = store.addAll(embeddings, segments);
+
+        // When
+        store.removeAll(metadataKey("file_name").isEqualTo("doc0.txt"));
+        store.remove(ids.get(1));
+        EmbeddingSearchRequest filtered = EmbeddingSearchRequest.builder()
+                .queryEmbedding(embeddings.get(2))
+                .maxResults(100)
+                .filter(metadataKey("file_name").isNotEqualTo("doc3.txt"))
+                .build();
+        List<EmbeddingMatch<TextSegment>> matches = store.search(filtered).matches();
+
+        // Then
+        assertThat(store.size()).isEqualTo(74);
+        assertThat(matches).hasSize(49);
+        assertThat(matches.get(0).embeddingId()).isEqualTo(ids.get(2));
+        assertThat(matches).noneMatch(m -> m.embedded().metadata().getString("file_name").equals("doc0.txt"));
+    }
+
+    private EmbeddingSearchRequest request(Embedding query, int maxResults) {
+        return EmbeddingSearchRequest.builder()
+                .queryEmbedding(query)
+                .maxResults(maxResults)
+                .build();
+    }
+
+    private float[] randomVector() {
+        float[] vector = new float[DIMENSION];
+        for (int i = 0; i < DIMENSION; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+
+    private Set<String> ids(List<EmbeddingMatch<TextSegment>> matches) {
+        Set<String> ids = new HashSet<>();
+        for (EmbeddingMatch<TextSegment> match : matches) {
+            ids.add(match.embeddingId());
+        }
+        return ids;
+    }
+}
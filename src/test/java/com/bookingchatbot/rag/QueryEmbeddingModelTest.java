@@ -0,0 +1,81 @@
+package com.bookingchatbot.rag;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for QueryEmbeddingModel.
+ */
+@DisplayName("Query Embedding Model Tests")
+class QueryEmbeddingModelTest {
+
+    private final List<String> embedded = new ArrayList<>();
+    private final EmbeddingModel delegate = segments -> {
+        List<Embedding> embeddings = new ArrayList<>();
+        for (TextSegment segment : segments) {
+            synchronized (embedded) {
+                embedded.add(segment.text());
+            }
+            embeddings.add(Embedding.from(new float[]{segment.text().length()}));
+        }
+        return Response.from(embeddings);
+    };
+
+    @Test
+    @DisplayName("Should embed repeated queries once")
+    void shouldCacheQueries() {
+        // Given
+        QueryEmbeddingModel model = new QueryEmbeddingModel(delegate, 4, 16);
+
+        // When
+        model.embed("can I cancel?");
+        Embedding repeated = model.embed("can I cancel?").content();
+        model.close();
+
+        // Then
+        assertThat(embedded).containsExactly("can I cancel?");
+        assertThat(repeated.vector()).containsExactly(13f);
+    }
+
+    @Test
+    @DisplayName("Should stop batching queries once closed")
+    void shouldStopBatchingWhenClosed() {
+        // Given
+        QueryEmbeddingModel model = new QueryEmbeddingModel(delegate, 4, 0);
+        model.embed("can I cancel?");
+
+        // When
+        model.close();
+
+        // Then
+        assertThatThrownBy(() -> model.embed("baggage"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("closed");
+        assertThat(embedded).containsExactly("can I cancel?");
+    }
+
+    @Test
+    @DisplayName("Should embed directly when batching and caching are disabled")
+    void shouldPassThroughWhenDisabled() {
+        // Given
+        QueryEmbeddingModel model = new QueryEmbeddingModel(delegate, 1, 0);
+
+        // When
+        model.embed("pets");
+        model.embed("pets");
+        model.close();
+
+        // Then
+        assertThat(embedded).containsExactly("pets", "pets");
+        assertThat(model.embed("pets").content().vector()).containsExactly(4f);
+    }
+}
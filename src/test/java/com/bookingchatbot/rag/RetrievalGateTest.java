@@ -0,0 +1,68 @@
+package com.bookingchatbot.rag;
+
+import dev.langchain4j.rag.content.retriever.ContentRetriever;
+import dev.langchain4j.rag.query.Query;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for RetrievalGate.
+ */
+@DisplayName("Retrieval Gate Tests")
+class RetrievalGateTest {
+
+    @Test
+    @DisplayName("Should retrieve for policy topics and open questions")
+    void shouldRetrieveForPolicyTurns() {
+        // Given
+        List<String> turns = List.of(
+                "Can I cancel my booking?",
+                "I want to change my flight to next Friday",
+                "Is there a fee for that?",
+                "Do I get a refund within 48 hours?",
+                "I'd like to move it to London instead, is that allowed?",
+                "What happens if I miss my flight?",
+                "Where do I find the rules for premium economy"
+        );
+
+        // When & Then
+        assertThat(turns).allMatch(RetrievalGate::needsRetrieval);
+    }
+
+    @Test
+    @DisplayName("Should skip booking references, names, confirmations and small talk")
+    void shouldSkipNonPolicyTurns() {
+        // Given
+        List<String> turns = List.of(
+                "BK101, John Doe",
+                "My booking is BK103",
+                "my name is Emily Brown, booking BK101",
+                "yes, go ahead",
+                "ok",
+                "Thanks!",
+                "Hi there",
+                ""
+        );
+
+        // When & Then
+        assertThat(turns).noneMatch(RetrievalGate::needsRetrieval);
+    }
+
+    @Test
+    @DisplayName("Should route to the content retriever only when retrieval is needed")
+    void shouldRouteOnlyWhenNeeded() {
+        // Given
+        ContentRetriever retriever = query -> List.of();
+        RetrievalGate gate = new RetrievalGate(retriever);
+
+        // When & Then
+        assertThat(gate.route(Query.from("What is the cancellation policy?"))).containsExactly(retriever);
+        assertThat(gate.route(Query.from("BK102 Jane Smith"))).isEmpty();
+        assertThat(gate.retrieved()).isEqualTo(1);
+        assertThat(gate.skipped()).isEqualTo(1);
+    }
+}
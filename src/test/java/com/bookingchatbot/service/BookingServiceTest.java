@@ -8,13 +8,15 @@ import com.bookingchatbot.model.BookingClass;
 import com.bookingchatbot.model.BookingStatus;
 import com.bookingchatbot.model.Customer;
 import com.bookingchatbot.repository.BookingRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -35,7 +37,10 @@ class BookingServiceTest {
     @Mock
     private BookingRepository repository;
 
-    @InjectMocks
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private SimpleMeterRegistry meterRegistry;
     private BookingService bookingService;
 
     private Booking testBooking;
@@ -43,6 +48,8 @@ class BookingServiceTest {
 
     @BeforeEach
     void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        bookingService = new BookingService(repository, eventPublisher, meterRegistry);
         testCustomer = new Customer("John", "Doe");
         testBooking = new Booking(
                 "BK101",
@@ -121,6 +128,12 @@ class BookingServiceTest {
         // Then
         assertThat(result).isNotNull();
         verify(repository).save(any(Booking.class));
+        BookingChangedEvent event = publishedEvent();
+        assertThat(event.bookingNumber()).isEqualTo("BK101");
+        assertThat(event.operation()).isEqualTo("change");
+        assertThat(event.before().date()).isEqualTo(LocalDate.now().plusDays(5));
+        assertThat(event.before().from()).isEqualTo("LAX");
+        assertThat(event.after()).isEqualTo(result);
         assertThat(testBooking.getDate()).isEqualTo(newDate);
         assertThat(testBooking.getDepartureAirport()).isEqualTo("SFO");
         assertThat(testBooking.getArrivalAirport()).isEqualTo("BOS");
@@ -165,6 +178,10 @@ class BookingServiceTest {
         // Then
         assertThat(result).isNotNull();
         verify(repository).save(any(Booking.class));
+        BookingChangedEvent event = publishedEvent();
+        assertThat(event.operation()).isEqualTo("cancel");
+        assertThat(event.before().bookingStatus()).isEqualTo(BookingStatus.CONFIRMED);
+        assertThat(event.after().bookingStatus()).isEqualTo(BookingStatus.CANCELLED);
         assertThat(testBooking.getStatus()).isEqualTo(BookingStatus.CANCELLED);
     }
 
@@ -210,5 +227,39 @@ class BookingServiceTest {
         assertThat(dto.to()).isEqualTo(testBooking.getArrivalAirport());
         assertThat(dto.bookingClass()).isEqualTo(testBooking.getBookingClass().toString());
     }
-}
 
+    @Test
+    @DisplayName("Should time booking operations by outcome")
+    void shouldTimeOperationsByOutcome() {
+        // Given
+        when(repository.findByBookingNumberAndCustomer("BK101", "John", "Doe"))
+                .thenReturn(Optional.of(testBooking));
+        when(repository.findByBookingNumberAndCustomer("BK999", "Jane", "Smith"))
+                .thenReturn(Optional.empty());
+
+        // When
+        bookingService.getBookingDetails("BK101", "John", "Doe");
+        catchThrowable(() -> bookingService.getBookingDetails("BK999", "Jane", "Smith"));
+        catchThrowable(() -> bookingService.changeBooking("BK101", "John", "Doe",
+                LocalDate.now().plusDays(10), "SFO", "BOSTON"));
+
+        // Then
+        assertThat(count("details", "success")).isEqualTo(1);
+        assertThat(count("details", "not_found")).isEqualTo(1);
+        assertThat(count("change", "rejected")).isEqualTo(1);
+        assertThat(count("change", "success")).isZero();
+    }
+
+    private long count(String operation, String outcome) {
+        return meterRegistry.get("chatbot.booking.operations")
+                .tags("operation", operation, "outcome", outcome)
+                .timer()
+                .count();
+    }
+
+    private BookingChangedEvent publishedEvent() {
+        ArgumentCaptor<Object> event = ArgumentCaptor.forClass(Object.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        return (BookingChangedEvent) event.getValue();
+    }
+}
@@ -0,0 +1,196 @@
+package com.bookingchatbot.service;
+
+import com.bookingchatbot.exception.ChatBusyException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for ChatMailbox.
+ */
+@DisplayName("Chat Mailbox Tests")
+class ChatMailboxTest {
+
+    private ChatMailbox chatMailbox;
+
+    @BeforeEach
+    void setUp() {
+        chatMailbox = new ChatMailbox(3);
+    }
+
+    @Test
+    @DisplayName("Should start a turn only after the previous turn of the chat has finished")
+    void shouldSerializeTurnsOfOneChat() throws InterruptedException {
+        // Given
+        List<String> events = Collections.synchronizedList(new ArrayList<>());
+        Sinks.Many<String> first = Sinks.many().unicast().onBackpressureBuffer();
+        chatMailbox.enqueue("chat-1", () -> {
+            events.add("first started");
+            return first.asFlux();
+        }).subscribe();
+
+        // When
+        Flux<String> second = chatMailbox.enqueue("chat-1", () -> {
+            events.add("second started");
+            return Flux.just("answer");
+        });
+        AtomicReference<List<String>> answer = new AtomicReference<>();
+        second.collectList().subscribe(answer::set);
+        events.add("first finishing");
+        first.tryEmitNext("token");
+        first.tryEmitComplete();
+
+        // Then
+        await(() -> answer.get() != null);
+        assertThat(events).containsExactly("first started", "first finishing", "second started");
+        assertThat(answer.get()).containsExactly("answer");
+        assertThat(chatMailbox.activeChats()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should give each running turn an ID of its own")
+    void shouldIdentifyRunningTurn() throws InterruptedException {
+        // Given
+        Sinks.Many<String> first = Sinks.many().unicast().onBackpressureBuffer();
+        AtomicReference<Long> secondTurn = new AtomicReference<>();
+        chatMailbox.enqueue("chat-1", first::asFlux).subscribe();
+        chatMailbox.enqueue("chat-1", () -> {
+            secondTurn.set(chatMailbox.runningTurn("chat-1"));
+            return Flux.just("answer");
+        }).subscribe();
+
+        // When
+        long firstTurn = chatMailbox.runningTurn("chat-1");
+        first.tryEmitComplete();
+
+        // Then
+        await(() -> secondTurn.get() != null);
+        assertThat(firstTurn).isPositive();
+        assertThat(secondTurn.get()).isPositive().isNotEqualTo(firstTurn);
+        await(() -> chatMailbox.activeChats() == 0);
+        assertThat(chatMailbox.runningTurn("chat-1")).isZero();
+        assertThat(chatMailbox.runningTurn("chat-2")).isZero();
+    }
+
+    @Test
+    @DisplayName("Should not make turns of one chat wait for another chat")
+    void shouldRunChatsIndependently() {
+        // Given
+        Sinks.Many<String> stuck = Sinks.many().unicast().onBackpressureBuffer();
+        chatMailbox.enqueue("chat-1", stuck::asFlux).subscribe();
+
+        // When
+        List<String> answer = chatMailbox.enqueue("chat-2", () -> Flux.just("answer"))
+                .collectList()
+                .block(Duration.ofSeconds(1));
+
+        // Then
+        assertThat(answer).containsExactly("answer");
+        assertThat(chatMailbox.activeChats()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should reject turns of a flooded chat and accept them again once it drains")
+    void shouldRejectTurnsOfFloodedChat() throws InterruptedException {
+        // Given
+        Sinks.Many<String> running = Sinks.many().unicast().onBackpressureBuffer();
+        chatMailbox.enqueue("chat-1", running::asFlux).subscribe();
+        chatMailbox.enqueue("chat-1", () -> Flux.just("second")).subscribe();
+        chatMailbox.enqueue("chat-1", () -> Flux.just("third")).subscribe();
+
+        // When & Then
+        assertThatThrownBy(() -> chatMailbox.enqueue("chat-1", () -> Flux.just("fourth")).blockLast())
+                .isInstanceOf(ChatBusyException.class);
+        assertThat(chatMailbox.rejected()).isEqualTo(1);
+
+        running.tryEmitComplete();
+        await(() -> chatMailbox.activeChats() == 0);
+        assertThat(chatMailbox.enqueue("chat-1", () -> Flux.just("fifth")).blockLast(Duration.ofSeconds(1)))
+                .isEqualTo("fifth");
+    }
+
+    @Test
+    @DisplayName("Should start the next turn when the running turn is cancelled")
+    void shouldStartNextTurnWhenRunningTurnIsCancelled() throws InterruptedException {
+        // Given
+        Sinks.Many<String> running = Sinks.many().unicast().onBackpressureBuffer();
+        Disposable first = chatMailbox.enqueue("chat-1", running::asFlux).subscribe();
+        AtomicReference<String> answer = new AtomicReference<>();
+        chatMailbox.enqueue("chat-1", () -> Flux.just("answer")).subscribe(answer::set);
+
+        // When
+        first.dispose();
+
+        // Then
+        await(() -> answer.get() != null);
+        assertThat(answer.get()).isEqualTo("answer");
+    }
+
+    @Test
+    @DisplayName("Should answer many chats in parallel while keeping each chat in order")
+    void shouldKeepThroughputWithManyChats() throws InterruptedException {
+        // Given
+        int chats = 500;
+        int turnsPerChat = 3;
+        Duration turnLatency = Duration.ofMillis(50);
+        Map<String, List<Integer>> started = new ConcurrentHashMap<>();
+        Map<String, AtomicInteger> running = new ConcurrentHashMap<>();
+        AtomicInteger overlaps = new AtomicInteger();
+        CountDownLatch finished = new CountDownLatch(chats * turnsPerChat);
+
+        // When
+        long start = System.nanoTime();
+        for (int turn = 0; turn < turnsPerChat; turn++) {
+            for (int chat = 0; chat < chats; chat++) {
+                String chatId = "chat-" + chat;
+                int number = turn;
+                chatMailbox.enqueue(chatId, () -> {
+                    started.computeIfAbsent(chatId, id -> Collections.synchronizedList(new ArrayList<>())).add(number);
+                    if (running.computeIfAbsent(chatId, id -> new AtomicInteger()).incrementAndGet() > 1) {
+                        overlaps.incrementAndGet();
+                    }
+                    return Flux.just("token").delayElements(turnLatency)
+                            .doOnComplete(() -> running.get(chatId).decrementAndGet());
+                }).doFinally(signal -> finished.countDown()).subscribe();
+            }
+        }
+        boolean completed = finished.await(10, TimeUnit.SECONDS);
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        // Then
+        assertThat(completed).isTrue();
+        assertThat(overlaps).hasValue(0);
+        assertThat(started.values()).hasSize(chats)
+                .allMatch(turns -> turns.equals(IntStream.range(0, turnsPerChat).boxed().toList()));
+        // One turn at a time overall would take chats * turnsPerChat * turnLatency = 75 s
+        assertThat(elapsed).isLessThan(turnLatency.multipliedBy(turnsPerChat * 10L));
+        assertThat(chatMailbox.rejected()).isZero();
+        assertThat(chatMailbox.activeChats()).isZero();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.bookingchatbot.service;
+
+import com.bookingchatbot.ai.AiAssistant;
+import com.bookingchatbot.ai.BookingFastPath;
+import com.bookingchatbot.ai.SemanticAnswerCache;
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.memory.chat.ChatMemoryProvider;
+import dev.langchain4j.memory.chat.MessageWindowChatMemory;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+import dev.langchain4j.store.memory.chat.InMemoryChatMemoryStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import reactor.core.publisher.Flux;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for ChatService.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Chat Service Tests")
+class ChatServiceTest {
+
+    private static final String QUESTION = "Can I cancel within 48 hours?";
+
+    @Mock
+    private AiAssistant aiAssistant;
+
+    @Mock
+    private BookingFastPath bookingFastPath;
+
+    @Mock
+    private ObjectProvider<SemanticAnswerCache> answerCacheProvider;
+
+    private ChatMemoryProvider chatMemoryProvider;
+    private SemanticAnswerCache answerCache;
+    private ChatService chatService;
+
+    @BeforeEach
+    void setUp() {
+        InMemoryChatMemoryStore store = new InMemoryChatMemoryStore();
+        chatMemoryProvider = chatId -> MessageWindowChatMemory.builder()
+                .id(chatId)
+                .maxMessages(20)
+                .chatMemoryStore(store)
+                .build();
+        EmbeddingModel embeddingModel = segments -> Response.from(segments.stream()
+                .map(segment -> Embedding.from(new float[]{1f, 0f}))
+                .toList());
+        answerCache = new SemanticAnswerCache(embeddingModel, 0.95, Duration.ofHours(1), 10, () -> 0, Clock.systemUTC());
+        when(answerCacheProvider.getIfAvailable()).thenReturn(answerCache);
+        when(bookingFastPath.answer(anyString(), anyString())).thenReturn(Optional.empty());
+        chatService = new ChatService(aiAssistant, bookingFastPath, chatMemoryProvider, answerCacheProvider, new ChatMailbox(3));
+    }
+
+    @Test
+    @DisplayName("Should replay a cached answer to a repeated policy question")
+    void shouldReplayCachedAnswer() {
+        // Given
+        when(aiAssistant.chat("chat-1", QUESTION)).thenReturn(Flux.just("Yes", ", up to ", "48 hours."));
+        chatService.chat("chat-1", QUESTION).collectList().block();
+
+        // When
+        var tokens = chatService.chat("chat-2", QUESTION).collectList().block();
+
+        // Then
+        assertThat(tokens).containsExactly("Yes", ", up to ", "48 hours.");
+        verify(aiAssistant, never()).chat(eq("chat-2"), anyString());
+        assertThat(chatMemoryProvider.get("chat-2").messages())
+                .containsExactly(UserMessage.from(QUESTION), AiMessage.from("Yes, up to 48 hours."));
+        assertThat(answerCache.hits()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should not cache an answer that used a tool")
+    void shouldBypassCacheAfterToolUse() {
+        // Given
+        when(aiAssistant.chat("chat-1", QUESTION)).thenReturn(Flux.defer(() -> {
+            chatMemoryProvider.get("chat-1").add(UserMessage.from(QUESTION));
+            chatMemoryProvider.get("chat-1").add(AiMessage.from(ToolExecutionRequest.builder()
+                    .name("getBookingDetails")
+                    .arguments("{}")
+                    .build()));
+            return Flux.just("Your booking can be cancelled.");
+        }));
+
+        // When
+        chatService.chat("chat-1", QUESTION).collectList().block();
+
+        // Then
+        assertThat(answerCache.size()).isZero();
+        assertThat(answerCache.misses()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should neither serve nor cache answers in chats with earlier messages")
+    void shouldBypassCacheWithEarlierMessages() {
+        // Given
+        when(aiAssistant.chat("chat-1", QUESTION)).thenReturn(Flux.just("Yes, up to 48 hours."));
+        chatService.chat("chat-1", QUESTION).collectList().block();
+        chatMemoryProvider.get("chat-2").add(UserMessage.from("Hi, I'm Jane Doe"));
+        chatMemoryProvider.get("chat-2").add(AiMessage.from("Hello Jane! How can I help?"));
+        when(aiAssistant.chat("chat-2", QUESTION)).thenReturn(Flux.just("Yes Jane, up to 48 hours."));
+
+        // When
+        var tokens = chatService.chat("chat-2", QUESTION).collectList().block();
+
+        // Then
+        assertThat(tokens).containsExactly("Yes Jane, up to 48 hours.");
+        assertThat(answerCache.hits()).isZero();
+        assertThat(answerCache.size()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should stream fast path replies word by word without the assistant")
+    void shouldStreamFastPathReplies() {
+        // Given
+        when(bookingFastPath.answer("chat-1", "show BK101 for John Doe"))
+                .thenReturn(Optional.of("Here are the details of booking BK101."));
+
+        // When
+        var tokens = chatService.chat("chat-1", "show BK101 for John Doe").collectList().block();
+
+        // Then
+        assertThat(tokens).containsExactly("Here ", "are ", "the ", "details ", "of ", "booking ", "BK101.");
+        verifyNoInteractions(aiAssistant);
+    }
+}
@@ -0,0 +1,230 @@
+package com.bookingchatbot.service;
+
+import com.bookingchatbot.exception.BookingNotFoundException;
+import com.bookingchatbot.exception.IdempotencyKeyReuseException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for IdempotencyCache.
+ */
+@DisplayName("Idempotency Cache Tests")
+class IdempotencyCacheTest {
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2026-05-01T10:00:00Z"));
+    private final IdempotencyCache cache = new IdempotencyCache(Duration.ofHours(1), 100, clock);
+    private final AtomicInteger runs = new AtomicInteger();
+
+    @Test
+    @DisplayName("Should run the operation once per key and answer retries with its result")
+    void shouldReplayResult() {
+        // When
+        String first = cache.execute("key-1", "cancel BK101", () -> "cancelled #" + runs.incrementAndGet());
+        String retry = cache.execute("key-1", "cancel BK101", () -> "cancelled #" + runs.incrementAndGet());
+        String other = cache.execute("key-2", "cancel BK101", () -> "cancelled #" + runs.incrementAndGet());
+
+        // Then
+        assertThat(first).isEqualTo("cancelled #1");
+        assertThat(retry).isEqualTo("cancelled #1");
+        assertThat(other).isEqualTo("cancelled #2");
+        assertThat(cache.executed()).isEqualTo(2);
+        assertThat(cache.replayed()).isEqualTo(1);
+        assertThat(cache.size()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should let retries arriving during the first attempt wait for its result")
+    void shouldRunOnceUnderConcurrentRetries() throws Exception {
+        // Given
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> results = new ArrayList<>();
+        Thread first = Thread.ofPlatform().start(() -> {
+            String result = cache.execute("key-1", "change BK101", () -> {
+                started.countDown();
+                await(release);
+                return "changed #" + runs.incrementAndGet();
+            });
+            synchronized (results) {
+                results.add(result);
+            }
+        });
+        started.await();
+        List<Thread> retries = new ArrayList<>();
+
+        // When
+        for (int i = 0; i < 4; i++) {
+            retries.add(Thread.ofPlatform().start(() -> {
+                String result = cache.execute("key-1", "change BK101", () -> "changed #" + runs.incrementAndGet());
+                synchronized (results) {
+                    results.add(result);
+                }
+            }));
+        }
+        while (cache.replayed() < 4) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+        first.join();
+        for (Thread retry : retries) {
+            retry.join();
+        }
+
+        // Then
+        assertThat(runs).hasValue(1);
+        assertThat(results).hasSize(5).containsOnly("changed #1");
+    }
+
+    @Test
+    @DisplayName("Should answer retries with a business failure but run again after any other failure")
+    void shouldKeepBusinessFailuresOnly() {
+        // When
+        Throwable notFound = catchThrowable(() -> cache.execute("key-1", "cancel BK999", () -> {
+            runs.incrementAndGet();
+            throw new BookingNotFoundException("Booking not found: BK999");
+        }));
+        Throwable retriedNotFound = catchThrowable(() -> cache.execute("key-1", "cancel BK999", () -> {
+            runs.incrementAndGet();
+            return "cancelled";
+        }));
+        Throwable failed = catchThrowable(() -> cache.execute("key-2", "cancel BK101", () -> {
+            runs.incrementAndGet();
+            throw new IllegalStateException("repository unavailable");
+        }));
+        String retried = cache.execute("key-2", "cancel BK101", () -> "cancelled #" + runs.incrementAndGet());
+
+        // Then
+        assertThat(notFound).isInstanceOf(BookingNotFoundException.class);
+        assertThat(retriedNotFound).isSameAs(notFound);
+        assertThat(failed).isInstanceOf(IllegalStateException.class);
+        assertThat(retried).isEqualTo("cancelled #3");
+        assertThat(cache.size()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should forget keys once the TTL has passed")
+    void shouldExpireKeys() {
+        // Given
+        cache.execute("key-1", "cancel BK101", () -> "cancelled #" + runs.incrementAndGet());
+        clock.instant = clock.instant.plus(Duration.ofMinutes(59));
+        String withinTtl = cache.execute("key-1", "cancel BK101", () -> "cancelled #" + runs.incrementAndGet());
+
+        // When
+        clock.instant = clock.instant.plus(Duration.ofMinutes(1));
+        String afterTtl = cache.execute("key-1", "cancel BK101", () -> "cancelled #" + runs.incrementAndGet());
+
+        // Then
+        assertThat(withinTtl).isEqualTo("cancelled #1");
+        assertThat(afterTtl).isEqualTo("cancelled #2");
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should drop the oldest keys beyond the maximum number of entries")
+    void shouldBoundEntries() {
+        // Given
+        IdempotencyCache small = new IdempotencyCache(Duration.ofHours(1), 3, clock);
+
+        // When
+        for (int i = 1; i <= 5; i++) {
+            int booking = i;
+            small.execute("key-" + i, "cancel BK10" + i, () -> booking);
+        }
+        int oldest = small.execute("key-1", "cancel BK101", () -> -1);
+        int newest = small.execute("key-5", "cancel BK105", () -> -1);
+
+        // Then
+        assertThat(small.size()).isEqualTo(3);
+        assertThat(oldest).isEqualTo(-1);
+        assertThat(newest).isEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("Should keep a running key beyond the maximum number of entries")
+    void shouldNotDropRunningKeys() throws Exception {
+        // Given
+        IdempotencyCache small = new IdempotencyCache(Duration.ofHours(1), 1, clock);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread first = Thread.ofPlatform().start(() -> small.execute("key-1", "change BK101", () -> {
+            started.countDown();
+            await(release);
+            return "changed #" + runs.incrementAndGet();
+        }));
+        started.await();
+
+        // When
+        small.execute("key-2", "change BK102", () -> "changed BK102");
+        small.execute("key-3", "change BK103", () -> "changed BK103");
+        List<String> retried = new ArrayList<>();
+        Thread retry = Thread.ofPlatform().start(() -> retried.add(
+                small.execute("key-1", "change BK101", () -> "changed #" + runs.incrementAndGet())));
+        while (small.replayed() < 1 && retry.isAlive()) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+        first.join();
+        retry.join();
+
+        // Then
+        assertThat(runs).hasValue(1);
+        assertThat(retried).containsExactly("changed #1");
+    }
+
+    @Test
+    @DisplayName("Should reject a key used again for a different request")
+    void shouldRejectKeyReuse() {
+        // Given
+        cache.execute("key-1", List.of("cancel", "BK101"), () -> "cancelled #" + runs.incrementAndGet());
+
+        // When & Then
+        assertThatThrownBy(() -> cache.execute("key-1", List.of("cancel", "BK102"), () -> "cancelled"))
+                .isInstanceOf(IdempotencyKeyReuseException.class)
+                .hasMessageContaining("key-1");
+        assertThat(runs).hasValue(1);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class MutableClock extends Clock {
+
+        Instant instant;
+
+        MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}